@@ -1,13 +1,154 @@
 package main;
 
-import org.antlr.v4.runtime.CharStream;
+import main.ast.compact.CompactAstSerializer;
+import main.backend.c.CBackend;
+import main.backend.jvm.JvmBackend;
+import main.ast.nodes.Program;
+import main.ir.IrPrinter;
+import main.batch.BatchChecker;
+import main.visitor.name.ASTTreePrinter;
+import main.vm.BytecodeCompiler;
+import main.watch.WatchCompiler;
 import org.antlr.v4.runtime.CharStreams;
 import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 
+//usage: Cmm --watch <file or directory>...
+//       Cmm [--run [--engine interpreter|jvm|c|vm|closure|ir]] [--jvm-out <directory>] [--c-out <executable>]
+//           [--optimize [--optimize-report] [--dump-optimized-ast <output.txt>]] [--dump-bytecode <output.txt>]
+//           [--dump-ir <output.txt>]
+//           [--batch] [--parallel] [--stream-parse] [--fast-lexer] [--profile-parser] [--write-ast <output.cmmast>]
+//           [--dump-ast <output.txt> [--ast-format text|compact]] <input.cmm | input.cmmast>
 public class Cmm {
     public static void main(String[] args) throws IOException {
-        CharStream reader = CharStreams.fromFileName(args[0]);
+        ArrayList<String> inputFiles = new ArrayList<>();
+        String astOutputFile = null;
+        String astDumpFile = null;
+        ASTTreePrinter.Format astDumpFormat = ASTTreePrinter.Format.TEXT;
+        boolean fastLexer = false;
+        boolean profileParser = false;
+        boolean batch = false;
+        boolean streamParse = false;
+        boolean watch = false;
+        boolean parallel = false;
+        boolean run = false;
+        CmmCompiler.Engine engine = CmmCompiler.Engine.INTERPRETER;
+        String jvmOutputDirectory = null;
+        String cOutputFile = null;
+        String bytecodeDumpFile = null;
+        String irDumpFile = null;
+        boolean optimize = false;
+        boolean optimizationReport = false;
+        String optimizedAstDumpFile = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--fast-lexer"))
+                fastLexer = true;
+            else if (args[i].equals("--batch"))
+                batch = true;
+            else if (args[i].equals("--watch"))
+                watch = true;
+            else if (args[i].equals("--run"))
+                run = true;
+            else if (args[i].equals("--parallel"))
+                parallel = true;
+            else if (args[i].equals("--stream-parse"))
+                streamParse = true;
+            else if (args[i].equals("--profile-parser"))
+                profileParser = true;
+            else if (args[i].equals("--write-ast") && i + 1 < args.length)
+                astOutputFile = args[++i];
+            else if (args[i].equals("--dump-ast") && i + 1 < args.length)
+                astDumpFile = args[++i];
+            else if (args[i].equals("--engine") && i + 1 < args.length)
+                engine = CmmCompiler.Engine.valueOf(args[++i].toUpperCase());
+            else if (args[i].equals("--jvm-out") && i + 1 < args.length)
+                jvmOutputDirectory = args[++i];
+            else if (args[i].equals("--c-out") && i + 1 < args.length)
+                cOutputFile = args[++i];
+            else if (args[i].equals("--optimize"))
+                optimize = true;
+            else if (args[i].equals("--optimize-report"))
+                optimizationReport = true;
+            else if (args[i].equals("--dump-optimized-ast") && i + 1 < args.length)
+                optimizedAstDumpFile = args[++i];
+            else if (args[i].equals("--dump-bytecode") && i + 1 < args.length)
+                bytecodeDumpFile = args[++i];
+            else if (args[i].equals("--dump-ir") && i + 1 < args.length)
+                irDumpFile = args[++i];
+            else if (args[i].equals("--ast-format") && i + 1 < args.length)
+                astDumpFormat = ASTTreePrinter.Format.valueOf(args[++i].toUpperCase());
+            else
+                inputFiles.add(args[i]);
+        }
+
+        if (watch) {
+            ArrayList<Path> roots = new ArrayList<>();
+            for (String input : inputFiles)
+                roots.add(Path.of(input));
+            try {
+                new WatchCompiler(roots).run();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return;
+        }
+        String inputFile = inputFiles.get(inputFiles.size() - 1);
+
+        //low-memory check of a source file, see BatchChecker
+        if (batch) {
+            if (new BatchChecker().check(Path.of(inputFile)) > 0)
+                System.exit(1);
+            System.out.println("Compilation successful");
+            return;
+        }
+
         CmmCompiler cmmCompiler = new CmmCompiler();
-        cmmCompiler.compile(reader);
+        cmmCompiler.setFastLexer(fastLexer);
+        cmmCompiler.setProfileParser(profileParser);
+        cmmCompiler.setParallelNameAnalysis(parallel);
+        cmmCompiler.setParallelTypeCheck(parallel);
+        cmmCompiler.setRun(run);
+        cmmCompiler.setEngine(engine);
+        cmmCompiler.setOptimize(optimize);
+        cmmCompiler.setOptimizationReport(optimizationReport);
+        Program program;
+        if (inputFile.endsWith(CompactAstSerializer.EXTENSION))
+            program = CompactAstSerializer.read(Path.of(inputFile));
+        else if (streamParse)
+            program = cmmCompiler.parseStreaming(Files.newBufferedReader(Path.of(inputFile)), inputFile);
+        else
+            program = cmmCompiler.parse(CharStreams.fromFileName(inputFile));
+        if (astOutputFile != null)
+            CompactAstSerializer.write(program, Path.of(astOutputFile));
+        if (astDumpFile != null) {
+            try (Writer writer = Files.newBufferedWriter(Path.of(astDumpFile))) {
+                program.accept(new ASTTreePrinter(writer, astDumpFormat));
+            }
+        }
+        cmmCompiler.compile(program);
+        //compile() only returns for a program without errors
+        if (optimizedAstDumpFile != null) {
+            try (Writer writer = Files.newBufferedWriter(Path.of(optimizedAstDumpFile))) {
+                program.accept(new ASTTreePrinter(writer, astDumpFormat));
+            }
+        }
+        if (jvmOutputDirectory != null)
+            JvmBackend.compile(program).write(Path.of(jvmOutputDirectory));
+        if (cOutputFile != null)
+            CBackend.compile(program).build(Path.of(cOutputFile));
+        if (bytecodeDumpFile != null) {
+            try (PrintStream out = new PrintStream(Files.newOutputStream(Path.of(bytecodeDumpFile)))) {
+                BytecodeCompiler.compile(program).dump(out);
+            }
+        }
+        if (irDumpFile != null) {
+            try (PrintStream out = new PrintStream(Files.newOutputStream(Path.of(irDumpFile)))) {
+                new IrPrinter(out).print(cmmCompiler.lowerToIr(program));
+            }
+        }
     }
 }
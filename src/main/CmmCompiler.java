@@ -1,35 +1,232 @@
 package main;
 
+import main.backend.c.CBackend;
+import main.backend.jvm.JvmBackend;
+import main.batch.StreamingParser;
+import main.closure.ClosureEngine;
+import main.compileError.CompileError;
+import main.interpreter.CmmRuntimeError;
+import main.interpreter.Interpreter;
+import main.ir.IrBuilder;
+import main.ir.IrInterpreter;
+import main.ir.IrProgram;
+import main.ir.PassManager;
+import main.lexer.FastCmmLexer;
+import main.profiling.ParserProfileReport;
 import main.visitor.*;
+import main.vm.BytecodeCompiler;
+import main.vm.VirtualMachine;
+import main.visitor.fusion.ErrorCollectingPass;
+import main.visitor.fusion.ErrorReportingPass;
+import main.visitor.fusion.FusedTraversal;
 import main.visitor.name.*;
+import main.visitor.optimize.Optimizer;
 import main.visitor.type.*;
 import parsers.*;
 import main.ast.nodes.Program;
 import org.antlr.v4.runtime.*;
+import java.io.*;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 public class CmmCompiler {
-    public void compile(CharStream textStream) {
-        CmmLexer cmmLexer = new CmmLexer(textStream);
-        CommonTokenStream tokenStream = new CommonTokenStream(cmmLexer);
+    //what runs a compiled program
+    public enum Engine {
+        INTERPRETER, JVM, C, VM, CLOSURE, IR
+    }
+
+    private boolean fastLexer = false;
+    private boolean profileParser = false;
+    private ANTLRErrorListener syntaxErrorListener = null;
+    private boolean parallelTypeCheck = false;
+    private boolean parallelNameAnalysis = false;
+    private boolean run = false;
+    private boolean optimize = false;
+    private boolean optimizationReport = false;
+    private Engine engine = Engine.INTERPRETER;
+
+    //lex with FastCmmLexer instead of CmmLexer
+    public void setFastLexer(boolean fastLexer) {
+        this.fastLexer = fastLexer;
+    }
+
+    //run the parser with ANTLR's profiling simulator and print a per-decision report after parsing
+    public void setProfileParser(boolean profileParser) {
+        this.profileParser = profileParser;
+    }
+
+    //receives the syntax errors of CmmLexer and CmmParser instead of the console
+    public void setSyntaxErrorListener(ANTLRErrorListener syntaxErrorListener) {
+        this.syntaxErrorListener = syntaxErrorListener;
+    }
+
+    //check function bodies concurrently with a ParallelTypeChecker
+    public void setParallelTypeCheck(boolean parallelTypeCheck) {
+        this.parallelTypeCheck = parallelTypeCheck;
+    }
+
+    //analyse struct bodies concurrently during name analysis
+    public void setParallelNameAnalysis(boolean parallelNameAnalysis) {
+        this.parallelNameAnalysis = parallelNameAnalysis;
+    }
+
+    //run the program with the engine once it compiles, instead of printing the success message
+    public void setRun(boolean run) {
+        this.run = run;
+    }
+
+    public void setEngine(Engine engine) {
+        this.engine = engine;
+    }
+
+    //rewrite a program that type checks with the passes of Optimizer.standard(), and its IR with the ones
+    //of PassManager.standard()
+    public void setOptimize(boolean optimize) {
+        this.optimize = optimize;
+    }
+
+    //print what every optimization pass did to System.err
+    public void setOptimizationReport(boolean optimizationReport) {
+        this.optimizationReport = optimizationReport;
+    }
+
+    private NameAnalyser nameAnalyser() {
+        return parallelNameAnalysis ? new NameAnalyser(ForkJoinPool.commonPool()) : new NameAnalyser();
+    }
+
+    private void typeCheck(Program program) {
+        if (parallelTypeCheck)
+            new ParallelTypeChecker().check(program);
+        else
+            program.accept(new TypeChecker());
+    }
+
+    private void optimize(Program program) {
+        if (!optimize)
+            return;
+        Optimizer optimizer = Optimizer.standard();
+        optimizer.run(program);
+        if (optimizationReport)
+            optimizer.printReport(System.err);
+    }
+
+    //the program in SSA form, optimized when optimize is set; see IrBuilder
+    public IrProgram lowerToIr(Program program) {
+        IrProgram irProgram = IrBuilder.lower(program);
+        if (!optimize)
+            return irProgram;
+        PassManager passManager = PassManager.standard();
+        passManager.run(irProgram);
+        if (optimizationReport)
+            passManager.printReport(System.err);
+        return irProgram;
+    }
+
+    public Program parse(CharStream textStream) {
+        TokenSource tokenSource = fastLexer ? FastCmmLexer.lex(textStream).asTokenSource() : new CmmLexer(textStream);
+        CommonTokenStream tokenStream = new CommonTokenStream(tokenSource);
         CmmParser cmmParser = new CmmParser(tokenStream);
+        if (syntaxErrorListener != null) {
+            if (tokenSource instanceof Lexer) {
+                ((Lexer) tokenSource).removeErrorListeners();
+                ((Lexer) tokenSource).addErrorListener(syntaxErrorListener);
+            }
+            cmmParser.removeErrorListeners();
+            cmmParser.addErrorListener(syntaxErrorListener);
+        }
+        if (!profileParser)
+            return cmmParser.cmm().cmmProgram;
+
+        cmmParser.setProfile(true);
+        long start = System.nanoTime();
         Program program = cmmParser.cmm().cmmProgram;
-        ErrorReporter errorReporter = new ErrorReporter();
+        new ParserProfileReport(cmmParser, System.nanoTime() - start).print(System.out);
+        return program;
+    }
+
+    //parses with a StreamingParser, token memory doesn't grow with the length of the input
+    public Program parseStreaming(Reader reader, String sourceName) {
+        return StreamingParser.create(reader, sourceName).cmm().cmmProgram;
+    }
+
+    //name analysis and, when it finds nothing, type checking and the optimizations; the errors are
+    //returned in the order compile() would print them instead of ending the program
+    public ArrayList<CompileError> check(Program program) {
+        ErrorCollectingPass errorCollectingPass = new ErrorCollectingPass();
+        FusedTraversal errorCollector = new FusedTraversal(errorCollectingPass);
+
+        program.accept(nameAnalyser());
+        errorCollector.run(program);
+        if (!errorCollectingPass.getErrors().isEmpty())
+            return errorCollectingPass.getErrors();
+
+        typeCheck(program);
+        errorCollector.run(program);
+        if (errorCollectingPass.getErrors().isEmpty())
+            optimize(program);
+        return errorCollectingPass.getErrors();
+    }
+
+    //runs a compiled program with the engine; runtime errors are thrown as CmmRuntimeError
+    public void run(Program program, PrintStream out) {
+        switch (engine) {
+            case JVM:
+                JvmBackend.compile(program).run(out);
+                break;
+            case C:
+                CBackend.compile(program).run(out);
+                break;
+            case VM:
+                new VirtualMachine(out).run(BytecodeCompiler.compile(program));
+                break;
+            case CLOSURE:
+                new ClosureEngine(out).run(program);
+                break;
+            case IR:
+                new IrInterpreter(out).run(lowerToIr(program));
+                break;
+            default:
+                new Interpreter(out).run(program);
+                break;
+        }
+    }
+
+    //runs a compiled program; a runtime error ends it after its output so far
+    public void execute(Program program) {
+        PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16), false);
+        try {
+            run(program, out);
+        } catch (CmmRuntimeError e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    public void compile(CharStream textStream) {
+        compile(parse(textStream));
+    }
+
+    public void compile(Program program) {
+        ErrorReportingPass errorReportingPass = new ErrorReportingPass();
+        FusedTraversal errorReporter = new FusedTraversal(errorReportingPass);
 
-        NameAnalyser nameAnalyser = new NameAnalyser();
-        program.accept(nameAnalyser);
+        program.accept(nameAnalyser());
 
-        int numberOfErrors = program.accept(errorReporter);
-        if(numberOfErrors > 0)
+        errorReporter.run(program);
+        if(errorReportingPass.getNumberOfErrors() > 0)
             System.exit(1);
 
-        TypeChecker typeChecker = new TypeChecker();
-        program.accept(typeChecker);
+        typeCheck(program);
 
-        numberOfErrors = program.accept(errorReporter);
-        if(numberOfErrors > 0)
+        errorReporter.run(program);
+        if(errorReportingPass.getNumberOfErrors() > 0)
             System.exit(1);
 
+        optimize(program);
+        if (run) {
+            execute(program);
+            return;
+        }
         System.out.println("Compilation successful");
 
 //        ASTTreePrinter astTreePrinter = new ASTTreePrinter();
@@ -0,0 +1,429 @@
+package main.ast.compact;
+
+import main.ast.nodes.Node;
+import main.ast.nodes.NodeKind;
+import main.ast.nodes.Program;
+import main.ast.nodes.declaration.FunctionDeclaration;
+import main.ast.nodes.declaration.MainDeclaration;
+import main.ast.nodes.declaration.VariableDeclaration;
+import main.ast.nodes.declaration.struct.StructDeclaration;
+import main.ast.nodes.expression.*;
+import main.ast.nodes.expression.operators.BinaryOperator;
+import main.ast.nodes.expression.operators.UnaryOperator;
+import main.ast.nodes.expression.values.primitive.BoolValue;
+import main.ast.nodes.expression.values.primitive.IntValue;
+import main.ast.nodes.statement.*;
+import main.ast.types.Type;
+import main.visitor.IVisitor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+//Flat encoding of an AST: node i is described by kinds[i], lines[i], payloads[i] and the child indices
+//children[childStarts[i] .. childStarts[i] + childCounts[i]). A missing optional child is stored as ABSENT.
+//Nodes are stored in post-order, so the subtree of node i is the contiguous range that ends at i.
+//
+//payload: BinaryOperator/UnaryOperator ordinal, int constant, 0/1 for bools and do-while loops, index into names for
+//identifiers (names are interned), index into types for declarations and number of structs for Program.
+//
+//children, in this order:
+//Program: structs, functions, main          FunctionDeclaration: name, args, body
+//MainDeclaration: body                      VariableDeclaration: name, default value
+//StructDeclaration: name, body              SetGetVarDeclaration: name, args, setter body, getter body
+//AssignmentStmt: lValue, rValue             ConditionalStmt: condition, then body, else body
+//LoopStmt: condition, body                  BlockStmt, VarDecStmt, ExprInPar: every element
+//FunctionCall: instance, args               other nodes: their operands in getter order
+//
+//walk() reads the arrays directly; accept() and toProgram() build object nodes for visitors of the object AST.
+public class CompactAst {
+    public static final int ABSENT = -1;
+
+    //enter is called on a node before its children and leave after them; children are skipped when enter
+    //returns false
+    public interface Walker {
+        boolean enter(CompactAst ast, int node);
+
+        default void leave(CompactAst ast, int node) {
+        }
+    }
+
+    private static final NodeKind[] nodeKinds = NodeKind.values();
+    private static final BinaryOperator[] binaryOperators = BinaryOperator.values();
+    private static final UnaryOperator[] unaryOperators = UnaryOperator.values();
+
+    private int size = 0;
+    private int[] kinds = new int[64];
+    private int[] lines = new int[64];
+    private int[] payloads = new int[64];
+    private int[] childStarts = new int[64];
+    private int[] childCounts = new int[64];
+
+    private int childrenSize = 0;
+    private int[] children = new int[64];
+
+    private final ArrayList<String> names = new ArrayList<>();
+    private final HashMap<String, Integer> nameIndices = new HashMap<>();
+    private final ArrayList<Type> types = new ArrayList<>();
+
+    public CompactAst() {
+    }
+
+    //used by CompactAstSerializer, takes ownership of the arrays
+    CompactAst(int size, int[] kinds, int[] lines, int[] payloads, int[] childStarts, int[] childCounts,
+               int[] children, ArrayList<String> names, ArrayList<Type> types) {
+        this.size = size;
+        this.kinds = kinds;
+        this.lines = lines;
+        this.payloads = payloads;
+        this.childStarts = childStarts;
+        this.childCounts = childCounts;
+        this.childrenSize = children.length;
+        this.children = children;
+        this.names.addAll(names);
+        this.types.addAll(types);
+        for (int i = 0; i < names.size(); i++)
+            nameIndices.put(names.get(i), i);
+    }
+
+    int addNode(NodeKind kind, int line, int payload, int... nodeChildren) {
+        if (size == kinds.length) {
+            int capacity = size * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            lines = Arrays.copyOf(lines, capacity);
+            payloads = Arrays.copyOf(payloads, capacity);
+            childStarts = Arrays.copyOf(childStarts, capacity);
+            childCounts = Arrays.copyOf(childCounts, capacity);
+        }
+        if (childrenSize + nodeChildren.length > children.length)
+            children = Arrays.copyOf(children, Math.max(children.length * 2, childrenSize + nodeChildren.length));
+        System.arraycopy(nodeChildren, 0, children, childrenSize, nodeChildren.length);
+        kinds[size] = kind.ordinal();
+        lines[size] = line;
+        payloads[size] = payload;
+        childStarts[size] = childrenSize;
+        childCounts[size] = nodeChildren.length;
+        childrenSize += nodeChildren.length;
+        return size++;
+    }
+
+    int addName(String name) {
+        Integer index = nameIndices.get(name);
+        if (index == null) {
+            index = names.size();
+            names.add(name);
+            nameIndices.put(name, index);
+        }
+        return index;
+    }
+
+    int addType(Type type) {
+        types.add(type);
+        return types.size() - 1;
+    }
+
+    int[] getKinds() {
+        return kinds;
+    }
+
+    int[] getLines() {
+        return lines;
+    }
+
+    int[] getPayloads() {
+        return payloads;
+    }
+
+    int[] getChildStarts() {
+        return childStarts;
+    }
+
+    int[] getChildCounts() {
+        return childCounts;
+    }
+
+    int[] getChildren() {
+        return children;
+    }
+
+    int getChildrenSize() {
+        return childrenSize;
+    }
+
+    ArrayList<String> getNames() {
+        return names;
+    }
+
+    ArrayList<Type> getTypes() {
+        return types;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    //the root is the last node stored
+    public int getRoot() {
+        return size - 1;
+    }
+
+    public NodeKind getKind(int node) {
+        return nodeKinds[kinds[node]];
+    }
+
+    public int getLine(int node) {
+        return lines[node];
+    }
+
+    public int getPayload(int node) {
+        return payloads[node];
+    }
+
+    public int getChildCount(int node) {
+        return childCounts[node];
+    }
+
+    public int getChild(int node, int index) {
+        return children[childStarts[node] + index];
+    }
+
+    public String getName(int node) {
+        return names.get(payloads[node]);
+    }
+
+    public Type getType(int node) {
+        return types.get(payloads[node]);
+    }
+
+    //pre-order walk of the subtree of node, over the arrays and with an explicit stack, so it builds no
+    //object nodes and the depth of the tree doesn't grow the thread stack; ABSENT children are skipped
+    public void walk(int node, Walker walker) {
+        int[] nodes = new int[16];
+        int[] nextChildren = new int[16];
+        int top = 0;
+        if (!walker.enter(this, node)) {
+            walker.leave(this, node);
+            return;
+        }
+        nodes[0] = node;
+        nextChildren[0] = 0;
+        while (top >= 0) {
+            int current = nodes[top];
+            int next = nextChildren[top];
+            if (next == childCounts[current]) {
+                walker.leave(this, current);
+                top--;
+                continue;
+            }
+            nextChildren[top] = next + 1;
+            int child = getChild(current, next);
+            if (child == ABSENT)
+                continue;
+            if (!walker.enter(this, child)) {
+                walker.leave(this, child);
+                continue;
+            }
+            if (++top == nodes.length) {
+                nodes = Arrays.copyOf(nodes, top * 2);
+                nextChildren = Arrays.copyOf(nextChildren, top * 2);
+            }
+            nodes[top] = child;
+            nextChildren[top] = 0;
+        }
+    }
+
+    public Program toProgram() {
+        return (Program) materialize(getRoot());
+    }
+
+    //builds the object nodes of the subtree rooted at node, so visitors written against the object AST
+    //can walk one part of the compact tree at a time
+    public <T> T accept(int node, IVisitor<T> visitor) {
+        return materialize(node).accept(visitor);
+    }
+
+    public Node materialize(int node) {
+        int first = getSubtreeStart(node);
+        Node[] built = new Node[node - first + 1];
+        for (int current = first; current <= node; current++)
+            built[current - first] = build(current, built, first);
+        return built[node - first];
+    }
+
+    //the subtree of node is the range getSubtreeStart(node) .. node, which a post-order scan can loop over
+    public int getSubtreeStart(int node) {
+        int first = node;
+        boolean descended = true;
+        while (descended) {
+            descended = false;
+            for (int i = 0; i < childCounts[first]; i++) {
+                int child = getChild(first, i);
+                if (child != ABSENT) {
+                    first = child;
+                    descended = true;
+                    break;
+                }
+            }
+        }
+        return first;
+    }
+
+    private Node build(int node, Node[] built, int first) {
+        Node result;
+        int count = childCounts[node];
+        switch (getKind(node)) {
+            case PROGRAM: {
+                Program program = new Program();
+                int structCount = payloads[node];
+                for (int i = 0; i < structCount; i++)
+                    program.addStruct((StructDeclaration) child(node, i, built, first));
+                for (int i = structCount; i < count - 1; i++)
+                    program.addFunction((FunctionDeclaration) child(node, i, built, first));
+                program.setMain((MainDeclaration) child(node, count - 1, built, first));
+                result = program;
+                break;
+            }
+            case FUNCTION_DECLARATION: {
+                FunctionDeclaration functionDec = new FunctionDeclaration();
+                functionDec.setReturnType(getType(node));
+                functionDec.setFunctionName((Identifier) child(node, 0, built, first));
+                for (int i = 1; i < count - 1; i++)
+                    functionDec.addArg((VariableDeclaration) child(node, i, built, first));
+                functionDec.setBody((Statement) child(node, count - 1, built, first));
+                result = functionDec;
+                break;
+            }
+            case MAIN_DECLARATION: {
+                MainDeclaration mainDec = new MainDeclaration();
+                mainDec.setBody((Statement) child(node, 0, built, first));
+                result = mainDec;
+                break;
+            }
+            case VARIABLE_DECLARATION: {
+                VariableDeclaration variableDec = new VariableDeclaration((Identifier) child(node, 0, built, first), getType(node));
+                variableDec.setDefaultValue((Expression) child(node, 1, built, first));
+                result = variableDec;
+                break;
+            }
+            case STRUCT_DECLARATION: {
+                StructDeclaration structDec = new StructDeclaration();
+                structDec.setStructName((Identifier) child(node, 0, built, first));
+                structDec.setBody((Statement) child(node, 1, built, first));
+                result = structDec;
+                break;
+            }
+            case SET_GET_VAR_DECLARATION: {
+                SetGetVarDeclaration setGetVarDec = new SetGetVarDeclaration();
+                setGetVarDec.setVarType(getType(node));
+                setGetVarDec.setVarName((Identifier) child(node, 0, built, first));
+                for (int i = 1; i < count - 2; i++)
+                    setGetVarDec.addArg((VariableDeclaration) child(node, i, built, first));
+                setGetVarDec.setSetterBody((Statement) child(node, count - 2, built, first));
+                setGetVarDec.setGetterBody((Statement) child(node, count - 1, built, first));
+                result = setGetVarDec;
+                break;
+            }
+            case ASSIGNMENT_STMT:
+                result = new AssignmentStmt((Expression) child(node, 0, built, first), (Expression) child(node, 1, built, first));
+                break;
+            case BLOCK_STMT: {
+                BlockStmt blockStmt = new BlockStmt();
+                for (int i = 0; i < count; i++)
+                    blockStmt.addStatement((Statement) child(node, i, built, first));
+                result = blockStmt;
+                break;
+            }
+            case CONDITIONAL_STMT: {
+                ConditionalStmt conditionalStmt = new ConditionalStmt((Expression) child(node, 0, built, first));
+                conditionalStmt.setThenBody((Statement) child(node, 1, built, first));
+                conditionalStmt.setElseBody((Statement) child(node, 2, built, first));
+                result = conditionalStmt;
+                break;
+            }
+            case FUNCTION_CALL_STMT:
+                result = new FunctionCallStmt((FunctionCall) child(node, 0, built, first));
+                break;
+            case DISPLAY_STMT:
+                result = new DisplayStmt((Expression) child(node, 0, built, first));
+                break;
+            case RETURN_STMT: {
+                ReturnStmt returnStmt = new ReturnStmt();
+                returnStmt.setReturnedExpr((Expression) child(node, 0, built, first));
+                result = returnStmt;
+                break;
+            }
+            case LOOP_STMT: {
+                LoopStmt loopStmt = new LoopStmt();
+                loopStmt.setDoWhile(payloads[node] != 0);
+                loopStmt.setCondition((Expression) child(node, 0, built, first));
+                loopStmt.setBody((Statement) child(node, 1, built, first));
+                result = loopStmt;
+                break;
+            }
+            case VAR_DEC_STMT: {
+                VarDecStmt varDecStmt = new VarDecStmt();
+                for (int i = 0; i < count; i++)
+                    varDecStmt.addVar((VariableDeclaration) child(node, i, built, first));
+                result = varDecStmt;
+                break;
+            }
+            case LIST_APPEND_STMT:
+                result = new ListAppendStmt((ListAppend) child(node, 0, built, first));
+                break;
+            case LIST_SIZE_STMT:
+                result = new ListSizeStmt((ListSize) child(node, 0, built, first));
+                break;
+            case BINARY_EXPRESSION:
+                result = new BinaryExpression((Expression) child(node, 0, built, first), (Expression) child(node, 1, built, first),
+                        binaryOperators[payloads[node]]);
+                break;
+            case UNARY_EXPRESSION:
+                result = new UnaryExpression((Expression) child(node, 0, built, first), unaryOperators[payloads[node]]);
+                break;
+            case FUNCTION_CALL: {
+                FunctionCall funcCall = new FunctionCall((Expression) child(node, 0, built, first));
+                for (int i = 1; i < count; i++)
+                    funcCall.addArg((Expression) child(node, i, built, first));
+                result = funcCall;
+                break;
+            }
+            case IDENTIFIER:
+                result = new Identifier(getName(node));
+                break;
+            case LIST_ACCESS_BY_INDEX:
+                result = new ListAccessByIndex((Expression) child(node, 0, built, first), (Expression) child(node, 1, built, first));
+                break;
+            case STRUCT_ACCESS:
+                result = new StructAccess((Expression) child(node, 0, built, first), (Identifier) child(node, 1, built, first));
+                break;
+            case LIST_SIZE:
+                result = new ListSize((Expression) child(node, 0, built, first));
+                break;
+            case LIST_APPEND:
+                result = new ListAppend((Expression) child(node, 0, built, first), (Expression) child(node, 1, built, first));
+                break;
+            case EXPR_IN_PAR: {
+                ArrayList<Expression> inputs = new ArrayList<>();
+                for (int i = 0; i < count; i++)
+                    inputs.add((Expression) child(node, i, built, first));
+                result = new ExprInPar(inputs);
+                break;
+            }
+            case INT_VALUE:
+                result = new IntValue(payloads[node]);
+                break;
+            case BOOL_VALUE:
+                result = new BoolValue(payloads[node] != 0);
+                break;
+            default:
+                throw new IllegalStateException("Unknown node kind " + kinds[node]);
+        }
+        result.setLine(lines[node]);
+        return result;
+    }
+
+    private Node child(int node, int index, Node[] built, int first) {
+        int child = getChild(node, index);
+        return child == ABSENT ? null : built[child - first];
+    }
+}
@@ -0,0 +1,107 @@
+package main.ast.compact;
+
+import main.CmmCompiler;
+import main.ast.nodes.NodeKind;
+import main.ast.nodes.Program;
+import org.antlr.v4.runtime.CharStreams;
+
+//Heap a parsed program of n generated functions keeps as an object AST and as a CompactAst, sampled after
+//a GC, and time per node to read the compact form: a walk() that counts the nodes of each kind, a post-order
+//scan of the arrays doing the same and toProgram(), which builds the object nodes again.
+//usage: CompactAstBenchmark [functions, default 20000] [rounds, default 10]
+public class CompactAstBenchmark {
+    private static int sink;
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        String source = generate(n);
+
+        Program[] program = new Program[1];
+        long objectHeap = heap(() -> program[0] = new CmmCompiler().parse(CharStreams.fromString(source)));
+        CompactAst[] ast = new CompactAst[1];
+        long compactHeap = heap(() -> ast[0] = CompactAstBuilder.build(program[0]));
+        int nodes = ast[0].size();
+        System.out.printf("%d nodes%n", nodes);
+        System.out.printf("%-14s %12s %12s%n", "ast", "heap MB", "bytes/node");
+        System.out.printf("%-14s %12.2f %12.1f%n", "object AST", objectHeap / 1048576.0, (double) objectHeap / nodes);
+        System.out.printf("%-14s %12.2f %12.1f%n", "CompactAst", compactHeap / 1048576.0, (double) compactHeap / nodes);
+
+        System.out.printf("%-14s %12s %12s %12s%n", "", "walk ns", "scan ns", "toProgram ns");
+        //first half of the rounds is warm up
+        for (int round = 0; round < 2; round++) {
+            long walkTime = 0;
+            long scanTime = 0;
+            long toProgramTime = 0;
+            for (int i = 0; i < rounds; i++) {
+                long start = System.nanoTime();
+                sink += walk(ast[0])[NodeKind.IDENTIFIER.ordinal()];
+                walkTime += System.nanoTime() - start;
+
+                start = System.nanoTime();
+                sink += scan(ast[0])[NodeKind.IDENTIFIER.ordinal()];
+                scanTime += System.nanoTime() - start;
+
+                start = System.nanoTime();
+                sink += ast[0].toProgram().getFunctions().size();
+                toProgramTime += System.nanoTime() - start;
+            }
+            if (round == 1)
+                System.out.printf("%-14s %12.2f %12.2f %12.2f%n", "per node", (double) walkTime / nodes / rounds,
+                        (double) scanTime / nodes / rounds, (double) toProgramTime / nodes / rounds);
+        }
+        if (sink == 42)
+            System.out.println();
+    }
+
+    //the functions ParseHeapBenchmark generates
+    private static String generate(int functions) {
+        StringBuilder source = new StringBuilder();
+        for (int i = 0; i < functions; i++)
+            source.append("int f").append(i).append("(int a, bool b) begin\n")
+                    .append("    int x = a * 2 + (a - 3) / 4\n")
+                    .append("    if ~b & (x > 3 | x == 4)\n")
+                    .append("        display(-x)\n")
+                    .append("    while x < 10\n")
+                    .append("        x = x + 1\n")
+                    .append("    return x\n")
+                    .append("end\n\n");
+        return source.append("main() begin\n    display(1)\nend\n").toString();
+    }
+
+    private static int[] walk(CompactAst ast) {
+        int[] counts = new int[NodeKind.values().length];
+        ast.walk(ast.getRoot(), (walked, node) -> {
+            counts[walked.getKind(node).ordinal()]++;
+            return true;
+        });
+        return counts;
+    }
+
+    private static int[] scan(CompactAst ast) {
+        int[] counts = new int[NodeKind.values().length];
+        int root = ast.getRoot();
+        for (int node = ast.getSubtreeStart(root); node <= root; node++)
+            counts[ast.getKind(node).ordinal()]++;
+        return counts;
+    }
+
+    private interface Filler {
+        Object fill();
+    }
+
+    //bytes retained by what fill returns
+    private static long heap(Filler filler) {
+        long before = usedHeap();
+        Object kept = filler.fill();
+        long after = usedHeap();
+        sink += kept.hashCode() & 1;
+        return after - before;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
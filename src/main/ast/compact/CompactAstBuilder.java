@@ -0,0 +1,251 @@
+package main.ast.compact;
+
+import main.ast.nodes.NodeKind;
+import main.ast.nodes.Program;
+import main.ast.nodes.declaration.FunctionDeclaration;
+import main.ast.nodes.declaration.MainDeclaration;
+import main.ast.nodes.declaration.VariableDeclaration;
+import main.ast.nodes.declaration.struct.StructDeclaration;
+import main.ast.nodes.expression.*;
+import main.ast.nodes.expression.values.primitive.BoolValue;
+import main.ast.nodes.expression.values.primitive.IntValue;
+import main.ast.nodes.statement.*;
+import main.visitor.ExpressionWalker;
+import main.visitor.Visitor;
+
+import java.util.ArrayList;
+
+//Encodes an object AST into a CompactAst; every visit returns the index of the node it stored
+public class CompactAstBuilder extends Visitor<Integer> {
+    private final CompactAst compactAst = new CompactAst();
+
+    private final ExpressionWalker<Integer> operatorWalker = new ExpressionWalker<>() {
+        @Override
+        protected Integer visitLeaf(Expression expression) {
+            return expression.accept(CompactAstBuilder.this);
+        }
+
+        @Override
+        protected Integer visitBinary(BinaryExpression binaryExpression, Integer firstOperand, Integer secondOperand) {
+            return compactAst.addNode(NodeKind.BINARY_EXPRESSION, binaryExpression.getLine(),
+                    binaryExpression.getBinaryOperator().ordinal(), firstOperand, secondOperand);
+        }
+
+        @Override
+        protected Integer visitUnary(UnaryExpression unaryExpression, Integer operand) {
+            return compactAst.addNode(NodeKind.UNARY_EXPRESSION, unaryExpression.getLine(),
+                    unaryExpression.getOperator().ordinal(), operand);
+        }
+
+        @Override
+        protected Integer visitExprInPar(ExprInPar exprInPar, ArrayList<Integer> inputs) {
+            return compactAst.addNode(NodeKind.EXPR_IN_PAR, exprInPar.getLine(), 0, toArray(inputs));
+        }
+    };
+
+    public static CompactAst build(Program program) {
+        CompactAstBuilder builder = new CompactAstBuilder();
+        program.accept(builder);
+        return builder.compactAst;
+    }
+
+    private static int[] toArray(ArrayList<Integer> indices) {
+        int[] result = new int[indices.size()];
+        for (int i = 0; i < result.length; i++)
+            result[i] = indices.get(i);
+        return result;
+    }
+
+    private int optional(Expression expression) {
+        return expression == null ? CompactAst.ABSENT : expression.accept(this);
+    }
+
+    @Override
+    public Integer visit(Program program) {
+        ArrayList<Integer> children = new ArrayList<>();
+        for (StructDeclaration structDeclaration : program.getStructs())
+            children.add(structDeclaration.accept(this));
+        for (FunctionDeclaration functionDeclaration : program.getFunctions())
+            children.add(functionDeclaration.accept(this));
+        children.add(visit(program.getMain()));
+        return compactAst.addNode(NodeKind.PROGRAM, program.getLine(), program.getStructs().size(), toArray(children));
+    }
+
+    @Override
+    public Integer visit(FunctionDeclaration functionDec) {
+        ArrayList<Integer> children = new ArrayList<>();
+        children.add(functionDec.getFunctionName().accept(this));
+        for (VariableDeclaration arg : functionDec.getArgs())
+            children.add(arg.accept(this));
+        children.add(functionDec.getBody().accept(this));
+        return compactAst.addNode(NodeKind.FUNCTION_DECLARATION, functionDec.getLine(),
+                compactAst.addType(functionDec.getReturnType()), toArray(children));
+    }
+
+    @Override
+    public Integer visit(MainDeclaration mainDec) {
+        int body = mainDec.getBody().accept(this);
+        return compactAst.addNode(NodeKind.MAIN_DECLARATION, mainDec.getLine(), 0, body);
+    }
+
+    @Override
+    public Integer visit(VariableDeclaration variableDec) {
+        int name = variableDec.getVarName().accept(this);
+        int defaultValue = optional(variableDec.getDefaultValue());
+        return compactAst.addNode(NodeKind.VARIABLE_DECLARATION, variableDec.getLine(),
+                compactAst.addType(variableDec.getVarType()), name, defaultValue);
+    }
+
+    @Override
+    public Integer visit(StructDeclaration structDec) {
+        int name = structDec.getStructName().accept(this);
+        int body = structDec.getBody().accept(this);
+        return compactAst.addNode(NodeKind.STRUCT_DECLARATION, structDec.getLine(), 0, name, body);
+    }
+
+    @Override
+    public Integer visit(SetGetVarDeclaration setGetVarDec) {
+        ArrayList<Integer> children = new ArrayList<>();
+        children.add(setGetVarDec.getVarName().accept(this));
+        for (VariableDeclaration arg : setGetVarDec.getArgs())
+            children.add(arg.accept(this));
+        children.add(setGetVarDec.getSetterBody().accept(this));
+        children.add(setGetVarDec.getGetterBody().accept(this));
+        return compactAst.addNode(NodeKind.SET_GET_VAR_DECLARATION, setGetVarDec.getLine(),
+                compactAst.addType(setGetVarDec.getVarType()), toArray(children));
+    }
+
+    @Override
+    public Integer visit(AssignmentStmt assignmentStmt) {
+        int lValue = assignmentStmt.getLValue().accept(this);
+        int rValue = assignmentStmt.getRValue().accept(this);
+        return compactAst.addNode(NodeKind.ASSIGNMENT_STMT, assignmentStmt.getLine(), 0, lValue, rValue);
+    }
+
+    @Override
+    public Integer visit(BlockStmt blockStmt) {
+        ArrayList<Integer> children = new ArrayList<>();
+        for (Statement stmt : blockStmt.getStatements())
+            children.add(stmt.accept(this));
+        return compactAst.addNode(NodeKind.BLOCK_STMT, blockStmt.getLine(), 0, toArray(children));
+    }
+
+    @Override
+    public Integer visit(ConditionalStmt conditionalStmt) {
+        int condition = conditionalStmt.getCondition().accept(this);
+        int thenBody = conditionalStmt.getThenBody().accept(this);
+        int elseBody = conditionalStmt.getElseBody() == null ? CompactAst.ABSENT : conditionalStmt.getElseBody().accept(this);
+        return compactAst.addNode(NodeKind.CONDITIONAL_STMT, conditionalStmt.getLine(), 0, condition, thenBody, elseBody);
+    }
+
+    @Override
+    public Integer visit(FunctionCallStmt functionCallStmt) {
+        int functionCall = functionCallStmt.getFunctionCall().accept(this);
+        return compactAst.addNode(NodeKind.FUNCTION_CALL_STMT, functionCallStmt.getLine(), 0, functionCall);
+    }
+
+    @Override
+    public Integer visit(DisplayStmt displayStmt) {
+        int arg = displayStmt.getArg().accept(this);
+        return compactAst.addNode(NodeKind.DISPLAY_STMT, displayStmt.getLine(), 0, arg);
+    }
+
+    @Override
+    public Integer visit(ReturnStmt returnStmt) {
+        int returnedExpr = optional(returnStmt.getReturnedExpr());
+        return compactAst.addNode(NodeKind.RETURN_STMT, returnStmt.getLine(), 0, returnedExpr);
+    }
+
+    @Override
+    public Integer visit(LoopStmt loopStmt) {
+        int condition = loopStmt.getCondition().accept(this);
+        int body = loopStmt.getBody().accept(this);
+        return compactAst.addNode(NodeKind.LOOP_STMT, loopStmt.getLine(), loopStmt.isDoWhile() ? 1 : 0, condition, body);
+    }
+
+    @Override
+    public Integer visit(VarDecStmt varDecStmt) {
+        ArrayList<Integer> children = new ArrayList<>();
+        for (VariableDeclaration varDec : varDecStmt.getVars())
+            children.add(varDec.accept(this));
+        return compactAst.addNode(NodeKind.VAR_DEC_STMT, varDecStmt.getLine(), 0, toArray(children));
+    }
+
+    @Override
+    public Integer visit(ListAppendStmt listAppendStmt) {
+        int listAppend = listAppendStmt.getListAppendExpr().accept(this);
+        return compactAst.addNode(NodeKind.LIST_APPEND_STMT, listAppendStmt.getLine(), 0, listAppend);
+    }
+
+    @Override
+    public Integer visit(ListSizeStmt listSizeStmt) {
+        int listSize = listSizeStmt.getListSizeExpr().accept(this);
+        return compactAst.addNode(NodeKind.LIST_SIZE_STMT, listSizeStmt.getLine(), 0, listSize);
+    }
+
+    @Override
+    public Integer visit(BinaryExpression binaryExpression) {
+        return operatorWalker.walk(binaryExpression);
+    }
+
+    @Override
+    public Integer visit(UnaryExpression unaryExpression) {
+        return operatorWalker.walk(unaryExpression);
+    }
+
+    @Override
+    public Integer visit(FunctionCall funcCall) {
+        ArrayList<Integer> children = new ArrayList<>();
+        children.add(funcCall.getInstance().accept(this));
+        for (Expression arg : funcCall.getArgs())
+            children.add(arg.accept(this));
+        return compactAst.addNode(NodeKind.FUNCTION_CALL, funcCall.getLine(), 0, toArray(children));
+    }
+
+    @Override
+    public Integer visit(Identifier identifier) {
+        return compactAst.addNode(NodeKind.IDENTIFIER, identifier.getLine(), compactAst.addName(identifier.getName()));
+    }
+
+    @Override
+    public Integer visit(ListAccessByIndex listAccessByIndex) {
+        int instance = listAccessByIndex.getInstance().accept(this);
+        int index = listAccessByIndex.getIndex().accept(this);
+        return compactAst.addNode(NodeKind.LIST_ACCESS_BY_INDEX, listAccessByIndex.getLine(), 0, instance, index);
+    }
+
+    @Override
+    public Integer visit(StructAccess structAccess) {
+        int instance = structAccess.getInstance().accept(this);
+        int element = structAccess.getElement().accept(this);
+        return compactAst.addNode(NodeKind.STRUCT_ACCESS, structAccess.getLine(), 0, instance, element);
+    }
+
+    @Override
+    public Integer visit(ListSize listSize) {
+        int arg = listSize.getArg().accept(this);
+        return compactAst.addNode(NodeKind.LIST_SIZE, listSize.getLine(), 0, arg);
+    }
+
+    @Override
+    public Integer visit(ListAppend listAppend) {
+        int listArg = listAppend.getListArg().accept(this);
+        int elementArg = listAppend.getElementArg().accept(this);
+        return compactAst.addNode(NodeKind.LIST_APPEND, listAppend.getLine(), 0, listArg, elementArg);
+    }
+
+    @Override
+    public Integer visit(ExprInPar exprInPar) {
+        return operatorWalker.walk(exprInPar);
+    }
+
+    @Override
+    public Integer visit(IntValue intValue) {
+        return compactAst.addNode(NodeKind.INT_VALUE, intValue.getLine(), intValue.getConstant());
+    }
+
+    @Override
+    public Integer visit(BoolValue boolValue) {
+        return compactAst.addNode(NodeKind.BOOL_VALUE, boolValue.getLine(), boolValue.getConstant() ? 1 : 0);
+    }
+}
@@ -0,0 +1,244 @@
+package main.ast.compact;
+
+import main.ast.nodes.Program;
+import main.ast.nodes.expression.Identifier;
+import main.ast.types.*;
+import main.ast.types.primitives.BoolType;
+import main.ast.types.primitives.IntType;
+import main.ast.types.primitives.VoidType;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+//Binary .cmmast format of a whole Program, written through its CompactAst form:
+//  header:        magic "CMMAST", format version
+//  string table:  count, then (byte length, UTF-8 bytes) per string; identifiers and struct type names
+//  type table:    count, then one type per entry: a TypeKind ordinal (NULL_TYPE for none) followed by
+//                 the element type for lists, the struct name index and line for structs and the
+//                 argument count, argument types and return type for fptrs
+//  nodes:         count, then per node: kind byte, line, payload, child count and its children
+//Header and table numbers are big-endian ints. Node fields are LEB128 varints: lines are zigzag deltas
+//from the previous node, payloads are zigzag encoded and a child is stored as its distance back from
+//its parent (0 for ABSENT), which is small because nodes are in post-order.
+public class CompactAstSerializer {
+    public static final String EXTENSION = ".cmmast";
+    public static final int VERSION = 2;
+
+    private static final byte[] MAGIC = "CMMAST".getBytes(StandardCharsets.US_ASCII);
+    private static final int NULL_TYPE = 255;
+    private static final TypeKind[] typeKinds = TypeKind.values();
+
+    public static void write(Program program, Path path) throws IOException {
+        try (OutputStream outputStream = Files.newOutputStream(path)) {
+            write(CompactAstBuilder.build(program), outputStream);
+        }
+    }
+
+    public static Program read(Path path) throws IOException {
+        return readCompact(Files.readAllBytes(path)).toProgram();
+    }
+
+    public static void write(CompactAst compactAst, OutputStream outputStream) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream, 1 << 16));
+        out.write(MAGIC);
+        out.writeInt(VERSION);
+
+        ArrayList<String> strings = new ArrayList<>(compactAst.getNames());
+        HashMap<String, Integer> stringIndices = new HashMap<>();
+        for (int i = 0; i < strings.size(); i++)
+            stringIndices.put(strings.get(i), i);
+        for (Type type : compactAst.getTypes())
+            collectStructNames(type, strings, stringIndices);
+
+        out.writeInt(strings.size());
+        for (String string : strings) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        out.writeInt(compactAst.getTypes().size());
+        for (Type type : compactAst.getTypes())
+            writeType(out, type, stringIndices);
+
+        int size = compactAst.size();
+        out.writeInt(size);
+        int[] kinds = compactAst.getKinds();
+        int[] lines = compactAst.getLines();
+        int[] payloads = compactAst.getPayloads();
+        int[] childCounts = compactAst.getChildCounts();
+        int[] childStarts = compactAst.getChildStarts();
+        int[] children = compactAst.getChildren();
+        int previousLine = 0;
+        for (int node = 0; node < size; node++) {
+            out.writeByte(kinds[node]);
+            writeVarInt(out, zigzag(lines[node] - previousLine));
+            previousLine = lines[node];
+            writeVarInt(out, zigzag(payloads[node]));
+            writeVarInt(out, childCounts[node]);
+            for (int i = 0; i < childCounts[node]; i++) {
+                int child = children[childStarts[node] + i];
+                writeVarInt(out, child == CompactAst.ABSENT ? 0 : node - child);
+            }
+        }
+        out.flush();
+    }
+
+    public static CompactAst readCompact(byte[] bytes) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        try {
+            byte[] magic = new byte[MAGIC.length];
+            in.get(magic);
+            if (!Arrays.equals(magic, MAGIC))
+                throw new IOException("Not a " + EXTENSION + " file");
+            int version = in.getInt();
+            if (version != VERSION)
+                throw new IOException("Unsupported " + EXTENSION + " version " + version);
+
+            int stringCount = in.getInt();
+            ArrayList<String> strings = new ArrayList<>(stringCount);
+            for (int i = 0; i < stringCount; i++) {
+                int length = in.getInt();
+                strings.add(new String(bytes, in.position(), length, StandardCharsets.UTF_8));
+                in.position(in.position() + length);
+            }
+
+            int typeCount = in.getInt();
+            ArrayList<Type> types = new ArrayList<>(typeCount);
+            for (int i = 0; i < typeCount; i++)
+                types.add(readType(in, strings));
+
+            int size = in.getInt();
+            int[] kinds = new int[size];
+            int[] lines = new int[size];
+            int[] payloads = new int[size];
+            int[] childStarts = new int[size];
+            int[] childCounts = new int[size];
+            int[] children = new int[Math.max(16, size)];
+            int childrenSize = 0;
+            int line = 0;
+            for (int node = 0; node < size; node++) {
+                kinds[node] = in.get() & 0xff;
+                line += unzigzag(readVarInt(in));
+                lines[node] = line;
+                payloads[node] = unzigzag(readVarInt(in));
+                int childCount = readVarInt(in);
+                childStarts[node] = childrenSize;
+                childCounts[node] = childCount;
+                if (childrenSize + childCount > children.length)
+                    children = Arrays.copyOf(children, Math.max(children.length * 2, childrenSize + childCount));
+                for (int i = 0; i < childCount; i++) {
+                    int distance = readVarInt(in);
+                    children[childrenSize++] = distance == 0 ? CompactAst.ABSENT : node - distance;
+                }
+            }
+            children = Arrays.copyOf(children, childrenSize);
+
+            //identifiers are the first entries of the string table
+            return new CompactAst(size, kinds, lines, payloads, childStarts, childCounts, children, strings, types);
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupted " + EXTENSION + " file", e);
+        }
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7f) != 0) {
+            out.writeByte((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7f) << shift;
+            if (b >= 0)
+                return value;
+        }
+    }
+
+    private static void collectStructNames(Type type, ArrayList<String> strings, HashMap<String, Integer> stringIndices) {
+        if (type instanceof ListType) {
+            collectStructNames(((ListType) type).getType(), strings, stringIndices);
+        } else if (type instanceof FptrType) {
+            for (Type argType : ((FptrType) type).getArgsType())
+                collectStructNames(argType, strings, stringIndices);
+            collectStructNames(((FptrType) type).getReturnType(), strings, stringIndices);
+        } else if (type instanceof StructType) {
+            String name = ((StructType) type).getStructName().getName();
+            if (!stringIndices.containsKey(name)) {
+                stringIndices.put(name, strings.size());
+                strings.add(name);
+            }
+        }
+    }
+
+    private static void writeType(DataOutputStream out, Type type, HashMap<String, Integer> stringIndices) throws IOException {
+        if (type == null) {
+            out.writeByte(NULL_TYPE);
+            return;
+        }
+        out.writeByte(type.getKind().ordinal());
+        if (type instanceof ListType) {
+            writeType(out, ((ListType) type).getType(), stringIndices);
+        } else if (type instanceof FptrType) {
+            FptrType fptrType = (FptrType) type;
+            out.writeInt(fptrType.getArgsType().size());
+            for (Type argType : fptrType.getArgsType())
+                writeType(out, argType, stringIndices);
+            writeType(out, fptrType.getReturnType(), stringIndices);
+        } else if (type instanceof StructType) {
+            Identifier structName = ((StructType) type).getStructName();
+            out.writeInt(stringIndices.get(structName.getName()));
+            out.writeInt(structName.getLine());
+        }
+    }
+
+    private static Type readType(ByteBuffer in, ArrayList<String> strings) throws IOException {
+        int tag = in.get() & 0xff;
+        if (tag == NULL_TYPE)
+            return null;
+        if (tag >= typeKinds.length)
+            throw new IOException("Unknown type tag " + tag);
+        switch (typeKinds[tag]) {
+            case INT:
+                return new IntType();
+            case BOOL:
+                return new BoolType();
+            case VOID:
+                return new VoidType();
+            case NO:
+                return new NoType();
+            case LIST:
+                return new ListType(readType(in, strings));
+            case STRUCT: {
+                Identifier structName = new Identifier(strings.get(in.getInt()));
+                structName.setLine(in.getInt());
+                return new StructType(structName);
+            }
+            default: {
+                int argCount = in.getInt();
+                ArrayList<Type> argsTypes = new ArrayList<>(argCount);
+                for (int i = 0; i < argCount; i++)
+                    argsTypes.add(readType(in, strings));
+                return new FptrType(argsTypes, readType(in, strings));
+            }
+        }
+    }
+}
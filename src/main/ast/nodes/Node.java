@@ -8,10 +8,20 @@ import java.util.ArrayList;
 
 
 public abstract class Node {
+    private final NodeKind nodeKind;
     private int line;
     private ArrayList<CompileError> errors = new ArrayList<>();
     public static boolean isCatchErrorsActive = true;
 
+    protected Node(NodeKind nodeKind) {
+        this.nodeKind = nodeKind;
+    }
+
+    //concrete class of this node, for switch based dispatch (see SwitchVisitor)
+    public NodeKind getNodeKind() {
+        return nodeKind;
+    }
+
     public int getLine() {
         return line;
     }
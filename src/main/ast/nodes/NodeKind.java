@@ -0,0 +1,35 @@
+package main.ast.nodes;
+
+public enum NodeKind {
+    PROGRAM,
+
+    FUNCTION_DECLARATION,
+    MAIN_DECLARATION,
+    VARIABLE_DECLARATION,
+    STRUCT_DECLARATION,
+    SET_GET_VAR_DECLARATION,
+
+    ASSIGNMENT_STMT,
+    BLOCK_STMT,
+    CONDITIONAL_STMT,
+    FUNCTION_CALL_STMT,
+    DISPLAY_STMT,
+    RETURN_STMT,
+    LOOP_STMT,
+    VAR_DEC_STMT,
+    LIST_APPEND_STMT,
+    LIST_SIZE_STMT,
+
+    BINARY_EXPRESSION,
+    UNARY_EXPRESSION,
+    FUNCTION_CALL,
+    IDENTIFIER,
+    LIST_ACCESS_BY_INDEX,
+    STRUCT_ACCESS,
+    LIST_SIZE,
+    LIST_APPEND,
+    EXPR_IN_PAR,
+
+    INT_VALUE,
+    BOOL_VALUE
+}
@@ -13,6 +13,10 @@ public class Program extends Node {
     private ArrayList<StructDeclaration> structs = new ArrayList<>();
     private MainDeclaration main = new MainDeclaration();
 
+    public Program() {
+        super(NodeKind.PROGRAM);
+    }
+
     public ArrayList<FunctionDeclaration> getFunctions() {
         return functions;
     }
@@ -1,7 +1,10 @@
 package main.ast.nodes.declaration;
 
 import main.ast.nodes.Node;
+import main.ast.nodes.NodeKind;
 
 public abstract class Declaration extends Node{
-
+    protected Declaration(NodeKind nodeKind) {
+        super(nodeKind);
+    }
 }
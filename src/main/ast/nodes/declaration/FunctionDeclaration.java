@@ -1,5 +1,6 @@
 package main.ast.nodes.declaration;
 
+import main.ast.nodes.NodeKind;
 import main.ast.nodes.expression.Identifier;
 import main.ast.nodes.statement.Statement;
 import main.ast.types.*;
@@ -14,6 +15,10 @@ public class FunctionDeclaration extends Declaration {
     private Statement body;
     private Type returnType;
 
+    public FunctionDeclaration() {
+        super(NodeKind.FUNCTION_DECLARATION);
+    }
+
 
     public Identifier getFunctionName() {
         return functionName;
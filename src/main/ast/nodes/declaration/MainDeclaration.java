@@ -1,5 +1,6 @@
 package main.ast.nodes.declaration;
 
+import main.ast.nodes.NodeKind;
 import main.ast.nodes.statement.Statement;
 import main.visitor.IVisitor;
 
@@ -7,6 +8,10 @@ import main.visitor.IVisitor;
 public class MainDeclaration extends Declaration{
     protected Statement body;
 
+    public MainDeclaration() {
+        super(NodeKind.MAIN_DECLARATION);
+    }
+
     public Statement getBody() {
         return body;
     }
@@ -20,7 +25,6 @@ public class MainDeclaration extends Declaration{
     }
     @Override
     public <T> T accept(IVisitor<T> visitor) {
-        System.out.println();
         return visitor.visit(this);
     }
 
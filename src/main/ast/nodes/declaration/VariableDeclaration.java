@@ -1,5 +1,6 @@
 package main.ast.nodes.declaration;
 
+import main.ast.nodes.NodeKind;
 import main.ast.nodes.expression.*;
 import main.ast.nodes.expression.values.*;
 import main.ast.types.*;
@@ -12,6 +13,7 @@ public class VariableDeclaration extends Declaration{
     private Expression defaultValue;
 
     public VariableDeclaration(Identifier varName, Type varType) {
+        super(NodeKind.VARIABLE_DECLARATION);
         this.varName = varName;
         this.varType = varType;
     }
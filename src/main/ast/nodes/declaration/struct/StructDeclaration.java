@@ -1,5 +1,6 @@
 package main.ast.nodes.declaration.struct;
 
+import main.ast.nodes.NodeKind;
 import main.ast.nodes.declaration.*;
 import main.ast.nodes.expression.*;
 import main.ast.nodes.statement.Statement;
@@ -11,6 +12,10 @@ public class StructDeclaration extends Declaration {
     private Identifier structName;
     private Statement body;
 
+    public StructDeclaration() {
+        super(NodeKind.STRUCT_DECLARATION);
+    }
+
     public Identifier getStructName() {
         return structName;
     }
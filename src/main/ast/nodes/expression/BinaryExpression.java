@@ -1,5 +1,6 @@
 package main.ast.nodes.expression;
 
+import main.ast.nodes.NodeKind;
 import main.ast.nodes.expression.operators.BinaryOperator;
 import main.visitor.IVisitor;
 
@@ -10,6 +11,7 @@ public class BinaryExpression extends Expression {
     private BinaryOperator binaryOperator;
 
     public BinaryExpression(Expression firstOperand, Expression secondOperand, BinaryOperator binaryOperator) {
+        super(NodeKind.BINARY_EXPRESSION);
         this.firstOperand = firstOperand;
         this.secondOperand = secondOperand;
         this.binaryOperator = binaryOperator;
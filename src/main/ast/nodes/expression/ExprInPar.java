@@ -1,4 +1,6 @@
 package main.ast.nodes.expression;
+
+import main.ast.nodes.NodeKind;
 import main.visitor.IVisitor;
 
 import java.util.*;
@@ -7,6 +9,7 @@ public class ExprInPar extends Expression {
     private ArrayList<Expression> inputs;
 
     public ExprInPar(ArrayList<Expression> inputs) {
+        super(NodeKind.EXPR_IN_PAR);
         this.inputs = inputs;
     }
 
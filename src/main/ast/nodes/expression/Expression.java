@@ -1,7 +1,22 @@
 package main.ast.nodes.expression;
 
-
 import main.ast.nodes.Node;
+import main.ast.nodes.NodeKind;
+import main.ast.types.Type;
 
 public abstract class Expression extends Node {
+    //set by ExpressionTypeChecker, null until the expression is type checked
+    private Type resolvedType;
+
+    protected Expression(NodeKind nodeKind) {
+        super(nodeKind);
+    }
+
+    public Type getResolvedType() {
+        return resolvedType;
+    }
+
+    public void setResolvedType(Type resolvedType) {
+        this.resolvedType = resolvedType;
+    }
 }
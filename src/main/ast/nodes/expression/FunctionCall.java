@@ -1,5 +1,6 @@
 package main.ast.nodes.expression;
 
+import main.ast.nodes.NodeKind;
 import main.visitor.IVisitor;
 import java.util.*;
 
@@ -9,10 +10,12 @@ public class FunctionCall extends Expression {
     private ArrayList<Expression> args = new ArrayList<>();
 
     public FunctionCall(Expression instance) {
+        super(NodeKind.FUNCTION_CALL);
         this.instance = instance;
     }
 
     public FunctionCall(Expression instance, ArrayList<Expression> args) {
+        super(NodeKind.FUNCTION_CALL);
         this.instance = instance;
         if (args != null)
             this.args = args;
@@ -1,12 +1,24 @@
 package main.ast.nodes.expression;
 
+import main.ast.nodes.NodeKind;
 import main.visitor.IVisitor;
 
 //line -> IDENTIFIER
 public class Identifier extends Expression{
+    //where an Identifier's value is kept when a program runs
+    public enum Storage {
+        LOCAL, //slot in the frame of the running function
+        MEMBER, //field index in the struct instance
+        FUNCTION //index of the function in the program
+    }
+
     private String name;
+    //set by SlotResolver, null until the program is resolved
+    private Storage storage;
+    private int slot = -1;
 
     public Identifier(String name) {
+        super(NodeKind.IDENTIFIER);
         this.name = name;
     }
 
@@ -17,6 +29,19 @@ public class Identifier extends Expression{
         this.name = name;
     }
 
+    public Storage getStorage() {
+        return storage;
+    }
+
+    public int getSlot() {
+        return slot;
+    }
+
+    public void setSlot(Storage storage, int slot) {
+        this.storage = storage;
+        this.slot = slot;
+    }
+
     @Override
     public String toString() {
         return "Identifier_" + this.name;
@@ -1,5 +1,6 @@
 package main.ast.nodes.expression;
 
+import main.ast.nodes.NodeKind;
 import main.visitor.IVisitor;
 
 //line -> LBRACK before index
@@ -8,6 +9,7 @@ public class ListAccessByIndex extends Expression {
     private Expression index;
 
     public ListAccessByIndex(Expression instance, Expression index) {
+        super(NodeKind.LIST_ACCESS_BY_INDEX);
         this.instance = instance;
         this.index = index;
     }
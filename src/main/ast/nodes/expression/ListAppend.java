@@ -1,5 +1,6 @@
 package main.ast.nodes.expression;
 
+import main.ast.nodes.NodeKind;
 import main.visitor.IVisitor;
 
 public class ListAppend extends Expression{
@@ -7,6 +8,7 @@ public class ListAppend extends Expression{
     private Expression elementArg;
 
     public ListAppend(Expression listArg, Expression elementArg) {
+        super(NodeKind.LIST_APPEND);
         this.listArg = listArg;
         this.elementArg = elementArg;
     }
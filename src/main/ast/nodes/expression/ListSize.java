@@ -1,5 +1,6 @@
 package main.ast.nodes.expression;
 
+import main.ast.nodes.NodeKind;
 import main.visitor.IVisitor;
 
 //line -> SIZE
@@ -7,6 +8,7 @@ public class ListSize extends Expression {
     private Expression arg;
 
     public ListSize(Expression arg) {
+        super(NodeKind.LIST_SIZE);
         this.arg = arg;
     }
 
@@ -1,5 +1,6 @@
 package main.ast.nodes.expression;
 
+import main.ast.nodes.NodeKind;
 import main.visitor.IVisitor;
 
 public class StructAccess extends Expression {
@@ -7,6 +8,7 @@ public class StructAccess extends Expression {
     private Identifier element;
 
     public StructAccess(Expression instance, Identifier element) {
+        super(NodeKind.STRUCT_ACCESS);
         this.instance = instance;
         this.element = element;
     }
@@ -1,5 +1,6 @@
 package main.ast.nodes.expression;
 
+import main.ast.nodes.NodeKind;
 import main.ast.nodes.expression.operators.UnaryOperator;
 import main.visitor.IVisitor;
 
@@ -9,6 +10,7 @@ public class UnaryExpression extends Expression{
     private UnaryOperator operator;
 
     public UnaryExpression(Expression operand, UnaryOperator operator) {
+        super(NodeKind.UNARY_EXPRESSION);
         this.operand = operand;
         this.operator = operator;
     }
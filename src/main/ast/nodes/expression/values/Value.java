@@ -1,6 +1,10 @@
 package main.ast.nodes.expression.values;
 
+import main.ast.nodes.NodeKind;
 import main.ast.nodes.expression.Expression;
 
 public abstract class Value extends Expression {
+    protected Value(NodeKind nodeKind) {
+        super(nodeKind);
+    }
 }
@@ -1,5 +1,6 @@
 package main.ast.nodes.expression.values.primitive;
 
+import main.ast.nodes.NodeKind;
 import main.ast.nodes.expression.values.Value;
 import main.visitor.IVisitor;
 
@@ -8,6 +9,7 @@ public class BoolValue extends Value {
     private boolean constant;
 
     public BoolValue(boolean constant) {
+        super(NodeKind.BOOL_VALUE);
         this.constant = constant;
     }
 
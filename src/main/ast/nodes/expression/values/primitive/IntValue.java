@@ -1,5 +1,6 @@
 package main.ast.nodes.expression.values.primitive;
 
+import main.ast.nodes.NodeKind;
 import main.ast.nodes.expression.values.Value;
 import main.visitor.IVisitor;
 
@@ -8,6 +9,7 @@ public class IntValue extends Value {
     private int constant;
 
     public IntValue(int constant) {
+        super(NodeKind.INT_VALUE);
         this.constant = constant;
     }
 
@@ -1,5 +1,6 @@
 package main.ast.nodes.statement;
 
+import main.ast.nodes.NodeKind;
 import main.ast.nodes.expression.Expression;
 import main.visitor.IVisitor;
 
@@ -9,6 +10,7 @@ public class AssignmentStmt extends Statement{
     private Expression rValue;
 
     public AssignmentStmt(Expression lValue, Expression rValue) {
+        super(NodeKind.ASSIGNMENT_STMT);
         this.lValue = lValue;
         this.rValue = rValue;
     }
@@ -1,5 +1,6 @@
 package main.ast.nodes.statement;
 
+import main.ast.nodes.NodeKind;
 import main.visitor.IVisitor;
 
 import java.util.ArrayList;
@@ -8,6 +9,10 @@ import java.util.ArrayList;
 public class BlockStmt extends Statement{
     private ArrayList<Statement> statements = new ArrayList<>();
 
+    public BlockStmt() {
+        super(NodeKind.BLOCK_STMT);
+    }
+
     public ArrayList<Statement> getStatements() {
         return statements;
     }
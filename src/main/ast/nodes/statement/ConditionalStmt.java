@@ -1,5 +1,6 @@
 package main.ast.nodes.statement;
 
+import main.ast.nodes.NodeKind;
 import main.ast.nodes.expression.Expression;
 import main.visitor.IVisitor;
 
@@ -10,6 +11,7 @@ public class ConditionalStmt extends Statement{
     private Statement elseBody;
 
     public ConditionalStmt(Expression expression) {
+        super(NodeKind.CONDITIONAL_STMT);
         this.condition = expression;
     }
 
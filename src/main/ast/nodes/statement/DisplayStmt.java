@@ -1,5 +1,6 @@
 package main.ast.nodes.statement;
 
+import main.ast.nodes.NodeKind;
 import main.ast.nodes.expression.Expression;
 import main.visitor.IVisitor;
 
@@ -8,6 +9,7 @@ public class DisplayStmt extends Statement{
     private Expression arg;
 
     public DisplayStmt(Expression arg) {
+        super(NodeKind.DISPLAY_STMT);
         this.arg = arg;
     }
 
@@ -1,5 +1,6 @@
 package main.ast.nodes.statement;
 
+import main.ast.nodes.NodeKind;
 import main.ast.nodes.expression.FunctionCall;
 import main.visitor.IVisitor;
 
@@ -8,6 +9,7 @@ public class FunctionCallStmt extends Statement{
     private FunctionCall funcCall;
 
     public FunctionCallStmt(FunctionCall funcCall) {
+        super(NodeKind.FUNCTION_CALL_STMT);
         this.funcCall = funcCall;
     }
 
@@ -1,5 +1,6 @@
 package main.ast.nodes.statement;
 
+import main.ast.nodes.NodeKind;
 import main.ast.nodes.expression.Expression;
 import main.ast.nodes.expression.ListAppend;
 import main.visitor.IVisitor;
@@ -8,6 +9,7 @@ public class ListAppendStmt extends Statement{
     private ListAppend listAppendExpr;
 
     public ListAppendStmt(ListAppend listAppendExpr) {
+        super(NodeKind.LIST_APPEND_STMT);
         this.listAppendExpr = listAppendExpr;
     }
 
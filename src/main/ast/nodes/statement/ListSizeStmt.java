@@ -1,5 +1,6 @@
 package main.ast.nodes.statement;
 
+import main.ast.nodes.NodeKind;
 import main.ast.nodes.expression.Expression;
 import main.ast.nodes.expression.ListSize;
 import main.visitor.IVisitor;
@@ -8,6 +9,7 @@ public class ListSizeStmt extends Statement{
     private ListSize listSizeExpr;
 
     public ListSizeStmt(ListSize listSizeExpr) {
+        super(NodeKind.LIST_SIZE_STMT);
         this.listSizeExpr = listSizeExpr;
     }
 
@@ -1,5 +1,6 @@
 package main.ast.nodes.statement;
 
+import main.ast.nodes.NodeKind;
 import main.ast.nodes.expression.Expression;
 import main.visitor.IVisitor;
 
@@ -7,6 +8,11 @@ import main.visitor.IVisitor;
 public class LoopStmt extends Statement {
     private Expression condition;
     private Statement body;
+    private boolean doWhile;
+
+    public LoopStmt() {
+        super(NodeKind.LOOP_STMT);
+    }
 
     public Expression getCondition() {
         return condition;
@@ -22,6 +28,14 @@ public class LoopStmt extends Statement {
         this.body = body;
     }
 
+    //the body runs once before the condition is first tested
+    public boolean isDoWhile() {
+        return doWhile;
+    }
+    public void setDoWhile(boolean doWhile) {
+        this.doWhile = doWhile;
+    }
+
     @Override
     public String toString() {
         return "LoopStmt";
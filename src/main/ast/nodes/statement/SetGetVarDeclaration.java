@@ -1,5 +1,6 @@
 package main.ast.nodes.statement;
 
+import main.ast.nodes.NodeKind;
 import main.ast.nodes.declaration.VariableDeclaration;
 import main.ast.nodes.expression.Identifier;
 import main.ast.types.Type;
@@ -16,6 +17,10 @@ public class SetGetVarDeclaration extends Statement {
     private Statement getterBody;
     private VariableDeclaration curVar;
 
+    public SetGetVarDeclaration() {
+        super(NodeKind.SET_GET_VAR_DECLARATION);
+    }
+
     public Identifier getVarName() {
         return varName;
     }
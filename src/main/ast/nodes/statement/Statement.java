@@ -1,6 +1,10 @@
 package main.ast.nodes.statement;
 
 import main.ast.nodes.Node;
+import main.ast.nodes.NodeKind;
 
 public abstract class Statement extends Node {
+    protected Statement(NodeKind nodeKind) {
+        super(nodeKind);
+    }
 }
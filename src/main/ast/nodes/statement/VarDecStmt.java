@@ -1,5 +1,6 @@
 package main.ast.nodes.statement;
 
+import main.ast.nodes.NodeKind;
 import main.ast.nodes.declaration.*;
 import main.visitor.IVisitor;
 import java.util.ArrayList;
@@ -7,6 +8,10 @@ import java.util.ArrayList;
 public class VarDecStmt extends Statement{
     private ArrayList<VariableDeclaration> vars = new ArrayList<>();
 
+    public VarDecStmt() {
+        super(NodeKind.VAR_DEC_STMT);
+    }
+
     public ArrayList<VariableDeclaration> getVars() { return vars; }
     public void setVars(ArrayList<VariableDeclaration> vars) {
         this.vars = vars;
@@ -26,4 +26,9 @@ public class FptrType extends Type {
     public String toString() {
         return "FptrType";
     }
-}
\ No newline at end of file
+
+    @Override
+    public TypeKind getKind() {
+        return TypeKind.FPTR;
+    }
+}
@@ -18,5 +18,9 @@ public class ListType extends Type {
     public String toString() {
         return "ListType";
     }
-}
 
+    @Override
+    public TypeKind getKind() {
+        return TypeKind.LIST;
+    }
+}
@@ -5,4 +5,9 @@ public class NoType extends Type {
     public String toString() {
         return "NoType";
     }
+
+    @Override
+    public TypeKind getKind() {
+        return TypeKind.NO;
+    }
 }
@@ -18,4 +18,9 @@ public class StructType extends Type {
     public String toString() {
         return "StructType_" + this.structName.getName();
     }
+
+    @Override
+    public TypeKind getKind() {
+        return TypeKind.STRUCT;
+    }
 }
@@ -2,4 +2,5 @@ package main.ast.types;
 
 public abstract class Type {
     public abstract String toString();
+    public abstract TypeKind getKind();
 }
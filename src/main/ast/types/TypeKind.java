@@ -0,0 +1,5 @@
+package main.ast.types;
+
+public enum TypeKind {
+    INT, BOOL, LIST, STRUCT, FPTR, VOID, NO
+}
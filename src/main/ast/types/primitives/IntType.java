@@ -1,10 +1,16 @@
 package main.ast.types.primitives;
 
 import main.ast.types.Type;
+import main.ast.types.TypeKind;
 
 public class IntType extends Type {
     @Override
     public String toString() {
         return "IntType";
     }
+
+    @Override
+    public TypeKind getKind() {
+        return TypeKind.INT;
+    }
 }
@@ -0,0 +1,100 @@
+package main.backend.c;
+
+import main.ast.nodes.Program;
+import main.interpreter.CmmRuntimeError;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+//Compiles a type checked Program to a native executable: CSourceGenerator writes C, which the system's
+//C compiler builds; that is the compiler in the CC environment variable, or cc.
+public class CBackend {
+    private static final Pattern RUNTIME_ERROR = Pattern.compile("Line (-?\\d+): (.*)");
+
+    private final String source;
+
+    private CBackend(String source) {
+        this.source = source;
+    }
+
+    public static CBackend compile(Program program) {
+        return new CBackend(CSourceGenerator.generate(program));
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    private static String cCompiler() {
+        String cCompiler = System.getenv("CC");
+        return cCompiler == null || cCompiler.isBlank() ? "cc" : cCompiler;
+    }
+
+    //writes the source next to the executable, as <executable>.c
+    public void build(Path executable) throws IOException {
+        Path sourceFile = Path.of(executable + ".c");
+        Files.writeString(sourceFile, source);
+        Process process = new ProcessBuilder(cCompiler(), "-std=c99", "-O2", "-o", executable.toString(), sourceFile.toString())
+                .redirectErrorStream(true).start();
+        String messages = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        int status = waitFor(process);
+        if (status != 0)
+            throw new IllegalStateException(cCompiler() + " failed to compile " + sourceFile + ":\n" + messages);
+    }
+
+    //builds the program in a temporary directory and runs it; runtime errors are thrown as CmmRuntimeError,
+    //after the output so far is written to out
+    public void run(PrintStream out) {
+        Path directory = null;
+        try {
+            directory = Files.createTempDirectory("cmm");
+            Path executable = directory.resolve("program");
+            build(executable);
+            Process process = new ProcessBuilder(executable.toString()).start();
+            process.getOutputStream().close();
+            try (InputStream output = process.getInputStream()) {
+                output.transferTo(out);
+            }
+            String errors = new String(process.getErrorStream().readAllBytes(), StandardCharsets.UTF_8).strip();
+            out.flush();
+            if (waitFor(process) == 0)
+                return;
+            Matcher matcher = RUNTIME_ERROR.matcher(errors);
+            if (matcher.matches())
+                throw new CmmRuntimeError(Integer.parseInt(matcher.group(1)), matcher.group(2));
+            throw new IllegalStateException("Compiled program failed: " + errors);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (directory != null)
+                delete(directory);
+        }
+    }
+
+    private static int waitFor(Process process) {
+        try {
+            return process.waitFor();
+        } catch (InterruptedException e) {
+            process.destroy();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + process.info().command().orElse("a process"));
+        }
+    }
+
+    private static void delete(Path directory) {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        } catch (IOException ignored) {
+            //a temporary directory that is left behind is harmless
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package main.backend.c;
+
+//C code every program generated by CSourceGenerator starts with. Values are int32_t and bool, lists and
+//struct instances are pointers to memory that is never freed (the program ends instead) and int arithmetic
+//wraps around like Java's. Runtime errors are printed to stderr in CmmRuntimeError's format, after the
+//output so far, and end the program with exit status 1.
+//Calls deeper than CMM_MAX_DEPTH, about as deep as the JVM engines get on a default stack, are a
+//stack overflow; it's reported at the line of the call that goes too deep, which every function's entry
+//point takes as its first argument.
+final class CRuntime {
+    private CRuntime() {
+    }
+
+    static final String SOURCE = String.join("\n",
+            "#include <inttypes.h>",
+            "#include <stdarg.h>",
+            "#include <stdbool.h>",
+            "#include <stdint.h>",
+            "#include <stdio.h>",
+            "#include <stdlib.h>",
+            "",
+            "#define CMM_MAX_DEPTH 10000",
+            "",
+            "static int cmm_depth = 0;",
+            "",
+            "static void cmm_fail(int line, const char *format, ...) {",
+            "    va_list args;",
+            "    fflush(stdout);",
+            "    fprintf(stderr, \"Line %d: \", line);",
+            "    va_start(args, format);",
+            "    vfprintf(stderr, format, args);",
+            "    va_end(args);",
+            "    fputc('\\n', stderr);",
+            "    exit(1);",
+            "}",
+            "",
+            "static void *cmm_alloc(size_t size) {",
+            "    void *memory = calloc(1, size);",
+            "    if (!memory)",
+            "        cmm_fail(0, \"Out of memory\");",
+            "    return memory;",
+            "}",
+            "",
+            "static void cmm_enter(int line) {",
+            "    if (++cmm_depth > CMM_MAX_DEPTH)",
+            "        cmm_fail(line, \"Stack overflow\");",
+            "}",
+            "",
+            "static int32_t cmm_add(int32_t a, int32_t b) { return (int32_t) ((uint32_t) a + (uint32_t) b); }",
+            "static int32_t cmm_sub(int32_t a, int32_t b) { return (int32_t) ((uint32_t) a - (uint32_t) b); }",
+            "static int32_t cmm_mult(int32_t a, int32_t b) { return (int32_t) ((uint32_t) a * (uint32_t) b); }",
+            "static int32_t cmm_neg(int32_t a) { return (int32_t) (0u - (uint32_t) a); }",
+            "",
+            "static int32_t cmm_div(int32_t a, int32_t b, int line) {",
+            "    if (b == 0)",
+            "        cmm_fail(line, \"Division by zero\");",
+            "    return b == -1 ? cmm_neg(a) : a / b;",
+            "}",
+            "",
+            "static void cmm_display_int(int32_t value) { printf(\"%\" PRId32 \"\\n\", value); }",
+            "static void cmm_display_bool(bool value) { fputs(value ? \"true\\n\" : \"false\\n\", stdout); }",
+            "",
+            "static void cmm_check_index(int32_t index, int32_t size, int line) {",
+            "    if (index < 0 || index >= size)",
+            "        cmm_fail(line, \"Index %\" PRId32 \" is out of range for a list of size %\" PRId32, index, size);",
+            "}",
+            "",
+            "/* list of T: a growable array */",
+            "#define CMM_LIST(NAME, T) \\",
+            "    typedef struct { T *data; int32_t size; int32_t capacity; } NAME; \\",
+            "    static NAME *NAME##_new(void) { return cmm_alloc(sizeof(NAME)); } \\",
+            "    static void NAME##_append(NAME *list, T value) { \\",
+            "        if (list->size == list->capacity) { \\",
+            "            list->capacity = list->capacity ? list->capacity * 2 : 8; \\",
+            "            list->data = realloc(list->data, sizeof(T) * (size_t) list->capacity); \\",
+            "            if (!list->data) \\",
+            "                cmm_fail(0, \"Out of memory\"); \\",
+            "        } \\",
+            "        list->data[list->size++] = value; \\",
+            "    } \\",
+            "    static T NAME##_at(NAME *list, int32_t index, int line) { \\",
+            "        cmm_check_index(index, list->size, line); \\",
+            "        return list->data[index]; \\",
+            "    } \\",
+            "    static T NAME##_set(NAME *list, int32_t index, T value, int line) { \\",
+            "        cmm_check_index(index, list->size, line); \\",
+            "        return list->data[index] = value; \\",
+            "    }",
+            "");
+}
@@ -0,0 +1,777 @@
+package main.backend.c;
+
+import main.ast.nodes.Program;
+import main.ast.nodes.declaration.FunctionDeclaration;
+import main.ast.nodes.declaration.VariableDeclaration;
+import main.ast.nodes.declaration.struct.StructDeclaration;
+import main.ast.nodes.expression.*;
+import main.ast.nodes.expression.operators.BinaryOperator;
+import main.ast.nodes.expression.operators.UnaryOperator;
+import main.ast.nodes.expression.values.primitive.BoolValue;
+import main.ast.nodes.expression.values.primitive.IntValue;
+import main.ast.nodes.statement.*;
+import main.ast.types.FptrType;
+import main.ast.types.ListType;
+import main.ast.types.StructType;
+import main.ast.types.Type;
+import main.ast.types.TypeKind;
+import main.ast.types.primitives.VoidType;
+import main.interpreter.SideEffects;
+import main.interpreter.SlotResolver;
+import main.interpreter.StructLayout;
+import main.visitor.ExpressionWalker;
+import main.visitor.Visitor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.function.Function;
+
+//Portable C99 source for a checked Program, on top of CRuntime.
+//A struct is a C struct S_<name> used through pointers, with S_<name>_new, S_<name>_set_<x> and
+//S_<name>_get_<x>; a list #T is a CMM_LIST named after T (list_int, list_S_Point, list_list_bool, ...) and
+//an fptr type is a function pointer typedef fp_<n> with fp_<n>_check. Function f is f_<name>, which counts
+//the call depth around f_<name>_body; locals are v_<name>_<slot> like in JavaSourceGenerator.
+//C leaves the order in which operands are evaluated open, so an operand that is followed by one with side
+//effects is saved to a temporary t<n> first, inside a comma expression; that keeps the left to right order
+//of the other engines without moving any evaluation out of a short-circuited operand.
+//Operators other than = are written in order by an ExpressionWalker, so a deep expression doesn't need a
+//deep Java stack. A left spine of more than FLATTEN_DEPTH operators, like a long a + b + c + ..., is written
+//as a comma expression that keeps the value in a temporary, (t0 = a, t0 = cmm_add(t0, b), ..., t0), as
+//the C compiler itself recurses through nested calls.
+public class CSourceGenerator extends Visitor<String> {
+    public static final int FLATTEN_DEPTH = 256;
+
+    private final StringBuilder typeDefinitions = new StringBuilder();
+    private final StringBuilder structDefinitions = new StringBuilder();
+    private final StringBuilder prototypes = new StringBuilder();
+    private final StringBuilder functions = new StringBuilder();
+    private final HashMap<String, String> fptrTypeNames = new HashMap<>();
+    private final HashMap<String, Boolean> listTypes = new HashMap<>();
+    private final ArrayList<String> temps = new ArrayList<>();
+    private StringBuilder out = functions;
+    private int indent = 0;
+    private int tempCount = 0;
+    private SlotResolver slotResolver;
+    private SideEffects sideEffects;
+
+    //state of a walk of operatorWalker; walks nest when a leaf has operators of its own
+    private static final class Walk {
+        final StringBuilder code = new StringBuilder();
+        //the operator nodes being walked and the temporary each saves a value to, or null
+        final ArrayList<Expression> nodes = new ArrayList<>();
+        final ArrayList<String> saved = new ArrayList<>();
+        //nodes of the left spine when it is written as a comma expression, else null
+        IdentityHashMap<Expression, Boolean> spine;
+        final HashMap<String, String> spineTemps = new HashMap<>();
+        String spineValue;
+    }
+
+    private final ArrayList<Walk> walks = new ArrayList<>();
+    private final ExpressionWalker<Void> operatorWalker = new ExpressionWalker<>() {
+        @Override
+        protected boolean isWalked(Expression expression) {
+            return !(expression instanceof BinaryExpression)
+                    || ((BinaryExpression) expression).getBinaryOperator() != BinaryOperator.assign;
+        }
+
+        @Override
+        protected void enter(Expression expression) {
+            Walk walk = walks.get(walks.size() - 1);
+            String save = null;
+            if (walk.spine != null && walk.spine.containsKey(expression)) {
+                Expression first = firstOperand(expression);
+                if (!walk.spine.containsKey(first)) {
+                    walk.spineValue = spineTemp(walk, first.getResolvedType());
+                    walk.code.append(walk.spineValue).append(" = ");
+                }
+            } else if (expression instanceof BinaryExpression) {
+                BinaryExpression binaryExpression = (BinaryExpression) expression;
+                BinaryOperator operator = binaryExpression.getBinaryOperator();
+                Expression first = binaryExpression.getFirstOperand();
+                if (operator == BinaryOperator.and || operator == BinaryOperator.or) {
+                    if (!isChained(walk, expression))
+                        walk.code.append('(');
+                } else if (!(first instanceof IntValue || first instanceof BoolValue)
+                        && sideEffects.in(binaryExpression.getSecondOperand())) {
+                    save = temp(first.getResolvedType());
+                    walk.code.append('(').append(save).append(" = ");
+                } else
+                    walk.code.append(opening(operator));
+            } else if (expression instanceof UnaryExpression)
+                walk.code.append(((UnaryExpression) expression).getOperator() == UnaryOperator.not ? "(!" : "cmm_neg(");
+            else if (((ExprInPar) expression).getInputs().size() == 1)
+                walk.code.append('(');
+            else {
+                save = temp(((ExprInPar) expression).getInputs().get(0).getResolvedType());
+                walk.code.append('(').append(save).append(" = ");
+            }
+            walk.nodes.add(expression);
+            walk.saved.add(save);
+        }
+
+        @Override
+        protected void between(Expression expression, int operand) {
+            Walk walk = walks.get(walks.size() - 1);
+            String save = walk.saved.get(walk.saved.size() - 1);
+            if (expression instanceof ExprInPar) {
+                walk.code.append(", ");
+                return;
+            }
+            BinaryOperator operator = ((BinaryExpression) expression).getBinaryOperator();
+            if (operator == BinaryOperator.and || operator == BinaryOperator.or)
+                walk.code.append(operator == BinaryOperator.and ? " && " : " || ");
+            else if (walk.spine != null && walk.spine.containsKey(expression)) {
+                String value = spineTemp(walk, expression.getResolvedType());
+                walk.code.append(", ").append(value).append(" = ").append(opening(operator))
+                        .append(walk.spineValue).append(separator(operator));
+                walk.spineValue = value;
+            } else if (save != null)
+                walk.code.append(", ").append(opening(operator)).append(save).append(separator(operator));
+            else
+                walk.code.append(separator(operator));
+        }
+
+        @Override
+        protected Void visitLeaf(Expression expression) {
+            walks.get(walks.size() - 1).code.append(expression.accept(CSourceGenerator.this));
+            return null;
+        }
+
+        @Override
+        protected Void visitBinary(BinaryExpression binaryExpression, Void firstOperand, Void secondOperand) {
+            Walk walk = walks.get(walks.size() - 1);
+            String save = leave(walk);
+            BinaryOperator operator = binaryExpression.getBinaryOperator();
+            if (operator != BinaryOperator.and && operator != BinaryOperator.or)
+                walk.code.append(closing(binaryExpression)).append(save != null ? ")" : "");
+            else if (!isChained(walk, binaryExpression))
+                walk.code.append(')');
+            return null;
+        }
+
+        @Override
+        protected Void visitUnary(UnaryExpression unaryExpression, Void operand) {
+            Walk walk = walks.get(walks.size() - 1);
+            leave(walk);
+            if (walk.spine == null || !walk.spine.containsKey(unaryExpression)) {
+                walk.code.append(')');
+                return null;
+            }
+            String value = spineTemp(walk, unaryExpression.getResolvedType());
+            walk.code.append(", ").append(value).append(" = ")
+                    .append(unaryExpression.getOperator() == UnaryOperator.not ? "(!" : "cmm_neg(")
+                    .append(walk.spineValue).append(')');
+            walk.spineValue = value;
+            return null;
+        }
+
+        @Override
+        protected Void visitExprInPar(ExprInPar exprInPar, ArrayList<Void> inputs) {
+            Walk walk = walks.get(walks.size() - 1);
+            String save = leave(walk);
+            if (walk.spine != null && walk.spine.containsKey(exprInPar))
+                return null;
+            walk.code.append(save != null ? ", " + save + ")" : ")");
+            return null;
+        }
+    };
+
+    private CSourceGenerator() {
+    }
+
+    public static String generate(Program program) {
+        CSourceGenerator generator = new CSourceGenerator();
+        program.accept(generator);
+        return CRuntime.SOURCE + "\n" + generator.typeDefinitions + "\n" + generator.structDefinitions
+                + "\n" + generator.prototypes + "\n" + generator.functions;
+    }
+
+    private void line(String text) {
+        for (int i = 0; i < indent; i++)
+            out.append("    ");
+        out.append(text).append('\n');
+    }
+
+    //declares the temporaries the expressions of the next statement use
+    private void declareTemps() {
+        for (String temp : temps)
+            line(temp);
+        temps.clear();
+    }
+
+    private String temp(Type type) {
+        String name = "t" + tempCount++;
+        temps.add(cType(type) + " " + name + ";");
+        return name;
+    }
+
+    private static String local(Identifier name) {
+        return "v_" + name.getName() + "_" + name.getSlot();
+    }
+
+    private static String quote(String text) {
+        return '"' + text.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+
+    private String cType(Type type) {
+        switch (type.getKind()) {
+            case INT:
+                return "int32_t";
+            case BOOL:
+                return "bool";
+            case LIST:
+                return listType((ListType) type) + " *";
+            case STRUCT:
+                return "S_" + ((StructType) type).getStructName().getName() + " *";
+            case FPTR:
+                return fptrType((FptrType) type);
+            default:
+                return "void";
+        }
+    }
+
+    //name of a type inside the names of list types
+    private String typeName(Type type) {
+        switch (type.getKind()) {
+            case INT:
+                return "int";
+            case BOOL:
+                return "bool";
+            case LIST:
+                return listType((ListType) type);
+            case STRUCT:
+                return "S_" + ((StructType) type).getStructName().getName();
+            default:
+                return fptrType((FptrType) type);
+        }
+    }
+
+    //types are defined when first used, after the types they are made of
+    private String listType(ListType listType) {
+        String elementType = cType(listType.getType());
+        String name = "list_" + typeName(listType.getType());
+        if (listTypes.put(name, true) == null)
+            typeDefinitions.append("CMM_LIST(").append(name).append(", ").append(elementType).append(")\n");
+        return name;
+    }
+
+    private String fptrType(FptrType fptrType) {
+        StringJoiner args = new StringJoiner(", ", "(", ")");
+        args.add("int");
+        for (Type argType : fptrType.getArgsType())
+            args.add(cType(argType));
+        String returnType = cType(fptrType.getReturnType());
+        String key = returnType + args;
+        String name = fptrTypeNames.get(key);
+        if (name != null)
+            return name;
+        name = "fp_" + fptrTypeNames.size();
+        fptrTypeNames.put(key, name);
+        typeDefinitions.append("typedef ").append(returnType).append(" (*").append(name).append(")").append(args).append(";\n");
+        typeDefinitions.append("static ").append(name).append(' ').append(name).append("_check(").append(name)
+                .append(" function, int line) {\n");
+        typeDefinitions.append("    if (!function)\n");
+        typeDefinitions.append("        cmm_fail(line, \"Calling an fptr that has no function\");\n");
+        typeDefinitions.append("    return function;\n");
+        typeDefinitions.append("}\n");
+        return name;
+    }
+
+    private String defaultValue(Type type) {
+        switch (type.getKind()) {
+            case INT:
+                return "0";
+            case BOOL:
+                return "false";
+            case LIST:
+                return listType((ListType) type) + "_new()";
+            case STRUCT:
+                return "S_" + ((StructType) type).getStructName().getName() + "_new()";
+            default:
+                return "NULL";
+        }
+    }
+
+    private static ArrayList<Statement> statementsOf(Statement body) {
+        if (body instanceof BlockStmt)
+            return ((BlockStmt) body).getStatements();
+        ArrayList<Statement> statements = new ArrayList<>();
+        statements.add(body);
+        return statements;
+    }
+
+    private void body(Statement body) {
+        indent++;
+        body.accept(this);
+        indent--;
+    }
+
+    private String args(String first, ArrayList<VariableDeclaration> args) {
+        StringJoiner joiner = new StringJoiner(", ", "(", ")");
+        if (first != null)
+            joiner.add(first);
+        for (VariableDeclaration arg : args)
+            joiner.add(cType(arg.getVarType()) + " " + local(arg.getVarName()));
+        if (first == null && args.isEmpty())
+            joiner.add("void");
+        return joiner.toString();
+    }
+
+    //starts a function: its prototype and the line that opens its definition
+    private void function(String returnType, String name, String args) {
+        prototypes.append("static ").append(returnType).append(' ').append(name).append(args).append(";\n");
+        tempCount = 0;
+        line("static " + returnType + " " + name + args + " {");
+    }
+
+    private StructLayout layoutOf(Expression instance) {
+        return slotResolver.getLayout(((StructType) instance.getResolvedType()).getStructName().getName());
+    }
+
+    //code of the operands, in order, combined
+    private String ordered(List<Expression> operands, Function<List<String>, String> combine) {
+        StringBuilder saved = new StringBuilder();
+        ArrayList<String> values = new ArrayList<>();
+        for (int i = 0; i < operands.size(); i++) {
+            Expression operand = operands.get(i);
+            String value = operand.accept(this);
+            boolean constant = operand instanceof IntValue || operand instanceof BoolValue;
+            if (!constant && sideEffects.in(operands.subList(i + 1, operands.size()))) {
+                String temp = temp(operand.getResolvedType());
+                saved.append(temp).append(" = ").append(value).append(", ");
+                value = temp;
+            }
+            values.add(value);
+        }
+        String result = combine.apply(values);
+        return saved.length() == 0 ? result : "(" + saved + result + ")";
+    }
+
+    private String walk(Expression root) {
+        Walk walk = new Walk();
+        walks.add(walk);
+        int depth = 0;
+        for (Expression node = root; isSpineOperator(node); node = firstOperand(node))
+            depth++;
+        if (depth > FLATTEN_DEPTH) {
+            walk.spine = new IdentityHashMap<>();
+            for (Expression node = root; isSpineOperator(node); node = firstOperand(node))
+                walk.spine.put(node, Boolean.TRUE);
+            walk.code.append('(');
+        }
+        operatorWalker.walk(root);
+        if (walk.spine != null)
+            walk.code.append(", ").append(walk.spineValue).append(')');
+        walks.remove(walks.size() - 1);
+        return walk.code.toString();
+    }
+
+    //forgets the node walk finished; returns its temporary
+    private static String leave(Walk walk) {
+        walk.nodes.remove(walk.nodes.size() - 1);
+        return walk.saved.remove(walk.saved.size() - 1);
+    }
+
+    //whether expression, a & or |, is the first operand of the same operator, then it needs no parentheses
+    //of its own as && and || group to the left in C too; long chains would otherwise nest deeply
+    private static boolean isChained(Walk walk, Expression expression) {
+        if (walk.nodes.isEmpty() || !(walk.nodes.get(walk.nodes.size() - 1) instanceof BinaryExpression))
+            return false;
+        BinaryExpression parent = (BinaryExpression) walk.nodes.get(walk.nodes.size() - 1);
+        return parent.getFirstOperand() == expression
+                && parent.getBinaryOperator() == ((BinaryExpression) expression).getBinaryOperator();
+    }
+
+    //operators a comma expression can hold the value of: not =, & or |, whose operands are evaluated in an
+    //order of their own, nor a list of several expressions
+    private static boolean isSpineOperator(Expression expression) {
+        if (expression instanceof BinaryExpression) {
+            BinaryOperator operator = ((BinaryExpression) expression).getBinaryOperator();
+            return operator != BinaryOperator.assign && operator != BinaryOperator.and && operator != BinaryOperator.or;
+        }
+        return expression instanceof UnaryExpression
+                || expression instanceof ExprInPar && ((ExprInPar) expression).getInputs().size() == 1;
+    }
+
+    private static Expression firstOperand(Expression expression) {
+        if (expression instanceof BinaryExpression)
+            return ((BinaryExpression) expression).getFirstOperand();
+        if (expression instanceof UnaryExpression)
+            return ((UnaryExpression) expression).getOperand();
+        return ((ExprInPar) expression).getInputs().get(0);
+    }
+
+    //one temporary per C type holds the value along a flattened spine
+    private String spineTemp(Walk walk, Type type) {
+        String cType = cType(type);
+        String temp = walk.spineTemps.get(cType);
+        if (temp == null) {
+            temp = temp(type);
+            walk.spineTemps.put(cType, temp);
+        }
+        return temp;
+    }
+
+    private static String opening(BinaryOperator operator) {
+        switch (operator) {
+            case add:
+                return "cmm_add(";
+            case sub:
+                return "cmm_sub(";
+            case mult:
+                return "cmm_mult(";
+            case div:
+                return "cmm_div(";
+            default:
+                return "(";
+        }
+    }
+
+    private static String separator(BinaryOperator operator) {
+        switch (operator) {
+            case eq:
+                return " == ";
+            case gt:
+                return " > ";
+            case lt:
+                return " < ";
+            default:
+                return ", ";
+        }
+    }
+
+    private static String closing(BinaryExpression binaryExpression) {
+        if (binaryExpression.getBinaryOperator() == BinaryOperator.div)
+            return ", " + binaryExpression.getLine() + ")";
+        return ")";
+    }
+
+    private static String call(String function, List<String> args) {
+        StringJoiner call = new StringJoiner(", ", function + "(", ")");
+        for (String arg : args)
+            call.add(arg);
+        return call.toString();
+    }
+
+    //a call of a function's entry point, which takes the line of the call first
+    private static String call(String function, int line, List<String> args) {
+        StringJoiner call = new StringJoiner(", ", function + "(", ")");
+        call.add(String.valueOf(line));
+        for (String arg : args)
+            call.add(arg);
+        return call.toString();
+    }
+
+    private void struct(StructDeclaration structDec) {
+        String name = "S_" + structDec.getStructName().getName();
+        StructLayout layout = slotResolver.getLayout(structDec.getStructName().getName());
+        typeDefinitions.insert(0, "typedef struct " + name + " " + name + ";\n");
+        structDefinitions.append("struct ").append(name).append(" {\n");
+        for (int i = 0; i < layout.size(); i++) {
+            VariableDeclaration field = layout.getField(i);
+            structDefinitions.append("    ").append(cType(field.getVarType())).append(" v_").append(field.getVarName().getName()).append(";\n");
+        }
+        if (layout.size() == 0)
+            structDefinitions.append("    char empty;\n");
+        structDefinitions.append("};\n");
+
+        function(name + " *", name + "_new", "(void)");
+        indent++;
+        line(name + " *self = cmm_alloc(sizeof(" + name + "));");
+        for (int i = 0; i < layout.size(); i++) {
+            VariableDeclaration field = layout.getField(i);
+            Expression value = field.getDefaultValue();
+            String code = value != null ? value.accept(this) : defaultValue(field.getVarType());
+            declareTemps();
+            line("self->v_" + field.getVarName().getName() + " = " + code + ";");
+        }
+        line("return self;");
+        indent--;
+        line("}");
+        line("");
+
+        for (Statement stmt : statementsOf(structDec.getBody())) {
+            if (!(stmt instanceof SetGetVarDeclaration))
+                continue;
+            SetGetVarDeclaration setGetVarDec = (SetGetVarDeclaration) stmt;
+            String varName = setGetVarDec.getVarName().getName();
+            function("void", name + "_set_" + varName, args(name + " *self", setGetVarDec.getArgs()));
+            body(setGetVarDec.getSetterBody());
+            line("}");
+            line("");
+            function(cType(setGetVarDec.getVarType()), name + "_get_" + varName, "(" + name + " *self)");
+            body(setGetVarDec.getGetterBody());
+            line("    cmm_fail(" + setGetVarDec.getLine() + ", \"Missing return statement for function %s\", " + quote(varName) + ");");
+            line("}");
+            line("");
+        }
+    }
+
+    @Override
+    public String visit(Program program) {
+        slotResolver = SlotResolver.resolve(program);
+        sideEffects = new SideEffects(slotResolver);
+        for (StructDeclaration structDec : program.getStructs())
+            struct(structDec);
+        for (FunctionDeclaration funcDec : program.getFunctions()) {
+            String name = "f_" + funcDec.getFunctionName().getName();
+            String returnType = cType(funcDec.getReturnType());
+            boolean returnsValue = !(funcDec.getReturnType() instanceof VoidType);
+            String args = args(null, funcDec.getArgs());
+            function(returnType, name + "_body", args);
+            body(funcDec.getBody());
+            if (returnsValue)
+                line("    cmm_fail(" + funcDec.getLine() + ", \"Missing return statement for function %s\", "
+                        + quote(funcDec.getFunctionName().getName()) + ");");
+            line("}");
+            line("");
+
+            //the entry point counts the call, so it takes the line of the call for a stack overflow
+            StringJoiner argNames = new StringJoiner(", ");
+            for (VariableDeclaration arg : funcDec.getArgs())
+                argNames.add(local(arg.getVarName()));
+            function(returnType, name, args("int line", funcDec.getArgs()));
+            line("    cmm_enter(line);");
+            if (returnsValue) {
+                line("    " + returnType + " result = " + name + "_body(" + argNames + ");");
+                line("    cmm_depth--;");
+                line("    return result;");
+            } else {
+                line("    " + name + "_body(" + argNames + ");");
+                line("    cmm_depth--;");
+            }
+            line("}");
+            line("");
+        }
+        function("void", "m_main", "(void)");
+        body(program.getMain().getBody());
+        line("}");
+        line("");
+        line("int main(void) {");
+        line("    setvbuf(stdout, NULL, _IOFBF, 1 << 16);");
+        line("    m_main();");
+        line("    fflush(stdout);");
+        line("    return 0;");
+        line("}");
+        return null;
+    }
+
+    private String assignment(Expression target, Expression value, int line) {
+        if (target instanceof ListAccessByIndex) {
+            ListAccessByIndex listAccessByIndex = (ListAccessByIndex) target;
+            String function = listType((ListType) listAccessByIndex.getInstance().getResolvedType()) + "_set";
+            return ordered(List.of(listAccessByIndex.getInstance(), listAccessByIndex.getIndex(), value),
+                    values -> function + "(" + values.get(0) + ", " + values.get(1) + ", " + values.get(2) + ", " + line + ")");
+        }
+        if (target instanceof StructAccess) {
+            StructAccess structAccess = (StructAccess) target;
+            String field = "->v_" + structAccess.getElement().getName();
+            return ordered(List.of(structAccess.getInstance(), value), values -> "(" + values.get(0) + field + " = " + values.get(1) + ")");
+        }
+        if (target instanceof ExprInPar && ((ExprInPar) target).getInputs().size() == 1)
+            return assignment(((ExprInPar) target).getInputs().get(0), value, line);
+        return "(" + target.accept(this) + " = " + value.accept(this) + ")";
+    }
+
+    @Override
+    public String visit(VariableDeclaration variableDec) {
+        Expression value = variableDec.getDefaultValue();
+        String code = value != null ? value.accept(this) : defaultValue(variableDec.getVarType());
+        declareTemps();
+        line(cType(variableDec.getVarType()) + " " + local(variableDec.getVarName()) + " = " + code + ";");
+        return null;
+    }
+
+    @Override
+    public String visit(AssignmentStmt assignmentStmt) {
+        String code = assignment(assignmentStmt.getLValue(), assignmentStmt.getRValue(), assignmentStmt.getLine());
+        declareTemps();
+        line(code + ";");
+        return null;
+    }
+
+    @Override
+    public String visit(BlockStmt blockStmt) {
+        for (Statement stmt : blockStmt.getStatements())
+            stmt.accept(this);
+        return null;
+    }
+
+    @Override
+    public String visit(ConditionalStmt conditionalStmt) {
+        String condition = conditionalStmt.getCondition().accept(this);
+        declareTemps();
+        line("if (" + condition + ") {");
+        body(conditionalStmt.getThenBody());
+        if (conditionalStmt.getElseBody() != null) {
+            line("} else {");
+            body(conditionalStmt.getElseBody());
+        }
+        line("}");
+        return null;
+    }
+
+    @Override
+    public String visit(FunctionCallStmt functionCallStmt) {
+        String code = functionCallStmt.getFunctionCall().accept(this);
+        declareTemps();
+        line(code + ";");
+        return null;
+    }
+
+    @Override
+    public String visit(DisplayStmt displayStmt) {
+        Expression arg = displayStmt.getArg();
+        String code = arg.accept(this);
+        declareTemps();
+        line((arg.getResolvedType().getKind() == TypeKind.BOOL ? "cmm_display_bool(" : "cmm_display_int(") + code + ");");
+        return null;
+    }
+
+    @Override
+    public String visit(ReturnStmt returnStmt) {
+        Expression returnedExpr = returnStmt.getReturnedExpr();
+        String code = returnedExpr == null ? null : returnedExpr.accept(this);
+        declareTemps();
+        line(code == null ? "return;" : "return " + code + ";");
+        return null;
+    }
+
+    @Override
+    public String visit(LoopStmt loopStmt) {
+        String condition = loopStmt.getCondition().accept(this);
+        declareTemps();
+        if (loopStmt.isDoWhile()) {
+            line("do {");
+            body(loopStmt.getBody());
+            line("} while (" + condition + ");");
+        } else {
+            line("while (" + condition + ") {");
+            body(loopStmt.getBody());
+            line("}");
+        }
+        return null;
+    }
+
+    @Override
+    public String visit(VarDecStmt varDecStmt) {
+        for (VariableDeclaration varDec : varDecStmt.getVars())
+            varDec.accept(this);
+        return null;
+    }
+
+    @Override
+    public String visit(ListAppendStmt listAppendStmt) {
+        String code = listAppendStmt.getListAppendExpr().accept(this);
+        declareTemps();
+        line(code + ";");
+        return null;
+    }
+
+    @Override
+    public String visit(ListSizeStmt listSizeStmt) {
+        String code = listSizeStmt.getListSizeExpr().accept(this);
+        declareTemps();
+        line("(void) " + code + ";");
+        return null;
+    }
+
+    @Override
+    public String visit(BinaryExpression binaryExpression) {
+        if (binaryExpression.getBinaryOperator() == BinaryOperator.assign)
+            return assignment(binaryExpression.getFirstOperand(), binaryExpression.getSecondOperand(), binaryExpression.getLine());
+        return walk(binaryExpression);
+    }
+
+    @Override
+    public String visit(UnaryExpression unaryExpression) {
+        return walk(unaryExpression);
+    }
+
+    @Override
+    public String visit(FunctionCall funcCall) {
+        Expression instance = funcCall.getInstance();
+        ArrayList<Expression> args = funcCall.getArgs();
+        int line = funcCall.getLine();
+        if (instance instanceof Identifier && ((Identifier) instance).getStorage() == Identifier.Storage.FUNCTION)
+            return ordered(args, values -> call("f_" + ((Identifier) instance).getName(), line, values));
+
+        ArrayList<Expression> operands = new ArrayList<>();
+        if (instance instanceof StructAccess) {
+            StructAccess structAccess = (StructAccess) instance;
+            StructLayout layout = layoutOf(structAccess.getInstance());
+            if (layout.getSetter(structAccess.getElement().getSlot()) != null) {
+                String setter = "S_" + layout.getName() + "_set_" + structAccess.getElement().getName();
+                operands.add(structAccess.getInstance());
+                operands.addAll(args);
+                return ordered(operands, values -> call(setter, values));
+            }
+        }
+        String check = fptrType((FptrType) instance.getResolvedType()) + "_check";
+        operands.add(instance);
+        operands.addAll(args);
+        return ordered(operands, values -> call(check + "(" + values.get(0) + ", " + line + ")", line, values.subList(1, values.size())));
+    }
+
+    @Override
+    public String visit(Identifier identifier) {
+        switch (identifier.getStorage()) {
+            case LOCAL:
+                return local(identifier);
+            case MEMBER:
+                return "self->v_" + identifier.getName();
+            default:
+                return "f_" + identifier.getName();
+        }
+    }
+
+    @Override
+    public String visit(ListAccessByIndex listAccessByIndex) {
+        String function = listType((ListType) listAccessByIndex.getInstance().getResolvedType()) + "_at";
+        int line = listAccessByIndex.getLine();
+        return ordered(List.of(listAccessByIndex.getInstance(), listAccessByIndex.getIndex()),
+                values -> function + "(" + values.get(0) + ", " + values.get(1) + ", " + line + ")");
+    }
+
+    @Override
+    public String visit(StructAccess structAccess) {
+        String instance = structAccess.getInstance().accept(this);
+        StructLayout layout = layoutOf(structAccess.getInstance());
+        String name = structAccess.getElement().getName();
+        if (layout.getGetter(structAccess.getElement().getSlot()) != null)
+            return "S_" + layout.getName() + "_get_" + name + "(" + instance + ")";
+        return instance + "->v_" + name;
+    }
+
+    @Override
+    public String visit(ListSize listSize) {
+        return listSize.getArg().accept(this) + "->size";
+    }
+
+    @Override
+    public String visit(ListAppend listAppend) {
+        String function = listType((ListType) listAppend.getListArg().getResolvedType()) + "_append";
+        return ordered(List.of(listAppend.getListArg(), listAppend.getElementArg()), values -> call(function, values));
+    }
+
+    @Override
+    public String visit(ExprInPar exprInPar) {
+        return walk(exprInPar);
+    }
+
+    @Override
+    public String visit(IntValue intValue) {
+        int constant = intValue.getConstant();
+        if (constant == Integer.MIN_VALUE)
+            return "INT32_MIN";
+        return constant < 0 ? "(" + constant + ")" : Integer.toString(constant);
+    }
+
+    @Override
+    public String visit(BoolValue boolValue) {
+        return Boolean.toString(boolValue.getConstant());
+    }
+}
@@ -0,0 +1,801 @@
+package main.backend.jvm;
+
+import main.ast.nodes.Program;
+import main.ast.nodes.declaration.FunctionDeclaration;
+import main.ast.nodes.declaration.VariableDeclaration;
+import main.ast.nodes.declaration.struct.StructDeclaration;
+import main.ast.nodes.expression.*;
+import main.ast.nodes.expression.operators.BinaryOperator;
+import main.ast.nodes.expression.operators.UnaryOperator;
+import main.ast.nodes.expression.values.primitive.BoolValue;
+import main.ast.nodes.expression.values.primitive.IntValue;
+import main.ast.nodes.statement.*;
+import main.ast.types.FptrType;
+import main.ast.types.ListType;
+import main.ast.types.StructType;
+import main.ast.types.Type;
+import main.ast.types.primitives.VoidType;
+import main.interpreter.SlotResolver;
+import main.interpreter.StructLayout;
+import main.visitor.ExpressionWalker;
+import main.visitor.Visitor;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.StringJoiner;
+
+//Java source of one class for a checked Program, which JvmBackend compiles to class files.
+//Functions are static methods f_<name>, main is m_main, structs are nested classes S_<name> with typed
+//fields v_<name> and set_/get_ methods for fields with accessors. Locals are v_<name>_<slot>, since Java
+//doesn't allow a local to shadow another one and C-- does.
+//int and bool are int and boolean, list #int is IntList, list #bool is BoolList, other lists are RefLists
+//of the element type and an fptr is a MethodHandle; every function has a constant h_<name> that is its
+//fptr value.
+//Expressions are generated by the visit methods, statements are appended to the source by them.
+//Operators other than = are written by an ExpressionWalker, in order, into one StringBuilder per walk,
+//so a deep expression needs neither a deep Java stack nor copies of its operands' code.
+//A method too large for the 64 KB of code a JVM method may have is split as its SpillPlan says: its locals
+//are fields of a frame object L_<method>, and the expressions and statements split off are helper methods
+//<method>$<n> next to it that take the frame.
+public class JavaSourceGenerator extends Visitor<String> {
+    private final String className;
+    private final StringBuilder source = new StringBuilder();
+    //C-- line of every generated line, index 0 is the first line
+    private final ArrayList<Integer> cmmLines = new ArrayList<>();
+    private int cmmLine = 0;
+    private int indent = 0;
+    private SlotResolver slotResolver;
+    //the method being generated when it is split, otherwise null
+    private Spill spill;
+
+    //code of the walks in progress; a walked node writes to the last one
+    private final ArrayList<StringBuilder> walkOutputs = new ArrayList<>();
+    //operators entered and not yet finished, of every walk in progress
+    private final ArrayList<Expression> walkNodes = new ArrayList<>();
+    private final ExpressionWalker<Void> operatorWalker = new ExpressionWalker<>() {
+        @Override
+        protected boolean isWalked(Expression expression) {
+            if (isSplitOff(expression))
+                return false;
+            return !(expression instanceof BinaryExpression)
+                    || ((BinaryExpression) expression).getBinaryOperator() != BinaryOperator.assign;
+        }
+
+        @Override
+        protected void enter(Expression expression) {
+            String opening;
+            if (isChained(expression))
+                opening = "";
+            else if (expression instanceof BinaryExpression)
+                opening = ((BinaryExpression) expression).getBinaryOperator() == BinaryOperator.div ? "JvmSupport.div(" : "(";
+            else if (expression instanceof UnaryExpression)
+                opening = ((UnaryExpression) expression).getOperator() == UnaryOperator.not ? "(!" : "(- ";
+            else
+                opening = ((ExprInPar) expression).getInputs().size() == 1 ? "(" : "JvmSupport.first(";
+            code().append(opening);
+            walkNodes.add(expression);
+        }
+
+        @Override
+        protected void between(Expression expression, int operand) {
+            if (expression instanceof BinaryExpression)
+                code().append(infix(((BinaryExpression) expression).getBinaryOperator()));
+            else
+                code().append(", ");
+        }
+
+        @Override
+        protected Void visitLeaf(Expression expression) {
+            code().append(expression(expression));
+            return null;
+        }
+
+        @Override
+        protected Void visitBinary(BinaryExpression binaryExpression, Void firstOperand, Void secondOperand) {
+            walkNodes.remove(walkNodes.size() - 1);
+            if (binaryExpression.getBinaryOperator() == BinaryOperator.div)
+                code().append(", ").append(binaryExpression.getLine());
+            if (!isChained(binaryExpression))
+                code().append(')');
+            return null;
+        }
+
+        @Override
+        protected Void visitUnary(UnaryExpression unaryExpression, Void operand) {
+            walkNodes.remove(walkNodes.size() - 1);
+            code().append(')');
+            return null;
+        }
+
+        @Override
+        protected Void visitExprInPar(ExprInPar exprInPar, ArrayList<Void> inputs) {
+            walkNodes.remove(walkNodes.size() - 1);
+            code().append(')');
+            return null;
+        }
+    };
+
+    //a helper method split off a method, see SpillPlan
+    private static final class Helper {
+        private final String name;
+        private final int cmmLine;
+        //an expression whose value the helper returns
+        private Expression expression;
+        //or statements start to end of owner, which the helper runs before calling next, if there is one;
+        //it returns whether a return statement ran
+        private Statement owner;
+        private int start;
+        private int end;
+        private String next;
+
+        Helper(String name, int cmmLine) {
+            this.name = name;
+            this.cmmLine = cmmLine;
+        }
+    }
+
+    private static final class Spill {
+        private final SpillPlan spillPlan;
+        private final String name;
+        private final String frameClass;
+        private final boolean isStatic;
+        //null for a method that returns nothing
+        private final Type returnType;
+        //java type of every field of the frame
+        private final LinkedHashMap<String, String> fields = new LinkedHashMap<>();
+        private final ArrayDeque<Helper> pending = new ArrayDeque<>();
+        private int helpers = 0;
+        //the expression whose helper is being generated
+        private Expression root;
+        //whether helpers are being generated, rather than the method
+        private boolean inHelper = false;
+
+        Spill(SpillPlan spillPlan, String name, boolean isStatic, Type returnType) {
+            this.spillPlan = spillPlan;
+            this.name = name;
+            this.frameClass = "L_" + name;
+            this.isStatic = isStatic;
+            this.returnType = returnType;
+        }
+
+        Helper helper(int cmmLine) {
+            Helper helper = new Helper(name + "$" + ++helpers, cmmLine);
+            pending.add(helper);
+            return helper;
+        }
+
+        //frame field of a local; a name declared with two types in different scopes gets a field for each
+        String field(String local, String javaType) {
+            String field = local;
+            for (int i = 2; fields.containsKey(field) && !fields.get(field).equals(javaType); i++)
+                field = local + "_" + i;
+            fields.put(field, javaType);
+            return "frame." + field;
+        }
+    }
+
+    public JavaSourceGenerator(String className) {
+        this.className = className;
+    }
+
+    public String generate(Program program) {
+        program.accept(this);
+        return source.toString();
+    }
+
+    //C-- line of a line of the generated source, numbered from 1 like stack traces do, or 0
+    public int cmmLineOf(int javaLine) {
+        return javaLine >= 1 && javaLine <= cmmLines.size() ? cmmLines.get(javaLine - 1) : 0;
+    }
+
+    private void line(String text) {
+        for (int i = 0; i < indent; i++)
+            source.append("    ");
+        source.append(text).append('\n');
+        cmmLines.add(cmmLine);
+    }
+
+    private boolean isSplitOff(Expression expression) {
+        return spill != null && expression != spill.root && spill.spillPlan.isSplit(expression);
+    }
+
+    //code of an expression, or the call of its helper when it is split off
+    private String expression(Expression expression) {
+        if (!isSplitOff(expression))
+            return expression.accept(this);
+        Helper helper = spill.helper(cmmLine);
+        helper.expression = expression;
+        return helper.name + "(frame)";
+    }
+
+    private void statement(Statement statement) {
+        ArrayList<Integer> starts = spill == null ? null : spill.spillPlan.runsOf(statement);
+        if (starts == null) {
+            statement.accept(this);
+            return;
+        }
+        ArrayList<Statement> statements = statementsOf(statement);
+        Helper first = null;
+        Helper previous = null;
+        for (int i = 0; i < starts.size(); i++) {
+            Helper helper = spill.helper(cmmLine);
+            helper.owner = statement;
+            helper.start = starts.get(i);
+            helper.end = i + 1 < starts.size() ? starts.get(i + 1) : statements.size();
+            if (previous != null)
+                previous.next = helper.name;
+            else
+                first = helper;
+            previous = helper;
+        }
+        String call = "if (" + first.name + "(frame)) ";
+        if (spill.inHelper)
+            line(call + "return true;");
+        else
+            line(call + (spill.returnType == null ? "return;" : "return frame.r;"));
+    }
+
+    //starts a method that SpillPlan splits, with its frame; arguments are copied to it
+    private void startSpill(String name, boolean isStatic, Type returnType, ArrayList<VariableDeclaration> args,
+                            Statement body, ArrayList<Expression> expressions) {
+        SpillPlan spillPlan = SpillPlan.of(body, expressions);
+        if (spillPlan == null)
+            return;
+        spill = new Spill(spillPlan, name, isStatic, returnType);
+        indent++;
+        line(spill.frameClass + " frame = new " + spill.frameClass + "();");
+        for (VariableDeclaration arg : args)
+            line(spill.field(local(arg.getVarName()), javaType(arg.getVarType())) + " = " + local(arg.getVarName()) + ";");
+        indent--;
+    }
+
+    //the helpers and frame class of a split method, after the method
+    private void finishSpill() {
+        if (spill == null)
+            return;
+        spill.inHelper = true;
+        String modifiers = spill.isStatic ? "private static " : "private ";
+        String frame = "(" + spill.frameClass + " frame) throws Throwable {";
+        while (!spill.pending.isEmpty()) {
+            Helper helper = spill.pending.poll();
+            cmmLine = helper.cmmLine;
+            line("");
+            if (helper.expression != null) {
+                String type = javaType(helper.expression.getResolvedType());
+                line(modifiers + type + " " + helper.name + frame);
+                spill.root = helper.expression;
+                String code = helper.expression.accept(this);
+                spill.root = null;
+                line("    " + (type.equals("void") ? "" : "return ") + code + ";");
+            } else {
+                line(modifiers + "boolean " + helper.name + frame);
+                indent++;
+                if (helper.owner instanceof BlockStmt) {
+                    ArrayList<Statement> statements = ((BlockStmt) helper.owner).getStatements();
+                    for (int i = helper.start; i < helper.end; i++)
+                        statement(statements.get(i));
+                } else {
+                    helper.owner.accept(this);
+                }
+                line(helper.next != null ? "return " + helper.next + "(frame);" : "return false;");
+                indent--;
+            }
+            line("}");
+        }
+        cmmLine = 0;
+        line("");
+        line("private static final class " + spill.frameClass + " {");
+        for (String field : spill.fields.keySet())
+            line("    " + spill.fields.get(field) + " " + field + ";");
+        if (spill.returnType != null)
+            line("    " + javaType(spill.returnType) + " r;");
+        line("}");
+        spill = null;
+    }
+
+    private StringBuilder code() {
+        return walkOutputs.get(walkOutputs.size() - 1);
+    }
+
+    private String walk(Expression expression) {
+        walkOutputs.add(new StringBuilder());
+        operatorWalker.walk(expression);
+        return walkOutputs.remove(walkOutputs.size() - 1).toString();
+    }
+
+    //whether expression is the first operand of an operator that groups to the left with it in Java, so it
+    //needs no parentheses of its own; javac takes long chains faster without them
+    private boolean isChained(Expression expression) {
+        if (walkNodes.isEmpty() || !(expression instanceof BinaryExpression)
+                || !(walkNodes.get(walkNodes.size() - 1) instanceof BinaryExpression))
+            return false;
+        BinaryExpression parent = (BinaryExpression) walkNodes.get(walkNodes.size() - 1);
+        return parent.getFirstOperand() == expression
+                && precedence(parent.getBinaryOperator()) == precedence(((BinaryExpression) expression).getBinaryOperator());
+    }
+
+    //Java precedence of the infix operators written, 0 for the others
+    private static int precedence(BinaryOperator operator) {
+        switch (operator) {
+            case or:
+                return 1;
+            case and:
+                return 2;
+            case add:
+            case sub:
+                return 3;
+            case mult:
+                return 4;
+            default:
+                return 0;
+        }
+    }
+
+    private static String infix(BinaryOperator operator) {
+        switch (operator) {
+            case eq:
+                return " == ";
+            case gt:
+                return " > ";
+            case lt:
+                return " < ";
+            case add:
+                return " + ";
+            case sub:
+                return " - ";
+            case mult:
+                return " * ";
+            case and:
+                return " && ";
+            case or:
+                return " || ";
+            default:
+                return ", ";
+        }
+    }
+
+    private static String local(Identifier name) {
+        return "v_" + name.getName() + "_" + name.getSlot();
+    }
+
+    private static String quote(String text) {
+        return '"' + text.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+
+    static String javaType(Type type) {
+        switch (type.getKind()) {
+            case INT:
+                return "int";
+            case BOOL:
+                return "boolean";
+            case LIST: {
+                Type elementType = ((ListType) type).getType();
+                if (elementType.getKind() == main.ast.types.TypeKind.INT)
+                    return "IntList";
+                if (elementType.getKind() == main.ast.types.TypeKind.BOOL)
+                    return "BoolList";
+                return "RefList<" + javaType(elementType) + ">";
+            }
+            case STRUCT:
+                return "S_" + ((StructType) type).getStructName().getName();
+            case FPTR:
+                return "MethodHandle";
+            default:
+                return "void";
+        }
+    }
+
+    //erased type, for class literals
+    private static String rawType(Type type) {
+        String javaType = javaType(type);
+        int generic = javaType.indexOf('<');
+        return generic < 0 ? javaType : javaType.substring(0, generic);
+    }
+
+    private static String methodType(Type returnType, ArrayList<Type> argTypes) {
+        StringJoiner types = new StringJoiner(", ", "MethodType.methodType(", ")");
+        types.add(rawType(returnType) + ".class");
+        for (Type argType : argTypes)
+            types.add(rawType(argType) + ".class");
+        return types.toString();
+    }
+
+    private String defaultValue(Type type) {
+        switch (type.getKind()) {
+            case INT:
+                return "0";
+            case BOOL:
+                return "false";
+            case LIST:
+            case STRUCT:
+                return "new " + javaType(type).replaceAll("<.*>", "<>") + "()";
+            default:
+                return "null";
+        }
+    }
+
+    private static ArrayList<Statement> statementsOf(Statement body) {
+        if (body instanceof BlockStmt)
+            return ((BlockStmt) body).getStatements();
+        ArrayList<Statement> statements = new ArrayList<>();
+        statements.add(body);
+        return statements;
+    }
+
+    private void body(Statement body) {
+        indent++;
+        statement(body);
+        indent--;
+    }
+
+    //javac rejects falling off the end of a non-void method, so a body that can is followed by a throw
+    private void methodBody(Statement body, boolean returnsValue, int line, String name) {
+        if (!returnsValue) {
+            body(body);
+            return;
+        }
+        indent++;
+        line("if (true) {");
+        body(body);
+        line("}");
+        line("throw JvmSupport.missingReturn(" + line + ", " + quote(name) + ");");
+        indent--;
+    }
+
+    private String args(ArrayList<VariableDeclaration> args) {
+        StringJoiner joiner = new StringJoiner(", ");
+        for (VariableDeclaration arg : args)
+            joiner.add(javaType(arg.getVarType()) + " " + local(arg.getVarName()));
+        return joiner.toString();
+    }
+
+    private StructLayout layoutOf(Expression instance) {
+        return slotResolver.getLayout(((StructType) instance.getResolvedType()).getStructName().getName());
+    }
+
+    private void struct(StructDeclaration structDec) {
+        String name = structDec.getStructName().getName();
+        StructLayout layout = slotResolver.getLayout(name);
+        line("public static final class S_" + name + " {");
+        indent++;
+        for (int i = 0; i < layout.size(); i++) {
+            VariableDeclaration field = layout.getField(i);
+            line("public " + javaType(field.getVarType()) + " v_" + field.getVarName().getName() + ";");
+        }
+        line("");
+        line("public S_" + name + "() throws Throwable {");
+        ArrayList<Expression> values = new ArrayList<>();
+        for (int i = 0; i < layout.size(); i++)
+            if (layout.getField(i).getDefaultValue() != null)
+                values.add(layout.getField(i).getDefaultValue());
+        startSpill("init", false, null, new ArrayList<>(), null, values);
+        indent++;
+        for (int i = 0; i < layout.size(); i++) {
+            VariableDeclaration field = layout.getField(i);
+            Expression value = field.getDefaultValue();
+            line("this.v_" + field.getVarName().getName() + " = "
+                    + (value != null ? expression(value) : defaultValue(field.getVarType())) + ";");
+        }
+        indent--;
+        line("}");
+        finishSpill();
+        for (Statement stmt : statementsOf(structDec.getBody())) {
+            if (!(stmt instanceof SetGetVarDeclaration))
+                continue;
+            SetGetVarDeclaration setGetVarDec = (SetGetVarDeclaration) stmt;
+            String varName = setGetVarDec.getVarName().getName();
+            line("");
+            line("public void set_" + varName + "(" + args(setGetVarDec.getArgs()) + ") throws Throwable {");
+            startSpill("set_" + varName, false, null, setGetVarDec.getArgs(), setGetVarDec.getSetterBody(), new ArrayList<>());
+            methodBody(setGetVarDec.getSetterBody(), false, setGetVarDec.getLine(), varName);
+            line("}");
+            finishSpill();
+            line("");
+            line("public " + javaType(setGetVarDec.getVarType()) + " get_" + varName + "() throws Throwable {");
+            startSpill("get_" + varName, false, setGetVarDec.getVarType(), new ArrayList<>(), setGetVarDec.getGetterBody(), new ArrayList<>());
+            methodBody(setGetVarDec.getGetterBody(), true, setGetVarDec.getLine(), varName);
+            line("}");
+            finishSpill();
+        }
+        indent--;
+        line("}");
+        line("");
+    }
+
+    @Override
+    public String visit(Program program) {
+        slotResolver = SlotResolver.resolve(program);
+        line("import main.backend.jvm.JvmSupport;");
+        line("import main.runtime.BoolList;");
+        line("import main.runtime.IntList;");
+        line("import main.runtime.RefList;");
+        line("import java.io.PrintStream;");
+        line("import java.lang.invoke.MethodHandle;");
+        line("import java.lang.invoke.MethodHandles;");
+        line("import java.lang.invoke.MethodType;");
+        line("import java.util.ArrayList;");
+        line("");
+        line("public final class " + className + " {");
+        indent++;
+        line("private static PrintStream out = System.out;");
+        for (FunctionDeclaration funcDec : program.getFunctions())
+            line("private static final MethodHandle h_" + funcDec.getFunctionName().getName() + ";");
+        line("");
+        if (!program.getFunctions().isEmpty()) {
+            line("static {");
+            indent++;
+            line("try {");
+            indent++;
+            line("MethodHandles.Lookup lookup = MethodHandles.lookup();");
+            for (FunctionDeclaration funcDec : program.getFunctions()) {
+                String name = funcDec.getFunctionName().getName();
+                ArrayList<Type> argTypes = new ArrayList<>();
+                for (VariableDeclaration arg : funcDec.getArgs())
+                    argTypes.add(arg.getVarType());
+                line("h_" + name + " = lookup.findStatic(" + className + ".class, \"f_" + name + "\", "
+                        + methodType(funcDec.getReturnType(), argTypes) + ");");
+            }
+            indent--;
+            line("} catch (ReflectiveOperationException e) {");
+            line("    throw new ExceptionInInitializerError(e);");
+            line("}");
+            indent--;
+            line("}");
+            line("");
+        }
+
+        for (StructDeclaration structDec : program.getStructs())
+            struct(structDec);
+        for (FunctionDeclaration funcDec : program.getFunctions()) {
+            String name = funcDec.getFunctionName().getName();
+            cmmLine = funcDec.getLine();
+            boolean returnsValue = !(funcDec.getReturnType() instanceof VoidType);
+            line("public static " + javaType(funcDec.getReturnType()) + " f_" + name + "(" + args(funcDec.getArgs()) + ") throws Throwable {");
+            startSpill("f_" + name, true, returnsValue ? funcDec.getReturnType() : null, funcDec.getArgs(), funcDec.getBody(), new ArrayList<>());
+            methodBody(funcDec.getBody(), returnsValue, funcDec.getLine(), name);
+            line("}");
+            finishSpill();
+            line("");
+        }
+        cmmLine = program.getMain().getLine();
+        line("public static void m_main() throws Throwable {");
+        startSpill("m_main", true, null, new ArrayList<>(), program.getMain().getBody(), new ArrayList<>());
+        body(program.getMain().getBody());
+        line("}");
+        finishSpill();
+        cmmLine = 0;
+        line("");
+        line("public static void run(PrintStream output) throws Throwable {");
+        line("    out = output;");
+        line("    m_main();");
+        line("    out.flush();");
+        line("}");
+        line("");
+        line("public static void main(String[] args) throws Throwable {");
+        line("    run(new PrintStream(new java.io.BufferedOutputStream(new java.io.FileOutputStream(java.io.FileDescriptor.out), 1 << 16), false));");
+        line("}");
+        indent--;
+        line("}");
+        return null;
+    }
+
+    private String assignment(Expression target, Expression value, int line) {
+        if (target instanceof ListAccessByIndex) {
+            ListAccessByIndex listAccessByIndex = (ListAccessByIndex) target;
+            return "JvmSupport.setAt(" + expression(listAccessByIndex.getInstance()) + ", "
+                    + expression(listAccessByIndex.getIndex()) + ", " + expression(value) + ", " + line + ")";
+        }
+        if (target instanceof StructAccess) {
+            StructAccess structAccess = (StructAccess) target;
+            return expression(structAccess.getInstance()) + ".v_" + structAccess.getElement().getName() + " = " + expression(value);
+        }
+        if (target instanceof ExprInPar && ((ExprInPar) target).getInputs().size() == 1)
+            return assignment(((ExprInPar) target).getInputs().get(0), value, line);
+        return target.accept(this) + " = " + expression(value);
+    }
+
+    @Override
+    public String visit(VariableDeclaration variableDec) {
+        cmmLine = variableDec.getLine();
+        Expression value = variableDec.getDefaultValue();
+        String javaType = javaType(variableDec.getVarType());
+        String local = local(variableDec.getVarName());
+        line((spill != null ? spill.field(local, javaType) : javaType + " " + local) + " = "
+                + (value != null ? expression(value) : defaultValue(variableDec.getVarType())) + ";");
+        return null;
+    }
+
+    @Override
+    public String visit(AssignmentStmt assignmentStmt) {
+        cmmLine = assignmentStmt.getLine();
+        line(assignment(assignmentStmt.getLValue(), assignmentStmt.getRValue(), assignmentStmt.getLine()) + ";");
+        return null;
+    }
+
+    @Override
+    public String visit(BlockStmt blockStmt) {
+        for (Statement stmt : blockStmt.getStatements())
+            statement(stmt);
+        return null;
+    }
+
+    @Override
+    public String visit(ConditionalStmt conditionalStmt) {
+        cmmLine = conditionalStmt.getLine();
+        line("if (" + expression(conditionalStmt.getCondition()) + ") {");
+        body(conditionalStmt.getThenBody());
+        if (conditionalStmt.getElseBody() != null) {
+            line("} else {");
+            body(conditionalStmt.getElseBody());
+        }
+        line("}");
+        return null;
+    }
+
+    @Override
+    public String visit(FunctionCallStmt functionCallStmt) {
+        cmmLine = functionCallStmt.getLine();
+        FunctionCall funcCall = functionCallStmt.getFunctionCall();
+        String call = expression(funcCall);
+        //a cast is not a statement
+        if (call.startsWith("(("))
+            call = "JvmSupport.ignore(" + call + ")";
+        line(call + ";");
+        return null;
+    }
+
+    @Override
+    public String visit(DisplayStmt displayStmt) {
+        cmmLine = displayStmt.getLine();
+        line("out.println(" + expression(displayStmt.getArg()) + ");");
+        return null;
+    }
+
+    //"if (true)" keeps the statements after a return reachable for javac; a helper of a split method leaves
+    //the value in its frame and returns true
+    @Override
+    public String visit(ReturnStmt returnStmt) {
+        cmmLine = returnStmt.getLine();
+        Expression returnedExpr = returnStmt.getReturnedExpr();
+        if (spill != null && spill.inHelper)
+            line(returnedExpr == null ? "if (true) return true;" : "if (true) { frame.r = " + expression(returnedExpr) + "; return true; }");
+        else
+            line("if (true) return" + (returnedExpr == null ? "" : " " + expression(returnedExpr)) + ";");
+        return null;
+    }
+
+    @Override
+    public String visit(LoopStmt loopStmt) {
+        cmmLine = loopStmt.getLine();
+        String condition = "JvmSupport.test(" + expression(loopStmt.getCondition()) + ")";
+        if (loopStmt.isDoWhile()) {
+            line("do {");
+            body(loopStmt.getBody());
+            line("} while (" + condition + ");");
+        } else {
+            line("while (" + condition + ") {");
+            body(loopStmt.getBody());
+            line("}");
+        }
+        return null;
+    }
+
+    @Override
+    public String visit(VarDecStmt varDecStmt) {
+        for (VariableDeclaration varDec : varDecStmt.getVars())
+            varDec.accept(this);
+        return null;
+    }
+
+    @Override
+    public String visit(ListAppendStmt listAppendStmt) {
+        cmmLine = listAppendStmt.getLine();
+        line(expression(listAppendStmt.getListAppendExpr()) + ";");
+        return null;
+    }
+
+    @Override
+    public String visit(ListSizeStmt listSizeStmt) {
+        cmmLine = listSizeStmt.getLine();
+        line(expression(listSizeStmt.getListSizeExpr()) + ";");
+        return null;
+    }
+
+    @Override
+    public String visit(BinaryExpression binaryExpression) {
+        if (binaryExpression.getBinaryOperator() == BinaryOperator.assign)
+            return "(" + assignment(binaryExpression.getFirstOperand(), binaryExpression.getSecondOperand(), binaryExpression.getLine()) + ")";
+        return walk(binaryExpression);
+    }
+
+    @Override
+    public String visit(UnaryExpression unaryExpression) {
+        return walk(unaryExpression);
+    }
+
+    @Override
+    public String visit(FunctionCall funcCall) {
+        Expression instance = funcCall.getInstance();
+        ArrayList<Expression> args = funcCall.getArgs();
+        if (instance instanceof Identifier && ((Identifier) instance).getStorage() == Identifier.Storage.FUNCTION) {
+            StringJoiner call = new StringJoiner(", ", "f_" + ((Identifier) instance).getName() + "(", ")");
+            for (Expression arg : args)
+                call.add(expression(arg));
+            return call.toString();
+        }
+        if (instance instanceof StructAccess) {
+            StructAccess structAccess = (StructAccess) instance;
+            if (layoutOf(structAccess.getInstance()).getSetter(structAccess.getElement().getSlot()) != null) {
+                String name = structAccess.getElement().getName();
+                StringJoiner call = new StringJoiner(", ", expression(structAccess.getInstance()) + ".set_" + name + "(", ")");
+                for (Expression arg : args)
+                    call.add(expression(arg));
+                return call.toString();
+            }
+        }
+
+        //invokeExact needs the static types of the arguments and the result to match the fptr type exactly
+        FptrType fptrType = (FptrType) instance.getResolvedType();
+        StringJoiner call = new StringJoiner(", ", "JvmSupport.fptr(" + expression(instance) + ", " + funcCall.getLine() + ").invokeExact(", ")");
+        for (int i = 0; i < args.size(); i++)
+            call.add("(" + javaType(fptrType.getArgsType().get(i)) + ") " + expression(args.get(i)));
+        if (fptrType.getReturnType() instanceof VoidType)
+            return call.toString();
+        return "((" + javaType(fptrType.getReturnType()) + ") " + call + ")";
+    }
+
+    @Override
+    public String visit(Identifier identifier) {
+        switch (identifier.getStorage()) {
+            case LOCAL:
+                if (spill != null)
+                    return spill.field(local(identifier), javaType(identifier.getResolvedType()));
+                return local(identifier);
+            case MEMBER:
+                return "this.v_" + identifier.getName();
+            default:
+                return "h_" + identifier.getName();
+        }
+    }
+
+    @Override
+    public String visit(ListAccessByIndex listAccessByIndex) {
+        return "JvmSupport.at(" + expression(listAccessByIndex.getInstance()) + ", "
+                + expression(listAccessByIndex.getIndex()) + ", " + listAccessByIndex.getLine() + ")";
+    }
+
+    @Override
+    public String visit(StructAccess structAccess) {
+        String instance = expression(structAccess.getInstance());
+        String name = structAccess.getElement().getName();
+        if (layoutOf(structAccess.getInstance()).getGetter(structAccess.getElement().getSlot()) != null)
+            return instance + ".get_" + name + "()";
+        return instance + ".v_" + name;
+    }
+
+    @Override
+    public String visit(ListSize listSize) {
+        return expression(listSize.getArg()) + ".size()";
+    }
+
+    @Override
+    public String visit(ListAppend listAppend) {
+        return expression(listAppend.getListArg()) + ".add(" + expression(listAppend.getElementArg()) + ")";
+    }
+
+    @Override
+    public String visit(ExprInPar exprInPar) {
+        return walk(exprInPar);
+    }
+
+    @Override
+    public String visit(IntValue intValue) {
+        return Integer.toString(intValue.getConstant());
+    }
+
+    @Override
+    public String visit(BoolValue boolValue) {
+        return Boolean.toString(boolValue.getConstant());
+    }
+}
@@ -0,0 +1,145 @@
+package main.backend.jvm;
+
+import main.ast.nodes.Program;
+import main.interpreter.BigStackThread;
+import main.interpreter.CmmRuntimeError;
+
+import javax.tools.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+//Compiles a type checked Program to JVM classes: JavaSourceGenerator writes one class for the program
+//(plus nested classes for its structs), which the JDK's compiler turns into class files in memory.
+//The classes can be run in this JVM or written to a directory; they need this compiler's classes on the
+//class path when run from there, e.g. java -cp <dir>:<compiler classes> CmmProgram
+//javac runs on a BigStackThread, as it recurses through the nesting of the expressions it compiles.
+public class JvmBackend {
+    public static final String CLASS_NAME = "CmmProgram";
+
+    private final String className;
+    private final JavaSourceGenerator generator;
+    private final Map<String, byte[]> classes = new HashMap<>();
+
+    private JvmBackend(String className) {
+        this.className = className;
+        this.generator = new JavaSourceGenerator(className);
+    }
+
+    public static JvmBackend compile(Program program) {
+        return compile(program, CLASS_NAME);
+    }
+
+    public static JvmBackend compile(Program program, String className) {
+        JvmBackend jvmBackend = new JvmBackend(className);
+        String source = jvmBackend.generator.generate(program);
+        BigStackThread.run("cmm-javac", () -> jvmBackend.compileSource(source));
+        return jvmBackend;
+    }
+
+    //binary class names to class files
+    public Map<String, byte[]> getClasses() {
+        return classes;
+    }
+
+    private void compileSource(String source) {
+        JavaCompiler javaCompiler = ToolProvider.getSystemJavaCompiler();
+        if (javaCompiler == null)
+            throw new IllegalStateException("The JVM backend needs a JDK, this runtime has no Java compiler");
+
+        JavaFileObject sourceFile = new SimpleJavaFileObject(URI.create("string:///" + className + ".java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        StandardJavaFileManager standardFileManager = javaCompiler.getStandardFileManager(diagnostics, null, null);
+        JavaFileManager fileManager = new ForwardingJavaFileManager<>(standardFileManager) {
+            @Override
+            public JavaFileObject getJavaFileForOutput(Location location, String name, JavaFileObject.Kind kind, FileObject sibling) {
+                return new SimpleJavaFileObject(URI.create("bytes:///" + name.replace('.', '/') + kind.extension), kind) {
+                    @Override
+                    public OutputStream openOutputStream() {
+                        return new ByteArrayOutputStream() {
+                            @Override
+                            public void close() {
+                                classes.put(name, toByteArray());
+                            }
+                        };
+                    }
+                };
+            }
+        };
+
+        List<String> options = List.of("-classpath", System.getProperty("java.class.path"), "-nowarn", "-g:lines,source");
+        boolean compiled = javaCompiler.getTask(null, fileManager, diagnostics, options, null, List.of(sourceFile)).call();
+        if (!compiled) {
+            //the generator splits methods that would pass the 64 KB a JVM method may have (see SpillPlan), so
+            //this is a bug of the generator or another class file limit, like the 65535 constants of a class
+            StringBuilder message = new StringBuilder("Generated source of " + className + " doesn't compile:");
+            for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics())
+                message.append('\n').append(diagnostic.getLineNumber()).append(": ").append(diagnostic.getMessage(null));
+            throw new IllegalStateException(message.toString());
+        }
+    }
+
+    public void write(Path directory) throws IOException {
+        for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+            Path classFile = directory.resolve(entry.getKey().replace('.', '/') + ".class");
+            Files.createDirectories(classFile.getParent());
+            Files.write(classFile, entry.getValue());
+        }
+    }
+
+    //runtime errors are thrown as CmmRuntimeError, after the output so far is flushed
+    public void run(PrintStream out) {
+        ClassLoader classLoader = new ClassLoader(JvmBackend.class.getClassLoader()) {
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                byte[] classFile = classes.get(name);
+                if (classFile == null)
+                    throw new ClassNotFoundException(name);
+                return defineClass(name, classFile, 0, classFile.length);
+            }
+        };
+        try {
+            classLoader.loadClass(className).getMethod("run", PrintStream.class).invoke(null, out);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof CmmRuntimeError)
+                throw (CmmRuntimeError) cause;
+            if (cause instanceof StackOverflowError)
+                throw new CmmRuntimeError(overflowLine(cause), "Stack overflow");
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new IllegalStateException(cause);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            out.flush();
+        }
+    }
+
+    //line of the innermost statement of the program in the stack trace
+    private int overflowLine(Throwable stackOverflow) {
+        for (StackTraceElement element : stackOverflow.getStackTrace()) {
+            if (element.getClassName().startsWith(className)) {
+                int line = generator.cmmLineOf(element.getLineNumber());
+                if (line > 0)
+                    return line;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,49 @@
+package main.backend.jvm;
+
+import main.CmmCompiler;
+import main.ast.nodes.Program;
+import main.interpreter.Interpreter;
+import org.antlr.v4.runtime.CharStreams;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+//Run time of a program under Interpreter and as classes of JvmBackend, whose compile time is shown apart
+//usage: JvmBenchmark <input.cmm> [iterations]; see samples/bench
+public class JvmBenchmark {
+    public static void main(String[] args) throws IOException {
+        CmmCompiler cmmCompiler = new CmmCompiler();
+        Program program = cmmCompiler.parse(CharStreams.fromFileName(args[0]));
+        if (!cmmCompiler.check(program).isEmpty()) {
+            System.out.println(args[0] + " doesn't compile");
+            System.exit(1);
+        }
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        PrintStream out = new PrintStream(OutputStream.nullOutputStream());
+
+        //first half of the runs is warm up
+        for (int round = 0; round < 2; round++) {
+            long interpreterTime = 0;
+            long compileTime = 0;
+            long jvmTime = 0;
+            for (int i = 0; i < iterations; i++) {
+                long start = System.nanoTime();
+                new Interpreter(out).run(program);
+                interpreterTime += System.nanoTime() - start;
+
+                start = System.nanoTime();
+                JvmBackend jvmBackend = JvmBackend.compile(program);
+                compileTime += System.nanoTime() - start;
+
+                start = System.nanoTime();
+                jvmBackend.run(out);
+                jvmTime += System.nanoTime() - start;
+            }
+            if (round == 1) {
+                System.out.printf("Interpreter: %10.2f ms per run%n", interpreterTime / 1e6 / iterations);
+                System.out.printf("JvmBackend:  %10.2f ms per run, %.2f ms to compile%n", jvmTime / 1e6 / iterations, compileTime / 1e6 / iterations);
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package main.backend.jvm;
+
+import main.interpreter.CmmRuntimeError;
+import main.runtime.BoolList;
+import main.runtime.IntList;
+import main.runtime.RefList;
+
+import java.lang.invoke.MethodHandle;
+
+//Helpers called by the classes JvmBackend generates; they raise the same runtime errors as Interpreter
+public final class JvmSupport {
+    private JvmSupport() {
+    }
+
+    //keeps javac from treating a literal loop condition as a constant, which would make code after
+    //while true unreachable for javac even though C-- allows it
+    public static boolean test(boolean condition) {
+        return condition;
+    }
+
+    public static int div(int dividend, int divisor, int line) {
+        if (divisor == 0)
+            throw new CmmRuntimeError(line, "Division by zero");
+        return dividend / divisor;
+    }
+
+    public static MethodHandle fptr(MethodHandle function, int line) {
+        if (function == null)
+            throw new CmmRuntimeError(line, "Calling an fptr that has no function");
+        return function;
+    }
+
+    public static CmmRuntimeError missingReturn(int line, String functionName) {
+        return new CmmRuntimeError(line, "Missing return statement for function " + functionName);
+    }
+
+    private static void checkIndex(int index, int size, int line) {
+        if (index < 0 || index >= size)
+            throw new CmmRuntimeError(line, "Index " + index + " is out of range for a list of size " + size);
+    }
+
+    public static int at(IntList list, int index, int line) {
+        checkIndex(index, list.size(), line);
+        return list.get(index);
+    }
+
+    public static boolean at(BoolList list, int index, int line) {
+        checkIndex(index, list.size(), line);
+        return list.get(index);
+    }
+
+    public static <T> T at(RefList<T> list, int index, int line) {
+        checkIndex(index, list.size(), line);
+        return list.get(index);
+    }
+
+    public static int setAt(IntList list, int index, int value, int line) {
+        checkIndex(index, list.size(), line);
+        return list.set(index, value);
+    }
+
+    public static boolean setAt(BoolList list, int index, boolean value, int line) {
+        checkIndex(index, list.size(), line);
+        return list.set(index, value);
+    }
+
+    public static <T> T setAt(RefList<T> list, int index, T value, int line) {
+        checkIndex(index, list.size(), line);
+        return list.set(index, value);
+    }
+
+    //value of a parenthesized list of expressions, which all have been evaluated
+    public static <T> T first(T first, Object... rest) {
+        return first;
+    }
+
+    //turn the result of a call through an fptr into a statement
+    public static void ignore(int value) {
+    }
+
+    public static void ignore(boolean value) {
+    }
+
+    public static void ignore(Object value) {
+    }
+}
@@ -0,0 +1,246 @@
+package main.backend.jvm;
+
+import main.ast.nodes.declaration.VariableDeclaration;
+import main.ast.nodes.expression.*;
+import main.ast.nodes.expression.operators.BinaryOperator;
+import main.ast.nodes.statement.*;
+import main.visitor.ExpressionWalker;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+//Which parts of a method JavaSourceGenerator moves to helper methods, so no JVM method gets past the
+//64 KB of code it may have. Sizes are counted in AST nodes, of which a method may have METHOD_NODES.
+//In a larger one an operand or argument is split off when the expression holding it would have more than
+//PIECE_NODES, largest operands first, and a statement of more than PIECE_NODES is run by helpers of its
+//own: a block as runs of its statements of up to PIECE_NODES each, anything else whole. Sizes are taken
+//after what is split off, which costs CALL_NODES where it is called, so every helper stays small.
+final class SpillPlan {
+    static final int METHOD_NODES = 2000;
+    private static final int PIECE_NODES = 500;
+    private static final int CALL_NODES = 2;
+
+    private final IdentityHashMap<Expression, Boolean> splitExpressions = new IdentityHashMap<>();
+    //index of the first statement of every run
+    private final IdentityHashMap<Statement, ArrayList<Integer>> runs = new IdentityHashMap<>();
+    //false while the whole method is measured
+    private boolean splitting = false;
+
+    private final ExpressionWalker<Integer> sizeWalker = new ExpressionWalker<>() {
+        @Override
+        protected boolean isWalked(Expression expression) {
+            return !(expression instanceof BinaryExpression)
+                    || ((BinaryExpression) expression).getBinaryOperator() != BinaryOperator.assign;
+        }
+
+        @Override
+        protected Integer visitLeaf(Expression expression) {
+            return leafSize(expression);
+        }
+
+        @Override
+        protected Integer visitBinary(BinaryExpression binaryExpression, Integer firstOperand, Integer secondOperand) {
+            ArrayList<Expression> operands = new ArrayList<>();
+            operands.add(binaryExpression.getFirstOperand());
+            operands.add(binaryExpression.getSecondOperand());
+            ArrayList<Integer> sizes = new ArrayList<>();
+            sizes.add(firstOperand);
+            sizes.add(secondOperand);
+            return fit(operands, sizes);
+        }
+
+        @Override
+        protected Integer visitUnary(UnaryExpression unaryExpression, Integer operand) {
+            ArrayList<Expression> operands = new ArrayList<>();
+            operands.add(unaryExpression.getOperand());
+            ArrayList<Integer> sizes = new ArrayList<>();
+            sizes.add(operand);
+            return fit(operands, sizes);
+        }
+
+        @Override
+        protected Integer visitExprInPar(ExprInPar exprInPar, ArrayList<Integer> inputs) {
+            return fit(new ArrayList<>(exprInPar.getInputs()), inputs);
+        }
+    };
+
+    private SpillPlan() {
+    }
+
+    //null when the method fits in one JVM method; expressions are those outside of body, like the field
+    //values of a constructor
+    static SpillPlan of(Statement body, ArrayList<Expression> expressions) {
+        SpillPlan spillPlan = new SpillPlan();
+        if (spillPlan.methodSize(body, expressions) <= METHOD_NODES)
+            return null;
+        spillPlan.splitting = true;
+        spillPlan.methodSize(body, expressions);
+        return spillPlan;
+    }
+
+    boolean isSplit(Expression expression) {
+        return splitExpressions.containsKey(expression);
+    }
+
+    //first statement of every run of a statement run by helpers, otherwise null
+    ArrayList<Integer> runsOf(Statement statement) {
+        return runs.get(statement);
+    }
+
+    private int methodSize(Statement body, ArrayList<Expression> expressions) {
+        int size = body == null ? 0 : size(body);
+        for (Expression expression : expressions)
+            size += fit(expression);
+        return size;
+    }
+
+    //1 for the node, plus its operands after the largest are split off until the total fits
+    private int fit(ArrayList<Expression> operands, ArrayList<Integer> sizes) {
+        int size = 1;
+        for (int operandSize : sizes)
+            size += operandSize;
+        while (splitting && size > PIECE_NODES) {
+            int largest = -1;
+            for (int i = 0; i < sizes.size(); i++)
+                if (sizes.get(i) > CALL_NODES && (largest < 0 || sizes.get(i) > sizes.get(largest)))
+                    largest = i;
+            if (largest < 0)
+                break;
+            splitExpressions.put(operands.get(largest), true);
+            size -= sizes.get(largest) - CALL_NODES;
+            sizes.set(largest, CALL_NODES);
+        }
+        return size;
+    }
+
+    private int fit(Expression expression) {
+        ArrayList<Expression> operands = new ArrayList<>();
+        operands.add(expression);
+        ArrayList<Integer> sizes = new ArrayList<>();
+        sizes.add(size(expression));
+        return fit(operands, sizes);
+    }
+
+    private int fit(ArrayList<Expression> operands) {
+        ArrayList<Integer> sizes = new ArrayList<>();
+        for (Expression operand : operands)
+            sizes.add(size(operand));
+        return fit(operands, sizes);
+    }
+
+    private int size(Expression expression) {
+        return sizeWalker.walk(expression);
+    }
+
+    //the expressions of a target JavaSourceGenerator.assignment() generates; the target itself is never split
+    private static void addTargetParts(Expression target, ArrayList<Expression> parts) {
+        if (target instanceof ListAccessByIndex) {
+            parts.add(((ListAccessByIndex) target).getInstance());
+            parts.add(((ListAccessByIndex) target).getIndex());
+        } else if (target instanceof StructAccess) {
+            parts.add(((StructAccess) target).getInstance());
+        } else if (target instanceof ExprInPar && ((ExprInPar) target).getInputs().size() == 1) {
+            addTargetParts(((ExprInPar) target).getInputs().get(0), parts);
+        }
+    }
+
+    private int assignmentSize(Expression target, Expression value) {
+        ArrayList<Expression> parts = new ArrayList<>();
+        addTargetParts(target, parts);
+        parts.add(value);
+        return fit(parts);
+    }
+
+    private int leafSize(Expression expression) {
+        ArrayList<Expression> operands = new ArrayList<>();
+        if (expression instanceof BinaryExpression) {
+            BinaryExpression assignment = (BinaryExpression) expression;
+            return assignmentSize(assignment.getFirstOperand(), assignment.getSecondOperand());
+        } else if (expression instanceof FunctionCall) {
+            FunctionCall funcCall = (FunctionCall) expression;
+            Expression instance = funcCall.getInstance();
+            //a function is called by name, and the struct access of a setter or fptr field by its instance
+            if (instance instanceof StructAccess)
+                operands.add(((StructAccess) instance).getInstance());
+            else if (!(instance instanceof Identifier) || ((Identifier) instance).getStorage() != Identifier.Storage.FUNCTION)
+                operands.add(instance);
+            operands.addAll(funcCall.getArgs());
+        } else if (expression instanceof ListAccessByIndex) {
+            operands.add(((ListAccessByIndex) expression).getInstance());
+            operands.add(((ListAccessByIndex) expression).getIndex());
+        } else if (expression instanceof StructAccess) {
+            operands.add(((StructAccess) expression).getInstance());
+        } else if (expression instanceof ListSize) {
+            operands.add(((ListSize) expression).getArg());
+        } else if (expression instanceof ListAppend) {
+            operands.add(((ListAppend) expression).getListArg());
+            operands.add(((ListAppend) expression).getElementArg());
+        }
+        return fit(operands);
+    }
+
+    private int size(Statement statement) {
+        int size = 0;
+        ArrayList<Integer> sizes = new ArrayList<>();
+        if (statement instanceof BlockStmt) {
+            for (Statement child : ((BlockStmt) statement).getStatements()) {
+                sizes.add(size(child));
+                size += sizes.get(sizes.size() - 1);
+            }
+        } else {
+            size = ownSize(statement);
+        }
+        if (!splitting || size <= PIECE_NODES)
+            return size;
+
+        ArrayList<Integer> starts = new ArrayList<>();
+        starts.add(0);
+        int run = 0;
+        for (int i = 0; i < sizes.size(); i++) {
+            if (run > 0 && run + sizes.get(i) > PIECE_NODES) {
+                starts.add(i);
+                run = 0;
+            }
+            run += sizes.get(i);
+        }
+        runs.put(statement, starts);
+        return CALL_NODES;
+    }
+
+    private int size(VariableDeclaration variableDec) {
+        return variableDec.getDefaultValue() == null ? 1 : fit(variableDec.getDefaultValue());
+    }
+
+    private int ownSize(Statement statement) {
+        if (statement instanceof VarDecStmt) {
+            int size = 0;
+            for (VariableDeclaration variableDec : ((VarDecStmt) statement).getVars())
+                size += size(variableDec);
+            return size;
+        }
+        if (statement instanceof AssignmentStmt) {
+            AssignmentStmt assignmentStmt = (AssignmentStmt) statement;
+            return assignmentSize(assignmentStmt.getLValue(), assignmentStmt.getRValue());
+        }
+        if (statement instanceof ConditionalStmt) {
+            ConditionalStmt conditionalStmt = (ConditionalStmt) statement;
+            int size = fit(conditionalStmt.getCondition()) + size(conditionalStmt.getThenBody());
+            return conditionalStmt.getElseBody() == null ? size : size + size(conditionalStmt.getElseBody());
+        }
+        if (statement instanceof LoopStmt)
+            return fit(((LoopStmt) statement).getCondition()) + size(((LoopStmt) statement).getBody());
+        if (statement instanceof FunctionCallStmt)
+            return size(((FunctionCallStmt) statement).getFunctionCall());
+        if (statement instanceof DisplayStmt)
+            return fit(((DisplayStmt) statement).getArg());
+        if (statement instanceof ReturnStmt) {
+            Expression returnedExpr = ((ReturnStmt) statement).getReturnedExpr();
+            return returnedExpr == null ? 1 : fit(returnedExpr);
+        }
+        if (statement instanceof ListAppendStmt)
+            return size(((ListAppendStmt) statement).getListAppendExpr());
+        if (statement instanceof ListSizeStmt)
+            return size(((ListSizeStmt) statement).getListSizeExpr());
+        return 1;
+    }
+}
@@ -0,0 +1,126 @@
+package main.batch;
+
+import main.ast.nodes.Node;
+import main.ast.nodes.declaration.Declaration;
+import main.ast.nodes.declaration.FunctionDeclaration;
+import main.ast.nodes.declaration.MainDeclaration;
+import main.ast.nodes.declaration.struct.StructDeclaration;
+import main.ast.nodes.statement.BlockStmt;
+import main.symbolTable.SymbolTable;
+import main.visitor.fusion.ErrorReportingPass;
+import main.visitor.fusion.FusedTraversal;
+import main.visitor.name.NameAnalyser;
+import main.visitor.type.TypeChecker;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+//Low-memory checking of a whole file in two passes over it. The first pass keeps the structs and only
+//the signatures of the functions, which is all the global symbol tables need. The second pass parses,
+//checks and reports one function (then main) at a time and drops it, so the heap holds the globals and
+//a single function body instead of the whole Program.
+//Errors of the structs and signatures are printed first, then those of every body in source order.
+//A body is type checked only if neither it nor the globals have name errors.
+public class BatchChecker {
+    private final ErrorReportingPass errorReportingPass = new ErrorReportingPass();
+    private final FusedTraversal errorReporter = new FusedTraversal(errorReportingPass);
+    private final NameAnalyser nameAnalyser = new NameAnalyser();
+    private TypeChecker typeChecker;
+    private SymbolTable nameRoot;
+    private SymbolTable typeRoot;
+
+    //returns the number of reported errors
+    public int check(Path path) throws IOException {
+        ArrayList<StructDeclaration> structs = new ArrayList<>();
+        ArrayList<FunctionDeclaration> signatures = new ArrayList<>();
+        try (DeclarationStream declarations = new DeclarationStream(path, true)) {
+            Declaration declaration;
+            while ((declaration = declarations.next()) != null) {
+                if (declaration instanceof StructDeclaration)
+                    structs.add((StructDeclaration) declaration);
+                else if (declaration instanceof FunctionDeclaration)
+                    signatures.add(signatureOf((FunctionDeclaration) declaration));
+            }
+        }
+
+        int numberOfErrors = checkGlobals(structs, signatures);
+
+        try (DeclarationStream declarations = new DeclarationStream(path, false)) {
+            int nextFunction = 0;
+            Declaration declaration;
+            while ((declaration = declarations.next()) != null) {
+                if (declaration instanceof FunctionDeclaration && nextFunction < signatures.size()) {
+                    FunctionDeclaration funcDec = (FunctionDeclaration) declaration;
+                    //the name may have been changed when the signature was declared
+                    funcDec.setFunctionName(signatures.get(nextFunction++).getFunctionName());
+                    numberOfErrors += checkFunction(funcDec);
+                } else if (declaration instanceof MainDeclaration) {
+                    numberOfErrors += checkMain((MainDeclaration) declaration);
+                }
+            }
+        }
+        return numberOfErrors;
+    }
+
+    private static FunctionDeclaration signatureOf(FunctionDeclaration funcDec) {
+        FunctionDeclaration signature = new FunctionDeclaration();
+        signature.setLine(funcDec.getLine());
+        signature.setFunctionName(funcDec.getFunctionName());
+        signature.setReturnType(funcDec.getReturnType());
+        signature.setArgs(funcDec.getArgs());
+        signature.setBody(new BlockStmt());
+        return signature;
+    }
+
+    //prints the errors of node and below; returns how many there were
+    private int report(Node node) {
+        int before = errorReportingPass.getNumberOfErrors();
+        node.accept(errorReporter);
+        return errorReportingPass.getNumberOfErrors() - before;
+    }
+
+    private int report(ArrayList<? extends Declaration> declarations) {
+        int numberOfErrors = 0;
+        for (Declaration declaration : declarations)
+            numberOfErrors += report(declaration);
+        return numberOfErrors;
+    }
+
+    private int checkGlobals(ArrayList<StructDeclaration> structs, ArrayList<FunctionDeclaration> signatures) {
+        nameAnalyser.analyseGlobals(structs, signatures);
+        nameRoot = SymbolTable.root;
+        int numberOfErrors = report(structs) + report(signatures);
+        if (numberOfErrors > 0)
+            return numberOfErrors;
+
+        typeChecker = new TypeChecker();
+        typeChecker.checkGlobals(structs, signatures);
+        typeRoot = SymbolTable.root;
+        return report(structs) + report(signatures);
+    }
+
+    private int checkFunction(FunctionDeclaration funcDec) {
+        SymbolTable.root = nameRoot;
+        nameAnalyser.analyseFunction(funcDec);
+        int numberOfErrors = report(funcDec);
+        if (numberOfErrors > 0 || typeChecker == null)
+            return numberOfErrors;
+
+        SymbolTable.root = typeRoot;
+        typeChecker.checkFunction(funcDec);
+        return report(funcDec);
+    }
+
+    private int checkMain(MainDeclaration mainDec) {
+        SymbolTable.root = nameRoot;
+        nameAnalyser.analyseMain(mainDec);
+        int numberOfErrors = report(mainDec);
+        if (numberOfErrors > 0 || typeChecker == null)
+            return numberOfErrors;
+
+        SymbolTable.root = typeRoot;
+        typeChecker.checkMain(mainDec);
+        return report(mainDec);
+    }
+}
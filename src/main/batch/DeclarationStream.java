@@ -0,0 +1,80 @@
+package main.batch;
+
+import main.ast.nodes.declaration.Declaration;
+import org.antlr.v4.runtime.*;
+import parsers.CmmParser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+//Parses a Cmm file one top-level declaration at a time with a StreamingParser. Only the tokens of the
+//declaration being parsed are held, so dropping a returned declaration releases everything read for it.
+public class DeclarationStream implements AutoCloseable {
+    private final Reader reader;
+    private final TokenStream tokenStream;
+    private final CmmParser parser;
+    private boolean inFunctions = false;
+    private boolean finished = false;
+
+    public DeclarationStream(Path path, boolean reportSyntaxErrors) throws IOException {
+        this(Files.newBufferedReader(path), path.toString(), reportSyntaxErrors);
+    }
+
+    public DeclarationStream(Reader reader, String sourceName, boolean reportSyntaxErrors) {
+        this.reader = reader;
+        parser = StreamingParser.create(reader, sourceName);
+        tokenStream = parser.getTokenStream();
+        if (!reportSyntaxErrors) {
+            ((Lexer) tokenStream.getTokenSource()).removeErrorListeners();
+            parser.removeErrorListeners();
+        }
+        skipNewlines();
+    }
+
+    private void skipNewlines() {
+        while (tokenStream.LA(1) == CmmParser.NEWLINE)
+            parser.consume();
+    }
+
+    //"struct S begin" or "struct S" and a newline; "struct S f(" is a function returning a struct
+    private boolean startsStruct() {
+        return !inFunctions && tokenStream.LA(1) == CmmParser.STRUCT && tokenStream.LA(3) != CmmParser.IDENTIFIER;
+    }
+
+    //the next StructDeclaration, FunctionDeclaration or MainDeclaration in source order, null after main
+    public Declaration next() {
+        if (finished || tokenStream.LA(1) == Token.EOF)
+            return null;
+        //keeps the declaration's tokens in the window while it is parsed, syntax errors may refer back to them
+        int mark = tokenStream.mark();
+        int start = tokenStream.index();
+        try {
+            Declaration declaration;
+            if (tokenStream.LA(1) == CmmParser.MAIN) {
+                declaration = parser.main().mainRet;
+                skipNewlines();
+                finished = true;
+                if (tokenStream.LA(1) != Token.EOF)
+                    parser.notifyErrorListeners(tokenStream.LT(1), "extraneous input after main", null);
+            } else if (startsStruct()) {
+                declaration = parser.structDeclaration().structDeclarationRet;
+            } else {
+                inFunctions = true;
+                declaration = parser.functionDeclaration().functionDeclarationRet;
+            }
+            //a declaration that failed without reading anything would be parsed again forever
+            if (tokenStream.index() == start && !finished)
+                parser.consume();
+            return declaration;
+        } finally {
+            tokenStream.release(mark);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,108 @@
+package main.batch;
+
+import main.ast.nodes.declaration.Declaration;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import parsers.CmmLexer;
+
+import java.io.IOException;
+import java.io.Reader;
+
+//Heap in use while parsing a generated program of the given size, sampled after a GC. The streaming mode
+//parses declaration by declaration with a DeclarationStream and should stay flat however large the input
+//is; the buffered mode keeps every token in a CommonTokenStream for comparison.
+//usage: ParseHeapBenchmark <megabytes> [streaming | buffered]
+public class ParseHeapBenchmark {
+    private static final long SAMPLE_BYTES = 16L << 20;
+
+    public static void main(String[] args) throws IOException {
+        long size = Long.parseLong(args[0]) << 20;
+        boolean buffered = args.length > 1 && args[1].equals("buffered");
+        GeneratedProgram program = new GeneratedProgram(size);
+        long start = System.nanoTime();
+        long peak;
+        if (buffered) {
+            CommonTokenStream tokenStream = new CommonTokenStream(new CmmLexer(CharStreams.fromReader(program)));
+            tokenStream.fill();
+            peak = usedHeap();
+            System.out.printf("%d tokens%n", tokenStream.size());
+        } else {
+            peak = 0;
+            long nextSample = SAMPLE_BYTES;
+            DeclarationStream declarations = new DeclarationStream(program, "generated", true);
+            Declaration declaration;
+            while ((declaration = declarations.next()) != null) {
+                if (program.getRead() >= nextSample) {
+                    long used = usedHeap();
+                    peak = Math.max(peak, used);
+                    System.out.printf("%8d MB read, %6.1f MB heap in use%n", program.getRead() >> 20, used / 1048576.0);
+                    nextSample += SAMPLE_BYTES;
+                }
+            }
+            peak = Math.max(peak, usedHeap());
+        }
+        System.out.printf("%d MB parsed in %.1f s, peak %.1f MB heap in use%n", program.getRead() >> 20,
+                (System.nanoTime() - start) / 1e9, peak / 1048576.0);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    //functions f0, f1, ... until size chars are produced, then a main
+    private static class GeneratedProgram extends Reader {
+        private final long size;
+        private final StringBuilder chunk = new StringBuilder();
+        private int chunkPosition = 0;
+        private long read = 0;
+        private int functions = 0;
+        private boolean finished = false;
+
+        GeneratedProgram(long size) {
+            this.size = size;
+        }
+
+        long getRead() {
+            return read;
+        }
+
+        private boolean fill() {
+            if (finished)
+                return false;
+            chunk.setLength(0);
+            chunkPosition = 0;
+            if (read < size) {
+                int n = functions++;
+                chunk.append("int f").append(n).append("(int a, bool b) begin\n")
+                        .append("    int x = a * 2 + (a - 3) / 4\n")
+                        .append("    if ~b & (x > 3 | x == 4)\n")
+                        .append("        display(-x)\n")
+                        .append("    while x < 10\n")
+                        .append("        x = x + 1\n")
+                        .append("    return x\n")
+                        .append("end\n\n");
+            } else {
+                chunk.append("main() begin\n    display(1)\nend\n");
+                finished = true;
+            }
+            return true;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (chunkPosition == chunk.length() && !fill())
+                return -1;
+            int count = Math.min(length, chunk.length() - chunkPosition);
+            chunk.getChars(chunkPosition, chunkPosition + count, buffer, offset);
+            chunkPosition += count;
+            read += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
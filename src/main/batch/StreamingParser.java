@@ -0,0 +1,38 @@
+package main.batch;
+
+import org.antlr.v4.runtime.*;
+import parsers.CmmLexer;
+import parsers.CmmParser;
+
+import java.io.Reader;
+
+//Creates CmmParsers that read through unbuffered char and token streams. Tokens copy their text and are
+//released once the parser has consumed them, and no parse tree is built, so the memory used for the
+//input is bounded by the parser's lookahead instead of growing with the file.
+public class StreamingParser {
+    public static CmmParser create(Reader reader, String sourceName) {
+        UnbufferedCharStream charStream = new UnbufferedCharStream(reader);
+        charStream.name = sourceName;
+        CmmLexer cmmLexer = new CmmLexer(charStream);
+        //the chars behind a token are gone by the time the parser asks for its text
+        cmmLexer.setTokenFactory(new CommonTokenFactory(true));
+        CmmParser cmmParser = new CmmParser(new UnbufferedTokenStream<>(cmmLexer));
+        cmmParser.setBuildParseTree(false);
+        cmmParser.setErrorHandler(new WindowErrorStrategy());
+        return cmmParser;
+    }
+
+    //the tokens of a failed prediction may already have left the window, then only the offending
+    //token is shown
+    private static class WindowErrorStrategy extends DefaultErrorStrategy {
+        @Override
+        protected void reportNoViableAlternative(Parser recognizer, NoViableAltException e) {
+            try {
+                super.reportNoViableAlternative(recognizer, e);
+            } catch (UnsupportedOperationException outsideWindow) {
+                String input = escapeWSAndQuote(getTokenErrorDisplay(e.getOffendingToken()));
+                recognizer.notifyErrorListeners(e.getOffendingToken(), "no viable alternative at input " + input, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package main.closure;
+
+import main.CmmCompiler;
+import main.ast.nodes.Program;
+import main.interpreter.Interpreter;
+import org.antlr.v4.runtime.CharStreams;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+//Run time of programs under Interpreter and ClosureEngine, whose translation time is shown apart
+//usage: ClosureBenchmark [--iterations n] [input.cmm...], default all of samples/bench
+public class ClosureBenchmark {
+    public static void main(String[] args) throws IOException {
+        int iterations = 5;
+        ArrayList<String> inputFiles = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--iterations") && i + 1 < args.length)
+                iterations = Integer.parseInt(args[++i]);
+            else
+                inputFiles.add(args[i]);
+        }
+        if (inputFiles.isEmpty()) {
+            File[] suite = new File("samples/bench").listFiles((dir, name) -> name.endsWith(".cmm"));
+            Arrays.sort(suite);
+            for (File file : suite)
+                inputFiles.add(file.getPath());
+        }
+
+        PrintStream out = new PrintStream(OutputStream.nullOutputStream());
+        System.out.printf("%-24s %14s %14s %14s%n", "program", "interpreter ms", "closures ms", "translate ms");
+        for (String inputFile : inputFiles) {
+            CmmCompiler cmmCompiler = new CmmCompiler();
+            Program program = cmmCompiler.parse(CharStreams.fromFileName(inputFile));
+            if (!cmmCompiler.check(program).isEmpty()) {
+                System.out.println(inputFile + " doesn't compile");
+                continue;
+            }
+
+            //first half of the runs is warm up
+            for (int round = 0; round < 2; round++) {
+                long interpreterTime = 0;
+                long translateTime = 0;
+                long closureTime = 0;
+                for (int i = 0; i < iterations; i++) {
+                    long start = System.nanoTime();
+                    new Interpreter(out).run(program);
+                    interpreterTime += System.nanoTime() - start;
+
+                    start = System.nanoTime();
+                    ClosureEngine closureEngine = new ClosureEngine(out);
+                    ClosureFunction main = closureEngine.compile(program);
+                    translateTime += System.nanoTime() - start;
+
+                    start = System.nanoTime();
+                    closureEngine.run(main);
+                    closureTime += System.nanoTime() - start;
+                }
+                if (round == 1)
+                    System.out.printf("%-24s %14.2f %14.2f %14.2f%n", new File(inputFile).getName(),
+                            interpreterTime / 1e6 / iterations, closureTime / 1e6 / iterations, translateTime / 1e6 / iterations);
+            }
+        }
+    }
+}
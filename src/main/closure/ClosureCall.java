@@ -0,0 +1,19 @@
+package main.closure;
+
+//a call site as ClosureEngine.call runs it: the function called, or the fptr that holds it when the
+//function isn't known, the instance of a setter or getter and the arguments
+final class ClosureCall {
+    final ClosureFunction function;
+    final Code.Ref fptr;
+    final Code.Ref self;
+    final Code.Arg[] args;
+    final int line;
+
+    ClosureCall(ClosureFunction function, Code.Ref fptr, Code.Ref self, Code.Arg[] args, int line) {
+        this.function = function;
+        this.fptr = fptr;
+        this.self = self;
+        this.args = args;
+        this.line = line;
+    }
+}
@@ -0,0 +1,920 @@
+package main.closure;
+
+import main.ast.nodes.Program;
+import main.ast.nodes.declaration.FunctionDeclaration;
+import main.ast.nodes.declaration.VariableDeclaration;
+import main.ast.nodes.declaration.struct.StructDeclaration;
+import main.ast.nodes.expression.*;
+import main.ast.nodes.expression.operators.BinaryOperator;
+import main.ast.nodes.expression.operators.UnaryOperator;
+import main.ast.nodes.expression.values.primitive.BoolValue;
+import main.ast.nodes.expression.values.primitive.IntValue;
+import main.ast.nodes.statement.*;
+import main.ast.types.ListType;
+import main.ast.types.StructType;
+import main.ast.types.Type;
+import main.ast.types.TypeKind;
+import main.ast.types.primitives.VoidType;
+import main.interpreter.CmmRuntimeError;
+import main.interpreter.RuntimeFunction;
+import main.interpreter.SlotResolver;
+import main.interpreter.StructLayout;
+import main.runtime.BoolList;
+import main.runtime.CmmList;
+import main.runtime.IntList;
+import main.runtime.RefList;
+import main.visitor.ExpressionWalker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+
+//Translates a type checked Program into closures for ClosureEngine, once per node. The resolved type of
+//an expression picks its lane: number() for ints and bools, ref() for lists, structs and fptrs, and
+//condition() where a bool decides a branch. Operators, storage of names and list element types are
+//decided here, so e.g. an int add is a closure that adds two ints and a local is read by its slot.
+//Lists are IntLists, BoolLists or RefLists by element type. Operands are evaluated from left to right,
+//like Interpreter does.
+//Nested arithmetic, comparisons, unary operators and parentheses are translated by an ExpressionWalker, so
+//a deep expression doesn't need a deep Java stack to translate.
+class ClosureCompiler {
+    private final ClosureEngine engine;
+    private final HashMap<String, ClosureFunction> functions = new HashMap<>();
+    private final HashMap<String, ClosureLayout> layouts = new HashMap<>();
+    private final HashMap<String, ClosureFunction[]> setters = new HashMap<>();
+    private final HashMap<String, ClosureFunction[]> getters = new HashMap<>();
+    private SlotResolver slotResolver;
+
+    //the value of a walked node is its closure: a Code.Int, a Code.Bool for comparisons and ~, or a
+    //Code.Ref for an ExprInPar of a ref
+    private final ExpressionWalker<Object> operatorWalker = new ExpressionWalker<>() {
+        @Override
+        protected boolean isWalked(Expression expression) {
+            return isWalkedOperator(expression);
+        }
+
+        @Override
+        protected void enter(Expression expression) {
+            parents.add(expression);
+        }
+
+        @Override
+        protected Object visitLeaf(Expression expression) {
+            Expression parent = parents.get(parents.size() - 1);
+            if (parent instanceof UnaryExpression && ((UnaryExpression) parent).getOperator() == UnaryOperator.not)
+                return condition(expression);
+            return isRef(expression.getResolvedType()) ? ref(expression) : number(expression);
+        }
+
+        @Override
+        protected Object visitBinary(BinaryExpression binaryExpression, Object firstOperand, Object secondOperand) {
+            parents.remove(parents.size() - 1);
+            return operator(binaryExpression, firstOperand, secondOperand);
+        }
+
+        @Override
+        protected Object visitUnary(UnaryExpression unaryExpression, Object operand) {
+            parents.remove(parents.size() - 1);
+            if (unaryExpression.getOperator() == UnaryOperator.not) {
+                Code.Bool condition = asCondition(operand);
+                return (Code.Bool) frame -> !condition.eval(frame);
+            }
+            Code.Int value = asNumber(operand);
+            return (Code.Int) frame -> -value.eval(frame);
+        }
+
+        @Override
+        protected Object visitExprInPar(ExprInPar exprInPar, ArrayList<Object> inputs) {
+            parents.remove(parents.size() - 1);
+            return inputs.get(0);
+        }
+    };
+    //walked nodes that aren't finished
+    private final ArrayList<Expression> parents = new ArrayList<>();
+
+    ClosureCompiler(ClosureEngine engine) {
+        this.engine = engine;
+    }
+
+    ClosureFunction compile(Program program) {
+        slotResolver = SlotResolver.resolve(program);
+        ArrayList<FunctionDeclaration> funcDecs = program.getFunctions();
+        for (int i = 0; i < funcDecs.size(); i++) {
+            FunctionDeclaration funcDec = funcDecs.get(i);
+            String name = funcDec.getFunctionName().getName();
+            functions.put(name, new ClosureFunction(name, funcDec.getLine(), !(funcDec.getReturnType() instanceof VoidType),
+                    slotResolver.getFunction(i).getFrameSize()));
+        }
+        for (StructDeclaration structDec : program.getStructs()) {
+            String name = structDec.getStructName().getName();
+            StructLayout layout = slotResolver.getLayout(name);
+            layouts.put(name, new ClosureLayout(layout.size()));
+            ClosureFunction[] structSetters = new ClosureFunction[layout.size()];
+            ClosureFunction[] structGetters = new ClosureFunction[layout.size()];
+            for (int i = 0; i < layout.size(); i++) {
+                structSetters[i] = accessor(layout.getSetter(i), false);
+                structGetters[i] = accessor(layout.getGetter(i), true);
+            }
+            setters.put(name, structSetters);
+            getters.put(name, structGetters);
+        }
+
+        for (int i = 0; i < funcDecs.size(); i++)
+            functions.get(funcDecs.get(i).getFunctionName().getName()).body = body(funcDecs.get(i).getBody());
+        for (StructDeclaration structDec : program.getStructs()) {
+            String name = structDec.getStructName().getName();
+            StructLayout layout = slotResolver.getLayout(name);
+            Code.Stmt[] initializers = new Code.Stmt[layout.size()];
+            for (int i = 0; i < layout.size(); i++) {
+                VariableDeclaration field = layout.getField(i);
+                initializers[i] = field.getDefaultValue() != null
+                        ? storeMember(i, field.getDefaultValue())
+                        : storeMember(i, defaultValue(field.getVarType()));
+                if (setters.get(name)[i] != null)
+                    setters.get(name)[i].body = body(layout.getSetter(i).getBody());
+                if (getters.get(name)[i] != null)
+                    getters.get(name)[i].body = body(layout.getGetter(i).getBody());
+            }
+            layouts.get(name).initializers = initializers;
+        }
+        RuntimeFunction resolvedMain = slotResolver.getMain();
+        ClosureFunction main = new ClosureFunction("main", resolvedMain.getLine(), false, resolvedMain.getFrameSize());
+        main.body = body(program.getMain().getBody());
+        return main;
+    }
+
+    private static ClosureFunction accessor(RuntimeFunction resolved, boolean returnsValue) {
+        return resolved == null ? null : new ClosureFunction(resolved.getName(), resolved.getLine(), returnsValue, resolved.getFrameSize());
+    }
+
+    private static boolean isRef(Type type) {
+        TypeKind kind = type.getKind();
+        return kind == TypeKind.LIST || kind == TypeKind.STRUCT || kind == TypeKind.FPTR;
+    }
+
+    private static TypeKind elementKind(Expression list) {
+        return ((ListType) list.getResolvedType()).getType().getKind();
+    }
+
+    private static String structName(Type type) {
+        return ((StructType) type).getStructName().getName();
+    }
+
+    private static boolean isLocal(Expression expression) {
+        return expression instanceof Identifier && ((Identifier) expression).getStorage() == Identifier.Storage.LOCAL;
+    }
+
+    //&, | and = keep their own evaluation order and are leaves, and so are the adds and compares of
+    //locals that binary() and condition() make a single closure of
+    private static boolean isWalkedOperator(Expression expression) {
+        if (expression instanceof ExprInPar)
+            return ((ExprInPar) expression).getInputs().size() == 1;
+        if (expression instanceof UnaryExpression)
+            return true;
+        if (!(expression instanceof BinaryExpression))
+            return false;
+        BinaryExpression binaryExpression = (BinaryExpression) expression;
+        Expression first = binaryExpression.getFirstOperand();
+        Expression second = binaryExpression.getSecondOperand();
+        switch (binaryExpression.getBinaryOperator()) {
+            case assign:
+            case and:
+            case or:
+                return false;
+            case add:
+                return !(isLocal(first) && (second instanceof IntValue || isLocal(second)));
+            case lt:
+                return !(isLocal(first) && isLocal(second));
+            default:
+                return true;
+        }
+    }
+
+    private static Code.Int asNumber(Object code) {
+        if (code instanceof Code.Bool) {
+            Code.Bool condition = (Code.Bool) code;
+            return frame -> condition.eval(frame) ? 1 : 0;
+        }
+        return (Code.Int) code;
+    }
+
+    private static Code.Bool asCondition(Object code) {
+        if (code instanceof Code.Int) {
+            Code.Int value = (Code.Int) code;
+            return frame -> value.eval(frame) != 0;
+        }
+        return (Code.Bool) code;
+    }
+
+    private static CmmRuntimeError indexError(int line, int index, int size) {
+        return new CmmRuntimeError(line, "Index " + index + " is out of range for a list of size " + size);
+    }
+
+    //value of a declared variable or field that has no initial value, as a ref; null for ints and bools
+    private Code.Ref defaultValue(Type type) {
+        switch (type.getKind()) {
+            case LIST:
+                switch (((ListType) type).getType().getKind()) {
+                    case INT:
+                        return frame -> new IntList();
+                    case BOOL:
+                        return frame -> new BoolList();
+                    default:
+                        return frame -> new RefList<>();
+                }
+            case STRUCT: {
+                ClosureLayout layout = layouts.get(structName(type));
+                return frame -> engine.instantiate(layout);
+            }
+            case FPTR:
+                return frame -> null;
+            default:
+                return null;
+        }
+    }
+
+    private Code.Stmt storeMember(int field, Expression value) {
+        if (isRef(value.getResolvedType())) {
+            Code.Ref code = ref(value);
+            return frame -> {
+                frame.self.refs[field] = code.eval(frame);
+                return false;
+            };
+        }
+        Code.Int code = number(value);
+        return frame -> {
+            frame.self.ints[field] = code.eval(frame);
+            return false;
+        };
+    }
+
+    private Code.Stmt storeMember(int field, Code.Ref value) {
+        if (value == null)
+            return frame -> false;
+        return frame -> {
+            frame.self.refs[field] = value.eval(frame);
+            return false;
+        };
+    }
+
+    //statements
+
+    Code.Stmt statement(Statement statement) {
+        switch (statement.getNodeKind()) {
+            case BLOCK_STMT:
+                return block((BlockStmt) statement);
+            case ASSIGNMENT_STMT: {
+                AssignmentStmt assignmentStmt = (AssignmentStmt) statement;
+                return discard(assignment(assignmentStmt.getLValue(), assignmentStmt.getRValue(), assignmentStmt.getLine()));
+            }
+            case CONDITIONAL_STMT:
+                return conditional((ConditionalStmt) statement);
+            case FUNCTION_CALL_STMT: {
+                ClosureCall call = call(((FunctionCallStmt) statement).getFunctionCall());
+                return frame -> {
+                    engine.call(call, frame);
+                    return false;
+                };
+            }
+            case DISPLAY_STMT:
+                return display((DisplayStmt) statement);
+            case RETURN_STMT:
+                return returnStatement((ReturnStmt) statement);
+            case LOOP_STMT:
+                return loop((LoopStmt) statement);
+            case VAR_DEC_STMT: {
+                ArrayList<Statement> declarations = new ArrayList<>();
+                declarations.add(statement);
+                return block(declarations);
+            }
+            case LIST_APPEND_STMT:
+                return evaluate(((ListAppendStmt) statement).getListAppendExpr());
+            case LIST_SIZE_STMT: {
+                Code.Int size = number(((ListSizeStmt) statement).getListSizeExpr());
+                return frame -> {
+                    size.eval(frame);
+                    return false;
+                };
+            }
+            default:
+                return frame -> false;
+        }
+    }
+
+    //a function body's statements, which ClosureEngine.call runs without a block closure around them
+    private Code.Stmt[] body(Statement body) {
+        if (body instanceof BlockStmt)
+            return statements(((BlockStmt) body).getStatements());
+        return new Code.Stmt[]{statement(body)};
+    }
+
+    private Code.Stmt block(BlockStmt blockStmt) {
+        return block(blockStmt.getStatements());
+    }
+
+    private Code.Stmt[] statements(ArrayList<Statement> statements) {
+        ArrayList<Code.Stmt> codes = new ArrayList<>();
+        for (Statement statement : statements) {
+            if (statement instanceof VarDecStmt) {
+                for (VariableDeclaration varDec : ((VarDecStmt) statement).getVars())
+                    codes.add(declaration(varDec));
+            } else {
+                codes.add(statement(statement));
+            }
+        }
+        return codes.toArray(new Code.Stmt[0]);
+    }
+
+    private Code.Stmt block(ArrayList<Statement> statements) {
+        Code.Stmt[] body = statements(statements);
+        if (body.length == 1)
+            return body[0];
+        return frame -> {
+            for (Code.Stmt stmt : body)
+                if (stmt.exec(frame))
+                    return true;
+            return false;
+        };
+    }
+
+    private Code.Stmt declaration(VariableDeclaration variableDec) {
+        Identifier name = variableDec.getVarName();
+        if (variableDec.getDefaultValue() != null)
+            return discard(assignment(name, variableDec.getDefaultValue(), variableDec.getLine()));
+        int slot = name.getSlot();
+        Code.Ref value = defaultValue(variableDec.getVarType());
+        if (value == null)
+            return frame -> {
+                frame.ints[slot] = 0;
+                return false;
+            };
+        return frame -> {
+            frame.refs[slot] = value.eval(frame);
+            return false;
+        };
+    }
+
+    //an assignment used as a statement
+    private static Code.Stmt discard(Object assignment) {
+        if (assignment instanceof Code.Int) {
+            Code.Int code = (Code.Int) assignment;
+            return frame -> {
+                code.eval(frame);
+                return false;
+            };
+        }
+        Code.Ref code = (Code.Ref) assignment;
+        return frame -> {
+            code.eval(frame);
+            return false;
+        };
+    }
+
+    private Code.Stmt conditional(ConditionalStmt conditionalStmt) {
+        Code.Bool condition = condition(conditionalStmt.getCondition());
+        Code.Stmt thenBody = statement(conditionalStmt.getThenBody());
+        if (conditionalStmt.getElseBody() == null)
+            return frame -> condition.eval(frame) && thenBody.exec(frame);
+        Code.Stmt elseBody = statement(conditionalStmt.getElseBody());
+        return frame -> condition.eval(frame) ? thenBody.exec(frame) : elseBody.exec(frame);
+    }
+
+    private Code.Stmt display(DisplayStmt displayStmt) {
+        Expression arg = displayStmt.getArg();
+        if (arg.getResolvedType().getKind() == TypeKind.BOOL) {
+            Code.Bool value = condition(arg);
+            return frame -> {
+                engine.out.println(value.eval(frame));
+                return false;
+            };
+        }
+        Code.Int value = number(arg);
+        return frame -> {
+            engine.out.println(value.eval(frame));
+            return false;
+        };
+    }
+
+    private Code.Stmt returnStatement(ReturnStmt returnStmt) {
+        Expression returnedExpr = returnStmt.getReturnedExpr();
+        if (returnedExpr == null)
+            return frame -> true;
+        if (isRef(returnedExpr.getResolvedType())) {
+            Code.Ref value = ref(returnedExpr);
+            return frame -> {
+                frame.returnRef = value.eval(frame);
+                return true;
+            };
+        }
+        Code.Int value = number(returnedExpr);
+        return frame -> {
+            frame.returnInt = value.eval(frame);
+            return true;
+        };
+    }
+
+    private Code.Stmt loop(LoopStmt loopStmt) {
+        Code.Bool condition = condition(loopStmt.getCondition());
+        Code.Stmt body = statement(loopStmt.getBody());
+        if (loopStmt.isDoWhile())
+            return frame -> {
+                do {
+                    if (body.exec(frame))
+                        return true;
+                } while (condition.eval(frame));
+                return false;
+            };
+        return frame -> {
+            while (condition.eval(frame))
+                if (body.exec(frame))
+                    return true;
+            return false;
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private Code.Stmt append(ListAppend listAppend) {
+        Code.Ref list = ref(listAppend.getListArg());
+        Expression element = listAppend.getElementArg();
+        TypeKind elementKind = elementKind(listAppend.getListArg());
+        if (elementKind == TypeKind.BOOL) {
+            Code.Bool value = condition(element);
+            return frame -> {
+                ((BoolList) list.eval(frame)).add(value.eval(frame));
+                return false;
+            };
+        }
+        if (elementKind != TypeKind.INT) {
+            Code.Ref value = ref(element);
+            return frame -> {
+                ((RefList<Object>) list.eval(frame)).add(value.eval(frame));
+                return false;
+            };
+        }
+        Code.Int value = number(element);
+        return frame -> {
+            ((IntList) list.eval(frame)).add(value.eval(frame));
+            return false;
+        };
+    }
+
+    //expressions
+
+    //a Code.Int or Code.Ref that stores the value and returns it
+    @SuppressWarnings("unchecked")
+    private Object assignment(Expression lValue, Expression value, int line) {
+        boolean ref = isRef(value.getResolvedType());
+        switch (lValue.getNodeKind()) {
+            case IDENTIFIER: {
+                Identifier identifier = (Identifier) lValue;
+                int slot = identifier.getSlot();
+                boolean local = identifier.getStorage() == Identifier.Storage.LOCAL;
+                if (ref) {
+                    Code.Ref code = ref(value);
+                    if (local)
+                        return (Code.Ref) frame -> frame.refs[slot] = code.eval(frame);
+                    return (Code.Ref) frame -> frame.self.refs[slot] = code.eval(frame);
+                }
+                Code.Int code = number(value);
+                if (local)
+                    return (Code.Int) frame -> frame.ints[slot] = code.eval(frame);
+                return (Code.Int) frame -> frame.self.ints[slot] = code.eval(frame);
+            }
+            case STRUCT_ACCESS: {
+                StructAccess structAccess = (StructAccess) lValue;
+                Code.Ref instance = ref(structAccess.getInstance());
+                int field = structAccess.getElement().getSlot();
+                if (ref) {
+                    Code.Ref code = ref(value);
+                    return (Code.Ref) frame -> ((ClosureStruct) instance.eval(frame)).refs[field] = code.eval(frame);
+                }
+                Code.Int code = number(value);
+                return (Code.Int) frame -> ((ClosureStruct) instance.eval(frame)).ints[field] = code.eval(frame);
+            }
+            case LIST_ACCESS_BY_INDEX: {
+                ListAccessByIndex listAccessByIndex = (ListAccessByIndex) lValue;
+                Code.Ref list = ref(listAccessByIndex.getInstance());
+                Code.Int index = number(listAccessByIndex.getIndex());
+                //the index is checked before the value is evaluated, like Interpreter does
+                if (ref) {
+                    Code.Ref code = ref(value);
+                    return (Code.Ref) frame -> {
+                        RefList<Object> elements = (RefList<Object>) list.eval(frame);
+                        int i = index.eval(frame);
+                        if (i < 0 || i >= elements.size())
+                            throw indexError(line, i, elements.size());
+                        return elements.set(i, code.eval(frame));
+                    };
+                }
+                if (elementKind(listAccessByIndex.getInstance()) == TypeKind.BOOL) {
+                    Code.Bool code = condition(value);
+                    return (Code.Int) frame -> {
+                        BoolList elements = (BoolList) list.eval(frame);
+                        int i = index.eval(frame);
+                        if (i < 0 || i >= elements.size())
+                            throw indexError(line, i, elements.size());
+                        return elements.set(i, code.eval(frame)) ? 1 : 0;
+                    };
+                }
+                Code.Int code = number(value);
+                return (Code.Int) frame -> {
+                    IntList elements = (IntList) list.eval(frame);
+                    int i = index.eval(frame);
+                    if (i < 0 || i >= elements.size())
+                        throw indexError(line, i, elements.size());
+                    return elements.set(i, code.eval(frame));
+                };
+            }
+            default:
+                //checked programs only assign to the expression in parentheses
+                return assignment(((ExprInPar) lValue).getInputs().get(0), value, line);
+        }
+    }
+
+    private ClosureCall call(FunctionCall funcCall) {
+        Expression instance = funcCall.getInstance();
+        int line = funcCall.getLine();
+        ArrayList<Expression> argExprs = funcCall.getArgs();
+        Code.Arg[] args = new Code.Arg[argExprs.size()];
+        int firstSlot = 0;
+        ClosureFunction direct = null;
+        Code.Ref setterInstance = null;
+        if (instance instanceof Identifier && ((Identifier) instance).getStorage() == Identifier.Storage.FUNCTION) {
+            direct = functions.get(((Identifier) instance).getName());
+        } else if (instance instanceof StructAccess) {
+            StructAccess structAccess = (StructAccess) instance;
+            ClosureFunction setter = setters.get(structName(structAccess.getInstance().getResolvedType()))[structAccess.getElement().getSlot()];
+            if (setter != null) {
+                direct = setter;
+                setterInstance = ref(structAccess.getInstance());
+            }
+        }
+        Code.Ref fptr = direct == null ? ref(instance) : null;
+        for (int i = 0; i < args.length; i++)
+            args[i] = arg(argExprs.get(i), firstSlot + i);
+
+        return new ClosureCall(direct, fptr, setterInstance, args, line);
+    }
+
+    private Code.Arg arg(Expression expression, int slot) {
+        if (isRef(expression.getResolvedType())) {
+            Code.Ref value = ref(expression);
+            return (caller, callee) -> callee.refs[slot] = value.eval(caller);
+        }
+        if (isLocal(expression)) {
+            int source = ((Identifier) expression).getSlot();
+            return (caller, callee) -> callee.ints[slot] = caller.ints[source];
+        }
+        Code.Int value = number(expression);
+        return (caller, callee) -> callee.ints[slot] = value.eval(caller);
+    }
+
+    Code.Int number(Expression expression) {
+        if (isWalkedOperator(expression))
+            return asNumber(operatorWalker.walk(expression));
+        switch (expression.getNodeKind()) {
+            case INT_VALUE: {
+                int constant = ((IntValue) expression).getConstant();
+                return frame -> constant;
+            }
+            case BOOL_VALUE: {
+                int constant = ((BoolValue) expression).getConstant() ? 1 : 0;
+                return frame -> constant;
+            }
+            case IDENTIFIER: {
+                Identifier identifier = (Identifier) expression;
+                int slot = identifier.getSlot();
+                if (identifier.getStorage() == Identifier.Storage.LOCAL)
+                    return frame -> frame.ints[slot];
+                return frame -> frame.self.ints[slot];
+            }
+            case BINARY_EXPRESSION:
+                return binary((BinaryExpression) expression);
+            case FUNCTION_CALL: {
+                ClosureCall call = call((FunctionCall) expression);
+                return frame -> engine.call(call, frame).returnInt;
+            }
+            case LIST_ACCESS_BY_INDEX: {
+                ListAccessByIndex listAccessByIndex = (ListAccessByIndex) expression;
+                if (elementKind(listAccessByIndex.getInstance()) == TypeKind.BOOL)
+                    return fromCondition(listAccessByIndex);
+                Code.Ref list = ref(listAccessByIndex.getInstance());
+                Code.Int index = number(listAccessByIndex.getIndex());
+                int line = listAccessByIndex.getLine();
+                return frame -> {
+                    IntList elements = (IntList) list.eval(frame);
+                    int i = index.eval(frame);
+                    if (i < 0 || i >= elements.size())
+                        throw indexError(line, i, elements.size());
+                    return elements.get(i);
+                };
+            }
+            case STRUCT_ACCESS: {
+                StructAccess structAccess = (StructAccess) expression;
+                ClosureCall getter = getter(structAccess);
+                if (getter != null)
+                    return frame -> engine.call(getter, frame).returnInt;
+                Code.Ref instance = ref(structAccess.getInstance());
+                int field = structAccess.getElement().getSlot();
+                return frame -> ((ClosureStruct) instance.eval(frame)).ints[field];
+            }
+            case LIST_SIZE: {
+                Expression list = ((ListSize) expression).getArg();
+                Code.Ref code = ref(list);
+                return frame -> ((CmmList) code.eval(frame)).size();
+            }
+            default:
+                return exprInPar((ExprInPar) expression, this::number);
+        }
+    }
+
+    private Code.Int fromCondition(Expression expression) {
+        Code.Bool condition = condition(expression);
+        return frame -> condition.eval(frame) ? 1 : 0;
+    }
+
+    //the operators that aren't walked
+    private Code.Int binary(BinaryExpression binaryExpression) {
+        Expression first = binaryExpression.getFirstOperand();
+        Expression second = binaryExpression.getSecondOperand();
+        switch (binaryExpression.getBinaryOperator()) {
+            case assign:
+                return (Code.Int) assignment(first, second, binaryExpression.getLine());
+            case add:
+                return add(first, second);
+            default:
+                return fromCondition(binaryExpression);
+        }
+    }
+
+    //a walked binary operator from the closures of its operands
+    private Object operator(BinaryExpression binaryExpression, Object firstOperand, Object secondOperand) {
+        Expression second = binaryExpression.getSecondOperand();
+        switch (binaryExpression.getBinaryOperator()) {
+            case add: {
+                Code.Int a = asNumber(firstOperand);
+                Code.Int b = asNumber(secondOperand);
+                return (Code.Int) frame -> a.eval(frame) + b.eval(frame);
+            }
+            case sub: {
+                Code.Int a = asNumber(firstOperand);
+                if (second instanceof IntValue) {
+                    int constant = ((IntValue) second).getConstant();
+                    return (Code.Int) frame -> a.eval(frame) - constant;
+                }
+                Code.Int b = asNumber(secondOperand);
+                return (Code.Int) frame -> a.eval(frame) - b.eval(frame);
+            }
+            case mult: {
+                Code.Int a = asNumber(firstOperand);
+                Code.Int b = asNumber(secondOperand);
+                return (Code.Int) frame -> a.eval(frame) * b.eval(frame);
+            }
+            case div: {
+                Code.Int a = asNumber(firstOperand);
+                Code.Int b = asNumber(secondOperand);
+                int line = binaryExpression.getLine();
+                return (Code.Int) frame -> {
+                    int dividend = a.eval(frame);
+                    int divisor = b.eval(frame);
+                    if (divisor == 0)
+                        throw new CmmRuntimeError(line, "Division by zero");
+                    return dividend / divisor;
+                };
+            }
+            case lt: {
+                Code.Int a = asNumber(firstOperand);
+                Code.Int b = asNumber(secondOperand);
+                return (Code.Bool) frame -> a.eval(frame) < b.eval(frame);
+            }
+            case gt: {
+                Code.Int a = asNumber(firstOperand);
+                Code.Int b = asNumber(secondOperand);
+                return (Code.Bool) frame -> a.eval(frame) > b.eval(frame);
+            }
+            default: {
+                if (isRef(binaryExpression.getFirstOperand().getResolvedType())) {
+                    Code.Ref a = (Code.Ref) firstOperand;
+                    Code.Ref b = (Code.Ref) secondOperand;
+                    return (Code.Bool) frame -> a.eval(frame) == b.eval(frame);
+                }
+                Code.Int a = asNumber(firstOperand);
+                Code.Int b = asNumber(secondOperand);
+                return (Code.Bool) frame -> a.eval(frame) == b.eval(frame);
+            }
+        }
+    }
+
+    //adding a constant or two locals, the most common forms in loops, skip calls to operand closures;
+    //other adds are walked
+    private Code.Int add(Expression first, Expression second) {
+        int a = ((Identifier) first).getSlot();
+        if (second instanceof IntValue) {
+            int constant = ((IntValue) second).getConstant();
+            return frame -> frame.ints[a] + constant;
+        }
+        int b = ((Identifier) second).getSlot();
+        return frame -> frame.ints[a] + frame.ints[b];
+    }
+
+    Code.Bool condition(Expression expression) {
+        if (isWalkedOperator(expression))
+            return asCondition(operatorWalker.walk(expression));
+        switch (expression.getNodeKind()) {
+            case BOOL_VALUE: {
+                boolean constant = ((BoolValue) expression).getConstant();
+                return frame -> constant;
+            }
+            case LIST_ACCESS_BY_INDEX: {
+                ListAccessByIndex listAccessByIndex = (ListAccessByIndex) expression;
+                if (elementKind(listAccessByIndex.getInstance()) != TypeKind.BOOL)
+                    break;
+                Code.Ref list = ref(listAccessByIndex.getInstance());
+                Code.Int index = number(listAccessByIndex.getIndex());
+                int line = listAccessByIndex.getLine();
+                return frame -> {
+                    BoolList elements = (BoolList) list.eval(frame);
+                    int i = index.eval(frame);
+                    if (i < 0 || i >= elements.size())
+                        throw indexError(line, i, elements.size());
+                    return elements.get(i);
+                };
+            }
+            case BINARY_EXPRESSION: {
+                BinaryExpression binaryExpression = (BinaryExpression) expression;
+                Expression first = binaryExpression.getFirstOperand();
+                Expression second = binaryExpression.getSecondOperand();
+                switch (binaryExpression.getBinaryOperator()) {
+                    case and:
+                    case or: {
+                        //a & b & c ... nests to the left; a longer chain of one operator is one closure
+                        //over the conditions of its operands
+                        BinaryOperator operator = binaryExpression.getBinaryOperator();
+                        ArrayList<Expression> operands = new ArrayList<>();
+                        Expression bottom = expression;
+                        while (bottom instanceof BinaryExpression && ((BinaryExpression) bottom).getBinaryOperator() == operator) {
+                            operands.add(((BinaryExpression) bottom).getSecondOperand());
+                            bottom = ((BinaryExpression) bottom).getFirstOperand();
+                        }
+                        operands.add(bottom);
+                        Collections.reverse(operands);
+                        if (operands.size() == 2) {
+                            Code.Bool a = condition(first);
+                            Code.Bool b = condition(second);
+                            if (operator == BinaryOperator.and)
+                                return frame -> a.eval(frame) && b.eval(frame);
+                            return frame -> a.eval(frame) || b.eval(frame);
+                        }
+                        Code.Bool[] conditions = new Code.Bool[operands.size()];
+                        for (int i = 0; i < conditions.length; i++)
+                            conditions[i] = condition(operands.get(i));
+                        if (operator == BinaryOperator.and)
+                            return frame -> {
+                                for (Code.Bool condition : conditions)
+                                    if (!condition.eval(frame))
+                                        return false;
+                                return true;
+                            };
+                        return frame -> {
+                            for (Code.Bool condition : conditions)
+                                if (condition.eval(frame))
+                                    return true;
+                            return false;
+                        };
+                    }
+                    //other compares are walked
+                    case lt: {
+                        int a = ((Identifier) first).getSlot();
+                        int b = ((Identifier) second).getSlot();
+                        return frame -> frame.ints[a] < frame.ints[b];
+                    }
+                    default:
+                        break;
+                }
+                break;
+            }
+            default:
+                break;
+        }
+        Code.Int value = number(expression);
+        return frame -> value.eval(frame) != 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    Code.Ref ref(Expression expression) {
+        switch (expression.getNodeKind()) {
+            case IDENTIFIER: {
+                Identifier identifier = (Identifier) expression;
+                int slot = identifier.getSlot();
+                switch (identifier.getStorage()) {
+                    case LOCAL:
+                        return frame -> frame.refs[slot];
+                    case MEMBER:
+                        return frame -> frame.self.refs[slot];
+                    default: {
+                        ClosureFunction function = functions.get(identifier.getName());
+                        return frame -> function;
+                    }
+                }
+            }
+            case BINARY_EXPRESSION: {
+                BinaryExpression binaryExpression = (BinaryExpression) expression;
+                return (Code.Ref) assignment(binaryExpression.getFirstOperand(), binaryExpression.getSecondOperand(), binaryExpression.getLine());
+            }
+            case FUNCTION_CALL: {
+                ClosureCall call = call((FunctionCall) expression);
+                return frame -> engine.call(call, frame).returnRef;
+            }
+            case LIST_ACCESS_BY_INDEX: {
+                ListAccessByIndex listAccessByIndex = (ListAccessByIndex) expression;
+                Code.Ref list = ref(listAccessByIndex.getInstance());
+                Code.Int index = number(listAccessByIndex.getIndex());
+                int line = listAccessByIndex.getLine();
+                return frame -> {
+                    RefList<Object> elements = (RefList<Object>) list.eval(frame);
+                    int i = index.eval(frame);
+                    if (i < 0 || i >= elements.size())
+                        throw indexError(line, i, elements.size());
+                    return elements.get(i);
+                };
+            }
+            case STRUCT_ACCESS: {
+                StructAccess structAccess = (StructAccess) expression;
+                ClosureCall getter = getter(structAccess);
+                if (getter != null)
+                    return frame -> engine.call(getter, frame).returnRef;
+                Code.Ref instance = ref(structAccess.getInstance());
+                int field = structAccess.getElement().getSlot();
+                return frame -> ((ClosureStruct) instance.eval(frame)).refs[field];
+            }
+            default:
+                return exprInPar((ExprInPar) expression, this::ref);
+        }
+    }
+
+    //null if the field has no getter
+    private ClosureCall getter(StructAccess structAccess) {
+        ClosureFunction getter = getters.get(structName(structAccess.getInstance().getResolvedType()))[structAccess.getElement().getSlot()];
+        if (getter == null)
+            return null;
+        Code.Ref instance = ref(structAccess.getInstance());
+        return new ClosureCall(getter, null, instance, new Code.Arg[0], structAccess.getLine());
+    }
+
+    private interface Lane<T> {
+        T compile(Expression expression);
+    }
+
+    //all inputs run, the first one is the value
+    @SuppressWarnings("unchecked")
+    private <T> T exprInPar(ExprInPar exprInPar, Lane<T> lane) {
+        ArrayList<Expression> inputs = exprInPar.getInputs();
+        T first = lane.compile(inputs.get(0));
+        if (inputs.size() == 1)
+            return first;
+        Code.Stmt[] rest = new Code.Stmt[inputs.size() - 1];
+        for (int i = 1; i < inputs.size(); i++)
+            rest[i - 1] = evaluate(inputs.get(i));
+        if (first instanceof Code.Int) {
+            Code.Int value = (Code.Int) first;
+            return (T) (Code.Int) frame -> {
+                int result = value.eval(frame);
+                for (Code.Stmt stmt : rest)
+                    stmt.exec(frame);
+                return result;
+            };
+        }
+        Code.Ref value = (Code.Ref) first;
+        return (T) (Code.Ref) frame -> {
+            Object result = value.eval(frame);
+            for (Code.Stmt stmt : rest)
+                stmt.exec(frame);
+            return result;
+        };
+    }
+
+    //evaluates an expression for its side effects
+    private Code.Stmt evaluate(Expression expression) {
+        if (expression instanceof ListAppend)
+            return append((ListAppend) expression);
+        if (expression instanceof FunctionCall) {
+            ClosureCall call = call((FunctionCall) expression);
+            return frame -> {
+                engine.call(call, frame);
+                return false;
+            };
+        }
+        if (isRef(expression.getResolvedType())) {
+            Code.Ref value = ref(expression);
+            return frame -> {
+                value.eval(frame);
+                return false;
+            };
+        }
+        Code.Int value = number(expression);
+        return frame -> {
+            value.eval(frame);
+            return false;
+        };
+    }
+}
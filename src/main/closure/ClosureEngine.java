@@ -0,0 +1,83 @@
+package main.closure;
+
+import main.ast.nodes.Program;
+import main.interpreter.BigStackThread;
+import main.interpreter.CmmRuntimeError;
+
+import java.io.PrintStream;
+
+//Runs a Program as the tree of closures ClosureCompiler translates it to. The translation is done once
+//per program, compile() and run(ClosureFunction) keep it apart. Runtime errors are the Interpreter's.
+//Programs run on a BigStackThread. A C-- call is engine.call plus the closure of its call site, so a
+//recursion goes as deep as the Interpreter's.
+public class ClosureEngine {
+    private static final Code.Arg[] NO_ARGS = new Code.Arg[0];
+
+    final PrintStream out;
+    //line of the latest call, where a stack overflow is reported
+    private int callLine;
+    private int depth;
+
+    public ClosureEngine(PrintStream out) {
+        this.out = out;
+    }
+
+    //main of the program
+    public ClosureFunction compile(Program program) {
+        return new ClosureCompiler(this).compile(program);
+    }
+
+    public void run(Program program) {
+        run(compile(program));
+    }
+
+    //runtime errors are thrown as CmmRuntimeError, after the output so far is flushed
+    public void run(ClosureFunction main) {
+        depth = 0;
+        try {
+            BigStackThread.run("cmm-closure", () -> {
+                try {
+                    call(new ClosureCall(main, null, null, NO_ARGS, main.line), null);
+                } catch (StackOverflowError e) {
+                    throw new CmmRuntimeError(callLine, "Stack overflow");
+                }
+            });
+        } finally {
+            out.flush();
+        }
+    }
+
+    //the fptr, instance and arguments are evaluated in the caller's frame; returns the callee's frame,
+    //which has the result
+    Frame call(ClosureCall call, Frame caller) {
+        ClosureFunction function = call.function;
+        if (function == null) {
+            function = (ClosureFunction) call.fptr.eval(caller);
+            if (function == null)
+                throw new CmmRuntimeError(call.line, "Calling an fptr that has no function");
+        }
+        Frame callee = new Frame(function.frameSize, call.self == null ? null : (ClosureStruct) call.self.eval(caller));
+        for (Code.Arg arg : call.args)
+            arg.store(caller, callee);
+        callLine = call.line;
+        if (++depth > BigStackThread.MAX_CALL_DEPTH)
+            throw new CmmRuntimeError(callLine, "Stack overflow");
+        for (Code.Stmt stmt : function.body)
+            if (stmt.exec(callee)) {
+                depth--;
+                return callee;
+            }
+        if (function.returnsValue)
+            throw new CmmRuntimeError(function.line, "Missing return statement for function " + function.name);
+        depth--;
+        return callee;
+    }
+
+    ClosureStruct instantiate(ClosureLayout layout) {
+        ClosureStruct instance = new ClosureStruct(layout.size);
+        Frame frame = new Frame(0, instance);
+        for (Code.Stmt initializer : layout.initializers)
+            initializer.exec(frame);
+        return instance;
+    }
+}
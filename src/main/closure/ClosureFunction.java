@@ -0,0 +1,18 @@
+package main.closure;
+
+//a function, main or accessor with the statements of its compiled body; this is the run time value of
+//an fptr
+public final class ClosureFunction {
+    final String name;
+    final int line;
+    final boolean returnsValue;
+    final int frameSize;
+    Code.Stmt[] body;
+
+    ClosureFunction(String name, int line, boolean returnsValue, int frameSize) {
+        this.name = name;
+        this.line = line;
+        this.returnsValue = returnsValue;
+        this.frameSize = frameSize;
+    }
+}
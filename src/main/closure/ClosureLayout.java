@@ -0,0 +1,12 @@
+package main.closure;
+
+//what creating an instance of a struct takes: its field count and the statements that initialize the
+//fields, which run in a frame whose self is the new instance
+final class ClosureLayout {
+    final int size;
+    Code.Stmt[] initializers;
+
+    ClosureLayout(int size) {
+        this.size = size;
+    }
+}
@@ -0,0 +1,12 @@
+package main.closure;
+
+//instance of a struct; a field uses the lane of its type
+final class ClosureStruct {
+    final int[] ints;
+    final Object[] refs;
+
+    ClosureStruct(int fieldCount) {
+        ints = new int[fieldCount];
+        refs = new Object[fieldCount];
+    }
+}
@@ -0,0 +1,33 @@
+package main.closure;
+
+//Shapes of compiled code; ClosureCompiler picks one per node from its type once, so running it doesn't
+//check types or operators again. Ints and bools share the int lane, a bool is 0 or 1 there.
+final class Code {
+    private Code() {
+    }
+
+    //value of an int or bool expression
+    interface Int {
+        int eval(Frame frame);
+    }
+
+    //a bool expression used as a condition
+    interface Bool {
+        boolean eval(Frame frame);
+    }
+
+    //value of a list, struct or fptr expression, or the callee frame of a call
+    interface Ref {
+        Object eval(Frame frame);
+    }
+
+    //returns true once a return statement ran
+    interface Stmt {
+        boolean exec(Frame frame);
+    }
+
+    //puts the value of an argument into the frame of the callee
+    interface Arg {
+        void store(Frame caller, Frame callee);
+    }
+}
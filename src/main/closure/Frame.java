@@ -0,0 +1,17 @@
+package main.closure;
+
+//locals of one call, in the lane of their type at the slot SlotResolver gave them
+final class Frame {
+    final int[] ints;
+    final Object[] refs;
+    //instance of the running accessor or struct init, null elsewhere
+    final ClosureStruct self;
+    int returnInt;
+    Object returnRef;
+
+    Frame(int size, ClosureStruct self) {
+        ints = new int[size];
+        refs = new Object[size];
+        this.self = self;
+    }
+}
@@ -0,0 +1,153 @@
+package main.conformance;
+
+import main.CmmCompiler;
+import main.ast.compact.CompactAstSerializer;
+import main.ast.nodes.Program;
+import main.compileError.CompileError;
+import main.visitor.name.ASTTreePrinter;
+import org.antlr.v4.runtime.CharStreams;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+//usage: CompactAstRoundTrip [--functions n, default 20000] [--rounds n, default 10] [directory, default samples]
+//Writes every .cmm under the directory and a generated program of n functions to a .cmmast file with
+//CompactAstSerializer and reads it back. The program read must print the same ASTTreePrinter dump, in both
+//formats, and get the same diagnostics from check() as the one parsed. Then times reading the .cmmast
+//files against lexing and parsing the sources.
+public class CompactAstRoundTrip {
+    public static void main(String[] args) throws IOException {
+        int functions = 20000;
+        int rounds = 10;
+        Path directory = Path.of("samples");
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--functions") && i + 1 < args.length)
+                functions = Integer.parseInt(args[++i]);
+            else if (args[i].equals("--rounds") && i + 1 < args.length)
+                rounds = Integer.parseInt(args[++i]);
+            else
+                directory = Path.of(args[i]);
+        }
+        ArrayList<String> names = new ArrayList<>();
+        ArrayList<String> sources = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(directory)) {
+            List<Path> programs = files.filter(file -> file.toString().endsWith(".cmm")).sorted().collect(Collectors.toList());
+            for (Path program : programs) {
+                names.add(directory.relativize(program).toString());
+                sources.add(Files.readString(program));
+            }
+        }
+        names.add("generated (" + functions + " functions)");
+        sources.add(generate(functions));
+
+        Path directoryOfAsts = Files.createTempDirectory("cmmast");
+        Path[] asts = new Path[sources.size()];
+        int failed = 0;
+        for (int i = 0; i < sources.size(); i++) {
+            asts[i] = directoryOfAsts.resolve(i + CompactAstSerializer.EXTENSION);
+            String difference = roundTrip(sources.get(i), asts[i]);
+            if (difference == null) {
+                System.out.println("PASS " + names.get(i));
+                continue;
+            }
+            failed++;
+            System.out.println("FAIL " + names.get(i));
+            System.out.println("  " + difference);
+        }
+        System.out.println((sources.size() - failed) + " passed, " + failed + " failed");
+
+        System.out.printf("%-14s %12s%n", "load", "ms");
+        //first half of the rounds is warm up
+        int sink = 0;
+        for (int round = 0; round < 2; round++) {
+            long readTime = 0;
+            long parseTime = 0;
+            for (int r = 0; r < rounds; r++) {
+                for (int i = 0; i < sources.size(); i++) {
+                    long start = System.nanoTime();
+                    sink += CompactAstSerializer.read(asts[i]).getFunctions().size();
+                    readTime += System.nanoTime() - start;
+
+                    start = System.nanoTime();
+                    sink += new CmmCompiler().parse(CharStreams.fromString(sources.get(i))).getFunctions().size();
+                    parseTime += System.nanoTime() - start;
+                }
+            }
+            if (round == 1) {
+                System.out.printf("%-14s %12.2f%n", "read .cmmast", readTime / 1e6 / rounds);
+                System.out.printf("%-14s %12.2f%n", "lex + parse", parseTime / 1e6 / rounds);
+            }
+        }
+        if (sink == 42)
+            System.out.println();
+
+        for (Path ast : asts)
+            Files.deleteIfExists(ast);
+        Files.deleteIfExists(directoryOfAsts);
+        if (failed > 0)
+            System.exit(1);
+    }
+
+    //the first thing that differs between the parsed program and the one read back, null when nothing does
+    private static String roundTrip(String source, Path ast) throws IOException {
+        Program parsed = new CmmCompiler().parse(CharStreams.fromString(source));
+        CompactAstSerializer.write(parsed, ast);
+        Program read = CompactAstSerializer.read(ast);
+
+        for (ASTTreePrinter.Format format : ASTTreePrinter.Format.values()) {
+            String difference = firstDifference(format + " dump", dump(parsed, format), dump(read, format));
+            if (difference != null)
+                return difference;
+        }
+        //check() annotates and optimizes the program, so it comes after the dumps
+        return firstDifference("diagnostics", diagnostics(parsed), diagnostics(read));
+    }
+
+    private static String dump(Program program, ASTTreePrinter.Format format) {
+        StringWriter writer = new StringWriter();
+        program.accept(new ASTTreePrinter(writer, format));
+        return writer.toString();
+    }
+
+    private static String diagnostics(Program program) {
+        StringBuilder output = new StringBuilder();
+        for (CompileError error : new CmmCompiler().check(program))
+            output.append(error.getMessage()).append('\n');
+        return output.toString();
+    }
+
+    private static String firstDifference(String what, String expected, String actual) {
+        if (expected.equals(actual))
+            return null;
+        String[] expectedLines = expected.split("\n", -1);
+        String[] actualLines = actual.split("\n", -1);
+        for (int i = 0; i < Math.max(expectedLines.length, actualLines.length); i++) {
+            String expectedLine = i < expectedLines.length ? expectedLines[i] : "<end of output>";
+            String actualLine = i < actualLines.length ? actualLines[i] : "<end of output>";
+            if (!expectedLine.equals(actualLine))
+                return what + " line " + (i + 1) + ": parsed \"" + expectedLine + "\", read \"" + actualLine + "\"";
+        }
+        return what + " differs";
+    }
+
+    //the functions ParseHeapBenchmark generates
+    private static String generate(int functions) {
+        StringBuilder source = new StringBuilder();
+        for (int i = 0; i < functions; i++)
+            source.append("int f").append(i).append("(int a, bool b) begin\n")
+                    .append("    int x = a * 2 + (a - 3) / 4\n")
+                    .append("    if ~b & (x > 3 | x == 4)\n")
+                    .append("        display(-x)\n")
+                    .append("    while x < 10\n")
+                    .append("        x = x + 1\n")
+                    .append("    return x\n")
+                    .append("end\n\n");
+        return source.append("main() begin\n    display(1)\nend\n").toString();
+    }
+}
@@ -0,0 +1,102 @@
+package main.conformance;
+
+import main.CmmCompiler;
+import main.ast.nodes.Program;
+import main.compileError.CompileError;
+import main.interpreter.CmmRuntimeError;
+import org.antlr.v4.runtime.CharStreams;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+//usage: ConformanceSuite [--engine interpreter|jvm|c|vm|closure|ir] [--optimize] [directory, default samples/run]
+//Runs every <name>.cmm of the directory and compares what it displays with <name>.out. A program that
+//ends with a runtime error expects the error message as the last line of its .out file.
+public class ConformanceSuite {
+    public static void main(String[] args) throws IOException {
+        CmmCompiler.Engine engine = CmmCompiler.Engine.INTERPRETER;
+        boolean optimize = false;
+        Path directory = Path.of("samples/run");
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--engine") && i + 1 < args.length)
+                engine = CmmCompiler.Engine.valueOf(args[++i].toUpperCase());
+            else if (args[i].equals("--optimize"))
+                optimize = true;
+            else
+                directory = Path.of(args[i]);
+        }
+        List<Path> programs;
+        try (Stream<Path> files = Files.list(directory)) {
+            programs = files.filter(file -> file.toString().endsWith(".cmm")).sorted().collect(Collectors.toList());
+        }
+
+        int failed = 0;
+        for (Path program : programs) {
+            String name = program.getFileName().toString();
+            Path expectedFile = directory.resolve(name.substring(0, name.length() - ".cmm".length()) + ".out");
+            String expected = Files.exists(expectedFile) ? Files.readString(expectedFile) : null;
+            String actual = run(program, engine, optimize);
+            if (actual.equals(expected)) {
+                System.out.println("PASS " + name);
+                continue;
+            }
+            failed++;
+            System.out.println("FAIL " + name);
+            if (expected == null)
+                System.out.println("  missing " + expectedFile.getFileName());
+            else
+                printFirstDifference(expected, actual);
+        }
+        System.out.println((programs.size() - failed) + " passed, " + failed + " failed");
+        if (failed > 0)
+            System.exit(1);
+    }
+
+    private static String run(Path program, CmmCompiler.Engine engine, boolean optimize) throws IOException {
+        CmmCompiler cmmCompiler = new CmmCompiler();
+        cmmCompiler.setEngine(engine);
+        cmmCompiler.setOptimize(optimize);
+        Program ast = cmmCompiler.parse(CharStreams.fromPath(program));
+        ArrayList<CompileError> errors = cmmCompiler.check(ast);
+        StringBuilder output = new StringBuilder();
+        if (!errors.isEmpty()) {
+            for (CompileError error : errors)
+                output.append(error.getMessage()).append('\n');
+            return output.toString();
+        }
+
+        ByteArrayOutputStream displayed = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(displayed, false, StandardCharsets.UTF_8);
+        String runtimeError = null;
+        try {
+            cmmCompiler.run(ast, out);
+        } catch (CmmRuntimeError e) {
+            runtimeError = e.getMessage();
+        }
+        output.append(displayed.toString(StandardCharsets.UTF_8).replace(System.lineSeparator(), "\n"));
+        if (runtimeError != null)
+            output.append(runtimeError).append('\n');
+        return output.toString();
+    }
+
+    private static void printFirstDifference(String expected, String actual) {
+        String[] expectedLines = expected.split("\n", -1);
+        String[] actualLines = actual.split("\n", -1);
+        for (int i = 0; i < Math.max(expectedLines.length, actualLines.length); i++) {
+            String expectedLine = i < expectedLines.length ? expectedLines[i] : "<end of output>";
+            String actualLine = i < actualLines.length ? actualLines[i] : "<end of output>";
+            if (!expectedLine.equals(actualLine)) {
+                System.out.println("  line " + (i + 1) + ": expected \"" + expectedLine + "\", got \"" + actualLine + "\"");
+                return;
+            }
+        }
+    }
+}
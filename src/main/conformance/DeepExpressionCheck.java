@@ -0,0 +1,171 @@
+package main.conformance;
+
+import main.CmmCompiler;
+import main.ast.nodes.Program;
+import main.ast.nodes.expression.*;
+import main.ast.nodes.expression.operators.BinaryOperator;
+import main.ast.nodes.expression.operators.UnaryOperator;
+import main.ast.nodes.statement.AssignmentStmt;
+import main.ast.nodes.statement.BlockStmt;
+import main.ast.types.NoType;
+import main.ast.types.Type;
+import main.ast.types.primitives.BoolType;
+import main.ast.types.primitives.IntType;
+import main.visitor.fusion.ErrorReportingPass;
+import main.visitor.fusion.FusedTraversal;
+import main.visitor.name.ASTTreePrinter;
+import main.visitor.name.NameAnalyser;
+import main.visitor.type.TypeChecker;
+import org.antlr.v4.runtime.CharStreams;
+
+import java.io.Writer;
+import java.util.ArrayList;
+
+//usage: DeepExpressionCheck [--nodes n, default 1000000]
+//Checks that the compiler front end takes expressions far deeper than the parser can build, on the
+//default thread stack. The expressions of about n nodes are built directly: a left-nested sum, a chain
+//of negations and a chain of parentheses, each once with only ints and once with a bool at the bottom.
+//Each is assigned to an int in main, name analysed and type checked like compile() does it, and must get
+//its expected type, the expected number of errors from an ErrorReportingPass and one ASTTreePrinter line
+//per node.
+public class DeepExpressionCheck {
+    private static final String SKELETON = "main() begin\n    int a = 1\n    bool b = true\n    int x = 0\n    x = a\nend\n";
+
+    public static void main(String[] args) {
+        int nodes = 1000000;
+        for (int i = 0; i < args.length; i++)
+            if (args[i].equals("--nodes") && i + 1 < args.length)
+                nodes = Integer.parseInt(args[++i]);
+
+        String[] names = {"sum", "sum of b", "negations", "negations of b", "parentheses", "parentheses of b"};
+        Type[] types = {new IntType(), new IntType(), new IntType(), new NoType(), new IntType(), new BoolType()};
+        int[] errors = {0, 1, 0, 1, 0, 1};
+        int failed = 0;
+        for (int c = 0; c < names.length; c++) {
+            boolean broken = errors[c] > 0;
+            String failure = check(nodes, c / 2, broken, types[c], errors[c]);
+            if (failure == null) {
+                System.out.println("PASS " + names[c]);
+                continue;
+            }
+            failed++;
+            System.out.println("FAIL " + names[c]);
+            System.out.println("  " + failure);
+        }
+        System.out.println((names.length - failed) + " passed, " + failed + " failed");
+        if (failed > 0)
+            System.exit(1);
+    }
+
+    //what went wrong with the expression of the shape, null when nothing did
+    private static String check(int nodes, int shape, boolean broken, Type type, int errors) {
+        Program program = new CmmCompiler().parse(CharStreams.fromString(SKELETON));
+        AssignmentStmt assignment = (AssignmentStmt) ((BlockStmt) program.getMain().getBody()).getStatements().get(3);
+        //the placeholder a is one line of the dump
+        long lines = printedLines(program) - 1;
+        int line = assignment.getLine();
+        Expression expression = shape == 0 ? sum(nodes / 2 + 1, broken, line)
+                : shape == 1 ? chain(nodes, broken, line, false) : chain(nodes, broken, line, true);
+        assignment.setRValue(expression);
+        lines += size(expression);
+
+        try {
+            //the passes of CmmCompiler.compile()
+            ErrorReportingPass errorReportingPass = new ErrorReportingPass();
+            FusedTraversal errorReporter = new FusedTraversal(errorReportingPass);
+            program.accept(new NameAnalyser());
+            errorReporter.run(program);
+            program.accept(new TypeChecker());
+            Type resolved = expression.getResolvedType();
+            if (resolved == null || resolved.getClass() != type.getClass())
+                return "type " + (resolved == null ? "unresolved" : resolved.getClass().getSimpleName()) + ", expected " + type.getClass().getSimpleName();
+            errorReporter.run(program);
+            if (errorReportingPass.getNumberOfErrors() != errors)
+                return "ErrorReportingPass reported " + errorReportingPass.getNumberOfErrors() + " errors, expected " + errors;
+
+            long printed = printedLines(program);
+            if (printed != lines)
+                return "ASTTreePrinter printed " + printed + " lines, expected " + lines;
+        } catch (StackOverflowError e) {
+            return "StackOverflowError";
+        }
+        return null;
+    }
+
+    //a + a + ... + a, left-nested, with b as the first term when broken
+    private static Expression sum(int terms, boolean broken, int line) {
+        Expression sum = leaf(broken ? "b" : "a", line);
+        for (int i = 1; i < terms; i++) {
+            sum = new BinaryExpression(sum, leaf("a", line), BinaryOperator.add);
+            sum.setLine(line);
+        }
+        return sum;
+    }
+
+    //-(-( ... a)) or ((( ... a))), with b at the bottom when broken
+    private static Expression chain(int depth, boolean broken, int line, boolean parentheses) {
+        Expression chain = leaf(broken ? "b" : "a", line);
+        for (int i = 0; i < depth; i++) {
+            if (parentheses) {
+                ArrayList<Expression> inputs = new ArrayList<>();
+                inputs.add(chain);
+                chain = new ExprInPar(inputs);
+            } else {
+                chain = new UnaryExpression(chain, UnaryOperator.minus);
+            }
+            chain.setLine(line);
+        }
+        return chain;
+    }
+
+    private static Identifier leaf(String name, int line) {
+        Identifier identifier = new Identifier(name);
+        identifier.setLine(line);
+        return identifier;
+    }
+
+    //nodes of a sum or chain, counted without recursing
+    private static long size(Expression expression) {
+        long size = 0;
+        ArrayList<Expression> stack = new ArrayList<>();
+        stack.add(expression);
+        while (!stack.isEmpty()) {
+            Expression next = stack.remove(stack.size() - 1);
+            size++;
+            if (next instanceof BinaryExpression) {
+                stack.add(((BinaryExpression) next).getFirstOperand());
+                stack.add(((BinaryExpression) next).getSecondOperand());
+            } else if (next instanceof UnaryExpression) {
+                stack.add(((UnaryExpression) next).getOperand());
+            } else if (next instanceof ExprInPar) {
+                stack.addAll(((ExprInPar) next).getInputs());
+            }
+        }
+        return size;
+    }
+
+    private static long printedLines(Program program) {
+        LineCounter lineCounter = new LineCounter();
+        program.accept(new ASTTreePrinter(lineCounter, ASTTreePrinter.Format.TEXT));
+        return lineCounter.lines;
+    }
+
+    private static class LineCounter extends Writer {
+        private long lines;
+
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+            for (int i = offset; i < offset + length; i++)
+                if (buffer[i] == '\n')
+                    lines++;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package main.conformance;
+
+import main.CmmCompiler;
+import main.ast.nodes.Program;
+import main.compileError.CompileError;
+import org.antlr.v4.runtime.CharStreams;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+//Checks that deep expressions run on every engine and shows how long each takes, check and code
+//generation included: a sum of --terms constants, one of --terms variables, a & chain of --terms
+//variables and --depth nested negations in parentheses. The parser recurses once per nesting level, so
+//--depth stays well below --terms.
+//usage: ExpressionDepthBenchmark [--terms n, default 200000] [--depth n, default 200] [--engine e]...
+public class ExpressionDepthBenchmark {
+    public static void main(String[] args) {
+        int terms = 200000;
+        int depth = 200;
+        ArrayList<CmmCompiler.Engine> engines = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--terms") && i + 1 < args.length)
+                terms = Integer.parseInt(args[++i]);
+            else if (args[i].equals("--depth") && i + 1 < args.length)
+                depth = Integer.parseInt(args[++i]);
+            else if (args[i].equals("--engine") && i + 1 < args.length)
+                engines.add(CmmCompiler.Engine.valueOf(args[++i].toUpperCase()));
+        }
+        if (engines.isEmpty())
+            Collections.addAll(engines, CmmCompiler.Engine.values());
+
+        String[] names = {"constant sum", "variable sum", "& chain", "nested -( )"};
+        String[] sources = {
+                "main() begin\n    int x = " + String.join(" + ", Collections.nCopies(terms, "1")) + "\n    display(x)\nend\n",
+                "main() begin\n    int a = 1\n    int x = " + String.join(" + ", Collections.nCopies(terms, "a")) + "\n    display(x)\nend\n",
+                "main() begin\n    bool b = true\n    display(" + String.join(" & ", Collections.nCopies(terms, "b")) + ")\nend\n",
+                "main() begin\n    int a = 3\n    display(" + "-(".repeat(depth) + "a" + ")".repeat(depth) + ")\nend\n"};
+        String[] expected = {Integer.toString(terms), Integer.toString(terms), "true", Integer.toString(depth % 2 == 0 ? 3 : -3)};
+
+        int failed = 0;
+        System.out.printf("%-14s %-12s %-9s %10s  %s%n", "program", "engine", "optimize", "ms", "result");
+        for (int p = 0; p < sources.length; p++)
+            for (CmmCompiler.Engine engine : engines)
+                for (boolean optimize : new boolean[]{false, true}) {
+                    long start = System.nanoTime();
+                    String result = run(sources[p], engine, optimize);
+                    long time = System.nanoTime() - start;
+                    boolean passed = result.equals(expected[p]);
+                    if (!passed)
+                        failed++;
+                    System.out.printf("%-14s %-12s %-9s %10.0f  %s%n", names[p], engine.name().toLowerCase(),
+                            optimize, time / 1e6, passed ? result : "FAIL " + result);
+                }
+        System.out.println(failed + " failed");
+    }
+
+    //first line displayed, or what went wrong
+    private static String run(String source, CmmCompiler.Engine engine, boolean optimize) {
+        ByteArrayOutputStream displayed = new ByteArrayOutputStream();
+        try {
+            CmmCompiler cmmCompiler = new CmmCompiler();
+            cmmCompiler.setEngine(engine);
+            cmmCompiler.setOptimize(optimize);
+            Program program = cmmCompiler.parse(CharStreams.fromString(source));
+            List<CompileError> errors = cmmCompiler.check(program);
+            if (!errors.isEmpty())
+                return errors.get(0).getMessage();
+            PrintStream out = new PrintStream(displayed, false, StandardCharsets.UTF_8);
+            cmmCompiler.run(program, out);
+            out.flush();
+        } catch (RuntimeException | StackOverflowError e) {
+            return e.getClass().getSimpleName() + ": " + String.valueOf(e.getMessage()).replace("\n", " ");
+        }
+        return displayed.toString(StandardCharsets.UTF_8).split("\\R", 2)[0];
+    }
+}
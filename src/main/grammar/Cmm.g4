@@ -251,7 +251,8 @@ doWhileLoopStatement returns [LoopStmt stmt]:
     {$stmt = new LoopStmt();}
     d = DO bd = body
     {$stmt.setBody($bd.bodyRet);
-     $stmt.setLine($d.getLine());}
+     $stmt.setLine($d.getLine());
+     $stmt.setDoWhile(true);}
     NEWLINE* WHILE exp = expression
     {$stmt.setCondition($exp.exprRet);}
     ;
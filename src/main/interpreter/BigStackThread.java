@@ -0,0 +1,43 @@
+package main.interpreter;
+
+//Runs an engine on a thread of its own with a STACK_SIZE stack. Engines that recurse on the Java stack for
+//each C-- call would otherwise overflow the caller's default stack (1 MB on most JVMs) a few hundred calls
+//deep, where the VM and the compiled backends go thousands of calls deeper. The stack is only reserved;
+//pages are committed as the recursion reaches them.
+//What the task throws is rethrown on the calling thread.
+//The engines report a stack overflow once MAX_CALL_DEPTH calls are active, the VM's limit, so a runaway
+//recursion fails as soon as it does there instead of filling the whole stack.
+public final class BigStackThread {
+    public static final long STACK_SIZE = 1L << 29;
+    public static final int MAX_CALL_DEPTH = 1 << 16;
+
+    private BigStackThread() {
+    }
+
+    public static void run(String name, Runnable task) {
+        Throwable[] thrown = new Throwable[1];
+        Thread thread = new Thread(null, () -> {
+            try {
+                task.run();
+            } catch (Throwable e) {
+                thrown[0] = e;
+            }
+        }, name, STACK_SIZE);
+        thread.start();
+        boolean interrupted = false;
+        while (true) {
+            try {
+                thread.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+        if (thrown[0] instanceof RuntimeException)
+            throw (RuntimeException) thrown[0];
+        if (thrown[0] instanceof Error)
+            throw (Error) thrown[0];
+    }
+}
@@ -0,0 +1,20 @@
+package main.interpreter;
+
+//error of a running program, reported like a CompileError with the line of the failing node
+public class CmmRuntimeError extends RuntimeException {
+    private final int line;
+
+    public CmmRuntimeError(int line, String message) {
+        super(message);
+        this.line = line;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    @Override
+    public String getMessage() {
+        return "Line " + line + ": " + super.getMessage();
+    }
+}
@@ -0,0 +1,493 @@
+package main.interpreter;
+
+import main.ast.nodes.Program;
+import main.ast.nodes.declaration.VariableDeclaration;
+import main.ast.nodes.expression.*;
+import main.ast.nodes.expression.operators.BinaryOperator;
+import main.ast.nodes.expression.operators.UnaryOperator;
+import main.ast.nodes.expression.values.primitive.BoolValue;
+import main.ast.nodes.expression.values.primitive.IntValue;
+import main.ast.nodes.statement.*;
+import main.ast.types.ListType;
+import main.ast.types.StructType;
+import main.ast.types.Type;
+import main.runtime.BoolList;
+import main.runtime.CmmList;
+import main.runtime.IntList;
+import main.runtime.RefList;
+import main.visitor.ExpressionWalker;
+import main.visitor.SwitchVisitor;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+
+//Runs a Program that passed NameAnalyser and TypeChecker by walking its AST; names are read from the
+//frame slots SlotResolver assigned, not looked up.
+//Values: Integer for int, Boolean for bool, StructInstance for structs and
+//RuntimeFunction for fptrs (null until one is assigned). Lists are the CmmList for their element type:
+//IntList, BoolList or RefList, so their elements are stored unboxed. Lists and struct instances are shared
+//by reference.
+//Declaring a struct variable creates an instance whose fields have their default values.
+//Reading s.x runs the getter of x if it has one, s.x(args) runs its setter and s.x = v writes the field.
+//& and | don't evaluate their second operand when the first one decides the result.
+//Statements return null, or RETURNED once a return statement ran, with the value in returnValue.
+//The program runs on a BigStackThread. execute() runs blocks and the branch an if takes in its own Java
+//frame, so a C-- call recurses through as few Java frames as the expression holding it needs.
+//Operators are evaluated directly up to MAX_DIRECT_OPERATORS deep in a call, deeper ones by an
+//ExpressionWalker, so a deep expression doesn't need a deep Java stack and a shallow one doesn't pay for
+//the walk.
+public class Interpreter extends SwitchVisitor<Object> {
+    private static final Object RETURNED = new Object();
+    private static final Object[] NO_FRAME = new Object[0];
+    private static final int MAX_DIRECT_OPERATORS = 64;
+
+    private final PrintStream out;
+    private SlotResolver slotResolver;
+    private Object[] frame = NO_FRAME;
+    private StructInstance self;
+    private Object returnValue;
+    private int callLine;
+    private int depth;
+    //operators being evaluated directly in the running call
+    private int operators;
+
+    //& and | may skip their second operand and = evaluates its target first, they are leaves
+    private final ExpressionWalker<Object> operatorWalker = new ExpressionWalker<>() {
+        @Override
+        protected boolean isWalked(Expression expression) {
+            return isWalkedOperator(expression);
+        }
+
+        @Override
+        protected Object visitLeaf(Expression expression) {
+            return dispatch(expression);
+        }
+
+        @Override
+        protected Object visitBinary(BinaryExpression binaryExpression, Object firstOperand, Object secondOperand) {
+            return apply(binaryExpression, firstOperand, secondOperand);
+        }
+
+        @Override
+        protected Object visitUnary(UnaryExpression unaryExpression, Object operand) {
+            return apply(unaryExpression, operand);
+        }
+
+        //all inputs run, the first one is the value
+        @Override
+        protected Object visitExprInPar(ExprInPar exprInPar, ArrayList<Object> inputs) {
+            return inputs.isEmpty() ? null : inputs.get(0);
+        }
+    };
+
+    public Interpreter(PrintStream out) {
+        this.out = out;
+    }
+
+    //runtime errors are thrown as CmmRuntimeError, after the output so far is flushed
+    public void run(Program program) {
+        slotResolver = SlotResolver.resolve(program);
+        try {
+            BigStackThread.run("cmm-interpreter", () -> {
+                try {
+                    RuntimeFunction main = slotResolver.getMain();
+                    call(main, null, new Object[main.getFrameSize()]);
+                } catch (StackOverflowError e) {
+                    throw new CmmRuntimeError(callLine, "Stack overflow");
+                }
+            });
+        } finally {
+            out.flush();
+        }
+    }
+
+    private Object call(RuntimeFunction function, StructInstance instance, Object[] calleeFrame) {
+        if (++depth > BigStackThread.MAX_CALL_DEPTH)
+            throw new CmmRuntimeError(callLine, "Stack overflow");
+        Object[] callerFrame = frame;
+        StructInstance callerSelf = self;
+        int callerOperators = operators;
+        frame = calleeFrame;
+        self = instance;
+        operators = 0;
+        Object result = null;
+        if (execute(function.getBody()) == RETURNED) {
+            result = returnValue;
+            returnValue = null;
+        } else if (function.returnsValue()) {
+            throw new CmmRuntimeError(function.getLine(), "Missing return statement for function " + function.getName());
+        }
+        frame = callerFrame;
+        self = callerSelf;
+        operators = callerOperators;
+        depth--;
+        return result;
+    }
+
+    //the last statement of a block and the branch of an if are run by the loop instead of a nested call,
+    //and a return statement evaluates its value here
+    private Object execute(Statement statement) {
+        while (true) {
+            switch (statement.getNodeKind()) {
+                case BLOCK_STMT: {
+                    ArrayList<Statement> statements = ((BlockStmt) statement).getStatements();
+                    int last = statements.size() - 1;
+                    if (last < 0)
+                        return null;
+                    for (int i = 0; i < last; i++)
+                        if (execute(statements.get(i)) == RETURNED)
+                            return RETURNED;
+                    statement = statements.get(last);
+                    break;
+                }
+                case CONDITIONAL_STMT: {
+                    ConditionalStmt conditionalStmt = (ConditionalStmt) statement;
+                    if ((Boolean) dispatch(conditionalStmt.getCondition()))
+                        statement = conditionalStmt.getThenBody();
+                    else if (conditionalStmt.getElseBody() != null)
+                        statement = conditionalStmt.getElseBody();
+                    else
+                        return null;
+                    break;
+                }
+                case RETURN_STMT: {
+                    Expression returnedExpr = ((ReturnStmt) statement).getReturnedExpr();
+                    returnValue = returnedExpr == null ? null : dispatch(returnedExpr);
+                    return RETURNED;
+                }
+                default:
+                    return dispatch(statement);
+            }
+        }
+    }
+
+    //the arguments are evaluated in the caller's frame
+    private Object[] frameFor(RuntimeFunction function, ArrayList<Expression> args) {
+        Object[] calleeFrame = new Object[function.getFrameSize()];
+        for (int i = 0; i < args.size(); i++)
+            calleeFrame[i] = dispatch(args.get(i));
+        return calleeFrame;
+    }
+
+    private Object defaultValue(Type type) {
+        switch (type.getKind()) {
+            case INT:
+                return 0;
+            case BOOL:
+                return Boolean.FALSE;
+            case LIST:
+                return newList(((ListType) type).getType());
+            case STRUCT:
+                return instantiate(slotResolver.getLayout(((StructType) type).getStructName().getName()));
+            default:
+                return null;
+        }
+    }
+
+    private StructInstance instantiate(StructLayout layout) {
+        StructInstance instance = new StructInstance(layout);
+        for (int i = 0; i < layout.size(); i++) {
+            VariableDeclaration field = layout.getField(i);
+            if (field.getDefaultValue() == null) {
+                instance.fields[i] = defaultValue(field.getVarType());
+                continue;
+            }
+            Object[] outerFrame = frame;
+            StructInstance outerSelf = self;
+            frame = NO_FRAME;
+            self = instance;
+            instance.fields[i] = dispatch(field.getDefaultValue());
+            frame = outerFrame;
+            self = outerSelf;
+        }
+        return instance;
+    }
+
+    private StructInstance structOf(Expression expression) {
+        return (StructInstance) dispatch(expression);
+    }
+
+    private static CmmList newList(Type elementType) {
+        switch (elementType.getKind()) {
+            case INT:
+                return new IntList();
+            case BOOL:
+                return new BoolList();
+            default:
+                return new RefList<>();
+        }
+    }
+
+    private CmmList listOf(Expression expression) {
+        return (CmmList) dispatch(expression);
+    }
+
+    private int indexIn(CmmList list, Expression indexExpression, int line) {
+        int index = (Integer) dispatch(indexExpression);
+        if (index < 0 || index >= list.size())
+            throw new CmmRuntimeError(line, "Index " + index + " is out of range for a list of size " + list.size());
+        return index;
+    }
+
+    private void store(Identifier identifier, Object value) {
+        if (identifier.getStorage() == Identifier.Storage.LOCAL)
+            frame[identifier.getSlot()] = value;
+        else
+            self.fields[identifier.getSlot()] = value;
+    }
+
+    //evaluates the parts of target from left to right, then value
+    private Object assign(Expression target, Expression value, int line) {
+        if (target instanceof Identifier) {
+            Object result = dispatch(value);
+            store((Identifier) target, result);
+            return result;
+        }
+        if (target instanceof StructAccess) {
+            StructAccess structAccess = (StructAccess) target;
+            StructInstance instance = structOf(structAccess.getInstance());
+            Object result = dispatch(value);
+            instance.fields[structAccess.getElement().getSlot()] = result;
+            return result;
+        }
+        if (target instanceof ListAccessByIndex) {
+            ListAccessByIndex listAccessByIndex = (ListAccessByIndex) target;
+            CmmList list = listOf(listAccessByIndex.getInstance());
+            int index = indexIn(list, listAccessByIndex.getIndex(), line);
+            Object result = dispatch(value);
+            list.setBoxed(index, result);
+            return result;
+        }
+        if (target instanceof ExprInPar && ((ExprInPar) target).getInputs().size() == 1)
+            return assign(((ExprInPar) target).getInputs().get(0), value, line);
+        throw new CmmRuntimeError(line, "Left side of assignment is not assignable");
+    }
+
+    @Override
+    public Object visit(VariableDeclaration variableDec) {
+        Expression defaultValue = variableDec.getDefaultValue();
+        store(variableDec.getVarName(), defaultValue != null ? dispatch(defaultValue) : defaultValue(variableDec.getVarType()));
+        return null;
+    }
+
+    @Override
+    public Object visit(AssignmentStmt assignmentStmt) {
+        assign(assignmentStmt.getLValue(), assignmentStmt.getRValue(), assignmentStmt.getLine());
+        return null;
+    }
+
+    @Override
+    public Object visit(BlockStmt blockStmt) {
+        return execute(blockStmt);
+    }
+
+    @Override
+    public Object visit(ConditionalStmt conditionalStmt) {
+        return execute(conditionalStmt);
+    }
+
+    @Override
+    public Object visit(FunctionCallStmt functionCallStmt) {
+        dispatch(functionCallStmt.getFunctionCall());
+        return null;
+    }
+
+    @Override
+    public Object visit(DisplayStmt displayStmt) {
+        out.println(dispatch(displayStmt.getArg()));
+        return null;
+    }
+
+    @Override
+    public Object visit(ReturnStmt returnStmt) {
+        returnValue = returnStmt.getReturnedExpr() == null ? null : dispatch(returnStmt.getReturnedExpr());
+        return RETURNED;
+    }
+
+    @Override
+    public Object visit(LoopStmt loopStmt) {
+        if (loopStmt.isDoWhile() && execute(loopStmt.getBody()) == RETURNED)
+            return RETURNED;
+        while ((Boolean) dispatch(loopStmt.getCondition()))
+            if (execute(loopStmt.getBody()) == RETURNED)
+                return RETURNED;
+        return null;
+    }
+
+    @Override
+    public Object visit(VarDecStmt varDecStmt) {
+        for (VariableDeclaration varDec : varDecStmt.getVars())
+            visit(varDec);
+        return null;
+    }
+
+    @Override
+    public Object visit(ListAppendStmt listAppendStmt) {
+        dispatch(listAppendStmt.getListAppendExpr());
+        return null;
+    }
+
+    @Override
+    public Object visit(ListSizeStmt listSizeStmt) {
+        dispatch(listSizeStmt.getListSizeExpr());
+        return null;
+    }
+
+    private static boolean isWalkedOperator(Expression expression) {
+        if (expression instanceof BinaryExpression) {
+            BinaryOperator operator = ((BinaryExpression) expression).getBinaryOperator();
+            return operator != BinaryOperator.and && operator != BinaryOperator.or && operator != BinaryOperator.assign;
+        }
+        return expression instanceof UnaryExpression || expression instanceof ExprInPar;
+    }
+
+    @Override
+    public Object visit(BinaryExpression binaryExpression) {
+        Expression first = binaryExpression.getFirstOperand();
+        Expression second = binaryExpression.getSecondOperand();
+        switch (binaryExpression.getBinaryOperator()) {
+            case and:
+                return (Boolean) dispatch(first) && (Boolean) dispatch(second);
+            case or:
+                return (Boolean) dispatch(first) || (Boolean) dispatch(second);
+            case assign:
+                return assign(first, second, binaryExpression.getLine());
+            default:
+                break;
+        }
+        if (operators == MAX_DIRECT_OPERATORS)
+            return operatorWalker.walk(binaryExpression);
+        operators++;
+        Object left = dispatch(first);
+        Object right = dispatch(second);
+        operators--;
+        return apply(binaryExpression, left, right);
+    }
+
+    private static Object apply(BinaryExpression binaryExpression, Object first, Object second) {
+        if (binaryExpression.getBinaryOperator() == BinaryOperator.eq)
+            return first instanceof Integer || first instanceof Boolean ? first.equals(second) : first == second;
+        int left = (Integer) first;
+        int right = (Integer) second;
+        switch (binaryExpression.getBinaryOperator()) {
+            case gt:
+                return left > right;
+            case lt:
+                return left < right;
+            case add:
+                return left + right;
+            case sub:
+                return left - right;
+            case mult:
+                return left * right;
+            default:
+                if (right == 0)
+                    throw new CmmRuntimeError(binaryExpression.getLine(), "Division by zero");
+                return left / right;
+        }
+    }
+
+    @Override
+    public Object visit(UnaryExpression unaryExpression) {
+        if (operators == MAX_DIRECT_OPERATORS)
+            return operatorWalker.walk(unaryExpression);
+        operators++;
+        Object operand = dispatch(unaryExpression.getOperand());
+        operators--;
+        return apply(unaryExpression, operand);
+    }
+
+    private static Object apply(UnaryExpression unaryExpression, Object operand) {
+        if (unaryExpression.getOperator() == UnaryOperator.not)
+            return !(Boolean) operand;
+        return -(Integer) operand;
+    }
+
+    @Override
+    public Object visit(FunctionCall funcCall) {
+        Expression instance = funcCall.getInstance();
+        callLine = funcCall.getLine();
+        Object function;
+        if (instance instanceof StructAccess) {
+            StructAccess structAccess = (StructAccess) instance;
+            StructInstance structInstance = structOf(structAccess.getInstance());
+            int index = structAccess.getElement().getSlot();
+            RuntimeFunction setter = structInstance.layout.getSetter(index);
+            if (setter != null)
+                return call(setter, structInstance, frameFor(setter, funcCall.getArgs()));
+            function = structInstance.fields[index];
+        } else {
+            function = dispatch(instance);
+        }
+        if (function == null)
+            throw new CmmRuntimeError(funcCall.getLine(), "Calling an fptr that has no function");
+        RuntimeFunction runtimeFunction = (RuntimeFunction) function;
+        return call(runtimeFunction, null, frameFor(runtimeFunction, funcCall.getArgs()));
+    }
+
+    @Override
+    public Object visit(Identifier identifier) {
+        switch (identifier.getStorage()) {
+            case LOCAL:
+                return frame[identifier.getSlot()];
+            case MEMBER:
+                return self.fields[identifier.getSlot()];
+            default:
+                return slotResolver.getFunction(identifier.getSlot());
+        }
+    }
+
+    @Override
+    public Object visit(ListAccessByIndex listAccessByIndex) {
+        CmmList list = listOf(listAccessByIndex.getInstance());
+        return list.getBoxed(indexIn(list, listAccessByIndex.getIndex(), listAccessByIndex.getLine()));
+    }
+
+    @Override
+    public Object visit(StructAccess structAccess) {
+        StructInstance instance = structOf(structAccess.getInstance());
+        int index = structAccess.getElement().getSlot();
+        RuntimeFunction getter = instance.layout.getGetter(index);
+        if (getter != null) {
+            callLine = structAccess.getLine();
+            return call(getter, instance, new Object[getter.getFrameSize()]);
+        }
+        return instance.fields[index];
+    }
+
+    @Override
+    public Object visit(ListSize listSize) {
+        return listOf(listSize.getArg()).size();
+    }
+
+    @Override
+    public Object visit(ListAppend listAppend) {
+        CmmList list = listOf(listAppend.getListArg());
+        list.addBoxed(dispatch(listAppend.getElementArg()));
+        return null;
+    }
+
+    @Override
+    public Object visit(ExprInPar exprInPar) {
+        if (operators == MAX_DIRECT_OPERATORS)
+            return operatorWalker.walk(exprInPar);
+        operators++;
+        //all inputs run, the first one is the value
+        ArrayList<Expression> inputs = exprInPar.getInputs();
+        Object result = inputs.isEmpty() ? null : dispatch(inputs.get(0));
+        for (int i = 1; i < inputs.size(); i++)
+            dispatch(inputs.get(i));
+        operators--;
+        return result;
+    }
+
+    @Override
+    public Object visit(IntValue intValue) {
+        return intValue.getConstant();
+    }
+
+    @Override
+    public Object visit(BoolValue boolValue) {
+        return boolValue.getConstant();
+    }
+}
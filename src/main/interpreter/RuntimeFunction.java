@@ -0,0 +1,50 @@
+package main.interpreter;
+
+import main.ast.nodes.statement.Statement;
+
+//a function, main or one accessor body ready to run; this is the run time value of an fptr
+public class RuntimeFunction {
+    private final String name;
+    private final int line;
+    private final int argCount;
+    private final boolean returnsValue;
+    private final Statement body;
+    private int frameSize;
+
+    public RuntimeFunction(String name, int line, int argCount, boolean returnsValue, Statement body) {
+        this.name = name;
+        this.line = line;
+        this.argCount = argCount;
+        this.returnsValue = returnsValue;
+        this.body = body;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    //the arguments are the first slots of the frame
+    public int getArgCount() {
+        return argCount;
+    }
+
+    public boolean returnsValue() {
+        return returnsValue;
+    }
+
+    public Statement getBody() {
+        return body;
+    }
+
+    public int getFrameSize() {
+        return frameSize;
+    }
+
+    void setFrameSize(int frameSize) {
+        this.frameSize = frameSize;
+    }
+}
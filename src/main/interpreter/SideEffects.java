@@ -0,0 +1,82 @@
+package main.interpreter;
+
+import main.ast.nodes.expression.*;
+import main.ast.nodes.expression.operators.BinaryOperator;
+import main.ast.types.StructType;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+//Whether evaluating an expression of a resolved Program can change a value or the output, or run code
+//that does: calls, assignments, appends and reads of fields that have a getter. Backends that don't
+//evaluate operands strictly from left to right use it to tell when the order matters.
+//Expressions are searched with an explicit stack, so deep ones don't need a deep Java stack, and the nodes
+//of an expression found to have none are remembered: asking again about any of them is immediate.
+public class SideEffects {
+    private final SlotResolver slotResolver;
+    private final IdentityHashMap<Expression, Boolean> pure = new IdentityHashMap<>();
+
+    public SideEffects(SlotResolver slotResolver) {
+        this.slotResolver = slotResolver;
+    }
+
+    public boolean in(List<Expression> expressions) {
+        for (Expression expression : expressions)
+            if (in(expression))
+                return true;
+        return false;
+    }
+
+    public boolean in(Expression expression) {
+        ArrayList<Expression> visited = new ArrayList<>();
+        ArrayList<Expression> work = new ArrayList<>();
+        work.add(expression);
+        while (!work.isEmpty()) {
+            Expression next = work.remove(work.size() - 1);
+            if (pure.containsKey(next))
+                continue;
+            if (hasOwn(next))
+                return true;
+            visited.add(next);
+            addOperands(next, work);
+        }
+        for (Expression node : visited)
+            pure.put(node, Boolean.TRUE);
+        return false;
+    }
+
+    //whether the node itself has side effects, apart from its operands
+    private boolean hasOwn(Expression expression) {
+        if (expression instanceof FunctionCall || expression instanceof ListAppend)
+            return true;
+        if (expression instanceof BinaryExpression)
+            return ((BinaryExpression) expression).getBinaryOperator() == BinaryOperator.assign;
+        if (expression instanceof StructAccess) {
+            StructAccess structAccess = (StructAccess) expression;
+            String structName = ((StructType) structAccess.getInstance().getResolvedType()).getStructName().getName();
+            return slotResolver.getLayout(structName).getGetter(structAccess.getElement().getSlot()) != null;
+        }
+        return false;
+    }
+
+    private static void addOperands(Expression expression, ArrayList<Expression> work) {
+        if (expression instanceof BinaryExpression) {
+            BinaryExpression binaryExpression = (BinaryExpression) expression;
+            work.add(binaryExpression.getFirstOperand());
+            work.add(binaryExpression.getSecondOperand());
+        } else if (expression instanceof UnaryExpression) {
+            work.add(((UnaryExpression) expression).getOperand());
+        } else if (expression instanceof StructAccess) {
+            work.add(((StructAccess) expression).getInstance());
+        } else if (expression instanceof ListAccessByIndex) {
+            ListAccessByIndex listAccessByIndex = (ListAccessByIndex) expression;
+            work.add(listAccessByIndex.getInstance());
+            work.add(listAccessByIndex.getIndex());
+        } else if (expression instanceof ListSize) {
+            work.add(((ListSize) expression).getArg());
+        } else if (expression instanceof ExprInPar) {
+            work.addAll(((ExprInPar) expression).getInputs());
+        }
+    }
+}
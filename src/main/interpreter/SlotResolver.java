@@ -0,0 +1,343 @@
+package main.interpreter;
+
+import main.ast.nodes.Program;
+import main.ast.nodes.declaration.FunctionDeclaration;
+import main.ast.nodes.declaration.MainDeclaration;
+import main.ast.nodes.declaration.VariableDeclaration;
+import main.ast.nodes.declaration.struct.StructDeclaration;
+import main.ast.nodes.expression.*;
+import main.ast.nodes.expression.values.primitive.BoolValue;
+import main.ast.nodes.expression.values.primitive.IntValue;
+import main.ast.nodes.statement.*;
+import main.ast.types.StructType;
+import main.ast.types.Type;
+import main.ast.types.primitives.VoidType;
+import main.visitor.ExpressionWalker;
+import main.visitor.Visitor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+//Prepares a type checked Program to run: every Identifier that is read or written gets its Storage and slot,
+//functions, main and accessor bodies become RuntimeFunctions that know their frame size and every struct
+//gets a StructLayout. Scopes are the ones TypeChecker uses: a function with its arguments, each branch of
+//a conditional and a loop. The slots of a closed scope are reused by the next one.
+public class SlotResolver extends Visitor<Void> {
+    private final HashMap<String, StructLayout> layouts = new HashMap<>();
+    private final HashMap<String, Integer> functionIndices = new HashMap<>();
+    private final ArrayList<RuntimeFunction> functions = new ArrayList<>();
+    private RuntimeFunction main;
+
+    private final ArrayList<HashMap<String, Integer>> scopes = new ArrayList<>();
+    private final ArrayList<Integer> scopeStarts = new ArrayList<>();
+    private int nextSlot;
+    private int frameSize;
+    //struct whose members are visible by name, inside its accessors and field initializers
+    private StructLayout curStruct;
+
+    private final ExpressionWalker<Void> operatorWalker = new ExpressionWalker<>() {
+        @Override
+        protected Void visitLeaf(Expression expression) {
+            expression.accept(SlotResolver.this);
+            return null;
+        }
+
+        @Override
+        protected Void visitBinary(BinaryExpression binaryExpression, Void firstOperand, Void secondOperand) {
+            return null;
+        }
+
+        @Override
+        protected Void visitUnary(UnaryExpression unaryExpression, Void operand) {
+            return null;
+        }
+
+        @Override
+        protected Void visitExprInPar(ExprInPar exprInPar, ArrayList<Void> inputs) {
+            return null;
+        }
+    };
+
+    public static SlotResolver resolve(Program program) {
+        SlotResolver slotResolver = new SlotResolver();
+        program.accept(slotResolver);
+        return slotResolver;
+    }
+
+    public RuntimeFunction getMain() {
+        return main;
+    }
+
+    public RuntimeFunction getFunction(int index) {
+        return functions.get(index);
+    }
+
+    public StructLayout getLayout(String structName) {
+        return layouts.get(structName);
+    }
+
+    private static ArrayList<Statement> statementsOf(Statement body) {
+        if (body instanceof BlockStmt)
+            return ((BlockStmt) body).getStatements();
+        ArrayList<Statement> statements = new ArrayList<>();
+        statements.add(body);
+        return statements;
+    }
+
+    private void createLayout(StructDeclaration structDec) {
+        StructLayout layout = new StructLayout(structDec.getStructName().getName());
+        for (Statement stmt : statementsOf(structDec.getBody())) {
+            if (stmt instanceof VarDecStmt) {
+                for (VariableDeclaration field : ((VarDecStmt) stmt).getVars())
+                    field.getVarName().setSlot(Identifier.Storage.MEMBER, layout.addField(field, null, null));
+            } else if (stmt instanceof SetGetVarDeclaration) {
+                SetGetVarDeclaration setGetVarDec = (SetGetVarDeclaration) stmt;
+                String name = setGetVarDec.getVarName().getName();
+                RuntimeFunction setter = new RuntimeFunction(name, setGetVarDec.getLine(), setGetVarDec.getArgs().size(),
+                        false, setGetVarDec.getSetterBody());
+                RuntimeFunction getter = new RuntimeFunction(name, setGetVarDec.getLine(), 0, true, setGetVarDec.getGetterBody());
+                VariableDeclaration field = setGetVarDec.getVarDec();
+                field.getVarName().setSlot(Identifier.Storage.MEMBER, layout.addField(field, setter, getter));
+            }
+        }
+        layouts.put(layout.getName(), layout);
+    }
+
+    private void resolveLayout(StructDeclaration structDec) {
+        StructLayout layout = layouts.get(structDec.getStructName().getName());
+        curStruct = layout;
+        for (int i = 0; i < layout.size(); i++) {
+            Expression defaultValue = layout.getField(i).getDefaultValue();
+            if (defaultValue != null)
+                defaultValue.accept(this);
+        }
+        for (Statement stmt : statementsOf(structDec.getBody())) {
+            if (!(stmt instanceof SetGetVarDeclaration))
+                continue;
+            SetGetVarDeclaration setGetVarDec = (SetGetVarDeclaration) stmt;
+            int index = setGetVarDec.getVarName().getSlot();
+            resolveBody(layout.getSetter(index), setGetVarDec.getArgs());
+            resolveBody(layout.getGetter(index), new ArrayList<>());
+        }
+        curStruct = null;
+    }
+
+    private void resolveBody(RuntimeFunction function, ArrayList<VariableDeclaration> args) {
+        nextSlot = 0;
+        frameSize = 0;
+        pushScope();
+        for (VariableDeclaration arg : args)
+            declare(arg.getVarName());
+        function.getBody().accept(this);
+        popScope();
+        function.setFrameSize(frameSize);
+    }
+
+    private void pushScope() {
+        scopes.add(new HashMap<>());
+        scopeStarts.add(nextSlot);
+    }
+
+    private void popScope() {
+        scopes.remove(scopes.size() - 1);
+        nextSlot = scopeStarts.remove(scopeStarts.size() - 1);
+    }
+
+    private void declare(Identifier name) {
+        int slot = nextSlot++;
+        frameSize = Math.max(frameSize, nextSlot);
+        scopes.get(scopes.size() - 1).put(name.getName(), slot);
+        name.setSlot(Identifier.Storage.LOCAL, slot);
+    }
+
+    @Override
+    public Void visit(Program program) {
+        for (StructDeclaration structDec : program.getStructs())
+            createLayout(structDec);
+        for (FunctionDeclaration funcDec : program.getFunctions()) {
+            String name = funcDec.getFunctionName().getName();
+            boolean returnsValue = !(funcDec.getReturnType() instanceof VoidType);
+            functionIndices.put(name, functions.size());
+            functions.add(new RuntimeFunction(name, funcDec.getLine(), funcDec.getArgs().size(), returnsValue, funcDec.getBody()));
+        }
+        MainDeclaration mainDec = program.getMain();
+        main = new RuntimeFunction("main", mainDec.getLine(), 0, false, mainDec.getBody());
+
+        for (StructDeclaration structDec : program.getStructs())
+            resolveLayout(structDec);
+        for (int i = 0; i < functions.size(); i++)
+            resolveBody(functions.get(i), program.getFunctions().get(i).getArgs());
+        resolveBody(main, new ArrayList<>());
+        return null;
+    }
+
+    @Override
+    public Void visit(VariableDeclaration variableDec) {
+        if (variableDec.getDefaultValue() != null)
+            variableDec.getDefaultValue().accept(this);
+        declare(variableDec.getVarName());
+        return null;
+    }
+
+    @Override
+    public Void visit(AssignmentStmt assignmentStmt) {
+        assignmentStmt.getLValue().accept(this);
+        assignmentStmt.getRValue().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(BlockStmt blockStmt) {
+        for (Statement stmt : blockStmt.getStatements())
+            stmt.accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(ConditionalStmt conditionalStmt) {
+        pushScope();
+        conditionalStmt.getCondition().accept(this);
+        conditionalStmt.getThenBody().accept(this);
+        popScope();
+        if (conditionalStmt.getElseBody() != null) {
+            pushScope();
+            conditionalStmt.getElseBody().accept(this);
+            popScope();
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(FunctionCallStmt functionCallStmt) {
+        functionCallStmt.getFunctionCall().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(DisplayStmt displayStmt) {
+        displayStmt.getArg().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(ReturnStmt returnStmt) {
+        if (returnStmt.getReturnedExpr() != null)
+            returnStmt.getReturnedExpr().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(LoopStmt loopStmt) {
+        pushScope();
+        loopStmt.getCondition().accept(this);
+        loopStmt.getBody().accept(this);
+        popScope();
+        return null;
+    }
+
+    @Override
+    public Void visit(VarDecStmt varDecStmt) {
+        for (VariableDeclaration varDec : varDecStmt.getVars())
+            varDec.accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(ListAppendStmt listAppendStmt) {
+        listAppendStmt.getListAppendExpr().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(ListSizeStmt listSizeStmt) {
+        listSizeStmt.getListSizeExpr().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(BinaryExpression binaryExpression) {
+        return operatorWalker.walk(binaryExpression);
+    }
+
+    @Override
+    public Void visit(UnaryExpression unaryExpression) {
+        return operatorWalker.walk(unaryExpression);
+    }
+
+    @Override
+    public Void visit(FunctionCall funcCall) {
+        funcCall.getInstance().accept(this);
+        for (Expression arg : funcCall.getArgs())
+            arg.accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(Identifier identifier) {
+        String name = identifier.getName();
+        for (int i = scopes.size() - 1; i >= 0; i--) {
+            Integer slot = scopes.get(i).get(name);
+            if (slot != null) {
+                identifier.setSlot(Identifier.Storage.LOCAL, slot);
+                return null;
+            }
+        }
+        if (curStruct != null && curStruct.indexOf(name) >= 0) {
+            identifier.setSlot(Identifier.Storage.MEMBER, curStruct.indexOf(name));
+            return null;
+        }
+        Integer function = functionIndices.get(name);
+        if (function == null)
+            throw new IllegalStateException("Line " + identifier.getLine() + ": " + name + " is not declared, the program must be type checked");
+        identifier.setSlot(Identifier.Storage.FUNCTION, function);
+        return null;
+    }
+
+    @Override
+    public Void visit(ListAccessByIndex listAccessByIndex) {
+        listAccessByIndex.getInstance().accept(this);
+        listAccessByIndex.getIndex().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(StructAccess structAccess) {
+        structAccess.getInstance().accept(this);
+        Type instanceType = structAccess.getInstance().getResolvedType();
+        Identifier element = structAccess.getElement();
+        StructLayout layout = instanceType instanceof StructType
+                ? layouts.get(((StructType) instanceType).getStructName().getName()) : null;
+        if (layout == null || layout.indexOf(element.getName()) < 0)
+            throw new IllegalStateException("Line " + structAccess.getLine() + ": no member " + element.getName() + ", the program must be type checked");
+        element.setSlot(Identifier.Storage.MEMBER, layout.indexOf(element.getName()));
+        return null;
+    }
+
+    @Override
+    public Void visit(ListSize listSize) {
+        listSize.getArg().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(ListAppend listAppend) {
+        listAppend.getListArg().accept(this);
+        listAppend.getElementArg().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(ExprInPar exprInPar) {
+        return operatorWalker.walk(exprInPar);
+    }
+
+    @Override
+    public Void visit(IntValue intValue) {
+        return null;
+    }
+
+    @Override
+    public Void visit(BoolValue boolValue) {
+        return null;
+    }
+}
@@ -0,0 +1,16 @@
+package main.interpreter;
+
+//a struct value; struct values are shared by reference, like lists
+public class StructInstance {
+    final StructLayout layout;
+    final Object[] fields;
+
+    StructInstance(StructLayout layout) {
+        this.layout = layout;
+        this.fields = new Object[layout.size()];
+    }
+
+    public StructLayout getLayout() {
+        return layout;
+    }
+}
@@ -0,0 +1,52 @@
+package main.interpreter;
+
+import main.ast.nodes.declaration.VariableDeclaration;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+//fields of a struct in declaration order; a field declared with a setter and getter has them at its index
+public class StructLayout {
+    private final String name;
+    private final ArrayList<VariableDeclaration> fields = new ArrayList<>();
+    private final HashMap<String, Integer> fieldIndices = new HashMap<>();
+    private final ArrayList<RuntimeFunction> setters = new ArrayList<>();
+    private final ArrayList<RuntimeFunction> getters = new ArrayList<>();
+
+    public StructLayout(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    int addField(VariableDeclaration field, RuntimeFunction setter, RuntimeFunction getter) {
+        fieldIndices.putIfAbsent(field.getVarName().getName(), fields.size());
+        fields.add(field);
+        setters.add(setter);
+        getters.add(getter);
+        return fields.size() - 1;
+    }
+
+    public int size() {
+        return fields.size();
+    }
+
+    public VariableDeclaration getField(int index) {
+        return fields.get(index);
+    }
+
+    //-1 if there is no such field
+    public int indexOf(String fieldName) {
+        return fieldIndices.getOrDefault(fieldName, -1);
+    }
+
+    public RuntimeFunction getSetter(int index) {
+        return setters.get(index);
+    }
+
+    public RuntimeFunction getGetter(int index) {
+        return getters.get(index);
+    }
+}
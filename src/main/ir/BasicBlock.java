@@ -0,0 +1,47 @@
+package main.ir;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+//Instructions that run one after the other: PHIs first and a terminator last. The operands of a PHI are
+//in the order of predecessors.
+public final class BasicBlock {
+    int id;
+    final ArrayList<Instruction> instructions = new ArrayList<>();
+    final ArrayList<BasicBlock> predecessors = new ArrayList<>();
+
+    BasicBlock(int id) {
+        this.id = id;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    Instruction terminator() {
+        if (instructions.isEmpty())
+            return null;
+        Instruction last = instructions.get(instructions.size() - 1);
+        return last.op.isTerminator() ? last : null;
+    }
+
+    List<BasicBlock> successors() {
+        Instruction terminator = terminator();
+        if (terminator == null || terminator.targets == null)
+            return Collections.emptyList();
+        return List.of(terminator.targets);
+    }
+
+    //adds instruction before the terminator
+    void insertBeforeTerminator(Instruction instruction) {
+        int index = terminator() == null ? instructions.size() : instructions.size() - 1;
+        instructions.add(index, instruction);
+        instruction.block = this;
+    }
+
+    @Override
+    public String toString() {
+        return "b" + id;
+    }
+}
@@ -0,0 +1,58 @@
+package main.ir;
+
+import java.util.IdentityHashMap;
+
+//Replaces every COPY by the value it copies and every PHI whose operands are one value (or the PHI
+//itself) by that value, until none is left; removing a PHI can make the PHIs that use it trivial.
+public class CopyPropagation implements IrPass {
+    @Override
+    public String getName() {
+        return "copy propagation";
+    }
+
+    //number of COPYs and PHIs removed
+    @Override
+    public int run(IrFunction function) {
+        int removed = 0;
+        IdentityHashMap<Instruction, Instruction> replacements = new IdentityHashMap<>();
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (BasicBlock block : function.blocks)
+                for (Instruction instruction : block.instructions) {
+                    if (replacements.containsKey(instruction))
+                        continue;
+                    Instruction value = null;
+                    if (instruction.op == Op.COPY)
+                        value = IrFunction.resolve(replacements, instruction.operand(0));
+                    else if (instruction.op == Op.PHI)
+                        value = onlyValue(instruction, replacements);
+                    if (value != null) {
+                        replacements.put(instruction, value);
+                        changed = true;
+                    }
+                }
+        }
+        function.replaceUses(replacements);
+        for (BasicBlock block : function.blocks) {
+            int before = block.instructions.size();
+            block.instructions.removeIf(replacements::containsKey);
+            removed += before - block.instructions.size();
+        }
+        return removed;
+    }
+
+    //the value every operand of phi is, other than phi itself, or null if there are two
+    private static Instruction onlyValue(Instruction phi, IdentityHashMap<Instruction, Instruction> replacements) {
+        Instruction value = null;
+        for (Instruction operand : phi.operands) {
+            operand = IrFunction.resolve(replacements, operand);
+            if (operand == phi || operand == value)
+                continue;
+            if (value != null)
+                return null;
+            value = operand;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,66 @@
+package main.ir;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+//Removes what can't change the output: a FIELD_SET followed in its block by another FIELD_SET of the same
+//field of the same instance, with nothing in between that could read the field (a FIELD_GET of the field
+//or a call), and then every instruction whose value is never used and that can be removed (see
+//Instruction.isRemovable), until no more are unused.
+public class DeadStoreElimination implements IrPass {
+    @Override
+    public String getName() {
+        return "dead store elimination";
+    }
+
+    //number of instructions removed
+    @Override
+    public int run(IrFunction function) {
+        int removed = 0;
+        for (BasicBlock block : function.blocks)
+            removed += removeOverwrittenStores(block);
+        boolean changed = true;
+        while (changed) {
+            Map<Instruction, Integer> useCounts = function.useCounts();
+            changed = false;
+            for (BasicBlock block : function.blocks) {
+                int before = block.instructions.size();
+                block.instructions.removeIf(instruction -> instruction.isRemovable() && !useCounts.containsKey(instruction));
+                removed += before - block.instructions.size();
+                changed |= block.instructions.size() < before;
+            }
+        }
+        return removed;
+    }
+
+    private static int removeOverwrittenStores(BasicBlock block) {
+        //the last store to each instance and field no instruction after it may have read
+        HashMap<List<Object>, Instruction> unread = new HashMap<>();
+        int removed = 0;
+        for (int i = 0; i < block.instructions.size(); i++) {
+            Instruction instruction = block.instructions.get(i);
+            switch (instruction.op) {
+                case FIELD_SET: {
+                    Instruction overwritten = unread.put(List.of(instruction.field, instruction.operand(0)), instruction);
+                    if (overwritten != null) {
+                        block.instructions.remove(overwritten);
+                        i--;
+                        removed++;
+                    }
+                    break;
+                }
+                case FIELD_GET:
+                    unread.keySet().removeIf(key -> key.get(0).equals(instruction.field));
+                    break;
+                case CALL:
+                case CALL_PTR:
+                    unread.clear();
+                    break;
+                default:
+                    break;
+            }
+        }
+        return removed;
+    }
+}
@@ -0,0 +1,109 @@
+package main.ir;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+//Dominator tree of an IrFunction, computed the way Cooper, Harvey and Kennedy do it: immediate dominators
+//are refined in reverse postorder until they stop changing. Only blocks the entry reaches are in it.
+final class Dominators {
+    private final ArrayList<BasicBlock> reversePostorder = new ArrayList<>();
+    private final HashMap<BasicBlock, Integer> order = new HashMap<>();
+    private final HashMap<BasicBlock, BasicBlock> idoms = new HashMap<>();
+    private final HashMap<BasicBlock, ArrayList<BasicBlock>> children = new HashMap<>();
+
+    Dominators(IrFunction function) {
+        postorder(function.entry());
+        Collections.reverse(reversePostorder);
+        for (int i = 0; i < reversePostorder.size(); i++)
+            order.put(reversePostorder.get(i), i);
+
+        BasicBlock entry = function.entry();
+        idoms.put(entry, entry);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 1; i < reversePostorder.size(); i++) {
+                BasicBlock block = reversePostorder.get(i);
+                BasicBlock idom = null;
+                for (BasicBlock predecessor : block.predecessors)
+                    if (idoms.containsKey(predecessor))
+                        idom = idom == null ? predecessor : intersect(predecessor, idom);
+                if (idoms.get(block) != idom) {
+                    idoms.put(block, idom);
+                    changed = true;
+                }
+            }
+        }
+        for (BasicBlock block : reversePostorder)
+            children.put(block, new ArrayList<>());
+        for (int i = 1; i < reversePostorder.size(); i++)
+            children.get(idoms.get(reversePostorder.get(i))).add(reversePostorder.get(i));
+    }
+
+    //iterative, so long functions don't need a deep Java stack
+    private void postorder(BasicBlock entry) {
+        HashMap<BasicBlock, Boolean> visited = new HashMap<>();
+        ArrayList<BasicBlock> blocks = new ArrayList<>();
+        ArrayList<Integer> nextSuccessor = new ArrayList<>();
+        blocks.add(entry);
+        nextSuccessor.add(0);
+        visited.put(entry, Boolean.TRUE);
+        while (!blocks.isEmpty()) {
+            int top = blocks.size() - 1;
+            BasicBlock block = blocks.get(top);
+            List<BasicBlock> successors = block.successors();
+            int next = nextSuccessor.get(top);
+            if (next == successors.size()) {
+                reversePostorder.add(block);
+                blocks.remove(top);
+                nextSuccessor.remove(top);
+                continue;
+            }
+            nextSuccessor.set(top, next + 1);
+            BasicBlock successor = successors.get(next);
+            if (visited.put(successor, Boolean.TRUE) == null) {
+                blocks.add(successor);
+                nextSuccessor.add(0);
+            }
+        }
+    }
+
+    private BasicBlock intersect(BasicBlock a, BasicBlock b) {
+        while (a != b) {
+            while (order.get(a) > order.get(b))
+                a = idoms.get(a);
+            while (order.get(b) > order.get(a))
+                b = idoms.get(b);
+        }
+        return a;
+    }
+
+    List<BasicBlock> reversePostorder() {
+        return reversePostorder;
+    }
+
+    //blocks whose immediate dominator is block
+    List<BasicBlock> children(BasicBlock block) {
+        return children.get(block);
+    }
+
+    //a dominator comes first in reverse postorder, which rules most pairs out without climbing the tree
+    boolean dominates(BasicBlock a, BasicBlock b) {
+        if (a == b)
+            return true;
+        Integer aOrder = order.get(a);
+        Integer bOrder = order.get(b);
+        if (aOrder == null || bOrder == null || aOrder > bOrder)
+            return false;
+        while (true) {
+            if (a == b)
+                return true;
+            BasicBlock idom = idoms.get(b);
+            if (idom == b || idom == null)
+                return false;
+            b = idom;
+        }
+    }
+}
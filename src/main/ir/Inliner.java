@@ -0,0 +1,200 @@
+package main.ir;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//Replaces a CALL of a small function by a copy of its blocks: the caller's block is split after the
+//call, its first half jumps to the copy of the callee's entry, each RETURN of the copy jumps to the second
+//half and the call's value is what was returned (a PHI when there are several returns). PARAMs become the
+//call's operands, so the arguments are still evaluated once, before the body.
+//A callee is inlined when it has at most MAX_CALLEE_SIZE instructions besides its PARAMs, which covers
+//accessors that only read or write their field and struct initializers, and it can't call itself
+//through other CALLs; CALL_PTRs are never inlined. Calls the copy brings in are looked at too, until
+//the caller has MAX_CALLER_SIZE instructions. Then a block that is the only successor of its only
+//predecessor is merged into it, so later passes see the copy and the code around it as one block.
+public class Inliner implements IrPass {
+    public static final int MAX_CALLEE_SIZE = 24;
+    public static final int MAX_CALLER_SIZE = 2000;
+
+    private final IdentityHashMap<IrFunction, Boolean> recursive = new IdentityHashMap<>();
+    //per caller, in the order they were inlined into, the number of call sites of each callee
+    private final LinkedHashMap<String, LinkedHashMap<String, Integer>> inlined = new LinkedHashMap<>();
+
+    @Override
+    public String getName() {
+        return "inlining";
+    }
+
+    //number of call sites inlined
+    @Override
+    public int run(IrFunction function) {
+        int sites = 0;
+        boolean changed = true;
+        while (changed && function.instructionCount() < MAX_CALLER_SIZE) {
+            changed = false;
+            for (BasicBlock block : new ArrayList<>(function.blocks)) {
+                Instruction call = inlinableCall(function, block);
+                if (call == null)
+                    continue;
+                inline(function, call);
+                inlined.computeIfAbsent(function.name, name -> new LinkedHashMap<>())
+                        .merge(call.function.name, 1, Integer::sum);
+                sites++;
+                changed = true;
+                break;
+            }
+        }
+        if (sites > 0) {
+            function.mergeStraightLines();
+            function.removeUnreachableBlocks();
+            function.renumber();
+        }
+        return sites;
+    }
+
+    @Override
+    public void printDetails(PrintStream out) {
+        out.println("inlined call sites");
+        if (inlined.isEmpty())
+            out.println("  none");
+        for (Map.Entry<String, LinkedHashMap<String, Integer>> caller : inlined.entrySet()) {
+            int total = 0;
+            ArrayList<String> callees = new ArrayList<>();
+            for (Map.Entry<String, Integer> callee : caller.getValue().entrySet()) {
+                total += callee.getValue();
+                callees.add(callee.getKey() + " " + callee.getValue());
+            }
+            out.printf("  %-26s %10d  (%s)%n", caller.getKey(), total, String.join(", ", callees));
+        }
+    }
+
+    private Instruction inlinableCall(IrFunction caller, BasicBlock block) {
+        for (Instruction instruction : block.instructions) {
+            if (instruction.op != Op.CALL)
+                continue;
+            IrFunction callee = instruction.function;
+            if (callee != caller && callee.instructionCount() - callee.params.size() <= MAX_CALLEE_SIZE
+                    && !isRecursive(callee))
+                return instruction;
+        }
+        return null;
+    }
+
+    //whether function can reach a CALL of itself
+    private boolean isRecursive(IrFunction function) {
+        Boolean known = recursive.get(function);
+        if (known != null)
+            return known;
+        IdentityHashMap<IrFunction, Boolean> visited = new IdentityHashMap<>();
+        ArrayList<IrFunction> work = new ArrayList<>();
+        work.add(function);
+        boolean result = false;
+        while (!work.isEmpty() && !result) {
+            for (BasicBlock block : work.remove(work.size() - 1).blocks)
+                for (Instruction instruction : block.instructions) {
+                    if (instruction.op != Op.CALL)
+                        continue;
+                    if (instruction.function == function)
+                        result = true;
+                    else if (visited.put(instruction.function, Boolean.TRUE) == null)
+                        work.add(instruction.function);
+                }
+        }
+        recursive.put(function, result);
+        return result;
+    }
+
+    private static void inline(IrFunction caller, Instruction call) {
+        BasicBlock block = call.block;
+        IrFunction callee = call.function;
+
+        //the instructions after the call move to a block of their own
+        BasicBlock rest = caller.newBlock();
+        int index = block.instructions.indexOf(call);
+        List<Instruction> after = block.instructions.subList(index + 1, block.instructions.size());
+        for (Instruction instruction : after) {
+            instruction.block = rest;
+            rest.instructions.add(instruction);
+        }
+        after.clear();
+        block.instructions.remove(index);
+        for (BasicBlock successor : rest.successors())
+            successor.predecessors.replaceAll(predecessor -> predecessor == block ? rest : predecessor);
+
+        //copies of the callee's blocks and instructions, PARAMs mapped to the arguments
+        IdentityHashMap<BasicBlock, BasicBlock> blocks = new IdentityHashMap<>();
+        IdentityHashMap<Instruction, Instruction> values = new IdentityHashMap<>();
+        for (BasicBlock calleeBlock : callee.blocks)
+            blocks.put(calleeBlock, caller.newBlock());
+        for (Instruction param : callee.params)
+            values.put(param, call.operands.get(param.constant));
+        for (BasicBlock calleeBlock : callee.blocks)
+            for (Instruction instruction : calleeBlock.instructions)
+                if (instruction.op != Op.PARAM)
+                    values.put(instruction, copy(instruction, blocks.get(calleeBlock)));
+
+        ArrayList<Instruction> returned = new ArrayList<>();
+        for (BasicBlock calleeBlock : callee.blocks) {
+            BasicBlock copyBlock = blocks.get(calleeBlock);
+            for (BasicBlock predecessor : calleeBlock.predecessors)
+                copyBlock.predecessors.add(blocks.get(predecessor));
+            for (Instruction instruction : calleeBlock.instructions) {
+                if (instruction.op == Op.PARAM)
+                    continue;
+                Instruction copy = values.get(instruction);
+                for (Instruction operand : instruction.operands)
+                    copy.operands.add(values.get(operand));
+                if (instruction.targets != null) {
+                    copy.targets = new BasicBlock[instruction.targets.length];
+                    for (int i = 0; i < instruction.targets.length; i++)
+                        copy.targets[i] = blocks.get(instruction.targets[i]);
+                }
+                if (instruction.op != Op.RETURN) {
+                    copyBlock.instructions.add(copy);
+                    continue;
+                }
+                if (!copy.operands.isEmpty())
+                    returned.add(copy.operand(0));
+                Instruction jump = new Instruction(Op.JUMP, IrType.VOID, instruction.line);
+                jump.targets = new BasicBlock[]{rest};
+                jump.block = copyBlock;
+                copyBlock.instructions.add(jump);
+                rest.predecessors.add(copyBlock);
+            }
+        }
+
+        BasicBlock entry = blocks.get(callee.entry());
+        Instruction jump = new Instruction(Op.JUMP, IrType.VOID, call.line);
+        jump.targets = new BasicBlock[]{entry};
+        jump.block = block;
+        block.instructions.add(jump);
+        entry.predecessors.add(block);
+
+        if (call.type == IrType.VOID || returned.isEmpty())
+            return;
+        Instruction result = returned.get(0);
+        if (returned.size() > 1) {
+            result = new Instruction(Op.PHI, call.type, call.line);
+            result.operands.addAll(returned);
+            result.block = rest;
+            rest.instructions.add(0, result);
+        }
+        IdentityHashMap<Instruction, Instruction> replacement = new IdentityHashMap<>();
+        replacement.put(call, result);
+        caller.replaceUses(replacement);
+    }
+
+    private static Instruction copy(Instruction instruction, BasicBlock block) {
+        Instruction copy = new Instruction(instruction.op, instruction.type, instruction.line);
+        copy.constant = instruction.constant;
+        copy.field = instruction.field;
+        copy.name = instruction.name;
+        copy.function = instruction.function;
+        copy.block = block;
+        return copy;
+    }
+}
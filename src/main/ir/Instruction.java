@@ -0,0 +1,104 @@
+package main.ir;
+
+import java.util.ArrayList;
+
+//An instruction of a BasicBlock and the SSA value it defines, if its type isn't VOID. Which of constant,
+//field, name, function and targets are used depends on op (see Op).
+public final class Instruction {
+    final Op op;
+    IrType type;
+    final ArrayList<Instruction> operands = new ArrayList<>();
+    //number in the IR dump, unique in a function
+    int id;
+    //C-- line for the runtime errors of the instruction
+    int line;
+    int constant;
+    int field;
+    String name;
+    IrFunction function;
+    BasicBlock[] targets;
+    BasicBlock block;
+
+    Instruction(Op op, IrType type, int line) {
+        this.op = op;
+        this.type = type;
+        this.line = line;
+    }
+
+    public Op getOp() {
+        return op;
+    }
+
+    public IrType getType() {
+        return type;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    Instruction operand(int index) {
+        return operands.get(index);
+    }
+
+    //whether removing the instruction when its value isn't used changes nothing
+    boolean isRemovable() {
+        switch (op) {
+            case CONST:
+            case FUNCTION:
+            case PHI:
+            case COPY:
+            case ADD:
+            case SUB:
+            case MUL:
+            case NEG:
+            case NOT:
+            case LT:
+            case GT:
+            case EQ:
+            case NEW_LIST:
+            case LIST_SIZE:
+            case FIELD_GET:
+                return true;
+            case DIV:
+                return hasNonZeroDivisor();
+            default:
+                return false;
+        }
+    }
+
+    //whether the value only depends on the operands, so instructions with equal operands are equal
+    boolean isPure() {
+        switch (op) {
+            case CONST:
+            case FUNCTION:
+            case ADD:
+            case SUB:
+            case MUL:
+            case NEG:
+            case NOT:
+            case LT:
+            case GT:
+            case EQ:
+                return true;
+            case DIV:
+                return hasNonZeroDivisor();
+            default:
+                return false;
+        }
+    }
+
+    private boolean hasNonZeroDivisor() {
+        Instruction divisor = operand(1);
+        return divisor.op == Op.CONST && divisor.constant != 0;
+    }
+
+    boolean isConstant() {
+        return op == Op.CONST && type != IrType.REF;
+    }
+
+    @Override
+    public String toString() {
+        return "%" + id;
+    }
+}
@@ -0,0 +1,694 @@
+package main.ir;
+
+import main.ast.nodes.Program;
+import main.ast.nodes.declaration.FunctionDeclaration;
+import main.ast.nodes.declaration.VariableDeclaration;
+import main.ast.nodes.declaration.struct.StructDeclaration;
+import main.ast.nodes.expression.*;
+import main.ast.nodes.expression.operators.BinaryOperator;
+import main.ast.nodes.expression.operators.UnaryOperator;
+import main.ast.nodes.expression.values.primitive.BoolValue;
+import main.ast.nodes.expression.values.primitive.IntValue;
+import main.ast.nodes.statement.*;
+import main.ast.types.ListType;
+import main.ast.types.StructType;
+import main.ast.types.Type;
+import main.interpreter.RuntimeFunction;
+import main.interpreter.SlotResolver;
+import main.interpreter.StructLayout;
+import main.visitor.ExpressionWalker;
+import main.visitor.SwitchVisitor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+//Lowers a type checked Program to an IrProgram in SSA form, the way Braun et al. build it from an AST:
+//the value of a local is looked up in the block being built, then in its predecessors, and a PHI is
+//put where they join. A block is sealed once all its predecessors are known; reads in a block that isn't
+//(a loop header before its back edge) get a PHI whose operands are filled in when it is sealed. PHIs
+//that turn out to have one value are left for CopyPropagation.
+//Locals are SSA values keyed by their SlotResolver slot and lane, members are FIELD_GET and FIELD_SET on
+//self. Operands are evaluated in the Interpreter's order, and every instruction that can fail has the
+//line the Interpreter reports.
+//Visiting a statement returns null, an expression returns its value (null when it has none). Nested
+//arithmetic, comparisons, unary operators and parentheses are lowered by an ExpressionWalker, so a deep
+//expression doesn't need a deep Java stack.
+public class IrBuilder extends SwitchVisitor<Instruction> {
+    private final IrProgram irProgram = new IrProgram();
+    private SlotResolver slotResolver;
+    private final ArrayList<IrFunction> functions = new ArrayList<>();
+    private final HashMap<String, IrFunction> initializers = new HashMap<>();
+    private final HashMap<String, IrFunction[]> setters = new HashMap<>();
+    private final HashMap<String, IrFunction[]> getters = new HashMap<>();
+
+    //state of the function being lowered
+    private IrFunction function;
+    private BasicBlock current;
+    private Instruction self;
+    private final HashMap<BasicBlock, HashMap<Integer, Instruction>> definitions = new HashMap<>();
+    private final HashMap<BasicBlock, HashMap<Integer, Instruction>> incompletePhis = new HashMap<>();
+    private final HashSet<BasicBlock> sealed = new HashSet<>();
+
+    //& and | branch and = stores, they are leaves
+    private final ExpressionWalker<Instruction> operatorWalker = new ExpressionWalker<>() {
+        @Override
+        protected boolean isWalked(Expression expression) {
+            if (!(expression instanceof BinaryExpression))
+                return true;
+            BinaryOperator operator = ((BinaryExpression) expression).getBinaryOperator();
+            return operator != BinaryOperator.assign && operator != BinaryOperator.and && operator != BinaryOperator.or;
+        }
+
+        @Override
+        protected Instruction visitLeaf(Expression expression) {
+            return dispatch(expression);
+        }
+
+        @Override
+        protected Instruction visitBinary(BinaryExpression binaryExpression, Instruction left, Instruction right) {
+            int line = binaryExpression.getLine();
+            switch (binaryExpression.getBinaryOperator()) {
+                case gt:
+                    return emit(Op.GT, IrType.BOOL, line, left, right);
+                case lt:
+                    return emit(Op.LT, IrType.BOOL, line, left, right);
+                case eq:
+                    return emit(Op.EQ, IrType.BOOL, line, left, right);
+                case add:
+                    return emit(Op.ADD, IrType.INT, line, left, right);
+                case sub:
+                    return emit(Op.SUB, IrType.INT, line, left, right);
+                case mult:
+                    return emit(Op.MUL, IrType.INT, line, left, right);
+                default:
+                    return emit(Op.DIV, IrType.INT, line, left, right);
+            }
+        }
+
+        @Override
+        protected Instruction visitUnary(UnaryExpression unaryExpression, Instruction operand) {
+            if (unaryExpression.getOperator() == UnaryOperator.not)
+                return emit(Op.NOT, IrType.BOOL, unaryExpression.getLine(), operand);
+            return emit(Op.NEG, IrType.INT, unaryExpression.getLine(), operand);
+        }
+
+        //all inputs run, the first one is the value
+        @Override
+        protected Instruction visitExprInPar(ExprInPar exprInPar, ArrayList<Instruction> inputs) {
+            return inputs.isEmpty() ? null : inputs.get(0);
+        }
+    };
+
+    public static IrProgram lower(Program program) {
+        IrBuilder irBuilder = new IrBuilder();
+        irBuilder.slotResolver = SlotResolver.resolve(program);
+        irBuilder.lowerProgram(program);
+        return irBuilder.irProgram;
+    }
+
+    static IrType laneOf(Type type) {
+        switch (type.getKind()) {
+            case INT:
+                return IrType.INT;
+            case BOOL:
+                return IrType.BOOL;
+            case VOID:
+            case NO:
+                return IrType.VOID;
+            default:
+                return IrType.REF;
+        }
+    }
+
+    private static String structName(Type type) {
+        return ((StructType) type).getStructName().getName();
+    }
+
+    private static ArrayList<Statement> statementsOf(Statement body) {
+        if (body instanceof BlockStmt)
+            return ((BlockStmt) body).getStatements();
+        ArrayList<Statement> statements = new ArrayList<>();
+        statements.add(body);
+        return statements;
+    }
+
+    private IrFunction declare(String name, int line, IrType returnType) {
+        IrFunction irFunction = new IrFunction(name, line, returnType);
+        irProgram.functions.add(irFunction);
+        return irFunction;
+    }
+
+    private void lowerProgram(Program program) {
+        //every function exists before any body is lowered, so calls can refer to it
+        for (FunctionDeclaration functionDec : program.getFunctions())
+            functions.add(declare(functionDec.getFunctionName().getName(), functionDec.getLine(),
+                    laneOf(functionDec.getReturnType())));
+        for (StructDeclaration structDec : program.getStructs()) {
+            String name = structDec.getStructName().getName();
+            StructLayout layout = slotResolver.getLayout(name);
+            initializers.put(name, declare(name + ".init", structDec.getLine(), IrType.VOID));
+            IrFunction[] structSetters = new IrFunction[layout.size()];
+            IrFunction[] structGetters = new IrFunction[layout.size()];
+            for (int i = 0; i < layout.size(); i++) {
+                if (layout.getSetter(i) == null)
+                    continue;
+                String field = layout.getField(i).getVarName().getName();
+                structSetters[i] = declare(name + ".set_" + field, layout.getSetter(i).getLine(), IrType.VOID);
+                structGetters[i] = declare(name + ".get_" + field, layout.getGetter(i).getLine(),
+                        laneOf(layout.getField(i).getVarType()));
+            }
+            setters.put(name, structSetters);
+            getters.put(name, structGetters);
+        }
+        irProgram.main = declare("main", program.getMain().getLine(), IrType.VOID);
+
+        for (StructDeclaration structDec : program.getStructs())
+            lowerStruct(structDec);
+        for (int i = 0; i < functions.size(); i++) {
+            FunctionDeclaration functionDec = program.getFunctions().get(i);
+            begin(functions.get(i), false, functionDec.getArgs());
+            dispatch(functionDec.getBody());
+            end(slotResolver.getFunction(i));
+        }
+        begin(irProgram.main, false, new ArrayList<>());
+        dispatch(program.getMain().getBody());
+        end(slotResolver.getMain());
+    }
+
+    private void lowerStruct(StructDeclaration structDec) {
+        String name = structDec.getStructName().getName();
+        StructLayout layout = slotResolver.getLayout(name);
+        begin(initializers.get(name), true, new ArrayList<>());
+        for (int i = 0; i < layout.size(); i++) {
+            VariableDeclaration field = layout.getField(i);
+            Instruction value = field.getDefaultValue() != null
+                    ? dispatch(field.getDefaultValue()) : defaultValue(field.getVarType(), field.getLine());
+            Instruction fieldSet = emit(Op.FIELD_SET, IrType.VOID, field.getLine(), self, value);
+            fieldSet.field = i;
+        }
+        end(null);
+
+        for (Statement stmt : statementsOf(structDec.getBody())) {
+            if (!(stmt instanceof SetGetVarDeclaration))
+                continue;
+            SetGetVarDeclaration setGetVarDec = (SetGetVarDeclaration) stmt;
+            int index = setGetVarDec.getVarName().getSlot();
+            begin(setters.get(name)[index], true, setGetVarDec.getArgs());
+            dispatch(setGetVarDec.getSetterBody());
+            end(layout.getSetter(index));
+            begin(getters.get(name)[index], true, new ArrayList<>());
+            dispatch(setGetVarDec.getGetterBody());
+            end(layout.getGetter(index));
+        }
+    }
+
+    private void begin(IrFunction irFunction, boolean hasSelf, ArrayList<VariableDeclaration> args) {
+        function = irFunction;
+        definitions.clear();
+        incompletePhis.clear();
+        sealed.clear();
+        current = function.newBlock();
+        seal(current);
+        self = hasSelf ? param(IrType.REF) : null;
+        for (VariableDeclaration arg : args) {
+            Identifier name = arg.getVarName();
+            write(key(name.getSlot(), laneOf(arg.getVarType())), current, param(laneOf(arg.getVarType())));
+        }
+    }
+
+    private Instruction param(IrType type) {
+        Instruction param = emit(Op.PARAM, type, function.line);
+        param.constant = function.params.size();
+        function.params.add(param);
+        return param;
+    }
+
+    //resolved is null for a struct initializer, which has no return statements
+    private void end(RuntimeFunction resolved) {
+        if (current != null) {
+            if (function.returnType == IrType.VOID) {
+                emit(Op.RETURN, IrType.VOID, function.line);
+            } else {
+                Instruction missingReturn = emit(Op.MISSING_RETURN, IrType.VOID, resolved.getLine());
+                missingReturn.name = resolved.getName();
+            }
+        }
+        current = null;
+        function.removeUnreachableBlocks();
+        function.renumber();
+    }
+
+    //instructions
+
+    private Instruction emit(Op op, IrType type, int line, Instruction... operands) {
+        Instruction instruction = new Instruction(op, type, line);
+        for (Instruction operand : operands)
+            instruction.operands.add(operand);
+        instruction.block = current;
+        current.instructions.add(instruction);
+        return instruction;
+    }
+
+    private Instruction constant(IrType type, int value, int line) {
+        Instruction constant = emit(Op.CONST, type, line);
+        constant.constant = value;
+        return constant;
+    }
+
+    private void jump(BasicBlock target) {
+        Instruction jump = emit(Op.JUMP, IrType.VOID, 0);
+        jump.targets = new BasicBlock[]{target};
+        target.predecessors.add(current);
+    }
+
+    private void branch(Instruction condition, BasicBlock thenBlock, BasicBlock elseBlock, int line) {
+        Instruction branch = emit(Op.BRANCH, IrType.VOID, line, condition);
+        branch.targets = new BasicBlock[]{thenBlock, elseBlock};
+        thenBlock.predecessors.add(current);
+        elseBlock.predecessors.add(current);
+    }
+
+    //the block, or null when nothing jumps to it
+    private BasicBlock reachable(BasicBlock block) {
+        return block.predecessors.isEmpty() ? null : block;
+    }
+
+    private Instruction defaultValue(Type type, int line) {
+        switch (type.getKind()) {
+            case INT:
+                return constant(IrType.INT, 0, line);
+            case BOOL:
+                return constant(IrType.BOOL, 0, line);
+            case LIST: {
+                Instruction newList = emit(Op.NEW_LIST, IrType.REF, line);
+                newList.constant = laneOf(((ListType) type).getType()).ordinal();
+                return newList;
+            }
+            case STRUCT:
+                return newStruct(structName(type), line);
+            default:
+                return constant(IrType.REF, 0, line);
+        }
+    }
+
+    private Instruction newStruct(String name, int line) {
+        Instruction instance = emit(Op.NEW_STRUCT, IrType.REF, line);
+        instance.name = name;
+        instance.constant = slotResolver.getLayout(name).size();
+        call(initializers.get(name), IrType.VOID, line, instance);
+        return instance;
+    }
+
+    private Instruction call(IrFunction callee, IrType type, int line, Instruction... args) {
+        Instruction call = emit(Op.CALL, type, line, args);
+        call.function = callee;
+        return call;
+    }
+
+    //SSA construction
+
+    private static int key(int slot, IrType lane) {
+        return slot * 3 + lane.ordinal();
+    }
+
+    private static IrType laneOfKey(int key) {
+        return IrType.values()[key % 3];
+    }
+
+    private void write(int key, BasicBlock block, Instruction value) {
+        definitions.computeIfAbsent(block, b -> new HashMap<>()).put(key, value);
+    }
+
+    private Instruction read(int key, BasicBlock block) {
+        HashMap<Integer, Instruction> blockDefinitions = definitions.get(block);
+        Instruction value = blockDefinitions == null ? null : blockDefinitions.get(key);
+        return value != null ? value : readFromPredecessors(key, block);
+    }
+
+    private Instruction readFromPredecessors(int key, BasicBlock block) {
+        Instruction value;
+        if (!sealed.contains(block)) {
+            value = phi(key, block);
+            incompletePhis.computeIfAbsent(block, b -> new HashMap<>()).put(key, value);
+        } else if (block.predecessors.size() == 1) {
+            value = read(key, block.predecessors.get(0));
+        } else if (block.predecessors.isEmpty()) {
+            //a local every path leaves unset; SlotResolver's scopes don't let a program read one
+            value = new Instruction(Op.CONST, laneOfKey(key), function.line);
+            value.block = function.entry();
+            function.entry().instructions.add(0, value);
+        } else {
+            value = phi(key, block);
+            write(key, block, value);
+            addPhiOperands(key, value);
+        }
+        write(key, block, value);
+        return value;
+    }
+
+    private Instruction phi(int key, BasicBlock block) {
+        Instruction phi = new Instruction(Op.PHI, laneOfKey(key), 0);
+        phi.block = block;
+        block.instructions.add(0, phi);
+        return phi;
+    }
+
+    private void addPhiOperands(int key, Instruction phi) {
+        for (BasicBlock predecessor : phi.block.predecessors)
+            phi.operands.add(read(key, predecessor));
+    }
+
+    private void seal(BasicBlock block) {
+        HashMap<Integer, Instruction> phis = incompletePhis.remove(block);
+        if (phis != null)
+            for (Map.Entry<Integer, Instruction> phi : phis.entrySet())
+                addPhiOperands(phi.getKey(), phi.getValue());
+        sealed.add(block);
+    }
+
+    //evaluates the parts of target from left to right, then value
+    private Instruction assign(Expression target, Expression value, int line) {
+        if (target instanceof Identifier) {
+            Identifier identifier = (Identifier) target;
+            Instruction result = dispatch(value);
+            if (identifier.getStorage() == Identifier.Storage.LOCAL) {
+                IrType lane = laneOf(identifier.getResolvedType());
+                write(key(identifier.getSlot(), lane), current, emit(Op.COPY, lane, line, result));
+            } else {
+                emit(Op.FIELD_SET, IrType.VOID, line, self, result).field = identifier.getSlot();
+            }
+            return result;
+        }
+        if (target instanceof StructAccess) {
+            StructAccess structAccess = (StructAccess) target;
+            Instruction instance = dispatch(structAccess.getInstance());
+            Instruction result = dispatch(value);
+            emit(Op.FIELD_SET, IrType.VOID, line, instance, result).field = structAccess.getElement().getSlot();
+            return result;
+        }
+        if (target instanceof ListAccessByIndex) {
+            ListAccessByIndex listAccessByIndex = (ListAccessByIndex) target;
+            Instruction list = dispatch(listAccessByIndex.getInstance());
+            Instruction index = dispatch(listAccessByIndex.getIndex());
+            emit(Op.CHECK_INDEX, IrType.VOID, line, list, index);
+            Instruction result = dispatch(value);
+            emit(Op.LIST_SET, IrType.VOID, line, list, index, result);
+            return result;
+        }
+        return assign(((ExprInPar) target).getInputs().get(0), value, line);
+    }
+
+    //statements; once a return statement ends the block being built, the rest of its block isn't lowered
+
+    @Override
+    public Instruction visit(VariableDeclaration variableDec) {
+        Identifier name = variableDec.getVarName();
+        IrType lane = laneOf(variableDec.getVarType());
+        Instruction value = variableDec.getDefaultValue() != null
+                ? emit(Op.COPY, lane, variableDec.getLine(), dispatch(variableDec.getDefaultValue()))
+                : defaultValue(variableDec.getVarType(), variableDec.getLine());
+        write(key(name.getSlot(), lane), current, value);
+        return null;
+    }
+
+    @Override
+    public Instruction visit(AssignmentStmt assignmentStmt) {
+        assign(assignmentStmt.getLValue(), assignmentStmt.getRValue(), assignmentStmt.getLine());
+        return null;
+    }
+
+    @Override
+    public Instruction visit(BlockStmt blockStmt) {
+        for (Statement stmt : blockStmt.getStatements()) {
+            if (current == null)
+                break;
+            dispatch(stmt);
+        }
+        return null;
+    }
+
+    @Override
+    public Instruction visit(ConditionalStmt conditionalStmt) {
+        Instruction condition = dispatch(conditionalStmt.getCondition());
+        BasicBlock thenBlock = function.newBlock();
+        BasicBlock elseBlock = conditionalStmt.getElseBody() != null ? function.newBlock() : null;
+        BasicBlock join = function.newBlock();
+        branch(condition, thenBlock, elseBlock != null ? elseBlock : join, conditionalStmt.getLine());
+
+        seal(thenBlock);
+        current = thenBlock;
+        dispatch(conditionalStmt.getThenBody());
+        if (current != null)
+            jump(join);
+        if (elseBlock != null) {
+            seal(elseBlock);
+            current = elseBlock;
+            dispatch(conditionalStmt.getElseBody());
+            if (current != null)
+                jump(join);
+        }
+        seal(join);
+        current = reachable(join);
+        return null;
+    }
+
+    @Override
+    public Instruction visit(LoopStmt loopStmt) {
+        //the block before the loop only jumps to its header, so it is the preheader
+        BasicBlock header = function.newBlock();
+        jump(header);
+        current = header;
+        BasicBlock exit;
+        if (loopStmt.isDoWhile()) {
+            dispatch(loopStmt.getBody());
+            exit = function.newBlock();
+            if (current != null)
+                branch(dispatch(loopStmt.getCondition()), header, exit, loopStmt.getLine());
+        } else {
+            Instruction condition = dispatch(loopStmt.getCondition());
+            BasicBlock body = function.newBlock();
+            exit = function.newBlock();
+            branch(condition, body, exit, loopStmt.getLine());
+            seal(body);
+            current = body;
+            dispatch(loopStmt.getBody());
+            if (current != null)
+                jump(header);
+        }
+        seal(header);
+        seal(exit);
+        current = reachable(exit);
+        return null;
+    }
+
+    @Override
+    public Instruction visit(FunctionCallStmt functionCallStmt) {
+        dispatch(functionCallStmt.getFunctionCall());
+        return null;
+    }
+
+    @Override
+    public Instruction visit(DisplayStmt displayStmt) {
+        emit(Op.DISPLAY, IrType.VOID, displayStmt.getLine(), dispatch(displayStmt.getArg()));
+        return null;
+    }
+
+    @Override
+    public Instruction visit(ReturnStmt returnStmt) {
+        Expression returnedExpr = returnStmt.getReturnedExpr();
+        if (returnedExpr == null)
+            emit(Op.RETURN, IrType.VOID, returnStmt.getLine());
+        else
+            emit(Op.RETURN, IrType.VOID, returnStmt.getLine(), dispatch(returnedExpr));
+        current = null;
+        return null;
+    }
+
+    @Override
+    public Instruction visit(VarDecStmt varDecStmt) {
+        for (VariableDeclaration varDec : varDecStmt.getVars())
+            visit(varDec);
+        return null;
+    }
+
+    @Override
+    public Instruction visit(ListAppendStmt listAppendStmt) {
+        dispatch(listAppendStmt.getListAppendExpr());
+        return null;
+    }
+
+    @Override
+    public Instruction visit(ListSizeStmt listSizeStmt) {
+        dispatch(listSizeStmt.getListSizeExpr());
+        return null;
+    }
+
+    //expressions
+
+    @Override
+    public Instruction visit(BinaryExpression binaryExpression) {
+        Expression first = binaryExpression.getFirstOperand();
+        Expression second = binaryExpression.getSecondOperand();
+        int line = binaryExpression.getLine();
+        BinaryOperator operator = binaryExpression.getBinaryOperator();
+        switch (operator) {
+            case assign:
+                return assign(first, second, line);
+            case and:
+            case or: {
+                //a & b & c ... nests to the left, so the chain is built from its first operand up
+                ArrayList<BinaryExpression> chain = new ArrayList<>();
+                Expression bottom = binaryExpression;
+                while (isShortCircuit(bottom)) {
+                    chain.add((BinaryExpression) bottom);
+                    bottom = ((BinaryExpression) bottom).getFirstOperand();
+                }
+                Instruction value = dispatch(bottom);
+                for (int i = chain.size() - 1; i >= 0; i--) {
+                    BinaryExpression link = chain.get(i);
+                    value = shortCircuit(link.getBinaryOperator() == BinaryOperator.and, value, link.getSecondOperand(), link.getLine());
+                }
+                return value;
+            }
+            default:
+                return operatorWalker.walk(binaryExpression);
+        }
+    }
+
+    //the second operand runs in a block of its own; where they join, the value is the first operand's, left,
+    //when it decided the result and the second's otherwise
+    private Instruction shortCircuit(boolean and, Instruction left, Expression second, int line) {
+        BasicBlock rightBlock = function.newBlock();
+        BasicBlock join = function.newBlock();
+        if (and)
+            branch(left, rightBlock, join, line);
+        else
+            branch(left, join, rightBlock, line);
+        seal(rightBlock);
+        current = rightBlock;
+        Instruction right = dispatch(second);
+        jump(join);
+        seal(join);
+        current = join;
+        Instruction phi = phi(0, join);
+        phi.type = IrType.BOOL;
+        phi.operands.add(left);
+        phi.operands.add(right);
+        return phi;
+    }
+
+    private static boolean isShortCircuit(Expression expression) {
+        if (!(expression instanceof BinaryExpression))
+            return false;
+        BinaryOperator operator = ((BinaryExpression) expression).getBinaryOperator();
+        return operator == BinaryOperator.and || operator == BinaryOperator.or;
+    }
+
+    @Override
+    public Instruction visit(UnaryExpression unaryExpression) {
+        return operatorWalker.walk(unaryExpression);
+    }
+
+    @Override
+    public Instruction visit(FunctionCall funcCall) {
+        Expression instance = funcCall.getInstance();
+        int line = funcCall.getLine();
+        IrType type = laneOf(funcCall.getResolvedType());
+        Instruction fptr;
+        if (instance instanceof StructAccess) {
+            StructAccess structAccess = (StructAccess) instance;
+            Instruction structInstance = dispatch(structAccess.getInstance());
+            int index = structAccess.getElement().getSlot();
+            IrFunction setter = setters.get(structName(structAccess.getInstance().getResolvedType()))[index];
+            if (setter != null)
+                return call(setter, type, line, withArgs(structInstance, funcCall.getArgs()));
+            fptr = emit(Op.FIELD_GET, IrType.REF, line, structInstance);
+            fptr.field = index;
+        } else if (instance instanceof Identifier && ((Identifier) instance).getStorage() == Identifier.Storage.FUNCTION) {
+            //a function named directly is never an empty fptr
+            return call(functions.get(((Identifier) instance).getSlot()), type, line, withArgs(null, funcCall.getArgs()));
+        } else {
+            fptr = dispatch(instance);
+        }
+        emit(Op.CHECK_FPTR, IrType.VOID, line, fptr);
+        return emit(Op.CALL_PTR, type, line, withArgs(fptr, funcCall.getArgs()));
+    }
+
+    //first, when it isn't null, followed by the values of args
+    private Instruction[] withArgs(Instruction first, ArrayList<Expression> args) {
+        int offset = first == null ? 0 : 1;
+        Instruction[] operands = new Instruction[args.size() + offset];
+        if (first != null)
+            operands[0] = first;
+        for (int i = 0; i < args.size(); i++)
+            operands[i + offset] = dispatch(args.get(i));
+        return operands;
+    }
+
+    @Override
+    public Instruction visit(Identifier identifier) {
+        switch (identifier.getStorage()) {
+            case LOCAL:
+                return read(key(identifier.getSlot(), laneOf(identifier.getResolvedType())), current);
+            case MEMBER: {
+                Instruction fieldGet = emit(Op.FIELD_GET, laneOf(identifier.getResolvedType()), identifier.getLine(), self);
+                fieldGet.field = identifier.getSlot();
+                return fieldGet;
+            }
+            default: {
+                Instruction fptr = emit(Op.FUNCTION, IrType.REF, identifier.getLine());
+                fptr.function = functions.get(identifier.getSlot());
+                return fptr;
+            }
+        }
+    }
+
+    @Override
+    public Instruction visit(ListAccessByIndex listAccessByIndex) {
+        Instruction list = dispatch(listAccessByIndex.getInstance());
+        Instruction index = dispatch(listAccessByIndex.getIndex());
+        return emit(Op.LIST_GET, laneOf(listAccessByIndex.getResolvedType()), listAccessByIndex.getLine(), list, index);
+    }
+
+    @Override
+    public Instruction visit(StructAccess structAccess) {
+        Instruction instance = dispatch(structAccess.getInstance());
+        int index = structAccess.getElement().getSlot();
+        IrType type = laneOf(structAccess.getResolvedType());
+        IrFunction getter = getters.get(structName(structAccess.getInstance().getResolvedType()))[index];
+        if (getter != null)
+            return call(getter, type, structAccess.getLine(), instance);
+        Instruction fieldGet = emit(Op.FIELD_GET, type, structAccess.getLine(), instance);
+        fieldGet.field = index;
+        return fieldGet;
+    }
+
+    @Override
+    public Instruction visit(ListSize listSize) {
+        return emit(Op.LIST_SIZE, IrType.INT, listSize.getLine(), dispatch(listSize.getArg()));
+    }
+
+    @Override
+    public Instruction visit(ListAppend listAppend) {
+        Instruction list = dispatch(listAppend.getListArg());
+        emit(Op.LIST_APPEND, IrType.VOID, listAppend.getLine(), list, dispatch(listAppend.getElementArg()));
+        return null;
+    }
+
+    @Override
+    public Instruction visit(ExprInPar exprInPar) {
+        return operatorWalker.walk(exprInPar);
+    }
+
+    @Override
+    public Instruction visit(IntValue intValue) {
+        return constant(IrType.INT, intValue.getConstant(), intValue.getLine());
+    }
+
+    @Override
+    public Instruction visit(BoolValue boolValue) {
+        return constant(IrType.BOOL, boolValue.getConstant() ? 1 : 0, boolValue.getLine());
+    }
+}
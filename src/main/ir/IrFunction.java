@@ -0,0 +1,151 @@
+package main.ir;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+//Control flow graph of a function, an accessor or the initializer of a struct, in SSA form. The first
+//block is the entry; params are the PARAM instructions of it, self first for accessors and initializers.
+public final class IrFunction {
+    final String name;
+    final int line;
+    final IrType returnType;
+    final ArrayList<Instruction> params = new ArrayList<>();
+    final ArrayList<BasicBlock> blocks = new ArrayList<>();
+    //number of instructions with a value, as of the last renumbering
+    int valueCount;
+
+    IrFunction(String name, int line, IrType returnType) {
+        this.name = name;
+        this.line = line;
+        this.returnType = returnType;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    BasicBlock entry() {
+        return blocks.get(0);
+    }
+
+    BasicBlock newBlock() {
+        BasicBlock block = new BasicBlock(blocks.size());
+        blocks.add(block);
+        return block;
+    }
+
+    public int instructionCount() {
+        int count = 0;
+        for (BasicBlock block : blocks)
+            count += block.instructions.size();
+        return count;
+    }
+
+    //replaces every use of a key by its value, following chains of replacements
+    void replaceUses(Map<Instruction, Instruction> replacements) {
+        if (replacements.isEmpty())
+            return;
+        for (BasicBlock block : blocks)
+            for (Instruction instruction : block.instructions)
+                for (int i = 0; i < instruction.operands.size(); i++)
+                    instruction.operands.set(i, resolve(replacements, instruction.operands.get(i)));
+    }
+
+    static Instruction resolve(Map<Instruction, Instruction> replacements, Instruction value) {
+        Instruction replacement = replacements.get(value);
+        while (replacement != null) {
+            value = replacement;
+            replacement = replacements.get(value);
+        }
+        return value;
+    }
+
+    //number of uses of every instruction
+    Map<Instruction, Integer> useCounts() {
+        Map<Instruction, Integer> counts = new IdentityHashMap<>();
+        for (BasicBlock block : blocks)
+            for (Instruction instruction : block.instructions)
+                for (Instruction operand : instruction.operands)
+                    counts.merge(operand, 1, Integer::sum);
+        return counts;
+    }
+
+    //drops blocks no path from the entry reaches, and their PHI operands
+    void removeUnreachableBlocks() {
+        HashMap<BasicBlock, Boolean> reached = new HashMap<>();
+        ArrayList<BasicBlock> work = new ArrayList<>();
+        work.add(entry());
+        reached.put(entry(), Boolean.TRUE);
+        while (!work.isEmpty()) {
+            BasicBlock block = work.remove(work.size() - 1);
+            for (BasicBlock successor : block.successors())
+                if (reached.put(successor, Boolean.TRUE) == null)
+                    work.add(successor);
+        }
+        if (reached.size() == blocks.size())
+            return;
+        for (BasicBlock block : blocks) {
+            if (!reached.containsKey(block))
+                continue;
+            for (int p = block.predecessors.size() - 1; p >= 0; p--) {
+                if (reached.containsKey(block.predecessors.get(p)))
+                    continue;
+                block.predecessors.remove(p);
+                for (Instruction instruction : block.instructions)
+                    if (instruction.op == Op.PHI)
+                        instruction.operands.remove(p);
+            }
+        }
+        blocks.removeIf(block -> !reached.containsKey(block));
+    }
+
+    //appends every block whose only predecessor jumps to it to that predecessor; its PHIs are replaced by
+    //their one operand
+    void mergeStraightLines() {
+        IdentityHashMap<Instruction, Instruction> replacements = new IdentityHashMap<>();
+        IdentityHashMap<BasicBlock, Boolean> merged = new IdentityHashMap<>();
+        for (BasicBlock block : blocks) {
+            if (merged.containsKey(block))
+                continue;
+            Instruction terminator = block.terminator();
+            while (terminator != null && terminator.op == Op.JUMP) {
+                BasicBlock next = terminator.targets[0];
+                if (next == block || next == entry() || next.predecessors.size() != 1)
+                    break;
+                block.instructions.remove(block.instructions.size() - 1);
+                for (Instruction instruction : next.instructions) {
+                    if (instruction.op == Op.PHI) {
+                        replacements.put(instruction, instruction.operand(0));
+                        continue;
+                    }
+                    instruction.block = block;
+                    block.instructions.add(instruction);
+                }
+                for (BasicBlock successor : next.successors())
+                    successor.predecessors.replaceAll(predecessor -> predecessor == next ? block : predecessor);
+                merged.put(next, Boolean.TRUE);
+                terminator = block.terminator();
+            }
+        }
+        blocks.removeIf(merged::containsKey);
+        replaceUses(replacements);
+    }
+
+    //numbers blocks in order and values from 0, as the dump shows them
+    void renumber() {
+        int id = 0;
+        for (int b = 0; b < blocks.size(); b++) {
+            blocks.get(b).id = b;
+            for (Instruction instruction : blocks.get(b).instructions)
+                instruction.id = instruction.type == IrType.VOID ? -1 : id++;
+        }
+        valueCount = id;
+    }
+
+    List<BasicBlock> getBlocks() {
+        return blocks;
+    }
+}
@@ -0,0 +1,205 @@
+package main.ir;
+
+import main.interpreter.CmmRuntimeError;
+import main.runtime.BoolList;
+import main.runtime.CmmList;
+import main.runtime.IntList;
+import main.runtime.RefList;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+
+//Runs an IrProgram. A call gets one register per value of the function, indexed by instruction id, so
+//the functions must be renumbered after the last pass. On an edge into a block, its PHIs all read the
+//registers before any of them is written, as one parallel copy.
+//Values are the Interpreter's: Integer, Boolean, a CmmList for lists and the IrFunction of an fptr;
+//a struct instance is the Object[] of its fields. Runtime errors are the Interpreter's.
+public class IrInterpreter {
+    private final PrintStream out;
+    private int callLine;
+
+    public IrInterpreter(PrintStream out) {
+        this.out = out;
+    }
+
+    //runtime errors are thrown as CmmRuntimeError, after the output so far is flushed
+    public void run(IrProgram program) {
+        try {
+            call(program.main, new Object[0]);
+        } catch (StackOverflowError e) {
+            throw new CmmRuntimeError(callLine, "Stack overflow");
+        } finally {
+            out.flush();
+        }
+    }
+
+    private static CmmList newList(IrType elementType) {
+        switch (elementType) {
+            case INT:
+                return new IntList();
+            case BOOL:
+                return new BoolList();
+            default:
+                return new RefList<>();
+        }
+    }
+
+    private static int checkIndex(CmmList list, Object index, int line) {
+        int i = (Integer) index;
+        if (i < 0 || i >= list.size())
+            throw new CmmRuntimeError(line, "Index " + i + " is out of range for a list of size " + list.size());
+        return i;
+    }
+
+    private Object call(IrFunction function, Object[] args) {
+        Object[] registers = new Object[function.valueCount];
+        BasicBlock block = function.entry();
+        BasicBlock from = null;
+        while (true) {
+            ArrayList<Instruction> instructions = block.instructions;
+            int start = from == null ? 0 : enter(block, from, registers);
+            from = block;
+            for (int i = start; i < instructions.size(); i++) {
+                Instruction instruction = instructions.get(i);
+                ArrayList<Instruction> operands = instruction.operands;
+                Object result = null;
+                switch (instruction.op) {
+                    case CONST:
+                        if (instruction.type == IrType.INT)
+                            result = instruction.constant;
+                        else if (instruction.type == IrType.BOOL)
+                            result = instruction.constant != 0;
+                        break;
+                    case FUNCTION:
+                        result = instruction.function;
+                        break;
+                    case PARAM:
+                        result = args[instruction.constant];
+                        break;
+                    case COPY:
+                        result = registers[operands.get(0).id];
+                        break;
+                    case ADD:
+                        result = (Integer) registers[operands.get(0).id] + (Integer) registers[operands.get(1).id];
+                        break;
+                    case SUB:
+                        result = (Integer) registers[operands.get(0).id] - (Integer) registers[operands.get(1).id];
+                        break;
+                    case MUL:
+                        result = (Integer) registers[operands.get(0).id] * (Integer) registers[operands.get(1).id];
+                        break;
+                    case DIV: {
+                        int divisor = (Integer) registers[operands.get(1).id];
+                        if (divisor == 0)
+                            throw new CmmRuntimeError(instruction.line, "Division by zero");
+                        result = (Integer) registers[operands.get(0).id] / divisor;
+                        break;
+                    }
+                    case NEG:
+                        result = -(Integer) registers[operands.get(0).id];
+                        break;
+                    case NOT:
+                        result = !(Boolean) registers[operands.get(0).id];
+                        break;
+                    case LT:
+                        result = (Integer) registers[operands.get(0).id] < (Integer) registers[operands.get(1).id];
+                        break;
+                    case GT:
+                        result = (Integer) registers[operands.get(0).id] > (Integer) registers[operands.get(1).id];
+                        break;
+                    case EQ: {
+                        Object left = registers[operands.get(0).id];
+                        Object right = registers[operands.get(1).id];
+                        result = left instanceof Integer || left instanceof Boolean ? left.equals(right) : left == right;
+                        break;
+                    }
+                    case NEW_LIST:
+                        result = newList(IrType.values()[instruction.constant]);
+                        break;
+                    case NEW_STRUCT:
+                        result = new Object[instruction.constant];
+                        break;
+                    case LIST_GET: {
+                        CmmList list = (CmmList) registers[operands.get(0).id];
+                        result = list.getBoxed(checkIndex(list, registers[operands.get(1).id], instruction.line));
+                        break;
+                    }
+                    case LIST_SET: {
+                        CmmList list = (CmmList) registers[operands.get(0).id];
+                        int index = checkIndex(list, registers[operands.get(1).id], instruction.line);
+                        list.setBoxed(index, registers[operands.get(2).id]);
+                        break;
+                    }
+                    case CHECK_INDEX:
+                        checkIndex((CmmList) registers[operands.get(0).id], registers[operands.get(1).id], instruction.line);
+                        break;
+                    case LIST_APPEND:
+                        ((CmmList) registers[operands.get(0).id]).addBoxed(registers[operands.get(1).id]);
+                        break;
+                    case LIST_SIZE:
+                        result = ((CmmList) registers[operands.get(0).id]).size();
+                        break;
+                    case FIELD_GET:
+                        result = ((Object[]) registers[operands.get(0).id])[instruction.field];
+                        break;
+                    case FIELD_SET:
+                        ((Object[]) registers[operands.get(0).id])[instruction.field] = registers[operands.get(1).id];
+                        break;
+                    case CALL:
+                        callLine = instruction.line;
+                        result = call(instruction.function, values(registers, operands, 0));
+                        break;
+                    case CALL_PTR:
+                        callLine = instruction.line;
+                        result = call((IrFunction) registers[operands.get(0).id], values(registers, operands, 1));
+                        break;
+                    case CHECK_FPTR:
+                        if (registers[operands.get(0).id] == null)
+                            throw new CmmRuntimeError(instruction.line, "Calling an fptr that has no function");
+                        break;
+                    case DISPLAY:
+                        out.println(registers[operands.get(0).id]);
+                        break;
+                    case JUMP:
+                        block = instruction.targets[0];
+                        break;
+                    case BRANCH:
+                        block = instruction.targets[(Boolean) registers[operands.get(0).id] ? 0 : 1];
+                        break;
+                    case RETURN:
+                        return operands.isEmpty() ? null : registers[operands.get(0).id];
+                    case MISSING_RETURN:
+                        throw new CmmRuntimeError(instruction.line, "Missing return statement for function " + instruction.name);
+                    default:
+                        throw new IllegalStateException("Unexpected " + instruction.op + " in " + block);
+                }
+                if (instruction.id >= 0)
+                    registers[instruction.id] = result;
+            }
+        }
+    }
+
+    //runs the PHIs of block for the edge from predecessor; returns the index of the first other instruction
+    private static int enter(BasicBlock block, BasicBlock predecessor, Object[] registers) {
+        ArrayList<Instruction> instructions = block.instructions;
+        int phis = 0;
+        while (phis < instructions.size() && instructions.get(phis).op == Op.PHI)
+            phis++;
+        if (phis == 0)
+            return 0;
+        int edge = block.predecessors.indexOf(predecessor);
+        Object[] incoming = new Object[phis];
+        for (int i = 0; i < phis; i++)
+            incoming[i] = registers[instructions.get(i).operands.get(edge).id];
+        for (int i = 0; i < phis; i++)
+            registers[instructions.get(i).id] = incoming[i];
+        return phis;
+    }
+
+    private static Object[] values(Object[] registers, ArrayList<Instruction> operands, int from) {
+        Object[] values = new Object[operands.size() - from];
+        for (int i = from; i < operands.size(); i++)
+            values[i - from] = registers[operands.get(i).id];
+        return values;
+    }
+}
@@ -0,0 +1,15 @@
+package main.ir;
+
+import java.io.PrintStream;
+
+//An SSA to SSA rewrite of one IrFunction, run by PassManager
+public interface IrPass {
+    String getName();
+
+    //rewrites the function in place; returns how many changes the pass made
+    int run(IrFunction function);
+
+    //what the pass did beyond its number of changes, printed after the PassManager report
+    default void printDetails(PrintStream out) {
+    }
+}
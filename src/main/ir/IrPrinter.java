@@ -0,0 +1,106 @@
+package main.ir;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Locale;
+
+//Text dump of an IrProgram, one function after the other:
+//  function name(%0: int, %1: ref) -> int
+//  b1:                                  ; preds b0, b3
+//    %4: int = phi [%2, b0], [%9, b3]
+//    %5: bool = lt %4, %1
+//    branch %5, b2, b4
+//Instructions without a value have no "%n: type =". The ids are the ones of the last renumbering.
+public class IrPrinter {
+    private final PrintStream out;
+
+    public IrPrinter(PrintStream out) {
+        this.out = out;
+    }
+
+    public void print(IrProgram program) {
+        for (int i = 0; i < program.functions.size(); i++) {
+            if (i > 0)
+                out.println();
+            print(program.functions.get(i));
+        }
+        out.flush();
+    }
+
+    public void print(IrFunction function) {
+        ArrayList<String> params = new ArrayList<>();
+        for (Instruction param : function.params)
+            params.add(param + ": " + typeName(param.type));
+        out.println("function " + function.name + "(" + String.join(", ", params) + ") -> " + typeName(function.returnType));
+        for (BasicBlock block : function.blocks) {
+            String label = block + ":";
+            if (!block.predecessors.isEmpty()) {
+                ArrayList<String> predecessors = new ArrayList<>();
+                for (BasicBlock predecessor : block.predecessors)
+                    predecessors.add(predecessor.toString());
+                label = String.format("%-36s ; preds %s", label, String.join(", ", predecessors));
+            }
+            out.println(label);
+            for (Instruction instruction : block.instructions)
+                if (instruction.op != Op.PARAM)
+                    out.println("  " + format(instruction));
+        }
+    }
+
+    private static String typeName(IrType type) {
+        return type.name().toLowerCase(Locale.ROOT);
+    }
+
+    static String format(Instruction instruction) {
+        String text = instruction.op.name().toLowerCase(Locale.ROOT) + operandsOf(instruction);
+        if (instruction.type == IrType.VOID)
+            return text;
+        return instruction + ": " + typeName(instruction.type) + " = " + text;
+    }
+
+    private static String operandsOf(Instruction instruction) {
+        ArrayList<String> operands = new ArrayList<>();
+        for (Instruction operand : instruction.operands)
+            operands.add(operand.toString());
+        switch (instruction.op) {
+            case CONST:
+                if (instruction.type == IrType.INT)
+                    return " " + instruction.constant;
+                if (instruction.type == IrType.BOOL)
+                    return instruction.constant != 0 ? " true" : " false";
+                return " null";
+            case FUNCTION:
+                return " " + instruction.function.name;
+            case PARAM:
+                return " " + instruction.constant;
+            case PHI: {
+                ArrayList<String> incoming = new ArrayList<>();
+                for (int i = 0; i < operands.size(); i++)
+                    incoming.add("[" + operands.get(i) + ", " + instruction.block.predecessors.get(i) + "]");
+                return " " + String.join(", ", incoming);
+            }
+            case NEW_LIST:
+                return " " + typeName(IrType.values()[instruction.constant]);
+            case NEW_STRUCT:
+                return " " + instruction.name;
+            case FIELD_GET:
+            case FIELD_SET:
+                operands.add(1, "#" + instruction.field);
+                break;
+            case CALL:
+                return " " + instruction.function.name + "(" + String.join(", ", operands) + ")";
+            case CALL_PTR:
+                return " " + operands.get(0) + "(" + String.join(", ", operands.subList(1, operands.size())) + ")";
+            case JUMP:
+            case BRANCH:
+                for (BasicBlock target : instruction.targets)
+                    operands.add(target.toString());
+                break;
+            case MISSING_RETURN:
+                return " " + instruction.name;
+            default:
+                break;
+        }
+        return operands.isEmpty() ? "" : " " + String.join(", ", operands);
+    }
+}
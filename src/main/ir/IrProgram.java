@@ -0,0 +1,26 @@
+package main.ir;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//All functions of a lowered Program: the program's functions, the accessors and initializers of its
+//structs, and main
+public final class IrProgram {
+    final ArrayList<IrFunction> functions = new ArrayList<>();
+    IrFunction main;
+
+    public List<IrFunction> getFunctions() {
+        return functions;
+    }
+
+    public IrFunction getMain() {
+        return main;
+    }
+
+    public int instructionCount() {
+        int count = 0;
+        for (IrFunction function : functions)
+            count += function.instructionCount();
+        return count;
+    }
+}
@@ -0,0 +1,10 @@
+package main.ir;
+
+//Lane of an IR value: bools are kept apart from ints so DISPLAY knows what to print, and lists, structs and
+//fptrs are all references
+public enum IrType {
+    INT,
+    BOOL,
+    REF,
+    VOID
+}
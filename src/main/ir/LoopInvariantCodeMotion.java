@@ -0,0 +1,106 @@
+package main.ir;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+//Moves instructions whose value is the same on every iteration of a natural loop to the end of its
+//preheader, the one block outside the loop that jumps to its header: pure instructions whose operands
+//are all defined outside the loop, a FIELD_GET when nothing in the loop sets that field or calls, and a
+//LIST_SIZE when nothing in the loop appends or calls. None of them can fail, so running one the loop
+//would have skipped changes nothing. Inner loops go first, so an invariant can leave a nest level by level.
+public class LoopInvariantCodeMotion implements IrPass {
+    @Override
+    public String getName() {
+        return "loop invariant code motion";
+    }
+
+    //number of instructions moved out of a loop
+    @Override
+    public int run(IrFunction function) {
+        Dominators dominators = new Dominators(function);
+        HashMap<BasicBlock, HashSet<BasicBlock>> loops = new HashMap<>();
+        for (BasicBlock block : dominators.reversePostorder())
+            for (BasicBlock successor : block.successors())
+                if (dominators.dominates(successor, block))
+                    addLoop(loops.computeIfAbsent(successor, header -> new HashSet<>()), successor, block);
+
+        ArrayList<BasicBlock> headers = new ArrayList<>(loops.keySet());
+        headers.sort((a, b) -> loops.get(a).size() - loops.get(b).size());
+        int moved = 0;
+        for (BasicBlock header : headers) {
+            BasicBlock preheader = preheader(header, loops.get(header));
+            if (preheader != null)
+                moved += hoist(loops.get(header), dominators.reversePostorder(), preheader);
+        }
+        return moved;
+    }
+
+    //adds the blocks that reach latch without going through header, the body of the loop of that back edge
+    private static void addLoop(HashSet<BasicBlock> body, BasicBlock header, BasicBlock latch) {
+        body.add(header);
+        ArrayList<BasicBlock> work = new ArrayList<>();
+        if (body.add(latch))
+            work.add(latch);
+        while (!work.isEmpty()) {
+            BasicBlock block = work.remove(work.size() - 1);
+            for (BasicBlock predecessor : block.predecessors)
+                if (body.add(predecessor))
+                    work.add(predecessor);
+        }
+    }
+
+    private static BasicBlock preheader(BasicBlock header, HashSet<BasicBlock> body) {
+        BasicBlock preheader = null;
+        for (BasicBlock predecessor : header.predecessors) {
+            if (body.contains(predecessor))
+                continue;
+            if (preheader != null)
+                return null;
+            preheader = predecessor;
+        }
+        return preheader != null && preheader.terminator().op == Op.JUMP ? preheader : null;
+    }
+
+    private static int hoist(HashSet<BasicBlock> body, List<BasicBlock> reversePostorder, BasicBlock preheader) {
+        boolean calls = false;
+        boolean appends = false;
+        HashSet<Integer> setFields = new HashSet<>();
+        for (BasicBlock block : body)
+            for (Instruction instruction : block.instructions) {
+                if (instruction.op == Op.CALL || instruction.op == Op.CALL_PTR)
+                    calls = true;
+                else if (instruction.op == Op.LIST_APPEND)
+                    appends = true;
+                else if (instruction.op == Op.FIELD_SET)
+                    setFields.add(instruction.field);
+            }
+
+        int moved = 0;
+        //in reverse postorder the definitions an instruction uses in the loop were already looked at
+        for (BasicBlock block : reversePostorder) {
+            if (!body.contains(block))
+                continue;
+            for (int i = 0; i < block.instructions.size(); i++) {
+                Instruction instruction = block.instructions.get(i);
+                boolean invariant = instruction.isPure()
+                        || (instruction.op == Op.FIELD_GET && !calls && !setFields.contains(instruction.field))
+                        || (instruction.op == Op.LIST_SIZE && !calls && !appends);
+                if (!invariant || !definedOutside(instruction.operands, body))
+                    continue;
+                block.instructions.remove(i--);
+                preheader.insertBeforeTerminator(instruction);
+                moved++;
+            }
+        }
+        return moved;
+    }
+
+    private static boolean definedOutside(List<Instruction> operands, HashSet<BasicBlock> body) {
+        for (Instruction operand : operands)
+            if (body.contains(operand.block))
+                return false;
+        return true;
+    }
+}
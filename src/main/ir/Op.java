@@ -0,0 +1,70 @@
+package main.ir;
+
+//Operation of an Instruction; operands are listed as they are in Instruction.operands
+public enum Op {
+    //constant: the int or bool in constant, or null for REF
+    CONST,
+    //fptr to function
+    FUNCTION,
+    //argument number constant of the function
+    PARAM,
+    //one operand per predecessor of the block, in the same order
+    PHI,
+    COPY,
+
+    ADD,
+    SUB,
+    MUL,
+    //dividend, divisor; fails on a zero divisor
+    DIV,
+    NEG,
+    NOT,
+    LT,
+    GT,
+    EQ,
+
+    //new empty list, of an int, bool or reference lane given by constant (IrType ordinal)
+    NEW_LIST,
+    //new instance of struct name with constant fields, all unset until a CALL of its init function
+    NEW_STRUCT,
+    //list, index; fails on an index out of range
+    LIST_GET,
+    //list, index, value; fails on an index out of range
+    LIST_SET,
+    //list, index; fails like LIST_SET, before the value of a list assignment is evaluated
+    CHECK_INDEX,
+    //list, value
+    LIST_APPEND,
+    //list
+    LIST_SIZE,
+    //instance; the field number is field
+    FIELD_GET,
+    //instance, value
+    FIELD_SET,
+    //args of function; self first for accessors
+    CALL,
+    //fptr, args
+    CALL_PTR,
+    //fptr; fails when it has no function, before the args are evaluated
+    CHECK_FPTR,
+    //value, an int or a bool
+    DISPLAY,
+
+    //terminators, the last instruction of every block
+    JUMP,
+    //condition; targets are the then and the else block
+    BRANCH,
+    //the value, none in a function without one
+    RETURN,
+    //end of a function with a value that no return statement reached
+    MISSING_RETURN;
+
+    public boolean isTerminator() {
+        return this == JUMP || this == BRANCH || this == RETURN || this == MISSING_RETURN;
+    }
+
+    //operand order doesn't matter
+    public boolean isCommutative() {
+        return this == ADD || this == MUL || this == EQ;
+    }
+}
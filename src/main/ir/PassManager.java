@@ -0,0 +1,60 @@
+package main.ir;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+//Runs IrPasses over every function of an IrProgram in order and keeps, per pass, its changes, the time
+//it took and the instruction count of the program before and after it.
+public class PassManager {
+    private final List<IrPass> passes;
+    private final ArrayList<String> names = new ArrayList<>();
+    private final ArrayList<long[]> statistics = new ArrayList<>();
+
+    public PassManager(IrPass... passes) {
+        this.passes = Arrays.asList(passes);
+    }
+
+    //the passes the IR engine runs
+    public static PassManager standard() {
+        return new PassManager(new Inliner(), new CopyPropagation(), new ValueNumbering(), new LoopInvariantCodeMotion(),
+                new DeadStoreElimination());
+    }
+
+    public void run(IrProgram program) {
+        int instructions = program.instructionCount();
+        for (IrPass pass : passes) {
+            long start = System.nanoTime();
+            int changes = 0;
+            for (IrFunction function : program.functions)
+                changes += pass.run(function);
+            long time = System.nanoTime() - start;
+            int instructionsAfter = program.instructionCount();
+            names.add(pass.getName());
+            statistics.add(new long[]{changes, time, instructions, instructionsAfter});
+            instructions = instructionsAfter;
+        }
+        for (IrFunction function : program.functions)
+            function.renumber();
+    }
+
+    //one line per pass run, then the total
+    public void printReport(PrintStream out) {
+        out.printf("%-28s %10s %10s %12s %10s%n", "pass", "changes", "ms", "instructions", "after");
+        long totalTime = 0;
+        for (int i = 0; i < names.size(); i++) {
+            long[] pass = statistics.get(i);
+            out.printf("%-28s %10d %10.3f %12d %10d%n", names.get(i), pass[0], pass[1] / 1e6, pass[2], pass[3]);
+            totalTime += pass[1];
+        }
+        if (!statistics.isEmpty()) {
+            long before = statistics.get(0)[2];
+            long after = statistics.get(statistics.size() - 1)[3];
+            out.printf("%-28s %10s %10.3f %12d %10d  (%+d)%n", "total", "", totalTime / 1e6, before, after,
+                    after - before);
+        }
+        for (IrPass pass : passes)
+            pass.printDetails(out);
+    }
+}
@@ -0,0 +1,233 @@
+package main.ir;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+//Global value numbering over the dominator tree: a pure instruction (see Instruction.isPure) computing
+//what one in a dominating block already computed is replaced by it, as are PHIs of a block with the same
+//operands. Operators on constants are folded and x + 0, x - 0, x * 1 and x / 1 become x.
+//Loads are only reused within a block: a FIELD_GET, LIST_GET or LIST_SIZE is replaced by an earlier one
+//of the same operands, or by the value a FIELD_SET or LIST_SET stored, until something writes what it
+//read. Two references may be the same struct or list, so a store forgets the loads of its field or of
+//all list elements, an append forgets the sizes and a call forgets everything.
+public class ValueNumbering implements IrPass {
+    private final HashMap<List<Object>, Instruction> available = new HashMap<>();
+    private IdentityHashMap<Instruction, Instruction> replacements;
+    private Dominators dominators;
+    private int changes;
+
+    @Override
+    public String getName() {
+        return "value numbering";
+    }
+
+    //number of instructions folded or replaced
+    @Override
+    public int run(IrFunction function) {
+        replacements = new IdentityHashMap<>();
+        dominators = new Dominators(function);
+        changes = 0;
+        available.clear();
+        walk(function.entry());
+        function.replaceUses(replacements);
+        for (BasicBlock block : function.blocks)
+            block.instructions.removeIf(replacements::containsKey);
+        return changes;
+    }
+
+    //preorder over the dominator tree with an explicit stack, as long chains of & or | make it deep; the
+    //values a block made available are forgotten once the blocks it dominates are done
+    private void walk(BasicBlock entry) {
+        ArrayList<BasicBlock> blocks = new ArrayList<>();
+        //per entry of blocks, null until the block is visited, then the keys it added
+        ArrayList<ArrayList<List<Object>>> scopes = new ArrayList<>();
+        blocks.add(entry);
+        scopes.add(null);
+        while (!blocks.isEmpty()) {
+            int top = blocks.size() - 1;
+            BasicBlock block = blocks.get(top);
+            ArrayList<List<Object>> added = scopes.get(top);
+            if (added != null) {
+                for (List<Object> key : added)
+                    available.remove(key);
+                blocks.remove(top);
+                scopes.remove(top);
+                continue;
+            }
+            scopes.set(top, visit(block));
+            List<BasicBlock> children = dominators.children(block);
+            for (int i = children.size() - 1; i >= 0; i--) {
+                blocks.add(children.get(i));
+                scopes.add(null);
+            }
+        }
+    }
+
+    //numbers the instructions of block; returns the keys it made available
+    private ArrayList<List<Object>> visit(BasicBlock block) {
+        ArrayList<List<Object>> added = new ArrayList<>();
+        HashMap<List<Object>, Instruction> loads = new HashMap<>();
+        for (int i = 0; i < block.instructions.size(); i++) {
+            Instruction instruction = block.instructions.get(i);
+            for (int o = 0; o < instruction.operands.size(); o++)
+                instruction.operands.set(o, IrFunction.resolve(replacements, instruction.operands.get(o)));
+
+            Instruction simplified = simplify(instruction);
+            if (simplified != instruction) {
+                replace(instruction, simplified);
+                if (simplified.block != null)
+                    continue;
+                simplified.block = block;
+                block.instructions.set(i, simplified);
+                instruction = simplified;
+            }
+            if (instruction.isPure() || instruction.op == Op.PHI) {
+                List<Object> key = keyOf(instruction);
+                Instruction existing = available.get(key);
+                if (existing != null) {
+                    replace(instruction, existing);
+                } else {
+                    available.put(key, instruction);
+                    added.add(key);
+                }
+            } else {
+                load(instruction, loads);
+            }
+        }
+        return added;
+    }
+
+    private void replace(Instruction instruction, Instruction value) {
+        replacements.put(instruction, value);
+        changes++;
+    }
+
+    private static List<Object> keyOf(Instruction instruction) {
+        ArrayList<Object> key = new ArrayList<>();
+        key.add(instruction.op);
+        key.add(instruction.type);
+        switch (instruction.op) {
+            case CONST:
+                key.add(instruction.constant);
+                return key;
+            case FUNCTION:
+                key.add(instruction.function);
+                return key;
+            case PHI:
+                key.add(instruction.block);
+                break;
+            default:
+                break;
+        }
+        List<Instruction> operands = instruction.operands;
+        if (instruction.op.isCommutative()
+                && System.identityHashCode(operands.get(0)) > System.identityHashCode(operands.get(1)))
+            operands = Arrays.asList(operands.get(1), operands.get(0));
+        key.addAll(operands);
+        return key;
+    }
+
+    //a load is replaced by what is known of the value it reads; any other instruction forgets what it
+    //may write
+    private void load(Instruction instruction, HashMap<List<Object>, Instruction> loads) {
+        switch (instruction.op) {
+            case FIELD_GET:
+            case LIST_GET:
+            case LIST_SIZE: {
+                List<Object> key = loadKey(instruction.op, instruction);
+                Instruction known = loads.get(key);
+                if (known != null)
+                    replace(instruction, known);
+                else
+                    loads.put(key, instruction);
+                break;
+            }
+            case FIELD_SET:
+                loads.keySet().removeIf(key -> key.get(0) == Op.FIELD_GET && key.get(1).equals(instruction.field));
+                loads.put(loadKey(Op.FIELD_GET, instruction), instruction.operand(1));
+                break;
+            case LIST_SET:
+                loads.keySet().removeIf(key -> key.get(0) == Op.LIST_GET);
+                loads.put(loadKey(Op.LIST_GET, instruction), instruction.operand(2));
+                break;
+            case LIST_APPEND:
+                loads.keySet().removeIf(key -> key.get(0) == Op.LIST_SIZE);
+                break;
+            case CALL:
+            case CALL_PTR:
+                loads.clear();
+                break;
+            default:
+                break;
+        }
+    }
+
+    //what a load of op reads: the field and instance, the list and index, or the list
+    private static List<Object> loadKey(Op op, Instruction access) {
+        switch (op) {
+            case FIELD_GET:
+                return Arrays.asList(op, access.field, access.operand(0));
+            case LIST_GET:
+                return Arrays.asList(op, access.operand(0), access.operand(1));
+            default:
+                return Arrays.asList(op, access.operand(0));
+        }
+    }
+
+    //the instruction, an operand it is equal to, or a new constant that isn't in a block yet
+    private static Instruction simplify(Instruction instruction) {
+        Op op = instruction.op;
+        if (op == Op.NEG || op == Op.NOT) {
+            Instruction operand = instruction.operand(0);
+            if (!operand.isConstant())
+                return instruction;
+            return constant(instruction, op == Op.NEG ? -operand.constant : 1 - operand.constant);
+        }
+        if (op != Op.ADD && op != Op.SUB && op != Op.MUL && op != Op.DIV && op != Op.LT && op != Op.GT && op != Op.EQ)
+            return instruction;
+        Instruction left = instruction.operand(0);
+        Instruction right = instruction.operand(1);
+        if (left.isConstant() && right.isConstant()) {
+            int a = left.constant;
+            int b = right.constant;
+            switch (op) {
+                case ADD:
+                    return constant(instruction, a + b);
+                case SUB:
+                    return constant(instruction, a - b);
+                case MUL:
+                    return constant(instruction, a * b);
+                case DIV:
+                    return b == 0 ? instruction : constant(instruction, a / b);
+                case LT:
+                    return constant(instruction, a < b ? 1 : 0);
+                case GT:
+                    return constant(instruction, a > b ? 1 : 0);
+                default:
+                    return constant(instruction, a == b ? 1 : 0);
+            }
+        }
+        if ((op == Op.ADD || op == Op.SUB) && isConstant(right, 0))
+            return left;
+        if (op == Op.ADD && isConstant(left, 0))
+            return right;
+        if ((op == Op.MUL || op == Op.DIV) && isConstant(right, 1))
+            return left;
+        if (op == Op.MUL && isConstant(left, 1))
+            return right;
+        return instruction;
+    }
+
+    private static boolean isConstant(Instruction instruction, int value) {
+        return instruction.isConstant() && instruction.constant == value;
+    }
+
+    private static Instruction constant(Instruction replaced, int value) {
+        Instruction constant = new Instruction(Op.CONST, replaced.type, replaced.line);
+        constant.constant = value;
+        return constant;
+    }
+}
@@ -0,0 +1,138 @@
+package main.lexer;
+
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.misc.Interval;
+import org.antlr.v4.runtime.misc.Pair;
+
+import java.util.Arrays;
+
+//Tokens of one input as parallel int arrays, filled by FastCmmLexer. Token types are the CmmLexer
+//constants, start and stop are inclusive char indices into the input and columns are zero based like
+//ANTLR's charPositionInLine. The EOF token is not stored.
+public class CmmTokens {
+    private final CharStream input;
+    private int size = 0;
+    private int[] types;
+    private int[] starts;
+    private int[] stops;
+    private int[] lines;
+    private int[] columns;
+    private int eofLine = 1;
+    private int eofColumn = 0;
+
+    CmmTokens(CharStream input, int capacity) {
+        this.input = input;
+        capacity = Math.max(16, capacity);
+        types = new int[capacity];
+        starts = new int[capacity];
+        stops = new int[capacity];
+        lines = new int[capacity];
+        columns = new int[capacity];
+    }
+
+    void add(int type, int start, int stop, int line, int column) {
+        if (size == types.length) {
+            int capacity = size * 2;
+            types = Arrays.copyOf(types, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            stops = Arrays.copyOf(stops, capacity);
+            lines = Arrays.copyOf(lines, capacity);
+            columns = Arrays.copyOf(columns, capacity);
+        }
+        types[size] = type;
+        starts[size] = start;
+        stops[size] = stop;
+        lines[size] = line;
+        columns[size] = column;
+        size++;
+    }
+
+    void setEnd(int line, int column) {
+        eofLine = line;
+        eofColumn = column;
+    }
+
+    public CharStream getInput() {
+        return input;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getType(int token) {
+        return types[token];
+    }
+
+    public int getStart(int token) {
+        return starts[token];
+    }
+
+    public int getStop(int token) {
+        return stops[token];
+    }
+
+    public int getLine(int token) {
+        return lines[token];
+    }
+
+    public int getCharPositionInLine(int token) {
+        return columns[token];
+    }
+
+    public String getText(int token) {
+        return input.getText(Interval.of(starts[token], stops[token]));
+    }
+
+    //a fresh TokenSource over these tokens; Token objects are only created as the parser pulls them
+    public TokenSource asTokenSource() {
+        return new ArrayTokenSource();
+    }
+
+    private class ArrayTokenSource implements TokenSource {
+        private final Pair<TokenSource, CharStream> source = new Pair<>(this, input);
+        private TokenFactory<?> factory = CommonTokenFactory.DEFAULT;
+        private int next = 0;
+
+        @Override
+        public Token nextToken() {
+            if (next == size)
+                return factory.create(source, Token.EOF, null, Token.DEFAULT_CHANNEL,
+                        input.size(), input.size() - 1, eofLine, eofColumn);
+            Token token = factory.create(source, types[next], null, Token.DEFAULT_CHANNEL,
+                    starts[next], stops[next], lines[next], columns[next]);
+            next++;
+            return token;
+        }
+
+        @Override
+        public int getLine() {
+            return next == size ? eofLine : lines[next];
+        }
+
+        @Override
+        public int getCharPositionInLine() {
+            return next == size ? eofColumn : columns[next];
+        }
+
+        @Override
+        public CharStream getInputStream() {
+            return input;
+        }
+
+        @Override
+        public String getSourceName() {
+            return input.getSourceName();
+        }
+
+        @Override
+        public void setTokenFactory(TokenFactory<?> factory) {
+            this.factory = factory;
+        }
+
+        @Override
+        public TokenFactory<?> getTokenFactory() {
+            return factory;
+        }
+    }
+}
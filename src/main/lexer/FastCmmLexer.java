@@ -0,0 +1,243 @@
+package main.lexer;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.misc.Interval;
+import parsers.CmmLexer;
+
+import java.util.Arrays;
+
+//Table driven lexer for the Cmm.g4 token set that writes into CmmTokens instead of creating a
+//CommonToken per token. It follows CmmLexer's longest match rules: keywords win over identifiers of the
+//same length, "0" is always a token of its own, an unterminated comment lexes as '/' and '*', and an
+//unknown character is reported as a token recognition error on System.err and skipped.
+public class FastCmmLexer {
+    private static final byte OTHER = 0;
+    private static final byte SPACE = 1;
+    private static final byte NEWLINE = 2;
+    private static final byte LETTER = 3;
+    private static final byte ZERO = 4;
+    private static final byte DIGIT = 5;
+    private static final byte SINGLE = 6;
+    private static final byte SLASH = 7;
+    private static final byte EQUALS = 8;
+    private static final byte MINUS = 9;
+
+    private static final char NOT_BMP = '\uFFFF';
+
+    private static final byte[] charClasses = new byte[128];
+    private static final int[] singleCharTypes = new int[128];
+
+    //keyword DFA over identifier characters, state 0 is the start state and -1 is "not a keyword"
+    private static final int IDENTIFIER_CHARS = 63;
+    private static final String[] keywords = {"main", "return", "void", "size", "display", "append", "if",
+            "else", "true", "false", "begin", "end", "int", "bool", "list", "struct", "fptr", "get", "set",
+            "while", "do"};
+    private static final int[] keywordTypes = {CmmLexer.MAIN, CmmLexer.RETURN, CmmLexer.VOID, CmmLexer.SIZE,
+            CmmLexer.DISPLAY, CmmLexer.APPEND, CmmLexer.IF, CmmLexer.ELSE, CmmLexer.TRUE, CmmLexer.FALSE,
+            CmmLexer.BEGIN, CmmLexer.END, CmmLexer.INT, CmmLexer.BOOL, CmmLexer.LIST, CmmLexer.STRUCT,
+            CmmLexer.FPTR, CmmLexer.GET, CmmLexer.SET, CmmLexer.WHILE, CmmLexer.DO};
+    private static final byte[] identifierIndices = new byte[128];
+    private static final int[] keywordTransitions;
+    private static final int[] acceptedKeywords;
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++)
+            charClasses[c] = LETTER;
+        for (char c = 'A'; c <= 'Z'; c++)
+            charClasses[c] = LETTER;
+        charClasses['_'] = LETTER;
+        charClasses['0'] = ZERO;
+        for (char c = '1'; c <= '9'; c++)
+            charClasses[c] = DIGIT;
+        charClasses[' '] = SPACE;
+        charClasses['\t'] = SPACE;
+        charClasses['\r'] = SPACE;
+        charClasses['\n'] = NEWLINE;
+        charClasses['/'] = SLASH;
+        charClasses['='] = EQUALS;
+        charClasses['-'] = MINUS;
+
+        String singles = "+*><&|~#()[],.;";
+        int[] singleTypes = {CmmLexer.PLUS, CmmLexer.MULT, CmmLexer.GREATER_THAN, CmmLexer.LESS_THAN, CmmLexer.AND,
+                CmmLexer.OR, CmmLexer.NOT, CmmLexer.SHARP, CmmLexer.LPAR, CmmLexer.RPAR, CmmLexer.LBRACK,
+                CmmLexer.RBRACK, CmmLexer.COMMA, CmmLexer.DOT, CmmLexer.SEMICOLON};
+        for (int i = 0; i < singles.length(); i++) {
+            charClasses[singles.charAt(i)] = SINGLE;
+            singleCharTypes[singles.charAt(i)] = singleTypes[i];
+        }
+
+        String identifierChars = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789_";
+        Arrays.fill(identifierIndices, (byte) -1);
+        for (int i = 0; i < IDENTIFIER_CHARS; i++)
+            identifierIndices[identifierChars.charAt(i)] = (byte) i;
+
+        //row per state, state -1 is absorbing
+        int states = 1;
+        for (String keyword : keywords)
+            states += keyword.length();
+        keywordTransitions = new int[states * IDENTIFIER_CHARS];
+        acceptedKeywords = new int[states];
+        Arrays.fill(keywordTransitions, -1);
+        int used = 1;
+        for (int i = 0; i < keywords.length; i++) {
+            int state = 0;
+            for (char c : keywords[i].toCharArray()) {
+                int transition = state * IDENTIFIER_CHARS + identifierIndices[c];
+                if (keywordTransitions[transition] == -1)
+                    keywordTransitions[transition] = used++;
+                state = keywordTransitions[transition];
+            }
+            acceptedKeywords[state] = keywordTypes[i];
+        }
+    }
+
+    private final CmmTokens tokens;
+    private final CharStream input;
+    private final char[] chars;
+    private int position = 0;
+    private int line = 1;
+    private int column = 0;
+
+    private FastCmmLexer(CharStream input) {
+        //CharStream indices count code points; a code point outside the BMP can only be an error, so it
+        //takes a single placeholder char and indices stay the same
+        String text = input.getText(Interval.of(0, input.size() - 1));
+        chars = new char[input.size()];
+        if (text.length() == chars.length) {
+            text.getChars(0, chars.length, chars, 0);
+        } else {
+            for (int i = 0, index = 0; i < text.length(); index++) {
+                int c = text.codePointAt(i);
+                chars[index] = Character.isBmpCodePoint(c) ? (char) c : NOT_BMP;
+                i += Character.charCount(c);
+            }
+        }
+        this.input = input;
+        tokens = new CmmTokens(input, chars.length / 2);
+    }
+
+    private static byte charClass(int c) {
+        return c < 128 ? charClasses[c] : OTHER;
+    }
+
+    private static int identifierIndex(int c) {
+        return c < 128 ? identifierIndices[c] : -1;
+    }
+
+    public static CmmTokens lex(CharStream input) {
+        FastCmmLexer lexer = new FastCmmLexer(input);
+        lexer.lexAll();
+        return lexer.tokens;
+    }
+
+    private void lexAll() {
+        int length = chars.length;
+        while (position < length) {
+            int start = position;
+            char c = chars[position];
+            int type;
+            switch (charClass(c)) {
+                case SPACE:
+                    position++;
+                    column++;
+                    continue;
+                case NEWLINE:
+                    tokens.add(CmmLexer.NEWLINE, start, start, line, column);
+                    position++;
+                    line++;
+                    column = 0;
+                    continue;
+                case LETTER:
+                    type = scanIdentifier();
+                    break;
+                case ZERO:
+                    position++;
+                    type = CmmLexer.INT_VALUE;
+                    break;
+                case DIGIT:
+                    scanDigits();
+                    type = CmmLexer.INT_VALUE;
+                    break;
+                case SINGLE:
+                    position++;
+                    type = singleCharTypes[c];
+                    break;
+                case SLASH:
+                    if (skipComment())
+                        continue;
+                    position++;
+                    type = CmmLexer.DIVIDE;
+                    break;
+                case EQUALS:
+                    type = scanPair('=', CmmLexer.ASSIGN, CmmLexer.EQUAL);
+                    break;
+                case MINUS:
+                    type = scanPair('>', CmmLexer.MINUS, CmmLexer.ARROW);
+                    break;
+                default:
+                    System.err.println("line " + line + ":" + column + " token recognition error at: '"
+                            + input.getText(Interval.of(position, position)) + "'");
+                    position++;
+                    column++;
+                    continue;
+            }
+            tokens.add(type, start, position - 1, line, column);
+            column += position - start;
+        }
+        tokens.setEnd(line, column);
+    }
+
+    //runs the keyword DFA alongside the identifier
+    private int scanIdentifier() {
+        int state = 0;
+        int index;
+        while (position < chars.length && (index = identifierIndex(chars[position])) != -1) {
+            if (state != -1)
+                state = keywordTransitions[state * IDENTIFIER_CHARS + index];
+            position++;
+        }
+        return state != -1 && acceptedKeywords[state] != 0 ? acceptedKeywords[state] : CmmLexer.IDENTIFIER;
+    }
+
+    private void scanDigits() {
+        position++;
+        while (position < chars.length && chars[position] >= '0' && chars[position] <= '9')
+            position++;
+    }
+
+    //a one char token, or the two char token when followed by second
+    private int scanPair(char second, int singleType, int pairType) {
+        position++;
+        if (position < chars.length && chars[position] == second) {
+            position++;
+            return pairType;
+        }
+        return singleType;
+    }
+
+    //skips a whole comment, or returns false when the '/' doesn't start a terminated one
+    private boolean skipComment() {
+        if (position + 1 >= chars.length || chars[position + 1] != '*')
+            return false;
+        int end = commentEnd(chars, position + 2);
+        if (end == -1)
+            return false;
+        for (; position < end; position++) {
+            if (chars[position] == '\n') {
+                line++;
+                column = 0;
+            } else {
+                column++;
+            }
+        }
+        return true;
+    }
+
+    //index just past the "*/" closing a comment whose body starts at from, or -1 if it is never closed
+    private static int commentEnd(char[] chars, int from) {
+        for (int i = from; i + 1 < chars.length; i++)
+            if (chars[i] == '*' && chars[i + 1] == '/')
+                return i + 2;
+        return -1;
+    }
+}
@@ -0,0 +1,44 @@
+package main.lexer;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.Token;
+import parsers.CmmLexer;
+
+import java.io.IOException;
+
+//Lexing throughput of CmmLexer and FastCmmLexer in MB/s of source text
+//usage: LexerBenchmark <input.cmm> [iterations]
+public class LexerBenchmark {
+    public static void main(String[] args) throws IOException {
+        CharStream input = CharStreams.fromFileName(args[0]);
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        double megabytes = input.size() / (1024.0 * 1024.0);
+
+        //first half of the runs is warm up
+        for (int round = 0; round < 2; round++) {
+            long antlrTime = 0;
+            long fastTime = 0;
+            int antlrTokens = 0;
+            int fastTokens = 0;
+            for (int i = 0; i < iterations; i++) {
+                input.seek(0);
+                long start = System.nanoTime();
+                CmmLexer cmmLexer = new CmmLexer(input);
+                antlrTokens = 0;
+                while (cmmLexer.nextToken().getType() != Token.EOF)
+                    antlrTokens++;
+                antlrTime += System.nanoTime() - start;
+
+                input.seek(0);
+                start = System.nanoTime();
+                fastTokens = FastCmmLexer.lex(input).size();
+                fastTime += System.nanoTime() - start;
+            }
+            if (round == 1) {
+                System.out.printf("CmmLexer:     %8.2f MB/s, %d tokens%n", megabytes * iterations / (antlrTime / 1e9), antlrTokens);
+                System.out.printf("FastCmmLexer: %8.2f MB/s, %d tokens%n", megabytes * iterations / (fastTime / 1e9), fastTokens);
+            }
+        }
+    }
+}
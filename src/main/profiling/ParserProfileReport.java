@@ -0,0 +1,50 @@
+package main.profiling;
+
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.atn.DecisionInfo;
+import org.antlr.v4.runtime.atn.DecisionState;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+
+//Per-decision table of a parser that ran with setProfile(true), slowest decision first.
+//Lookahead is the number of tokens looked at by SLL prediction and, for LL fallbacks, by full LL.
+public class ParserProfileReport {
+    private final Parser parser;
+    private final long parseTime;
+
+    public ParserProfileReport(Parser parser, long parseTime) {
+        this.parser = parser;
+        this.parseTime = parseTime;
+    }
+
+    public void print(PrintStream out) {
+        ArrayList<DecisionInfo> decisions = new ArrayList<>();
+        long predictionTime = 0;
+        for (DecisionInfo decisionInfo : parser.getParseInfo().getDecisionInfo()) {
+            if (decisionInfo.invocations == 0)
+                continue;
+            decisions.add(decisionInfo);
+            predictionTime += decisionInfo.timeInPrediction;
+        }
+        decisions.sort(Comparator.comparingLong((DecisionInfo decisionInfo) -> decisionInfo.timeInPrediction).reversed());
+
+        out.printf("parse time %.3f ms, prediction time %.3f ms in %d decisions%n",
+                parseTime / 1e6, predictionTime / 1e6, decisions.size());
+        out.printf("%-8s %-24s %11s %10s %11s %8s %8s %8s %12s %7s%n", "decision", "rule", "invocations",
+                "SLL look", "LL fallback", "LL look", "max SLL", "max LL", "time (ms)", "time %");
+        for (DecisionInfo decisionInfo : decisions) {
+            out.printf("%-8d %-24s %11d %10d %11d %8d %8d %8d %12.3f %6.1f%%%n", decisionInfo.decision,
+                    ruleName(decisionInfo.decision), decisionInfo.invocations, decisionInfo.SLL_TotalLook,
+                    decisionInfo.LL_Fallback, decisionInfo.LL_TotalLook, decisionInfo.SLL_MaxLook,
+                    decisionInfo.LL_MaxLook, decisionInfo.timeInPrediction / 1e6,
+                    predictionTime == 0 ? 0.0 : 100.0 * decisionInfo.timeInPrediction / predictionTime);
+        }
+    }
+
+    private String ruleName(int decision) {
+        DecisionState decisionState = parser.getATN().getDecisionState(decision);
+        return parser.getRuleNames()[decisionState.ruleIndex];
+    }
+}
@@ -0,0 +1,66 @@
+package main.runtime;
+
+import java.util.Arrays;
+
+//list #bool without boxing: a growable bitset of long words, element i is bit i % 64 of word i / 64
+public final class BoolList implements CmmList {
+    private long[] words;
+    private int size;
+
+    public BoolList() {
+        this(64);
+    }
+
+    public BoolList(int capacity) {
+        words = new long[Math.max(1, (capacity + 63) >>> 6)];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public void add(boolean value) {
+        if (size == words.length << 6)
+            words = Arrays.copyOf(words, words.length * 2);
+        if (value)
+            words[size >>> 6] |= 1L << size;
+        size++;
+    }
+
+    public boolean get(int index) {
+        return (words[index >>> 6] & 1L << index) != 0;
+    }
+
+    //returns value, so an assignment can be used as an expression
+    public boolean set(int index, boolean value) {
+        if (value)
+            words[index >>> 6] |= 1L << index;
+        else
+            words[index >>> 6] &= ~(1L << index);
+        return value;
+    }
+
+    @Override
+    public Object getBoxed(int index) {
+        return get(index);
+    }
+
+    @Override
+    public void setBoxed(int index, Object value) {
+        set(index, (Boolean) value);
+    }
+
+    @Override
+    public void addBoxed(Object value) {
+        add((Boolean) value);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder("[");
+        for (int i = 0; i < size; i++)
+            result.append(i == 0 ? "" : ", ").append(get(i));
+        return result.append("]").toString();
+    }
+}
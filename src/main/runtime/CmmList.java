@@ -0,0 +1,14 @@
+package main.runtime;
+
+//A list value of a running program. The engines use the concrete lists (IntList, BoolList and RefList) to
+//read and write elements without boxing; the boxed methods are for engines that keep values as Objects.
+//Callers check indices against size().
+public interface CmmList {
+    int size();
+
+    Object getBoxed(int index);
+
+    void setBoxed(int index, Object value);
+
+    void addBoxed(Object value);
+}
@@ -0,0 +1,58 @@
+package main.runtime;
+
+import java.util.Arrays;
+
+//list #int without boxing: a growable int[]; callers check indices against size()
+public final class IntList implements CmmList {
+    private int[] elements;
+    private int size;
+
+    public IntList() {
+        this(8);
+    }
+
+    public IntList(int capacity) {
+        elements = new int[Math.max(1, capacity)];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public void add(int value) {
+        if (size == elements.length)
+            elements = Arrays.copyOf(elements, size * 2);
+        elements[size++] = value;
+    }
+
+    public int get(int index) {
+        return elements[index];
+    }
+
+    //returns value, so an assignment can be used as an expression
+    public int set(int index, int value) {
+        elements[index] = value;
+        return value;
+    }
+
+    @Override
+    public Object getBoxed(int index) {
+        return elements[index];
+    }
+
+    @Override
+    public void setBoxed(int index, Object value) {
+        elements[index] = (Integer) value;
+    }
+
+    @Override
+    public void addBoxed(Object value) {
+        add((Integer) value);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(Arrays.copyOf(elements, size));
+    }
+}
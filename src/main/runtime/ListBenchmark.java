@@ -0,0 +1,178 @@
+package main.runtime;
+
+import java.util.ArrayList;
+
+//Heap a list of n elements keeps, sampled after a GC, and time per element to append, read and write,
+//for IntList, BoolList and RefList next to the ArrayList<Object> of boxed values they replace.
+//usage: ListBenchmark [elements, default 1000000] [rounds, default 10]
+public class ListBenchmark {
+    private static int sink;
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        System.out.printf("%-22s %12s %12s %12s %12s%n", "list", "heap MB", "append ns", "get ns", "set ns");
+        //first half of the rounds is warm up
+        for (int round = 0; round < 2; round++) {
+            long[] intList = new long[3], boolList = new long[3], refList = new long[3];
+            long[] boxedInts = new long[3], boxedBools = new long[3];
+            for (int i = 0; i < rounds; i++) {
+                add(intList, intList(n));
+                add(boxedInts, boxedInts(n));
+                add(boolList, boolList(n));
+                add(boxedBools, boxedBools(n));
+                add(refList, refList(n));
+            }
+            if (round == 1) {
+                System.out.printf("%-22s %12.2f%s%n", "IntList", heap(() -> filledIntList(n)) / 1048576.0, perElement(intList, n, rounds));
+                System.out.printf("%-22s %12.2f%s%n", "ArrayList<Integer>", heap(() -> filledBoxed(n, false)) / 1048576.0, perElement(boxedInts, n, rounds));
+                System.out.printf("%-22s %12.2f%s%n", "BoolList", heap(() -> filledBoolList(n)) / 1048576.0, perElement(boolList, n, rounds));
+                System.out.printf("%-22s %12.2f%s%n", "ArrayList<Boolean>", heap(() -> filledBoxed(n, true)) / 1048576.0, perElement(boxedBools, n, rounds));
+                System.out.printf("%-22s %12.2f%s%n", "RefList", heap(() -> filledRefList(n)) / 1048576.0, perElement(refList, n, rounds));
+            }
+        }
+        if (sink == 42)
+            System.out.println();
+    }
+
+    private static void add(long[] total, long[] times) {
+        for (int i = 0; i < total.length; i++)
+            total[i] += times[i];
+    }
+
+    private static String perElement(long[] times, int n, int rounds) {
+        StringBuilder result = new StringBuilder();
+        for (long time : times)
+            result.append(String.format(" %12.2f", (double) time / n / rounds));
+        return result.toString();
+    }
+
+    private interface Filler {
+        Object fill();
+    }
+
+    //bytes retained by the list fill returns
+    private static long heap(Filler filler) {
+        long before = usedHeap();
+        Object list = filler.fill();
+        long after = usedHeap();
+        sink += list.hashCode() & 1;
+        return after - before;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static IntList filledIntList(int n) {
+        IntList list = new IntList();
+        for (int i = 0; i < n; i++)
+            list.add(i * 31);
+        return list;
+    }
+
+    private static BoolList filledBoolList(int n) {
+        BoolList list = new BoolList();
+        for (int i = 0; i < n; i++)
+            list.add((i & 3) == 0);
+        return list;
+    }
+
+    private static RefList<Object> filledRefList(int n) {
+        RefList<Object> list = new RefList<>();
+        Object element = new Object();
+        for (int i = 0; i < n; i++)
+            list.add(element);
+        return list;
+    }
+
+    //values outside the Integer cache, as a running program's would mostly be
+    private static ArrayList<Object> filledBoxed(int n, boolean bools) {
+        ArrayList<Object> list = new ArrayList<>();
+        for (int i = 0; i < n; i++)
+            list.add(bools ? (Object) ((i & 3) == 0) : (Object) (i * 31));
+        return list;
+    }
+
+    //append, get and set times of n elements
+    private static long[] intList(int n) {
+        long start = System.nanoTime();
+        IntList list = filledIntList(n);
+        long appended = System.nanoTime();
+        int sum = 0;
+        for (int i = 0; i < list.size(); i++)
+            sum += list.get(i);
+        long read = System.nanoTime();
+        for (int i = 0; i < list.size(); i++)
+            list.set(i, i);
+        long written = System.nanoTime();
+        sink += sum + list.get(n / 2);
+        return new long[]{appended - start, read - appended, written - read};
+    }
+
+    private static long[] boolList(int n) {
+        long start = System.nanoTime();
+        BoolList list = filledBoolList(n);
+        long appended = System.nanoTime();
+        int count = 0;
+        for (int i = 0; i < list.size(); i++)
+            if (list.get(i))
+                count++;
+        long read = System.nanoTime();
+        for (int i = 0; i < list.size(); i++)
+            list.set(i, (i & 1) == 0);
+        long written = System.nanoTime();
+        sink += count + (list.get(n / 2) ? 1 : 0);
+        return new long[]{appended - start, read - appended, written - read};
+    }
+
+    private static long[] refList(int n) {
+        long start = System.nanoTime();
+        RefList<Object> list = filledRefList(n);
+        long appended = System.nanoTime();
+        int count = 0;
+        for (int i = 0; i < list.size(); i++)
+            if (list.get(i) != null)
+                count++;
+        long read = System.nanoTime();
+        for (int i = 0; i < list.size(); i++)
+            list.set(i, list);
+        long written = System.nanoTime();
+        sink += count + list.get(n / 2).hashCode() & 1;
+        return new long[]{appended - start, read - appended, written - read};
+    }
+
+    private static long[] boxedInts(int n) {
+        long start = System.nanoTime();
+        ArrayList<Object> list = filledBoxed(n, false);
+        long appended = System.nanoTime();
+        int sum = 0;
+        for (int i = 0; i < list.size(); i++)
+            sum += (Integer) list.get(i);
+        long read = System.nanoTime();
+        for (int i = 0; i < list.size(); i++)
+            list.set(i, i);
+        long written = System.nanoTime();
+        sink += sum + (Integer) list.get(n / 2);
+        return new long[]{appended - start, read - appended, written - read};
+    }
+
+    private static long[] boxedBools(int n) {
+        long start = System.nanoTime();
+        ArrayList<Object> list = filledBoxed(n, true);
+        long appended = System.nanoTime();
+        int count = 0;
+        for (int i = 0; i < list.size(); i++)
+            if ((Boolean) list.get(i))
+                count++;
+        long read = System.nanoTime();
+        for (int i = 0; i < list.size(); i++)
+            list.set(i, (i & 1) == 0);
+        long written = System.nanoTime();
+        sink += count + ((Boolean) list.get(n / 2) ? 1 : 0);
+        return new long[]{appended - start, read - appended, written - read};
+    }
+}
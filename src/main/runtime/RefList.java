@@ -0,0 +1,60 @@
+package main.runtime;
+
+import java.util.Arrays;
+
+//list of structs, lists or fptrs: a growable Object[] without the modification checks of ArrayList
+public final class RefList<T> implements CmmList {
+    private Object[] elements;
+    private int size;
+
+    public RefList() {
+        this(8);
+    }
+
+    public RefList(int capacity) {
+        elements = new Object[Math.max(1, capacity)];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public void add(T value) {
+        if (size == elements.length)
+            elements = Arrays.copyOf(elements, size * 2);
+        elements[size++] = value;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        return (T) elements[index];
+    }
+
+    //returns value, so an assignment can be used as an expression
+    public T set(int index, T value) {
+        elements[index] = value;
+        return value;
+    }
+
+    @Override
+    public Object getBoxed(int index) {
+        return elements[index];
+    }
+
+    @Override
+    public void setBoxed(int index, Object value) {
+        elements[index] = value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void addBoxed(Object value) {
+        add((T) value);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(Arrays.copyOf(elements, size));
+    }
+}
@@ -18,18 +18,29 @@ public class SymbolTable {
 
     //Start of static members
 
-    public static SymbolTable top;
+    //root is shared by all threads, the scope stack belongs to the thread that pushed it
     public static SymbolTable root;
-    private static Stack<SymbolTable> stack = new Stack<>();
+    private static final ThreadLocal<Scopes> scopes = ThreadLocal.withInitial(Scopes::new);
+
+    private static class Scopes {
+        private SymbolTable top;
+        private final Stack<SymbolTable> stack = new Stack<>();
+    }
+
+    public static SymbolTable top() {
+        return scopes.get().top;
+    }
 
     public static void push(SymbolTable symbolTable) {
-        if (top != null)
-            stack.push(top);
-        top = symbolTable;
+        Scopes threadScopes = scopes.get();
+        if (threadScopes.top != null)
+            threadScopes.stack.push(threadScopes.top);
+        threadScopes.top = symbolTable;
     }
 
     public static void pop() {
-        top = stack.pop();
+        Scopes threadScopes = scopes.get();
+        threadScopes.top = threadScopes.stack.pop();
     }
 
     //End of static members
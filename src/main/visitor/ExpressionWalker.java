@@ -0,0 +1,120 @@
+package main.visitor;
+
+import main.ast.nodes.expression.BinaryExpression;
+import main.ast.nodes.expression.ExprInPar;
+import main.ast.nodes.expression.Expression;
+import main.ast.nodes.expression.UnaryExpression;
+
+import java.util.ArrayList;
+
+//Walks nested BinaryExpression, UnaryExpression and ExprInPar chains with an explicit stack instead of
+//recursing through accept(), so the depth of an expression doesn't grow the thread stack.
+//Any other expression, and any operator isWalked turns down, is handed to visitLeaf, which usually
+//delegates to accept().
+//Operands are visited left to right and each operator node is finished after its operands (post-order).
+//walk() is reentrant: a leaf may start another walk on the same walker. Its root must be an operator
+//isWalked accepts, or visitLeaf would hand it back to the visitor that started the walk.
+public abstract class ExpressionWalker<T> {
+    private final ArrayList<Expression> nodes = new ArrayList<>();
+    private final ArrayList<Integer> nextOperands = new ArrayList<>();
+    private final ArrayList<T> values = new ArrayList<>();
+
+    //called on an operator node before its operands are walked
+    protected void enter(Expression expression) {
+    }
+
+    //called on an operator node before each operand after the first is walked, so code generators can
+    //write infix operators in place
+    protected void between(Expression expression, int operand) {
+    }
+
+    protected abstract T visitLeaf(Expression expression);
+
+    protected abstract T visitBinary(BinaryExpression binaryExpression, T firstOperand, T secondOperand);
+
+    protected abstract T visitUnary(UnaryExpression unaryExpression, T operand);
+
+    protected abstract T visitExprInPar(ExprInPar exprInPar, ArrayList<T> inputs);
+
+    //whether an operator node is walked; engines that evaluate &, | or = in an order of their own visit
+    //them as leaves
+    protected boolean isWalked(Expression expression) {
+        return true;
+    }
+
+    //number of inputs of exprInPar that are walked, starting from the first
+    protected int walkedInputs(ExprInPar exprInPar) {
+        return exprInPar.getInputs().size();
+    }
+
+    public T walk(Expression root) {
+        int base = nodes.size();
+        push(root);
+        while (nodes.size() > base) {
+            int top = nodes.size() - 1;
+            Expression node = nodes.get(top);
+            int next = nextOperands.get(top);
+            if (next < operandCount(node)) {
+                nextOperands.set(top, next + 1);
+                if (next > 0)
+                    between(node, next);
+                push(operand(node, next));
+            } else {
+                nodes.remove(top);
+                nextOperands.remove(top);
+                values.add(finish(node));
+            }
+        }
+        return values.remove(values.size() - 1);
+    }
+
+    private static boolean isOperator(Expression expression) {
+        return expression instanceof BinaryExpression
+                || expression instanceof UnaryExpression
+                || expression instanceof ExprInPar;
+    }
+
+    private void push(Expression expression) {
+        if (isOperator(expression) && isWalked(expression)) {
+            enter(expression);
+            nodes.add(expression);
+            nextOperands.add(0);
+        } else {
+            values.add(visitLeaf(expression));
+        }
+    }
+
+    private int operandCount(Expression expression) {
+        if (expression instanceof BinaryExpression)
+            return 2;
+        if (expression instanceof UnaryExpression)
+            return 1;
+        return walkedInputs((ExprInPar) expression);
+    }
+
+    private static Expression operand(Expression expression, int index) {
+        if (expression instanceof BinaryExpression) {
+            BinaryExpression binaryExpression = (BinaryExpression) expression;
+            return index == 0 ? binaryExpression.getFirstOperand() : binaryExpression.getSecondOperand();
+        }
+        if (expression instanceof UnaryExpression)
+            return ((UnaryExpression) expression).getOperand();
+        return ((ExprInPar) expression).getInputs().get(index);
+    }
+
+    private T finish(Expression expression) {
+        int last = values.size() - 1;
+        if (expression instanceof BinaryExpression) {
+            T second = values.remove(last);
+            T first = values.remove(last - 1);
+            return visitBinary((BinaryExpression) expression, first, second);
+        }
+        if (expression instanceof UnaryExpression)
+            return visitUnary((UnaryExpression) expression, values.remove(last));
+        ExprInPar exprInPar = (ExprInPar) expression;
+        int count = walkedInputs(exprInPar);
+        ArrayList<T> inputs = new ArrayList<>(values.subList(values.size() - count, values.size()));
+        values.subList(values.size() - count, values.size()).clear();
+        return visitExprInPar(exprInPar, inputs);
+    }
+}
@@ -0,0 +1,123 @@
+package main.visitor;
+
+import main.ast.nodes.expression.*;
+import main.ast.nodes.expression.operators.BinaryOperator;
+import main.ast.nodes.expression.operators.UnaryOperator;
+import main.ast.nodes.expression.values.primitive.IntValue;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+//Time per node to evaluate random expression trees with a SwitchVisitor that recurses with dispatch() and
+//with the same visitor recursing with accept(). The trees mix binary, unary, parenthesized, identifier
+//and int nodes, so the accept() calls see several node classes like they do in the checkers.
+//usage: SwitchDispatchBenchmark [trees, default 20000] [rounds, default 20]
+public class SwitchDispatchBenchmark {
+    private static final BinaryOperator[] operators = {BinaryOperator.add, BinaryOperator.sub, BinaryOperator.mult};
+    private static int sink;
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        Random random = new Random(42);
+        Expression[] trees = new Expression[n];
+        int[] nodes = new int[1];
+        for (int i = 0; i < n; i++)
+            trees[i] = tree(random, 8, nodes);
+        Evaluator dispatching = new Evaluator(true);
+        Evaluator accepting = new Evaluator(false);
+
+        System.out.printf("%d nodes%n", nodes[0]);
+        System.out.printf("%-14s %12s%n", "recursion", "ns/node");
+        //first half of the rounds is warm up
+        for (int round = 0; round < 2; round++) {
+            long dispatchTime = 0;
+            long acceptTime = 0;
+            for (int i = 0; i < rounds; i++) {
+                long start = System.nanoTime();
+                for (Expression tree : trees)
+                    sink += dispatching.dispatch(tree);
+                dispatchTime += System.nanoTime() - start;
+
+                start = System.nanoTime();
+                for (Expression tree : trees)
+                    sink += tree.accept(accepting);
+                acceptTime += System.nanoTime() - start;
+            }
+            if (round == 1) {
+                System.out.printf("%-14s %12.2f%n", "dispatch()", (double) dispatchTime / nodes[0] / rounds);
+                System.out.printf("%-14s %12.2f%n", "accept()", (double) acceptTime / nodes[0] / rounds);
+            }
+        }
+        if (sink == 42)
+            System.out.println();
+    }
+
+    private static Expression tree(Random random, int depth, int[] nodes) {
+        nodes[0]++;
+        int shape = depth == 0 ? 3 + random.nextInt(2) : random.nextInt(5);
+        switch (shape) {
+            case 0:
+            case 1:
+                return new BinaryExpression(tree(random, depth - 1, nodes), tree(random, depth - 1, nodes),
+                        operators[random.nextInt(operators.length)]);
+            case 2:
+                if (random.nextBoolean())
+                    return new UnaryExpression(tree(random, depth - 1, nodes), UnaryOperator.minus);
+                ArrayList<Expression> inputs = new ArrayList<>();
+                inputs.add(tree(random, depth - 1, nodes));
+                return new ExprInPar(inputs);
+            case 3:
+                return new Identifier("x");
+            default:
+                return new IntValue(random.nextInt(10));
+        }
+    }
+
+    //values stay within the Integer cache, so both ways box the same
+    private static class Evaluator extends SwitchVisitor<Integer> {
+        private final boolean useDispatch;
+
+        Evaluator(boolean useDispatch) {
+            this.useDispatch = useDispatch;
+        }
+
+        private int evaluate(Expression expression) {
+            return useDispatch ? dispatch(expression) : expression.accept(this);
+        }
+
+        @Override
+        public Integer visit(BinaryExpression binaryExpression) {
+            int a = evaluate(binaryExpression.getFirstOperand());
+            int b = evaluate(binaryExpression.getSecondOperand());
+            switch (binaryExpression.getBinaryOperator()) {
+                case add:
+                    return (a + b) & 63;
+                case sub:
+                    return (a - b) & 63;
+                default:
+                    return (a * b) & 63;
+            }
+        }
+
+        @Override
+        public Integer visit(UnaryExpression unaryExpression) {
+            return -evaluate(unaryExpression.getOperand()) & 63;
+        }
+
+        @Override
+        public Integer visit(ExprInPar exprInPar) {
+            return evaluate(exprInPar.getInputs().get(0));
+        }
+
+        @Override
+        public Integer visit(Identifier identifier) {
+            return 1;
+        }
+
+        @Override
+        public Integer visit(IntValue intValue) {
+            return intValue.getConstant();
+        }
+    }
+}
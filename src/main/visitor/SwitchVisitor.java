@@ -0,0 +1,76 @@
+package main.visitor;
+
+import main.ast.nodes.Node;
+import main.ast.nodes.Program;
+import main.ast.nodes.declaration.*;
+import main.ast.nodes.declaration.struct.StructDeclaration;
+import main.ast.nodes.expression.*;
+import main.ast.nodes.expression.values.primitive.*;
+import main.ast.nodes.statement.*;
+
+//Visitor that can be driven by dispatch() instead of node.accept(): the visit method is picked with a
+//switch on the node's NodeKind, so no virtual accept() call is made per node.
+//Subclasses recurse with dispatch(child) in place of child.accept(this).
+public class SwitchVisitor<T> extends Visitor<T> {
+
+    public T dispatch(Node node) {
+        switch (node.getNodeKind()) {
+            case PROGRAM:
+                return visit((Program) node);
+            case FUNCTION_DECLARATION:
+                return visit((FunctionDeclaration) node);
+            case MAIN_DECLARATION:
+                return visit((MainDeclaration) node);
+            case VARIABLE_DECLARATION:
+                return visit((VariableDeclaration) node);
+            case STRUCT_DECLARATION:
+                return visit((StructDeclaration) node);
+            case SET_GET_VAR_DECLARATION:
+                return visit((SetGetVarDeclaration) node);
+            case ASSIGNMENT_STMT:
+                return visit((AssignmentStmt) node);
+            case BLOCK_STMT:
+                return visit((BlockStmt) node);
+            case CONDITIONAL_STMT:
+                return visit((ConditionalStmt) node);
+            case FUNCTION_CALL_STMT:
+                return visit((FunctionCallStmt) node);
+            case DISPLAY_STMT:
+                return visit((DisplayStmt) node);
+            case RETURN_STMT:
+                return visit((ReturnStmt) node);
+            case LOOP_STMT:
+                return visit((LoopStmt) node);
+            case VAR_DEC_STMT:
+                return visit((VarDecStmt) node);
+            case LIST_APPEND_STMT:
+                return visit((ListAppendStmt) node);
+            case LIST_SIZE_STMT:
+                return visit((ListSizeStmt) node);
+            case BINARY_EXPRESSION:
+                return visit((BinaryExpression) node);
+            case UNARY_EXPRESSION:
+                return visit((UnaryExpression) node);
+            case FUNCTION_CALL:
+                return visit((FunctionCall) node);
+            case IDENTIFIER:
+                return visit((Identifier) node);
+            case LIST_ACCESS_BY_INDEX:
+                return visit((ListAccessByIndex) node);
+            case STRUCT_ACCESS:
+                return visit((StructAccess) node);
+            case LIST_SIZE:
+                return visit((ListSize) node);
+            case LIST_APPEND:
+                return visit((ListAppend) node);
+            case EXPR_IN_PAR:
+                return visit((ExprInPar) node);
+            case INT_VALUE:
+                return visit((IntValue) node);
+            case BOOL_VALUE:
+                return visit((BoolValue) node);
+            default:
+                throw new IllegalStateException("Unknown node kind " + node.getNodeKind());
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package main.visitor.fusion;
+
+import main.ast.nodes.Node;
+import main.compileError.CompileError;
+
+import java.util.ArrayList;
+
+//Takes the errors attached to the nodes, in the order FusedTraversal reaches them, without printing them
+public class ErrorCollectingPass implements TraversalPass {
+    private final ArrayList<CompileError> errors = new ArrayList<>();
+
+    public ArrayList<CompileError> getErrors() {
+        return errors;
+    }
+
+    @Override
+    public void enter(Node node) {
+        errors.addAll(node.flushErrors());
+    }
+}
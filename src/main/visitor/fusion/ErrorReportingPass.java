@@ -0,0 +1,24 @@
+package main.visitor.fusion;
+
+import main.ast.nodes.Node;
+import main.compileError.CompileError;
+
+import java.util.ArrayList;
+
+//Prints and counts the errors attached to the nodes, in the order FusedTraversal reaches them
+public class ErrorReportingPass implements TraversalPass {
+    private int numberOfErrors = 0;
+
+    public int getNumberOfErrors() {
+        return numberOfErrors;
+    }
+
+    @Override
+    public void enter(Node node) {
+        ArrayList<CompileError> errors = node.flushErrors();
+        for (CompileError compileErrorException : errors) {
+            System.out.println(compileErrorException.getMessage());
+        }
+        numberOfErrors += errors.size();
+    }
+}
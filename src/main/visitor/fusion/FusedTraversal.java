@@ -0,0 +1,318 @@
+package main.visitor.fusion;
+
+import main.ast.nodes.Node;
+import main.ast.nodes.Program;
+import main.ast.nodes.declaration.FunctionDeclaration;
+import main.ast.nodes.declaration.MainDeclaration;
+import main.ast.nodes.declaration.VariableDeclaration;
+import main.ast.nodes.declaration.struct.StructDeclaration;
+import main.ast.nodes.expression.*;
+import main.ast.nodes.expression.values.primitive.BoolValue;
+import main.ast.nodes.expression.values.primitive.IntValue;
+import main.ast.nodes.statement.*;
+import main.visitor.ExpressionWalker;
+import main.visitor.Visitor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+//Runs any number of independent passes in a single walk over a Program. Nodes are reached in source order,
+//each before its children (including the variable declaration of a SetGetVarDeclaration), which is the
+//order errors are reported in; at every node the passes are entered in the given order and exited in
+//reverse order.
+public class FusedTraversal extends Visitor<Void> {
+    private final TraversalPass[] passes;
+
+    private final ExpressionWalker<Void> operatorWalker = new ExpressionWalker<>() {
+        @Override
+        protected void enter(Expression expression) {
+            enterPasses(expression);
+        }
+
+        @Override
+        protected Void visitLeaf(Expression expression) {
+            return expression.accept(FusedTraversal.this);
+        }
+
+        @Override
+        protected Void visitBinary(BinaryExpression binaryExpression, Void firstOperand, Void secondOperand) {
+            exitPasses(binaryExpression);
+            return null;
+        }
+
+        @Override
+        protected Void visitUnary(UnaryExpression unaryExpression, Void operand) {
+            exitPasses(unaryExpression);
+            return null;
+        }
+
+        @Override
+        protected Void visitExprInPar(ExprInPar exprInPar, ArrayList<Void> inputs) {
+            exitPasses(exprInPar);
+            return null;
+        }
+    };
+
+    public FusedTraversal(TraversalPass... passes) {
+        this.passes = passes;
+    }
+
+    public FusedTraversal(List<TraversalPass> passes) {
+        this(passes.toArray(new TraversalPass[0]));
+    }
+
+    public List<TraversalPass> getPasses() {
+        return Arrays.asList(passes);
+    }
+
+    public void run(Program program) {
+        for (TraversalPass pass : passes)
+            pass.start(program);
+        program.accept(this);
+        for (TraversalPass pass : passes)
+            pass.finish(program);
+    }
+
+    private void enterPasses(Node node) {
+        for (TraversalPass pass : passes)
+            pass.enter(node);
+    }
+
+    private void exitPasses(Node node) {
+        for (int i = passes.length - 1; i >= 0; i--)
+            passes[i].exit(node);
+    }
+
+    @Override
+    public Void visit(Program program) {
+        enterPasses(program);
+        for (StructDeclaration structDeclaration : program.getStructs())
+            structDeclaration.accept(this);
+        for (FunctionDeclaration functionDeclaration : program.getFunctions())
+            functionDeclaration.accept(this);
+        visit(program.getMain());
+        exitPasses(program);
+        return null;
+    }
+
+    @Override
+    public Void visit(FunctionDeclaration functionDec) {
+        enterPasses(functionDec);
+        functionDec.getFunctionName().accept(this);
+        for (VariableDeclaration arg : functionDec.getArgs())
+            arg.accept(this);
+        functionDec.getBody().accept(this);
+        exitPasses(functionDec);
+        return null;
+    }
+
+    @Override
+    public Void visit(MainDeclaration mainDec) {
+        enterPasses(mainDec);
+        mainDec.getBody().accept(this);
+        exitPasses(mainDec);
+        return null;
+    }
+
+    @Override
+    public Void visit(VariableDeclaration variableDec) {
+        enterPasses(variableDec);
+        variableDec.getVarName().accept(this);
+        if (variableDec.getDefaultValue() != null)
+            variableDec.getDefaultValue().accept(this);
+        exitPasses(variableDec);
+        return null;
+    }
+
+    @Override
+    public Void visit(StructDeclaration structDec) {
+        enterPasses(structDec);
+        structDec.getStructName().accept(this);
+        structDec.getBody().accept(this);
+        exitPasses(structDec);
+        return null;
+    }
+
+    @Override
+    public Void visit(SetGetVarDeclaration setGetVarDec) {
+        enterPasses(setGetVarDec);
+        setGetVarDec.getVarDec().accept(this);
+        setGetVarDec.getVarName().accept(this);
+        for (VariableDeclaration varDec : setGetVarDec.getArgs())
+            varDec.accept(this);
+        setGetVarDec.getSetterBody().accept(this);
+        setGetVarDec.getGetterBody().accept(this);
+        exitPasses(setGetVarDec);
+        return null;
+    }
+
+    @Override
+    public Void visit(AssignmentStmt assignmentStmt) {
+        enterPasses(assignmentStmt);
+        assignmentStmt.getLValue().accept(this);
+        assignmentStmt.getRValue().accept(this);
+        exitPasses(assignmentStmt);
+        return null;
+    }
+
+    @Override
+    public Void visit(BlockStmt blockStmt) {
+        enterPasses(blockStmt);
+        for (Statement stmt : blockStmt.getStatements())
+            stmt.accept(this);
+        exitPasses(blockStmt);
+        return null;
+    }
+
+    @Override
+    public Void visit(ConditionalStmt conditionalStmt) {
+        enterPasses(conditionalStmt);
+        conditionalStmt.getCondition().accept(this);
+        conditionalStmt.getThenBody().accept(this);
+        if (conditionalStmt.getElseBody() != null)
+            conditionalStmt.getElseBody().accept(this);
+        exitPasses(conditionalStmt);
+        return null;
+    }
+
+    @Override
+    public Void visit(FunctionCallStmt functionCallStmt) {
+        enterPasses(functionCallStmt);
+        functionCallStmt.getFunctionCall().accept(this);
+        exitPasses(functionCallStmt);
+        return null;
+    }
+
+    @Override
+    public Void visit(DisplayStmt displayStmt) {
+        enterPasses(displayStmt);
+        displayStmt.getArg().accept(this);
+        exitPasses(displayStmt);
+        return null;
+    }
+
+    @Override
+    public Void visit(ReturnStmt returnStmt) {
+        enterPasses(returnStmt);
+        if (returnStmt.getReturnedExpr() != null)
+            returnStmt.getReturnedExpr().accept(this);
+        exitPasses(returnStmt);
+        return null;
+    }
+
+    @Override
+    public Void visit(LoopStmt loopStmt) {
+        enterPasses(loopStmt);
+        loopStmt.getCondition().accept(this);
+        loopStmt.getBody().accept(this);
+        exitPasses(loopStmt);
+        return null;
+    }
+
+    @Override
+    public Void visit(VarDecStmt varDecStmt) {
+        enterPasses(varDecStmt);
+        for (VariableDeclaration varDec : varDecStmt.getVars())
+            varDec.accept(this);
+        exitPasses(varDecStmt);
+        return null;
+    }
+
+    @Override
+    public Void visit(ListAppendStmt listAppendStmt) {
+        enterPasses(listAppendStmt);
+        listAppendStmt.getListAppendExpr().accept(this);
+        exitPasses(listAppendStmt);
+        return null;
+    }
+
+    @Override
+    public Void visit(ListSizeStmt listSizeStmt) {
+        enterPasses(listSizeStmt);
+        listSizeStmt.getListSizeExpr().accept(this);
+        exitPasses(listSizeStmt);
+        return null;
+    }
+
+    @Override
+    public Void visit(BinaryExpression binaryExpression) {
+        return operatorWalker.walk(binaryExpression);
+    }
+
+    @Override
+    public Void visit(UnaryExpression unaryExpression) {
+        return operatorWalker.walk(unaryExpression);
+    }
+
+    @Override
+    public Void visit(FunctionCall funcCall) {
+        enterPasses(funcCall);
+        funcCall.getInstance().accept(this);
+        for (Expression arg : funcCall.getArgs())
+            arg.accept(this);
+        exitPasses(funcCall);
+        return null;
+    }
+
+    @Override
+    public Void visit(Identifier identifier) {
+        enterPasses(identifier);
+        exitPasses(identifier);
+        return null;
+    }
+
+    @Override
+    public Void visit(ListAccessByIndex listAccessByIndex) {
+        enterPasses(listAccessByIndex);
+        listAccessByIndex.getInstance().accept(this);
+        listAccessByIndex.getIndex().accept(this);
+        exitPasses(listAccessByIndex);
+        return null;
+    }
+
+    @Override
+    public Void visit(StructAccess structAccess) {
+        enterPasses(structAccess);
+        structAccess.getInstance().accept(this);
+        structAccess.getElement().accept(this);
+        exitPasses(structAccess);
+        return null;
+    }
+
+    @Override
+    public Void visit(ListSize listSize) {
+        enterPasses(listSize);
+        listSize.getArg().accept(this);
+        exitPasses(listSize);
+        return null;
+    }
+
+    @Override
+    public Void visit(ListAppend listAppend) {
+        enterPasses(listAppend);
+        listAppend.getListArg().accept(this);
+        listAppend.getElementArg().accept(this);
+        exitPasses(listAppend);
+        return null;
+    }
+
+    @Override
+    public Void visit(ExprInPar exprInPar) {
+        return operatorWalker.walk(exprInPar);
+    }
+
+    @Override
+    public Void visit(IntValue intValue) {
+        enterPasses(intValue);
+        exitPasses(intValue);
+        return null;
+    }
+
+    @Override
+    public Void visit(BoolValue boolValue) {
+        enterPasses(boolValue);
+        exitPasses(boolValue);
+        return null;
+    }
+}
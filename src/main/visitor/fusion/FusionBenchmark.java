@@ -0,0 +1,105 @@
+package main.visitor.fusion;
+
+import main.CmmCompiler;
+import main.ast.nodes.Node;
+import main.ast.nodes.Program;
+import main.ast.nodes.expression.Identifier;
+import main.visitor.optimize.NodeCounter;
+import org.antlr.v4.runtime.CharStreams;
+
+//Time to run 1 to 4 passes over a checked program of n generated functions, each pass in a walk of its own
+//and all of them in one FusedTraversal. The passes are ErrorCollectingPass, NodeCounter and two that count
+//identifiers and the deepest nesting.
+//usage: FusionBenchmark [functions, default 20000] [rounds, default 10]
+public class FusionBenchmark {
+    private static int sink;
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        CmmCompiler cmmCompiler = new CmmCompiler();
+        Program program = cmmCompiler.parse(CharStreams.fromString(generate(n)));
+        if (!cmmCompiler.check(program).isEmpty()) {
+            System.out.println("the generated program doesn't compile");
+            return;
+        }
+
+        System.out.printf("%-8s %14s %14s%n", "passes", "sequential ms", "fused ms");
+        //first half of the rounds is warm up
+        for (int round = 0; round < 2; round++) {
+            for (int count = 1; count <= 4; count++) {
+                long sequentialTime = 0;
+                long fusedTime = 0;
+                for (int i = 0; i < rounds; i++) {
+                    TraversalPass[] passes = passes(count);
+                    long start = System.nanoTime();
+                    for (TraversalPass pass : passes)
+                        new FusedTraversal(pass).run(program);
+                    sequentialTime += System.nanoTime() - start;
+                    sink += passes.length;
+
+                    passes = passes(count);
+                    start = System.nanoTime();
+                    new FusedTraversal(passes).run(program);
+                    fusedTime += System.nanoTime() - start;
+                    sink += passes.length;
+                }
+                if (round == 1)
+                    System.out.printf("%-8d %14.2f %14.2f%n", count, sequentialTime / 1e6 / rounds, fusedTime / 1e6 / rounds);
+            }
+        }
+        if (sink == 42)
+            System.out.println();
+    }
+
+    //the functions ParseHeapBenchmark generates
+    private static String generate(int functions) {
+        StringBuilder source = new StringBuilder();
+        for (int i = 0; i < functions; i++)
+            source.append("int f").append(i).append("(int a, bool b) begin\n")
+                    .append("    int x = a * 2 + (a - 3) / 4\n")
+                    .append("    if ~b & (x > 3 | x == 4)\n")
+                    .append("        display(-x)\n")
+                    .append("    while x < 10\n")
+                    .append("        x = x + 1\n")
+                    .append("    return x\n")
+                    .append("end\n\n");
+        return source.append("main() begin\n    display(1)\nend\n").toString();
+    }
+
+    private static TraversalPass[] passes(int count) {
+        TraversalPass[] passes = {new ErrorCollectingPass(), new NodeCounter(), new IdentifierCounter(), new DepthCounter()};
+        TraversalPass[] first = new TraversalPass[count];
+        System.arraycopy(passes, 0, first, 0, count);
+        return first;
+    }
+
+    private static class IdentifierCounter implements TraversalPass {
+        @Override
+        public void enter(Node node) {
+            if (node instanceof Identifier)
+                sink++;
+        }
+    }
+
+    private static class DepthCounter implements TraversalPass {
+        private int depth;
+        private int maxDepth;
+
+        @Override
+        public void enter(Node node) {
+            depth++;
+            maxDepth = Math.max(maxDepth, depth);
+        }
+
+        @Override
+        public void exit(Node node) {
+            depth--;
+        }
+
+        @Override
+        public void finish(Program program) {
+            sink += maxDepth;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package main.visitor.fusion;
+
+import main.ast.nodes.Node;
+import main.ast.nodes.Program;
+
+//One analysis run by FusedTraversal. A pass keeps its own state in its fields;
+//enter is called before the children of a node are walked and exit after them.
+public interface TraversalPass {
+    default void start(Program program) {
+    }
+
+    default void enter(Node node) {
+    }
+
+    default void exit(Node node) {
+    }
+
+    default void finish(Program program) {
+    }
+}
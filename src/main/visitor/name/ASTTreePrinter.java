@@ -1,5 +1,6 @@
 package main.visitor.name;
 
+import main.ast.nodes.Node;
 import main.ast.nodes.Program;
 import main.ast.nodes.declaration.FunctionDeclaration;
 import main.ast.nodes.declaration.MainDeclaration;
@@ -9,225 +10,391 @@ import main.ast.nodes.expression.*;
 import main.ast.nodes.expression.values.primitive.BoolValue;
 import main.ast.nodes.expression.values.primitive.IntValue;
 import main.ast.nodes.statement.*;
+import main.visitor.ExpressionWalker;
 import main.visitor.Visitor;
 
+import java.io.*;
+import java.util.ArrayList;
+
+//Dumps the AST one node per line through a single buffered writer. TEXT is the "Line N: Node" format,
+//COMPACT is "depth KIND line [detail]" with the NodeKind name, meant for tools.
+//Nodes are written in pieces so no String is built per node; output is flushed after a whole Program,
+//call flush() when printing anything smaller.
 public class ASTTreePrinter extends Visitor<Void> {
+    public enum Format {
+        TEXT,
+        COMPACT
+    }
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final Writer writer;
+    private final Format format;
+    private final char[] digits = new char[11];
+    private int depth = 0;
+
+    private final ExpressionWalker<Void> operatorWalker = new ExpressionWalker<>() {
+        @Override
+        protected void enter(Expression expression) {
+            if (expression instanceof BinaryExpression)
+                open(expression, "BinaryExpression", ((BinaryExpression) expression).getBinaryOperator().name());
+            else if (expression instanceof UnaryExpression)
+                open(expression, "UnaryExpression", ((UnaryExpression) expression).getOperator().name());
+            else
+                open(expression, "ExprInPar", null);
+        }
+
+        @Override
+        protected Void visitLeaf(Expression expression) {
+            return expression.accept(ASTTreePrinter.this);
+        }
+
+        @Override
+        protected Void visitBinary(BinaryExpression binaryExpression, Void firstOperand, Void secondOperand) {
+            close();
+            return null;
+        }
+
+        @Override
+        protected Void visitUnary(UnaryExpression unaryExpression, Void operand) {
+            close();
+            return null;
+        }
+
+        @Override
+        protected Void visitExprInPar(ExprInPar exprInPar, ArrayList<Void> inputs) {
+            close();
+            return null;
+        }
+    };
+
+    public ASTTreePrinter() {
+        this(new OutputStreamWriter(System.out), Format.TEXT);
+    }
+
+    public ASTTreePrinter(Writer writer, Format format) {
+        this.writer = writer instanceof BufferedWriter ? writer : new BufferedWriter(writer, BUFFER_SIZE);
+        this.format = format;
+    }
+
     public void messagePrinter(int line, String message){
-        System.out.println("Line " + line + ": " + message);
+        try {
+            writer.write("Line ");
+            writeInt(line);
+            writer.write(": ");
+            writer.write(message);
+            writer.write(LINE_SEPARATOR);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void flush() {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeInt(int value) throws IOException {
+        if (value == Integer.MIN_VALUE) {
+            writer.write(Integer.toString(value));
+            return;
+        }
+        int position = digits.length;
+        boolean negative = value < 0;
+        if (negative)
+            value = -value;
+        do {
+            digits[--position] = (char) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        if (negative)
+            digits[--position] = '-';
+        writer.write(digits, position, digits.length - position);
+    }
+
+    private void writeHeader(Node node, String label) throws IOException {
+        if (format == Format.TEXT) {
+            writer.write("Line ");
+            writeInt(node.getLine());
+            writer.write(": ");
+            writer.write(label);
+        } else {
+            writeInt(depth);
+            writer.write(' ');
+            writer.write(node.getNodeKind().name());
+            writer.write(' ');
+            writeInt(node.getLine());
+        }
+    }
+
+    private void writeDetailSeparator() throws IOException {
+        writer.write(format == Format.TEXT ? '_' : ' ');
+    }
+
+    //writes the line of node and descends into it; every open is matched by a close after the children
+    private void open(Node node, String label, String detail) {
+        try {
+            writeHeader(node, label);
+            if (detail != null) {
+                writeDetailSeparator();
+                writer.write(detail);
+            }
+            writer.write(LINE_SEPARATOR);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        depth++;
+    }
+
+    private void open(Node node, String label, int detail) {
+        try {
+            writeHeader(node, label);
+            writeDetailSeparator();
+            writeInt(detail);
+            writer.write(LINE_SEPARATOR);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        depth++;
+    }
+
+    private void close() {
+        depth--;
     }
 
     @Override
     public Void visit(Program program) {
-        messagePrinter(program.getLine(), program.toString());
+        open(program, "Program", null);
         for (StructDeclaration structDeclaration: program.getStructs())
             structDeclaration.accept(this);
         for (FunctionDeclaration functionDeclaration:program.getFunctions())
             functionDeclaration.accept(this);
-        program.getMain().accept(this);
+        visit(program.getMain());
+        close();
+        flush();
         return null;
     }
 
     @Override
     public Void visit(FunctionDeclaration functionDec) {
-        messagePrinter(functionDec.getLine(), functionDec.toString());
+        open(functionDec, "FunctionDeclaration", functionDec.getFunctionName().getName());
         functionDec.getFunctionName().accept(this);
         for (VariableDeclaration arg: functionDec.getArgs())
             arg.accept(this);
         functionDec.getBody().accept(this);
+        close();
         return null;
     }
 
     @Override
     public Void visit(MainDeclaration mainDec) {
-        messagePrinter(mainDec.getLine(), mainDec.toString());
+        open(mainDec, "MainDeclaration", null);
         mainDec.getBody().accept(this);
+        close();
         return null;
     }
 
     @Override
     public Void visit(VariableDeclaration variableDec) {
-        messagePrinter(variableDec.getLine(), variableDec.toString());
+        open(variableDec, "VarDeclaration", variableDec.getVarName().getName());
         variableDec.getVarName().accept(this);
         if ( variableDec.getDefaultValue() != null)
             variableDec.getDefaultValue().accept(this);
+        close();
         return null;
     }
 
     @Override
     public Void visit(StructDeclaration structDec) {
-        messagePrinter(structDec.getLine(), structDec.toString());
+        open(structDec, "StructDeclaration", structDec.getStructName().getName());
         structDec.getStructName().accept(this);
         structDec.getBody().accept(this);
+        close();
         return null;
     }
 
     @Override
     public Void visit(SetGetVarDeclaration setGetVarDec) {
-        messagePrinter(setGetVarDec.getLine(), setGetVarDec.toString());
+        open(setGetVarDec, "SetGetVarDeclaration", setGetVarDec.getVarName().getName());
         setGetVarDec.getVarName().accept(this);
         for (VariableDeclaration varDec: setGetVarDec.getArgs())
             varDec.accept(this);
         setGetVarDec.getSetterBody().accept(this);
         setGetVarDec.getGetterBody().accept(this);
+        close();
         return null;
     }
 
     @Override
     public Void visit(AssignmentStmt assignmentStmt) {
-        messagePrinter(assignmentStmt.getLine(), assignmentStmt.toString());
+        open(assignmentStmt, "AssignmentStmt", null);
         assignmentStmt.getLValue().accept(this);
         assignmentStmt.getRValue().accept(this);
+        close();
         return null;
     }
 
     @Override
     public Void visit(BlockStmt blockStmt) {
-        messagePrinter(blockStmt.getLine(), blockStmt.toString());
+        open(blockStmt, "BlockStmt", null);
         for (Statement stmt: blockStmt.getStatements())
             stmt.accept(this);
+        close();
         return null;
     }
 
     @Override
     public Void visit(ConditionalStmt conditionalStmt) {
-        messagePrinter(conditionalStmt.getLine(), conditionalStmt.toString());
+        open(conditionalStmt, "ConditionalStmt", null);
         conditionalStmt.getCondition().accept(this);
         conditionalStmt.getThenBody().accept(this);
         if (conditionalStmt.getElseBody() != null)
             conditionalStmt.getElseBody().accept(this);
+        close();
         return null;
     }
 
     @Override
     public Void visit(FunctionCallStmt functionCallStmt) {
-        messagePrinter(functionCallStmt.getLine(), functionCallStmt.toString());
+        open(functionCallStmt, "FunctionCallStmt", null);
         functionCallStmt.getFunctionCall().accept(this);
+        close();
         return null;
     }
 
     @Override
     public Void visit(DisplayStmt displayStmt) {
-        messagePrinter(displayStmt.getLine(), displayStmt.toString());
+        open(displayStmt, "DisplayStmt", null);
         displayStmt.getArg().accept(this);
+        close();
         return null;
     }
 
     @Override
     public Void visit(ReturnStmt returnStmt) {
-        messagePrinter(returnStmt.getLine(), returnStmt.toString());
+        open(returnStmt, "ReturnStmt", null);
         if (returnStmt.getReturnedExpr() != null)
             returnStmt.getReturnedExpr().accept(this);
+        close();
         return null;
     }
 
     @Override
     public Void visit(LoopStmt loopStmt) {
-        messagePrinter(loopStmt.getLine(), loopStmt.toString());
+        open(loopStmt, "LoopStmt", null);
         loopStmt.getCondition().accept(this);
         loopStmt.getBody().accept(this);
+        close();
         return null;
     }
 
     @Override
     public Void visit(VarDecStmt varDecStmt) {
-        messagePrinter(varDecStmt.getLine(), varDecStmt.toString());
+        open(varDecStmt, "VarDecStmt", null);
         for(VariableDeclaration varDec: varDecStmt.getVars())
             varDec.accept(this);
+        close();
         return null;
     }
 
     @Override
     public Void visit(ListAppendStmt listAppendStmt) {
-        messagePrinter(listAppendStmt.getLine(), listAppendStmt.toString());
+        open(listAppendStmt, "AppendStmt", null);
         listAppendStmt.getListAppendExpr().accept(this);
+        close();
         return null;
     }
 
     @Override
     public Void visit(ListSizeStmt listSizeStmt) {
-        messagePrinter(listSizeStmt.getLine(), listSizeStmt.toString());
+        open(listSizeStmt, "SizeStmt", null);
         listSizeStmt.getListSizeExpr().accept(this);
+        close();
         return null;
     }
 
     @Override
     public Void visit(BinaryExpression binaryExpression) {
-        messagePrinter(binaryExpression.getLine(), binaryExpression.toString());
-        binaryExpression.getFirstOperand().accept(this);
-        binaryExpression.getSecondOperand().accept(this);
-        return null;
+        return operatorWalker.walk(binaryExpression);
     }
 
     @Override
     public Void visit(UnaryExpression unaryExpression) {
-        messagePrinter(unaryExpression.getLine(), unaryExpression.toString());
-        unaryExpression.getOperand().accept(this);
-        return null;
+        return operatorWalker.walk(unaryExpression);
     }
 
     @Override
     public Void visit(FunctionCall funcCall) {
-        messagePrinter(funcCall.getLine(), funcCall.toString());
+        open(funcCall, "FunctionCall", null);
         funcCall.getInstance().accept(this);
         for (Expression arg: funcCall.getArgs())
             arg.accept(this);
+        close();
         return null;
     }
 
     @Override
     public Void visit(Identifier identifier) {
-        messagePrinter(identifier.getLine(), identifier.toString());
+        open(identifier, "Identifier", identifier.getName());
+        close();
         return null;
     }
 
     @Override
     public Void visit(ListAccessByIndex listAccessByIndex) {
-        messagePrinter(listAccessByIndex.getLine(), listAccessByIndex.toString());
+        open(listAccessByIndex, "ListAccessByIndex", null);
         listAccessByIndex.getInstance().accept(this);
         listAccessByIndex.getIndex().accept(this);
+        close();
         return null;
     }
 
     @Override
     public Void visit(StructAccess structAccess) {
-        messagePrinter(structAccess.getLine(), structAccess.toString());
+        open(structAccess, "StructAccess", null);
         structAccess.getInstance().accept(this);
         structAccess.getElement().accept(this);
+        close();
         return null;
     }
 
     @Override
     public Void visit(ListSize listSize) {
-        messagePrinter(listSize.getLine(), listSize.toString());
+        open(listSize, "ListSize", null);
         listSize.getArg().accept(this);
+        close();
         return null;
     }
 
     @Override
     public Void visit(ListAppend listAppend) {
-        messagePrinter(listAppend.getLine(), listAppend.toString());
+        open(listAppend, "ListAppend", null);
         listAppend.getListArg().accept(this);
         listAppend.getElementArg().accept(this);
+        close();
         return null;
     }
 
     @Override
     public Void visit(ExprInPar exprInPar) {
-        messagePrinter(exprInPar.getLine(), exprInPar.toString());
-        for (Expression expression: exprInPar.getInputs())
-            expression.accept(this);
-        return null;
+        return operatorWalker.walk(exprInPar);
     }
 
     @Override
     public Void visit(IntValue intValue) {
-        messagePrinter(intValue.getLine(), intValue.toString());
+        open(intValue, "IntValue", intValue.getConstant());
+        close();
         return null;
     }
 
     @Override
     public Void visit(BoolValue boolValue) {
-        messagePrinter(boolValue.getLine(), boolValue.toString());
+        open(boolValue, "BoolValue", boolValue.getConstant() ? "true" : "false");
+        close();
         return null;
     }
 }
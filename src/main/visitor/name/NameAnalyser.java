@@ -14,6 +14,9 @@ import main.symbolTable.utils.graph.Graph;
 import main.visitor.Visitor;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 
 public class NameAnalyser extends Visitor<Void> {
 
@@ -22,6 +25,19 @@ public class NameAnalyser extends Visitor<Void> {
     private boolean isInStruct = false;
     private String curStructName;
     private final Graph<String> structHierarchy = new Graph<>();
+    //struct containment edges found in struct bodies, added to structHierarchy after all bodies are analysed
+    private final ArrayList<String> containedStructs = new ArrayList<>();
+    private final ArrayList<String> containingStructs = new ArrayList<>();
+    private final ForkJoinPool structPool;
+
+    public NameAnalyser() {
+        this(null);
+    }
+
+    //struct bodies are analysed concurrently in structPool, each by its own NameAnalyser
+    public NameAnalyser(ForkJoinPool structPool) {
+        this.structPool = structPool;
+    }
 
     private void createStructSymbolTable(StructDeclaration structDec) {
         SymbolTable newSymbolTable = new SymbolTable();
@@ -83,12 +99,13 @@ public class NameAnalyser extends Visitor<Void> {
         }
     }
 
-    @Override
-    public Void visit(Program program) {
+    //builds SymbolTable.root from the struct and function signatures and goes through the struct bodies;
+    //function bodies are only needed by analyseFunction
+    public void analyseGlobals(ArrayList<StructDeclaration> structs, ArrayList<FunctionDeclaration> functions) {
         SymbolTable root = new SymbolTable();
         SymbolTable.root = root;
         SymbolTable.push(root);
-        for (StructDeclaration structDec : program.getStructs()) {
+        for (StructDeclaration structDec : structs) {
             createStructSymbolTable(structDec);
             try {
                 structHierarchy.addNode(structDec.getStructName().getName());
@@ -97,7 +114,7 @@ public class NameAnalyser extends Visitor<Void> {
             }
         }
 
-        for (FunctionDeclaration funcDec : program.getFunctions()) {
+        for (FunctionDeclaration funcDec : functions) {
             if (hasConflict(StructSymbolTableItem.START_KEY + funcDec.getFunctionName().getName())) {
                 FunctionStructConflict exception = new FunctionStructConflict(funcDec.getLine(), funcDec.getFunctionName().getName());
                 funcDec.addError(exception);
@@ -105,32 +122,71 @@ public class NameAnalyser extends Visitor<Void> {
             createFunctionSymbolTable(funcDec);
         }
 
-        for (StructDeclaration structDec : program.getStructs()) {
+        if (structPool == null) {
+            for (StructDeclaration structDec : structs)
+                analyseStructBody(structDec);
+        } else {
+            analyseStructBodiesInParallel(structs);
+        }
+
+        for (int i = 0; i < containedStructs.size(); i++) {
             try {
-                String key = StructSymbolTableItem.START_KEY + structDec.getStructName().getName();
-                StructSymbolTableItem structSymbolTableItem = (StructSymbolTableItem) SymbolTable.root.getItem(key);
-                SymbolTable.push(structSymbolTableItem.getStructSymbolTable());
-                isInStruct = true;
-                curStructName = structDec.getStructName().getName();
-                structDec.accept(this);
-                isInStruct = false;
-                SymbolTable.pop();
-            } catch (ItemNotFoundException e) { //Unreachable
+                structHierarchy.addNodeAsParentOf(containedStructs.get(i), containingStructs.get(i));
+            }
+            catch (Exception e){//struct type that is not declared
             }
         }
+        checkCycle(structs);
+    }
 
-        checkCycle(program.getStructs());
-
-        for (FunctionDeclaration funcDec : program.getFunctions()) {
-            SymbolTable.push(new SymbolTable());
-            funcDec.accept(this);
+    //a struct body only writes to its own symbol table, SymbolTable.root is only read
+    private void analyseStructBody(StructDeclaration structDec) {
+        try {
+            String key = StructSymbolTableItem.START_KEY + structDec.getStructName().getName();
+            StructSymbolTableItem structSymbolTableItem = (StructSymbolTableItem) SymbolTable.root.getItem(key);
+            SymbolTable.push(structSymbolTableItem.getStructSymbolTable());
+            isInStruct = true;
+            curStructName = structDec.getStructName().getName();
+            structDec.accept(this);
+            isInStruct = false;
             SymbolTable.pop();
+        } catch (ItemNotFoundException e) { //Unreachable
         }
+    }
+
+    //renamed setters only have to be unique in their struct's table, so every body gets a fresh NameAnalyser;
+    //the containment edges are merged in source order
+    private void analyseStructBodiesInParallel(ArrayList<StructDeclaration> structs) {
+        List<NameAnalyser> structAnalysers = structPool.submit(() -> structs.parallelStream().map(structDec -> {
+            NameAnalyser structAnalyser = new NameAnalyser();
+            structAnalyser.analyseStructBody(structDec);
+            return structAnalyser;
+        }).collect(Collectors.toList())).join();
 
+        for (NameAnalyser structAnalyser : structAnalysers) {
+            containedStructs.addAll(structAnalyser.containedStructs);
+            containingStructs.addAll(structAnalyser.containingStructs);
+        }
+    }
+
+    public void analyseFunction(FunctionDeclaration funcDec) {
+        SymbolTable.push(new SymbolTable());
+        funcDec.accept(this);
+        SymbolTable.pop();
+    }
+
+    public void analyseMain(MainDeclaration mainDec) {
         SymbolTable.push(new SymbolTable());
-        program.getMain().accept(this);
+        mainDec.accept(this);
         SymbolTable.pop();
+    }
 
+    @Override
+    public Void visit(Program program) {
+        analyseGlobals(program.getStructs(), program.getFunctions());
+        for (FunctionDeclaration funcDec : program.getFunctions())
+            analyseFunction(funcDec);
+        analyseMain(program.getMain());
         return null;
     }
 
@@ -170,12 +226,12 @@ public class NameAnalyser extends Visitor<Void> {
 
     @Override
     public Void visit(ConditionalStmt conditionalStmt) {
-        SymbolTable ifScope = new SymbolTable(SymbolTable.top);
+        SymbolTable ifScope = new SymbolTable(SymbolTable.top());
         SymbolTable.push(ifScope);
         conditionalStmt.getThenBody().accept(this);
         SymbolTable.pop();
         if (conditionalStmt.getElseBody() != null) {
-            SymbolTable elseScope = new SymbolTable(SymbolTable.top);
+            SymbolTable elseScope = new SymbolTable(SymbolTable.top());
             SymbolTable.push(elseScope);
             conditionalStmt.getElseBody().accept(this);
             SymbolTable.pop();
@@ -185,7 +241,7 @@ public class NameAnalyser extends Visitor<Void> {
 
     @Override
     public Void visit(LoopStmt loopStmt) {
-        SymbolTable loopScope = new SymbolTable(SymbolTable.top);
+        SymbolTable loopScope = new SymbolTable(SymbolTable.top());
         SymbolTable.push(loopScope);
         loopStmt.getBody().accept(this);
         SymbolTable.pop();
@@ -214,7 +270,7 @@ public class NameAnalyser extends Visitor<Void> {
             FunctionSymbolTableItem newItem = new FunctionSymbolTableItem(funcDec);
             newItem.setFunctionSymbolTable(newSym);
             try {
-                SymbolTable.top.put(newItem);
+                SymbolTable.top().put(newItem);
             } catch (ItemAlreadyExistsException e) {
                 setGetVarDeclaration.setVarName(new Identifier(name + "@" + newId));
                 funcDec.setFunctionName(new Identifier(name + "@" + newId));
@@ -222,7 +278,7 @@ public class NameAnalyser extends Visitor<Void> {
                 FunctionSymbolTableItem fSym = new FunctionSymbolTableItem(funcDec);
                 fSym.setFunctionSymbolTable(newSym);
                 try{
-                    SymbolTable.top.put(fSym);
+                    SymbolTable.top().put(fSym);
                 }catch (ItemAlreadyExistsException e2) {//unreachable
                 }
             }
@@ -230,9 +286,9 @@ public class NameAnalyser extends Visitor<Void> {
         else {
             try {
                 String key = FunctionSymbolTableItem.START_KEY + name;
-                FunctionSymbolTableItem fItem = (FunctionSymbolTableItem) SymbolTable.top.getItem(key);
+                FunctionSymbolTableItem fItem = (FunctionSymbolTableItem) SymbolTable.top().getItem(key);
                 SymbolTable sym = fItem.getFunctionSymbolTable();
-                sym.pre = SymbolTable.top;
+                sym.pre = SymbolTable.top();
                 SymbolTable.push(sym);
                 for (VariableDeclaration arg : setGetVarDeclaration.getArgs())
                     arg.accept(this);
@@ -249,11 +305,8 @@ public class NameAnalyser extends Visitor<Void> {
 
         if(isInStruct && variableDeclaration.getVarType() instanceof StructType){
             StructType structType = (StructType) variableDeclaration.getVarType();
-            try {
-                structHierarchy.addNodeAsParentOf(structType.getStructName().getName(), curStructName);
-            }
-            catch (Exception e){//unreachable
-            }
+            containedStructs.add(structType.getStructName().getName());
+            containingStructs.add(curStructName);
         }
 
         if (hasConflict(StructSymbolTableItem.START_KEY + name)) {
@@ -268,12 +321,12 @@ public class NameAnalyser extends Visitor<Void> {
 
         VariableSymbolTableItem variableSymbolTableItem = new VariableSymbolTableItem(variableDeclaration.getVarName());
         try {
-            SymbolTable.top.getItem(variableSymbolTableItem.getKey());
+            SymbolTable.top().getItem(variableSymbolTableItem.getKey());
             DuplicateVar exception = new DuplicateVar(variableDeclaration.getLine(), name);
             variableDeclaration.addError(exception);
         } catch (ItemNotFoundException exception2) {
             try {
-                SymbolTable.top.put(variableSymbolTableItem);
+                SymbolTable.top().put(variableSymbolTableItem);
             } catch (ItemAlreadyExistsException exception3) { //unreachable
             }
         }
@@ -0,0 +1,370 @@
+package main.visitor.optimize;
+
+import main.ast.nodes.Program;
+import main.ast.nodes.declaration.FunctionDeclaration;
+import main.ast.nodes.declaration.MainDeclaration;
+import main.ast.nodes.declaration.VariableDeclaration;
+import main.ast.nodes.declaration.struct.StructDeclaration;
+import main.ast.nodes.expression.*;
+import main.ast.nodes.expression.operators.BinaryOperator;
+import main.ast.nodes.expression.operators.UnaryOperator;
+import main.ast.nodes.expression.values.primitive.BoolValue;
+import main.ast.nodes.expression.values.primitive.IntValue;
+import main.ast.nodes.statement.*;
+import main.visitor.ExpressionWalker;
+import main.visitor.Visitor;
+
+import java.util.ArrayList;
+
+//Rewrites the expressions of a checked Program in place: operators on literals become literals, identities
+//like x + 0, x * 1, b & true and ~~b drop the operator, and an ExprInPar of one expression is replaced by
+//that expression. A new literal has the line and resolved type of the expression it replaces.
+//Ints wrap like they do at run time. A division is only folded by a non zero divisor, and an operand is
+//only dropped (as in x * 0 or b & false) when evaluating it can't change anything or fail, so the
+//program displays the same and fails at the same line.
+public class ConstantFolder extends Visitor<Void> implements OptimizationPass {
+    private int rewrites;
+
+    private final ExpressionWalker<Expression> operatorWalker = new ExpressionWalker<>() {
+        @Override
+        protected Expression visitLeaf(Expression expression) {
+            expression.accept(ConstantFolder.this);
+            return expression;
+        }
+
+        @Override
+        protected Expression visitBinary(BinaryExpression binaryExpression, Expression firstOperand, Expression secondOperand) {
+            binaryExpression.setFirstOperand(firstOperand);
+            binaryExpression.setSecondOperand(secondOperand);
+            Expression folded = foldBinary(binaryExpression, firstOperand, secondOperand);
+            if (folded != binaryExpression)
+                rewrites++;
+            return folded;
+        }
+
+        @Override
+        protected Expression visitUnary(UnaryExpression unaryExpression, Expression operand) {
+            unaryExpression.setOperand(operand);
+            Expression folded = foldUnary(unaryExpression, operand);
+            if (folded != unaryExpression)
+                rewrites++;
+            return folded;
+        }
+
+        @Override
+        protected Expression visitExprInPar(ExprInPar exprInPar, ArrayList<Expression> inputs) {
+            exprInPar.setInputs(inputs);
+            if (inputs.size() != 1)
+                return exprInPar;
+            rewrites++;
+            return inputs.get(0);
+        }
+    };
+
+    @Override
+    public String getName() {
+        return "constant folding";
+    }
+
+    //number of expressions rewritten
+    @Override
+    public int run(Program program) {
+        rewrites = 0;
+        program.accept(this);
+        return rewrites;
+    }
+
+    private Expression fold(Expression expression) {
+        return expression == null ? null : operatorWalker.walk(expression);
+    }
+
+    private static Expression intValue(Expression replaced, int constant) {
+        IntValue intValue = new IntValue(constant);
+        intValue.setLine(replaced.getLine());
+        intValue.setResolvedType(replaced.getResolvedType());
+        return intValue;
+    }
+
+    private static Expression boolValue(Expression replaced, boolean constant) {
+        BoolValue boolValue = new BoolValue(constant);
+        boolValue.setLine(replaced.getLine());
+        boolValue.setResolvedType(replaced.getResolvedType());
+        return boolValue;
+    }
+
+    private static boolean isInt(Expression expression, int constant) {
+        return expression instanceof IntValue && ((IntValue) expression).getConstant() == constant;
+    }
+
+    private static boolean isBool(Expression expression, boolean constant) {
+        return expression instanceof BoolValue && ((BoolValue) expression).getConstant() == constant;
+    }
+
+    //whether evaluating the expression can't change a value, display anything or fail; operands are
+    //looked at with an explicit stack, like the walk that folds them
+    static boolean isPure(Expression root) {
+        ArrayList<Expression> work = new ArrayList<>();
+        work.add(root);
+        while (!work.isEmpty()) {
+            Expression expression = work.remove(work.size() - 1);
+            if (expression instanceof IntValue || expression instanceof BoolValue || expression instanceof Identifier)
+                continue;
+            if (expression instanceof UnaryExpression) {
+                work.add(((UnaryExpression) expression).getOperand());
+            } else if (expression instanceof BinaryExpression) {
+                BinaryExpression binaryExpression = (BinaryExpression) expression;
+                BinaryOperator operator = binaryExpression.getBinaryOperator();
+                if (operator == BinaryOperator.assign)
+                    return false;
+                if (operator == BinaryOperator.div && (!(binaryExpression.getSecondOperand() instanceof IntValue)
+                        || isInt(binaryExpression.getSecondOperand(), 0)))
+                    return false;
+                work.add(binaryExpression.getFirstOperand());
+                work.add(binaryExpression.getSecondOperand());
+            } else if (expression instanceof ExprInPar) {
+                work.addAll(((ExprInPar) expression).getInputs());
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Expression foldBinary(BinaryExpression binaryExpression, Expression first, Expression second) {
+        BinaryOperator operator = binaryExpression.getBinaryOperator();
+        if (first instanceof IntValue && second instanceof IntValue) {
+            int a = ((IntValue) first).getConstant();
+            int b = ((IntValue) second).getConstant();
+            switch (operator) {
+                case add:
+                    return intValue(binaryExpression, a + b);
+                case sub:
+                    return intValue(binaryExpression, a - b);
+                case mult:
+                    return intValue(binaryExpression, a * b);
+                case div:
+                    return b == 0 ? binaryExpression : intValue(binaryExpression, a / b);
+                case lt:
+                    return boolValue(binaryExpression, a < b);
+                case gt:
+                    return boolValue(binaryExpression, a > b);
+                case eq:
+                    return boolValue(binaryExpression, a == b);
+                default:
+                    return binaryExpression;
+            }
+        }
+        if (first instanceof BoolValue && second instanceof BoolValue && operator == BinaryOperator.eq)
+            return boolValue(binaryExpression, ((BoolValue) first).getConstant() == ((BoolValue) second).getConstant());
+
+        switch (operator) {
+            case add:
+                if (isInt(second, 0))
+                    return first;
+                if (isInt(first, 0))
+                    return second;
+                break;
+            case sub:
+                if (isInt(second, 0))
+                    return first;
+                break;
+            case mult:
+                if (isInt(second, 1))
+                    return first;
+                if (isInt(first, 1))
+                    return second;
+                if ((isInt(first, 0) && isPure(second)) || (isInt(second, 0) && isPure(first)))
+                    return intValue(binaryExpression, 0);
+                break;
+            case div:
+                if (isInt(second, 1))
+                    return first;
+                break;
+            //the second operand of & and | only runs when the first doesn't decide the result
+            case and:
+                if (isBool(first, true))
+                    return second;
+                if (isBool(first, false))
+                    return first;
+                if (isBool(second, true))
+                    return first;
+                if (isBool(second, false) && isPure(first))
+                    return second;
+                break;
+            case or:
+                if (isBool(first, false))
+                    return second;
+                if (isBool(first, true))
+                    return first;
+                if (isBool(second, false))
+                    return first;
+                if (isBool(second, true) && isPure(first))
+                    return second;
+                break;
+            case eq:
+                if (isBool(second, true))
+                    return first;
+                if (isBool(first, true))
+                    return second;
+                break;
+            default:
+                break;
+        }
+        return binaryExpression;
+    }
+
+    private static Expression foldUnary(UnaryExpression unaryExpression, Expression operand) {
+        if (unaryExpression.getOperator() == UnaryOperator.minus) {
+            if (operand instanceof IntValue)
+                return intValue(unaryExpression, -((IntValue) operand).getConstant());
+            if (operand instanceof UnaryExpression && ((UnaryExpression) operand).getOperator() == UnaryOperator.minus)
+                return ((UnaryExpression) operand).getOperand();
+            return unaryExpression;
+        }
+        if (operand instanceof BoolValue)
+            return boolValue(unaryExpression, !((BoolValue) operand).getConstant());
+        if (operand instanceof UnaryExpression && ((UnaryExpression) operand).getOperator() == UnaryOperator.not)
+            return ((UnaryExpression) operand).getOperand();
+        return unaryExpression;
+    }
+
+    @Override
+    public Void visit(Program program) {
+        for (StructDeclaration structDec : program.getStructs())
+            structDec.accept(this);
+        for (FunctionDeclaration functionDec : program.getFunctions())
+            functionDec.getBody().accept(this);
+        program.getMain().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(MainDeclaration mainDec) {
+        mainDec.getBody().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(VariableDeclaration variableDec) {
+        variableDec.setDefaultValue(fold(variableDec.getDefaultValue()));
+        return null;
+    }
+
+    @Override
+    public Void visit(StructDeclaration structDec) {
+        structDec.getBody().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(SetGetVarDeclaration setGetVarDec) {
+        setGetVarDec.getVarDec().accept(this);
+        setGetVarDec.getSetterBody().accept(this);
+        setGetVarDec.getGetterBody().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(AssignmentStmt assignmentStmt) {
+        assignmentStmt.setLValue(fold(assignmentStmt.getLValue()));
+        assignmentStmt.setRValue(fold(assignmentStmt.getRValue()));
+        return null;
+    }
+
+    @Override
+    public Void visit(BlockStmt blockStmt) {
+        for (Statement stmt : blockStmt.getStatements())
+            stmt.accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(ConditionalStmt conditionalStmt) {
+        conditionalStmt.setCondition(fold(conditionalStmt.getCondition()));
+        conditionalStmt.getThenBody().accept(this);
+        if (conditionalStmt.getElseBody() != null)
+            conditionalStmt.getElseBody().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(FunctionCallStmt functionCallStmt) {
+        functionCallStmt.getFunctionCall().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(DisplayStmt displayStmt) {
+        displayStmt.setArg(fold(displayStmt.getArg()));
+        return null;
+    }
+
+    @Override
+    public Void visit(ReturnStmt returnStmt) {
+        returnStmt.setReturnedExpr(fold(returnStmt.getReturnedExpr()));
+        return null;
+    }
+
+    @Override
+    public Void visit(LoopStmt loopStmt) {
+        loopStmt.setCondition(fold(loopStmt.getCondition()));
+        loopStmt.getBody().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(VarDecStmt varDecStmt) {
+        for (VariableDeclaration varDec : varDecStmt.getVars())
+            varDec.accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(ListAppendStmt listAppendStmt) {
+        listAppendStmt.getListAppendExpr().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(ListSizeStmt listSizeStmt) {
+        listSizeStmt.getListSizeExpr().accept(this);
+        return null;
+    }
+
+    //the visit methods of expressions other than operators fold the operands in place
+
+    @Override
+    public Void visit(FunctionCall funcCall) {
+        funcCall.setInstance(fold(funcCall.getInstance()));
+        ArrayList<Expression> args = funcCall.getArgs();
+        for (int i = 0; i < args.size(); i++)
+            args.set(i, fold(args.get(i)));
+        return null;
+    }
+
+    @Override
+    public Void visit(ListAccessByIndex listAccessByIndex) {
+        listAccessByIndex.setInstance(fold(listAccessByIndex.getInstance()));
+        listAccessByIndex.setIndex(fold(listAccessByIndex.getIndex()));
+        return null;
+    }
+
+    @Override
+    public Void visit(StructAccess structAccess) {
+        structAccess.setInstance(fold(structAccess.getInstance()));
+        return null;
+    }
+
+    @Override
+    public Void visit(ListSize listSize) {
+        listSize.setArg(fold(listSize.getArg()));
+        return null;
+    }
+
+    @Override
+    public Void visit(ListAppend listAppend) {
+        listAppend.setListArg(fold(listAppend.getListArg()));
+        listAppend.setElementArg(fold(listAppend.getElementArg()));
+        return null;
+    }
+}
@@ -0,0 +1,230 @@
+package main.visitor.optimize;
+
+import main.ast.nodes.Node;
+import main.ast.nodes.Program;
+import main.ast.nodes.declaration.FunctionDeclaration;
+import main.ast.nodes.declaration.VariableDeclaration;
+import main.ast.nodes.declaration.struct.StructDeclaration;
+import main.ast.nodes.expression.Expression;
+import main.ast.nodes.expression.Identifier;
+import main.ast.nodes.expression.values.primitive.BoolValue;
+import main.ast.nodes.statement.*;
+import main.ast.types.TypeKind;
+import main.visitor.fusion.FusedTraversal;
+import main.visitor.fusion.TraversalPass;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+
+//Removes code of a checked Program that can't run or whose result is never used:
+//- the statements of a block after one that always returns;
+//- the branch a literal condition never takes, and the conditional itself;
+//- while loops whose condition is false, and the loop around the body of such a do while;
+//- declarations of locals that are never named again in their function, when the initial value can be
+//  dropped (see ConstantFolder.isPure) and no struct is created for them.
+//Branches and loops are scopes and blocks are not, so a kept branch or body only replaces its statement
+//when it declares nothing; otherwise it stays in an if true statement. Runs after ConstantFolder, which
+//leaves literal conditions literal.
+public class DeadCodeEliminator implements OptimizationPass {
+    private int removed;
+
+    @Override
+    public String getName() {
+        return "dead code elimination";
+    }
+
+    //number of statements and declarations removed
+    @Override
+    public int run(Program program) {
+        removed = 0;
+        for (StructDeclaration structDec : program.getStructs())
+            for (Statement stmt : statementsOf(structDec.getBody()))
+                if (stmt instanceof SetGetVarDeclaration) {
+                    SetGetVarDeclaration setGetVarDec = (SetGetVarDeclaration) stmt;
+                    setGetVarDec.setSetterBody(function(setGetVarDec.getSetterBody()));
+                    setGetVarDec.setGetterBody(function(setGetVarDec.getGetterBody()));
+                }
+        for (FunctionDeclaration functionDec : program.getFunctions())
+            functionDec.setBody(function(functionDec.getBody()));
+        program.getMain().setBody(function(program.getMain().getBody()));
+        return removed;
+    }
+
+    private static ArrayList<Statement> statementsOf(Statement body) {
+        if (body instanceof BlockStmt)
+            return ((BlockStmt) body).getStatements();
+        ArrayList<Statement> statements = new ArrayList<>();
+        statements.add(body);
+        return statements;
+    }
+
+    private Statement function(Statement body) {
+        body = orEmpty(statement(body), body);
+        //removing a declaration can leave the ones its initial value named unused
+        while (removeUnusedLocals(body, namesUsedIn(body)))
+            ;
+        return body;
+    }
+
+    private static Statement orEmpty(Statement statement, Node replaced) {
+        if (statement != null)
+            return statement;
+        BlockStmt empty = new BlockStmt();
+        empty.setLine(replaced.getLine());
+        return empty;
+    }
+
+    //the statement to keep in place of statement, null if nothing is left
+    private Statement statement(Statement statement) {
+        if (statement instanceof BlockStmt) {
+            block((BlockStmt) statement);
+            return statement;
+        }
+        if (statement instanceof ConditionalStmt)
+            return conditional((ConditionalStmt) statement);
+        if (statement instanceof LoopStmt)
+            return loop((LoopStmt) statement);
+        return statement;
+    }
+
+    private void block(BlockStmt blockStmt) {
+        ArrayList<Statement> statements = blockStmt.getStatements();
+        ArrayList<Statement> kept = new ArrayList<>();
+        for (int i = 0; i < statements.size(); i++) {
+            Statement stmt = statement(statements.get(i));
+            if (stmt == null) {
+                removed++;
+                continue;
+            }
+            kept.add(stmt);
+            if (alwaysReturns(stmt)) {
+                removed += statements.size() - i - 1;
+                break;
+            }
+        }
+        blockStmt.setStatements(kept);
+    }
+
+    private Statement conditional(ConditionalStmt conditionalStmt) {
+        conditionalStmt.setThenBody(orEmpty(statement(conditionalStmt.getThenBody()), conditionalStmt.getThenBody()));
+        if (conditionalStmt.getElseBody() != null) {
+            Statement elseBody = statement(conditionalStmt.getElseBody());
+            conditionalStmt.setElseBody(elseBody == null || isEmpty(elseBody) ? null : elseBody);
+        }
+        if (!(conditionalStmt.getCondition() instanceof BoolValue))
+            return conditionalStmt;
+        removed++;
+        Statement taken = ((BoolValue) conditionalStmt.getCondition()).getConstant()
+                ? conditionalStmt.getThenBody() : conditionalStmt.getElseBody();
+        if (taken == null)
+            return null;
+        return inScope(taken, conditionalStmt.getCondition(), conditionalStmt.getLine());
+    }
+
+    private Statement loop(LoopStmt loopStmt) {
+        loopStmt.setBody(orEmpty(statement(loopStmt.getBody()), loopStmt.getBody()));
+        if (!(loopStmt.getCondition() instanceof BoolValue) || ((BoolValue) loopStmt.getCondition()).getConstant())
+            return loopStmt;
+        removed++;
+        if (!loopStmt.isDoWhile())
+            return null;
+        return inScope(loopStmt.getBody(), loopStmt.getCondition(), loopStmt.getLine());
+    }
+
+    //body, which ran in a scope of its own; condition gives the type of the if true put around it
+    private static Statement inScope(Statement body, Expression condition, int line) {
+        if (!declaresIn(body))
+            return body;
+        BoolValue alwaysTrue = new BoolValue(true);
+        alwaysTrue.setLine(line);
+        alwaysTrue.setResolvedType(condition.getResolvedType());
+        ConditionalStmt conditionalStmt = new ConditionalStmt(alwaysTrue);
+        conditionalStmt.setLine(line);
+        conditionalStmt.setThenBody(body);
+        return conditionalStmt;
+    }
+
+    //whether statement declares a variable in the scope it is in
+    private static boolean declaresIn(Statement statement) {
+        if (statement instanceof VarDecStmt)
+            return true;
+        if (statement instanceof BlockStmt)
+            for (Statement stmt : ((BlockStmt) statement).getStatements())
+                if (declaresIn(stmt))
+                    return true;
+        return false;
+    }
+
+    private static boolean isEmpty(Statement statement) {
+        return statement instanceof BlockStmt && ((BlockStmt) statement).getStatements().isEmpty();
+    }
+
+    //whether running statement always ends with a return statement
+    private static boolean alwaysReturns(Statement statement) {
+        if (statement instanceof ReturnStmt)
+            return true;
+        if (statement instanceof BlockStmt) {
+            ArrayList<Statement> statements = ((BlockStmt) statement).getStatements();
+            return !statements.isEmpty() && alwaysReturns(statements.get(statements.size() - 1));
+        }
+        if (statement instanceof ConditionalStmt) {
+            ConditionalStmt conditionalStmt = (ConditionalStmt) statement;
+            return conditionalStmt.getElseBody() != null
+                    && alwaysReturns(conditionalStmt.getThenBody()) && alwaysReturns(conditionalStmt.getElseBody());
+        }
+        return false;
+    }
+
+    //names of all identifiers of body other than the names being declared
+    private static HashSet<String> namesUsedIn(Statement body) {
+        HashSet<String> names = new HashSet<>();
+        IdentityHashMap<Identifier, Boolean> declared = new IdentityHashMap<>();
+        body.accept(new FusedTraversal(new TraversalPass() {
+            @Override
+            public void enter(Node node) {
+                if (node instanceof VariableDeclaration)
+                    declared.put(((VariableDeclaration) node).getVarName(), Boolean.TRUE);
+                else if (node instanceof Identifier && !declared.containsKey(node))
+                    names.add(((Identifier) node).getName());
+            }
+        }));
+        return names;
+    }
+
+    //whether a declaration was removed
+    private boolean removeUnusedLocals(Statement statement, HashSet<String> used) {
+        boolean changed = false;
+        if (statement instanceof BlockStmt) {
+            ArrayList<Statement> statements = ((BlockStmt) statement).getStatements();
+            for (int i = statements.size() - 1; i >= 0; i--) {
+                Statement stmt = statements.get(i);
+                if (!(stmt instanceof VarDecStmt)) {
+                    changed |= removeUnusedLocals(stmt, used);
+                    continue;
+                }
+                ArrayList<VariableDeclaration> vars = ((VarDecStmt) stmt).getVars();
+                int before = vars.size();
+                vars.removeIf(varDec -> isRemovable(varDec, used));
+                removed += before - vars.size();
+                changed |= vars.size() < before;
+                if (vars.isEmpty())
+                    statements.remove(i);
+            }
+        } else if (statement instanceof ConditionalStmt) {
+            ConditionalStmt conditionalStmt = (ConditionalStmt) statement;
+            changed |= removeUnusedLocals(conditionalStmt.getThenBody(), used);
+            if (conditionalStmt.getElseBody() != null)
+                changed |= removeUnusedLocals(conditionalStmt.getElseBody(), used);
+        } else if (statement instanceof LoopStmt) {
+            changed |= removeUnusedLocals(((LoopStmt) statement).getBody(), used);
+        }
+        return changed;
+    }
+
+    private static boolean isRemovable(VariableDeclaration varDec, HashSet<String> used) {
+        if (used.contains(varDec.getVarName().getName()) || varDec.getVarType().getKind() == TypeKind.STRUCT)
+            return false;
+        return varDec.getDefaultValue() == null || ConstantFolder.isPure(varDec.getDefaultValue());
+    }
+}
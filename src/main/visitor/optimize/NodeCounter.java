@@ -0,0 +1,22 @@
+package main.visitor.optimize;
+
+import main.ast.nodes.Node;
+import main.ast.nodes.Program;
+import main.visitor.fusion.FusedTraversal;
+import main.visitor.fusion.TraversalPass;
+
+//Number of nodes of a Program, counted in the walk FusedTraversal does
+public class NodeCounter implements TraversalPass {
+    private int count;
+
+    public static int count(Program program) {
+        NodeCounter nodeCounter = new NodeCounter();
+        new FusedTraversal(nodeCounter).run(program);
+        return nodeCounter.count;
+    }
+
+    @Override
+    public void enter(Node node) {
+        count++;
+    }
+}
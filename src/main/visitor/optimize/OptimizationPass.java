@@ -0,0 +1,11 @@
+package main.visitor.optimize;
+
+import main.ast.nodes.Program;
+
+//An AST to AST rewrite of a checked Program, run by Optimizer
+public interface OptimizationPass {
+    String getName();
+
+    //rewrites the program in place; returns how many rewrites the pass made
+    int run(Program program);
+}
@@ -0,0 +1,50 @@
+package main.visitor.optimize;
+
+import main.ast.nodes.Program;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+//Runs AST passes over a checked Program in order and keeps, per pass, its rewrites and the node count
+//of the program before and after it.
+public class Optimizer {
+    private final List<OptimizationPass> passes;
+    private final ArrayList<String> names = new ArrayList<>();
+    private final ArrayList<int[]> statistics = new ArrayList<>();
+
+    public Optimizer(OptimizationPass... passes) {
+        this.passes = Arrays.asList(passes);
+    }
+
+    //the passes the compiler runs
+    public static Optimizer standard() {
+        return new Optimizer(new ConstantFolder(), new DeadCodeEliminator());
+    }
+
+    public void run(Program program) {
+        int nodes = NodeCounter.count(program);
+        for (OptimizationPass pass : passes) {
+            int rewrites = pass.run(program);
+            int nodesAfter = NodeCounter.count(program);
+            names.add(pass.getName());
+            statistics.add(new int[]{rewrites, nodes, nodesAfter});
+            nodes = nodesAfter;
+        }
+    }
+
+    //one line per pass run, then the total
+    public void printReport(PrintStream out) {
+        out.printf("%-24s %10s %10s %10s%n", "pass", "rewrites", "nodes", "after");
+        for (int i = 0; i < names.size(); i++) {
+            int[] pass = statistics.get(i);
+            out.printf("%-24s %10d %10d %10d%n", names.get(i), pass[0], pass[1], pass[2]);
+        }
+        if (!statistics.isEmpty()) {
+            int before = statistics.get(0)[1];
+            int after = statistics.get(statistics.size() - 1)[2];
+            out.printf("%-24s %10s %10d %10d  (%d removed)%n", "total", "", before, after, before - after);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package main.visitor.type;
 
+import main.ast.nodes.Node;
 import main.ast.nodes.expression.*;
 import main.ast.nodes.expression.operators.BinaryOperator;
 import main.ast.nodes.expression.operators.UnaryOperator;
@@ -12,222 +13,194 @@ import main.ast.types.primitives.VoidType;
 import main.compileError.typeError.*;
 import main.symbolTable.SymbolTable;
 import main.symbolTable.exceptions.ItemNotFoundException;
+import main.symbolTable.items.FunctionSymbolTableItem;
 import main.symbolTable.items.StructSymbolTableItem;
 import main.symbolTable.items.SymbolTableItem;
 import main.symbolTable.items.VariableSymbolTableItem;
-import main.visitor.Visitor;
+import main.visitor.ExpressionWalker;
+import main.visitor.SwitchVisitor;
 
 import java.util.ArrayList;
 
-public class ExpressionTypeChecker extends Visitor<Type> {
+public class ExpressionTypeChecker extends SwitchVisitor<Type> {
+    //set for the call of a FunctionCallStmt, the only place where a void result may be dropped
+    private boolean voidCallAllowed = false;
 
-    @Override
-    public Type visit(BinaryExpression binaryExpression) {
-        Expression lValue, rValue;
-        BinaryOperator operation;
-
-        lValue = binaryExpression.getFirstOperand();
-        rValue = binaryExpression.getSecondOperand();
-        operation = binaryExpression.getBinaryOperator();
-
-        Type typeLValue, typeRValue;
-        typeLValue = lValue.accept(this);
-        typeRValue = rValue.accept(this);
-
-        //add, sub, mult, div
-        if(
-                operation == BinaryOperator.add
-                        ||
-                        operation == BinaryOperator.sub
-                        ||
-                        operation == BinaryOperator.mult
-                        ||
-                        operation == BinaryOperator.div
-        ) {
-            if(typeLValue instanceof IntType && typeRValue instanceof IntType) { // int * int -> int
-                return new IntType();
-            }
-            if(typeLValue instanceof NoType && typeRValue instanceof NoType) { // noType * noType -> noType
-                return new NoType();
-            }
-            if(typeLValue instanceof NoType && typeRValue instanceof IntType) { // noType * int -> int
-                return new IntType();
-            }
-            if(typeLValue instanceof IntType && typeRValue instanceof NoType) { // int * noType -> int
-                return new IntType();
-            }
-
-            //Error
-            binaryExpression.addError(new UnsupportedOperandType(binaryExpression.getLine(), operation.name()));
+    private final ExpressionWalker<Type> operatorWalker = new ExpressionWalker<>() {
+        @Override
+        protected Type visitLeaf(Expression expression) {
+            return dispatch(expression);
         }
 
-        //eq
-        if(
-                operation == BinaryOperator.eq
-        ) {
-            if(typeLValue instanceof IntType && typeRValue instanceof IntType) { //int * int -> bool
-                return new BoolType();
-            }
-            if(typeLValue instanceof BoolType && typeRValue instanceof BoolType) { //bool * bool -> bool
-                return new BoolType();
-            }
-            if(typeLValue instanceof NoType && typeRValue instanceof NoType) { //noType * noType -> noType
-                return new NoType();
-            }
-            if(typeLValue instanceof NoType && typeRValue instanceof IntType) { //noType * int -> int
-                return new IntType();
-            }
-            if(typeLValue instanceof IntType && typeRValue instanceof NoType) { //int * noType -> int
-                return new IntType();
-            }
-            if(typeLValue instanceof NoType && typeRValue instanceof BoolType) { //noType * bool -> bool
-                return new BoolType();
-            }
-            if(typeLValue instanceof BoolType && typeRValue instanceof NoType) { //bool * noType -> bool
-                return new BoolType();
-            }
+        @Override
+        protected Type visitBinary(BinaryExpression binaryExpression, Type typeLValue, Type typeRValue) {
+            BinaryOperator operation = binaryExpression.getBinaryOperator();
+            return resolve(binaryExpression, checkBinary(binaryExpression, operation, typeLValue, typeRValue));
+        }
 
-            //Error
-            binaryExpression.addError(new UnsupportedOperandType(binaryExpression.getLine(), operation.name()));
+        @Override
+        protected Type visitUnary(UnaryExpression unaryExpression, Type typeRValue) {
+            UnaryOperator operator = unaryExpression.getOperator();
+            if (typeRValue == null)
+                return resolve(unaryExpression, new NoType());
+            Type type = unaryType(operator, typeRValue);
+            if(type == null)
+                unaryExpression.addError(new UnsupportedOperandType(unaryExpression.getLine(), operator.name()));
+            return resolve(unaryExpression, type);
         }
 
-        //gt, lt
-        if(
-                operation == BinaryOperator.gt
-                        ||
-                        operation == BinaryOperator.lt
-        ) {
-            if(typeLValue instanceof IntType && typeRValue instanceof IntType) { // int * int -> bool
-                return new BoolType();
-            }
-            if(typeLValue instanceof NoType && typeRValue instanceof NoType) { // noType * noType -> noType
-                return new NoType();
-            }
-            if(typeLValue instanceof NoType && typeRValue instanceof IntType) { // noType * int -> bool
-                return new BoolType();
-            }
-            if(typeLValue instanceof IntType && typeRValue instanceof NoType) { // int * noType -> bool
-                return new BoolType();
-            }
+        //only the first input decides the type
+        @Override
+        protected int walkedInputs(ExprInPar exprInPar) {
+            return Math.min(1, exprInPar.getInputs().size());
+        }
 
-            //Error
-            binaryExpression.addError(new UnsupportedOperandType(binaryExpression.getLine(), operation.name()));
+        @Override
+        protected Type visitExprInPar(ExprInPar exprInPar, ArrayList<Type> inputTypes) {
+            return resolve(exprInPar, inputTypes.get(0));
         }
+    };
 
-        //and, or
-        if(
-                operation == BinaryOperator.and
-                        ||
-                        operation == BinaryOperator.or
-        ) {
-            if(typeLValue instanceof BoolType && typeRValue instanceof BoolType) { // bool * bool -> bool
-                return new BoolType();
-            }
-            if(typeLValue instanceof NoType && typeRValue instanceof NoType) { // noType * noType -> noType
-                return new NoType();
-            }
-            if(typeLValue instanceof NoType && typeRValue instanceof BoolType) { // noType * bool -> bool
-                return new BoolType();
-            }
-            if(typeLValue instanceof BoolType && typeRValue instanceof NoType) { // bool * noType -> bool
-                return new BoolType();
-            }
+    private Type resolve(Expression expression, Type type) {
+        expression.setResolvedType(type);
+        return type;
+    }
 
-            //Error
-            binaryExpression.addError(new UnsupportedOperandType(binaryExpression.getLine(), operation.name()));
+    //types are compared by structure, since a list, struct or fptr type is a new object wherever it is written
+    //NoType and unresolved types match anything, so one error isn't reported again by every enclosing node
+    static boolean sameType(Type first, Type second) {
+        if (first == null || second == null || first instanceof NoType || second instanceof NoType)
+            return true;
+        if (first.getKind() != second.getKind())
+            return false;
+        if (first instanceof ListType)
+            return sameType(((ListType) first).getType(), ((ListType) second).getType());
+        if (first instanceof StructType)
+            return ((StructType) first).getStructName().getName().equals(((StructType) second).getStructName().getName());
+        if (first instanceof FptrType) {
+            FptrType firstFptr = (FptrType) first;
+            FptrType secondFptr = (FptrType) second;
+            return sameTypes(firstFptr.getArgsType(), secondFptr.getArgsType())
+                    && sameType(firstFptr.getReturnType(), secondFptr.getReturnType());
         }
+        return true;
+    }
 
-        //assign
-        if(
-                operation == BinaryOperator.assign
-        ) {
-            if(typeLValue == typeRValue) {
-                return typeLValue;
-            }
-            if(typeLValue instanceof NoType && typeRValue instanceof NoType) {
-                return new NoType();
-            }
-            if(typeLValue instanceof NoType) {
-                return typeRValue;
-            }
-            if(typeRValue instanceof NoType) {
-                return typeLValue;
-            }
+    private static boolean sameTypes(ArrayList<Type> first, ArrayList<Type> second) {
+        if (first.size() != second.size())
+            return false;
+        for (int i = 0; i < first.size(); i++)
+            if (!sameType(first.get(i), second.get(i)))
+                return false;
+        return true;
+    }
 
-            //Error
-            binaryExpression.addError(new UnsupportedOperandType(binaryExpression.getLine(), operation.name()));
+    //errors are reported on node, which is the operator expression or the statement holding it
+    //an unresolved (null) operand already has its error, so it isn't reported again
+    Type checkBinary(Node node, BinaryOperator operation, Type typeLValue, Type typeRValue) {
+        if (typeLValue == null || typeRValue == null)
+            return new NoType();
+        if(operation == BinaryOperator.assign && sameType(typeLValue, typeRValue)) {
+            return typeLValue;
         }
-        return null;
+        Type type = binaryType(operation, typeLValue, typeRValue);
+        if(type == null)
+            node.addError(new UnsupportedOperandType(node.getLine(), operation.name()));
+        return type;
     }
 
-    @Override
-    public Type visit(UnaryExpression unaryExpression) {
-        UnaryOperator operator;
-        Expression rValue;
+    //the result type of an operator on resolved operands, null where it doesn't apply to them
+    Type binaryType(BinaryOperator operation, Type typeLValue, Type typeRValue) {
+        byte result = OperatorTypeTable.binaryResult(operation, typeLValue, typeRValue);
+        return result == OperatorTypeTable.ERROR ? null : OperatorTypeTable.toType(result, typeLValue, typeRValue);
+    }
 
-        rValue = unaryExpression.getOperand();
-        operator = unaryExpression.getOperator();
+    Type unaryType(UnaryOperator operator, Type typeRValue) {
+        byte result = OperatorTypeTable.unaryResult(operator, typeRValue);
+        return result == OperatorTypeTable.ERROR ? null : OperatorTypeTable.toType(result, null, typeRValue);
+    }
 
-        Type typeRValue = rValue.accept(this);
+    @Override
+    public Type visit(BinaryExpression binaryExpression) {
+        return operatorWalker.walk(binaryExpression);
+    }
 
-        // minus
-        if(
-                operator == UnaryOperator.minus
-        ) {
-            if(typeRValue instanceof IntType) { // int -> int
-                return new IntType();
-            }
-            if(typeRValue instanceof NoType) { // noType -> noType
-                return new NoType();
-            }
+    @Override
+    public Type visit(UnaryExpression unaryExpression) {
+        return operatorWalker.walk(unaryExpression);
+    }
 
-            //Error
-            unaryExpression.addError(new UnsupportedOperandType(unaryExpression.getLine(), operator.name()));
+    //the setter of a SetGetVarDeclaration when instance is a struct access to one, otherwise null
+    private FunctionSymbolTableItem setterOf(Expression instance) {
+        if (!(instance instanceof StructAccess))
+            return null;
+        Type structType = ((StructAccess) instance).getInstance().getResolvedType();
+        if (!(structType instanceof StructType))
+            return null;
+        try {
+            var structKey = StructSymbolTableItem.START_KEY + ((StructType) structType).getStructName().getName();
+            SymbolTable structSymbolTable = ((StructSymbolTableItem) SymbolTable.root.getItem(structKey)).getStructSymbolTable();
+            var setterKey = FunctionSymbolTableItem.START_KEY + ((StructAccess) instance).getElement().getName();
+            return (FunctionSymbolTableItem) structSymbolTable.getItem(setterKey);
+        } catch (ItemNotFoundException e) {
+            return null;
         }
+    }
 
-        // not
-        if(
-                operator == UnaryOperator.not
-        ) {
-            if(typeRValue instanceof BoolType) { // bool -> bool
-                return new BoolType();
-            }
-            if(typeRValue instanceof NoType) { // noType -> noType
-                return new NoType();
-            }
+    private boolean argsMatch(ArrayList<Expression> args, ArrayList<Type> argTypes) {
+        ArrayList<Type> types = new ArrayList<>();
+        for (Expression arg : args)
+            types.add(dispatch(arg));
+        return sameTypes(argTypes, types);
+    }
 
-            //Error
-            unaryExpression.addError(new UnsupportedOperandType(unaryExpression.getLine(), operator.name()));
-        }
-        return null;
+    Type checkCallStatement(FunctionCall funcCall) {
+        voidCallAllowed = true;
+        return dispatch(funcCall);
     }
 
     @Override
     public Type visit(FunctionCall funcCall) {
-        Type functionCallType = funcCall.getInstance().accept(this);
+        boolean voidResultAllowed = voidCallAllowed;
+        voidCallAllowed = false;
+        Type functionCallType = dispatch(funcCall.getInstance());
+        FunctionSymbolTableItem setter = setterOf(funcCall.getInstance());
+        if (setter != null) {
+            if (!argsMatch(funcCall.getArgs(), setter.getArgTypes()))
+                funcCall.addError(new ArgsInFunctionCallNotMatchDefinition(funcCall.getLine()));
+            return resolve(funcCall, new VoidType());
+        }
         if (functionCallType instanceof FptrType) {
-            ArrayList<Expression> args = funcCall.getArgs();
-            for (Expression arg : args) {
-                if (!(arg.accept(this) instanceof FptrType)) {
-                    funcCall.addError(new ArgsInFunctionCallNotMatchDefinition(funcCall.getLine()));
-                    return new NoType();
-                }
-            }
-            return ((FptrType) functionCallType).getReturnType();
+            Type returnType = ((FptrType) functionCallType).getReturnType();
+            boolean argsMatch = argsMatch(funcCall.getArgs(), ((FptrType) functionCallType).getArgsType());
+            if (!argsMatch)
+                funcCall.addError(new ArgsInFunctionCallNotMatchDefinition(funcCall.getLine()));
+            if (returnType instanceof VoidType && !voidResultAllowed)
+                funcCall.addError(new CantUseValueOfVoidFunction(funcCall.getLine()));
+            return resolve(funcCall, argsMatch ? returnType : new NoType());
+        } else if (functionCallType instanceof NoType) {
+            return resolve(funcCall, new NoType());
         } else {
             funcCall.addError(new CallOnNoneFptrType(funcCall.getLine()));
-            return new NoType();
+            return resolve(funcCall, new NoType());
         }
     }
 
     @Override
     public Type visit(Identifier identifier) {
         try {
-            SymbolTableItem variableSymbolTableItem = SymbolTable.top.getItem(VariableSymbolTableItem.START_KEY + identifier.getName());
-            return ((VariableSymbolTableItem) variableSymbolTableItem).getType();
+            SymbolTableItem variableSymbolTableItem = SymbolTable.top().getItem(VariableSymbolTableItem.START_KEY + identifier.getName());
+            return resolve(identifier, ((VariableSymbolTableItem) variableSymbolTableItem).getType());
+        } catch (ItemNotFoundException error) {
+        }
+        //a function name is a value of its fptr type
+        try {
+            var functionKey = FunctionSymbolTableItem.START_KEY + identifier.getName();
+            FunctionSymbolTableItem functionSymbolTableItem = (FunctionSymbolTableItem) SymbolTable.root.getItem(functionKey);
+            return resolve(identifier, new FptrType(functionSymbolTableItem.getArgTypes(), functionSymbolTableItem.getReturnType()));
         } catch (ItemNotFoundException error) {
             identifier.addError(new VarNotDeclared(identifier.getLine(), identifier.getName()));
-            return new NoType();
+            return resolve(identifier, new NoType());
         }
     }
 
@@ -241,26 +214,26 @@ public class ExpressionTypeChecker extends Visitor<Type> {
 
         list = listAccessByIndex.getInstance();
         index = listAccessByIndex.getIndex();
-        listType = list.accept(this);
-        indexType = index.accept(this);
+        listType = dispatch(list);
+        indexType = dispatch(index);
 
         if(indexType instanceof IntType && listType instanceof ListType) {
-            return new ListType(listType);
+            return resolve(listAccessByIndex, ((ListType) listType).getType());
         }
         if(indexType instanceof IntType && listType instanceof NoType) {
-            return new NoType();
+            return resolve(listAccessByIndex, new NoType());
         }
         if(!(indexType instanceof IntType)) {
             listAccessByIndex.addError(new ListIndexNotInt(listAccessByIndex.getLine()));
         } else {
             listAccessByIndex.addError(new AccessByIndexOnNonList(listAccessByIndex.getLine()));
         }
-        return null;
+        return resolve(listAccessByIndex, null);
     }
 
     @Override
     public Type visit(StructAccess structAccess) {
-        Type structType = structAccess.getInstance().accept(this);
+        Type structType = dispatch(structAccess.getInstance());
         Identifier structElement = structAccess.getElement();
         try {
             if (structType instanceof StructType) {
@@ -269,70 +242,70 @@ public class ExpressionTypeChecker extends Visitor<Type> {
                 try {
                     var variableKey = VariableSymbolTableItem.START_KEY + structElement.getName();
                     SymbolTableItem variableSymbolTableItem = ((StructSymbolTableItem) structSymbolTableItem).getStructSymbolTable().getItem(variableKey);
-                    return  ((VariableSymbolTableItem)variableSymbolTableItem).getType();
+                    return resolve(structAccess, ((VariableSymbolTableItem)variableSymbolTableItem).getType());
                 } catch (ItemNotFoundException e) {
                     structAccess.addError(new StructMemberNotFound(structAccess.getLine(),((StructSymbolTableItem) structSymbolTableItem).getStructDeclaration().getStructName().getName(), structElement.getName()));
-                    return new NoType();
+                    return resolve(structAccess, new NoType());
                 }
             } else {
                 structAccess.addError(new AccessOnNonStruct(structAccess.getLine()));
-                return new NoType();
+                return resolve(structAccess, new NoType());
             }
         } catch (ItemNotFoundException e) {
             structAccess.addError(new StructNotDeclared(structAccess.getLine(), ((StructType) structType).getStructName().getName()));
-            return new NoType();
+            return resolve(structAccess, new NoType());
         }
     }
 
     @Override
     public Type visit(ListSize listSize) {
-        Type list = listSize.getArg().accept(this);
+        Type list = dispatch(listSize.getArg());
         if(list instanceof ListType) {
-            return new IntType();
+            return resolve(listSize, new IntType());
         } else {
             listSize.addError(new GetSizeOfNonList(listSize.getLine()));
-            return new NoType();
+            return resolve(listSize, new NoType());
         }
     }
 
     @Override
     public Type visit(ListAppend listAppend) {
-        Type listType = listAppend.getListArg().accept(this);
+        Type listType = dispatch(listAppend.getListArg());
         if(listType instanceof ListType) {
             Type listElementType = ((ListType) listType).getType();
-            Type elementRValueType = listAppend.getElementArg().accept(this);
-            if(listElementType.getClass() == elementRValueType.getClass()) {
+            Type elementRValueType = dispatch(listAppend.getElementArg());
+            if(elementRValueType != null && sameType(listElementType, elementRValueType)) {
                 if(listElementType instanceof NoType) {
-                    return new NoType();
+                    return resolve(listAppend, new NoType());
                 } else {
-                    return new VoidType();
+                    return resolve(listAppend, new VoidType());
                 }
             } else {
                 listAppend.addError(new NewElementTypeNotMatchListType(listAppend.getLine()));
+                return resolve(listAppend, new NoType());
             }
         }
         if(listType instanceof NoType) {
-            return new NoType();
+            return resolve(listAppend, new NoType());
         }
         else {
             listAppend.addError(new AppendToNonList(listAppend.getLine()));
         }
-        return null;
+        return resolve(listAppend, null);
     }
 
     @Override
     public Type visit(ExprInPar exprInPar) {
-        ArrayList<Expression> inputExprs = exprInPar.getInputs();
-        return inputExprs.get(0).accept(this);
+        return operatorWalker.walk(exprInPar);
     }
 
     @Override
     public Type visit(IntValue intValue) {
-        return new IntType();
+        return resolve(intValue, new IntType());
     }
 
     @Override
     public Type visit(BoolValue boolValue) {
-        return new BoolType();
+        return resolve(boolValue, new BoolType());
     }
 }
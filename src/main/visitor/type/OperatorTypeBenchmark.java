@@ -0,0 +1,258 @@
+package main.visitor.type;
+
+import main.CmmCompiler;
+import main.ast.nodes.Program;
+import main.ast.nodes.expression.Identifier;
+import main.ast.nodes.expression.operators.BinaryOperator;
+import main.ast.nodes.expression.operators.UnaryOperator;
+import main.ast.types.FptrType;
+import main.ast.types.ListType;
+import main.ast.types.NoType;
+import main.ast.types.StructType;
+import main.ast.types.Type;
+import main.ast.types.primitives.BoolType;
+import main.ast.types.primitives.IntType;
+import org.antlr.v4.runtime.CharStreams;
+
+import java.util.ArrayList;
+
+//Time per operator typed with OperatorTypeTable, the way ExpressionTypeChecker does it, and with the
+//instanceof chains it replaced, over every operator and every pair of operand types (null for one that
+//couldn't be resolved). Also counts the combinations where the two disagree, which should be none.
+//With --program it instead times TypeChecker on a generated program of n operator-heavy functions, once
+//with an ExpressionTypeChecker that uses the table and once with one that uses the chains.
+//usage: OperatorTypeBenchmark [rounds, default 20000]
+//       OperatorTypeBenchmark --program [functions, default 20000] [rounds, default 10]
+public class OperatorTypeBenchmark {
+    private static final ExpressionTypeChecker tableChecker = new ExpressionTypeChecker();
+    private static final ExpressionTypeChecker chainChecker = new ChainTypeChecker();
+    private static int sink;
+
+    public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--program")) {
+            int n = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+            int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+            typeCheckProgram(n, rounds);
+            return;
+        }
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        Type[] types = {new IntType(), new BoolType(), new NoType(), new ListType(new IntType()),
+                new StructType(new Identifier("Point")), new FptrType(new ArrayList<>(), new IntType()), null};
+        BinaryOperator[] binaryOperators = BinaryOperator.values();
+        UnaryOperator[] unaryOperators = UnaryOperator.values();
+
+        int mismatches = 0;
+        for (BinaryOperator operator : binaryOperators)
+            for (Type left : types)
+                for (Type right : types)
+                    if (!same(binary(tableChecker, operator, left, right), binary(chainChecker, operator, left, right)))
+                        mismatches++;
+        for (UnaryOperator operator : unaryOperators)
+            for (Type operand : types)
+                if (!same(unary(tableChecker, operator, operand), unary(chainChecker, operator, operand)))
+                    mismatches++;
+        int lookups = binaryOperators.length * types.length * types.length + unaryOperators.length * types.length;
+        System.out.printf("%d combinations, %d mismatches%n", lookups, mismatches);
+
+        System.out.printf("%-22s %12s%n", "typing", "ns/operator");
+        //first half of the rounds is warm up
+        for (int round = 0; round < 2; round++) {
+            long tableTime = 0;
+            long ifChainTime = 0;
+            for (int i = 0; i < rounds; i++) {
+                long start = System.nanoTime();
+                for (BinaryOperator operator : binaryOperators)
+                    for (Type left : types)
+                        for (Type right : types)
+                            sink += weight(binary(tableChecker, operator, left, right));
+                for (UnaryOperator operator : unaryOperators)
+                    for (Type operand : types)
+                        sink += weight(unary(tableChecker, operator, operand));
+                tableTime += System.nanoTime() - start;
+
+                start = System.nanoTime();
+                for (BinaryOperator operator : binaryOperators)
+                    for (Type left : types)
+                        for (Type right : types)
+                            sink += weight(binary(chainChecker, operator, left, right));
+                for (UnaryOperator operator : unaryOperators)
+                    for (Type operand : types)
+                        sink += weight(unary(chainChecker, operator, operand));
+                ifChainTime += System.nanoTime() - start;
+            }
+            if (round == 1) {
+                System.out.printf("%-22s %12.2f%n", "OperatorTypeTable", (double) tableTime / lookups / rounds);
+                System.out.printf("%-22s %12.2f%n", "instanceof chains", (double) ifChainTime / lookups / rounds);
+            }
+        }
+        if (sink == 42)
+            System.out.println();
+    }
+
+    private static int weight(Type type) {
+        return type == null ? 0 : 1;
+    }
+
+    //the same type, or a new type of the same class
+    private static boolean same(Type a, Type b) {
+        if (a == null || b == null)
+            return a == b;
+        if (a instanceof IntType || a instanceof BoolType || a instanceof NoType)
+            return a.getClass() == b.getClass();
+        return a == b;
+    }
+
+    //ExpressionTypeChecker.checkBinary once the operands are typed, null where it reports an error
+    private static Type binary(ExpressionTypeChecker checker, BinaryOperator operator, Type left, Type right) {
+        if (left == null || right == null)
+            return new NoType();
+        if (operator == BinaryOperator.assign && ExpressionTypeChecker.sameType(left, right))
+            return left;
+        return checker.binaryType(operator, left, right);
+    }
+
+    private static Type unary(ExpressionTypeChecker checker, UnaryOperator operator, Type operand) {
+        return operand == null ? new NoType() : checker.unaryType(operator, operand);
+    }
+
+    private static void typeCheckProgram(int n, int rounds) {
+        CmmCompiler cmmCompiler = new CmmCompiler();
+        Program program = cmmCompiler.parse(CharStreams.fromString(generate(n)));
+        if (!cmmCompiler.check(program).isEmpty()) {
+            System.out.println("the generated program doesn't compile");
+            return;
+        }
+
+        System.out.printf("%-22s %12s%n", "typing", "ms/check");
+        //first half of the rounds is warm up
+        for (int round = 0; round < 2; round++) {
+            long tableTime = 0;
+            long chainTime = 0;
+            for (int i = 0; i < rounds; i++) {
+                long start = System.nanoTime();
+                typeCheck(program, tableChecker);
+                tableTime += System.nanoTime() - start;
+
+                start = System.nanoTime();
+                typeCheck(program, chainChecker);
+                chainTime += System.nanoTime() - start;
+            }
+            if (round == 1) {
+                System.out.printf("%-22s %12.2f%n", "OperatorTypeTable", tableTime / 1e6 / rounds);
+                System.out.printf("%-22s %12.2f%n", "instanceof chains", chainTime / 1e6 / rounds);
+            }
+        }
+    }
+
+    private static void typeCheck(Program program, ExpressionTypeChecker expressionTypeChecker) {
+        TypeChecker typeChecker = new TypeChecker();
+        typeChecker.expressionTypeChecker = expressionTypeChecker;
+        program.accept(typeChecker);
+    }
+
+    //every binary and unary operator on int and bool operands, a few times over
+    private static String generate(int functions) {
+        StringBuilder source = new StringBuilder();
+        for (int i = 0; i < functions; i++)
+            source.append("int f").append(i).append("(int a, int b, bool c) begin\n")
+                    .append("    int x = a * 2 + (b - 3) / 4 - -a * (b + 1)\n")
+                    .append("    bool y = ~c & (x > 3 | x == 4) & (a < b | ~(c == (b > a)))\n")
+                    .append("    if y | x < 10 & -x < a + b\n")
+                    .append("        x = x + a * b - (a - b) / (b + 1)\n")
+                    .append("    return x * -b + a / 2\n")
+                    .append("end\n\n");
+        return source.append("main() begin\n    display(1)\nend\n").toString();
+    }
+
+    //the checks ExpressionTypeChecker made before OperatorTypeTable; null where it reported an error
+    private static Type ifChain(BinaryOperator operator, Type left, Type right) {
+        if (operator == BinaryOperator.add || operator == BinaryOperator.sub
+                || operator == BinaryOperator.mult || operator == BinaryOperator.div) {
+            if (left instanceof IntType && right instanceof IntType)
+                return new IntType();
+            if (left instanceof NoType && right instanceof NoType)
+                return new NoType();
+            if (left instanceof NoType && right instanceof IntType)
+                return new IntType();
+            if (left instanceof IntType && right instanceof NoType)
+                return new IntType();
+            return null;
+        }
+        if (operator == BinaryOperator.eq) {
+            if (left instanceof IntType && right instanceof IntType)
+                return new BoolType();
+            if (left instanceof BoolType && right instanceof BoolType)
+                return new BoolType();
+            if (left instanceof NoType && right instanceof NoType)
+                return new NoType();
+            if (left instanceof NoType && right instanceof IntType)
+                return new IntType();
+            if (left instanceof IntType && right instanceof NoType)
+                return new IntType();
+            if (left instanceof NoType && right instanceof BoolType)
+                return new BoolType();
+            if (left instanceof BoolType && right instanceof NoType)
+                return new BoolType();
+            return null;
+        }
+        if (operator == BinaryOperator.gt || operator == BinaryOperator.lt) {
+            if (left instanceof IntType && right instanceof IntType)
+                return new BoolType();
+            if (left instanceof NoType && right instanceof NoType)
+                return new NoType();
+            if (left instanceof NoType && right instanceof IntType)
+                return new BoolType();
+            if (left instanceof IntType && right instanceof NoType)
+                return new BoolType();
+            return null;
+        }
+        if (operator == BinaryOperator.and || operator == BinaryOperator.or) {
+            if (left instanceof BoolType && right instanceof BoolType)
+                return new BoolType();
+            if (left instanceof NoType && right instanceof NoType)
+                return new NoType();
+            if (left instanceof NoType && right instanceof BoolType)
+                return new BoolType();
+            if (left instanceof BoolType && right instanceof NoType)
+                return new BoolType();
+            return null;
+        }
+        if (left == right)
+            return left;
+        if (left instanceof NoType && right instanceof NoType)
+            return new NoType();
+        if (left instanceof NoType)
+            return right;
+        if (right instanceof NoType)
+            return left;
+        return null;
+    }
+
+    private static Type ifChain(UnaryOperator operator, Type operand) {
+        if (operator == UnaryOperator.minus) {
+            if (operand instanceof IntType)
+                return new IntType();
+            if (operand instanceof NoType)
+                return new NoType();
+            return null;
+        }
+        if (operand instanceof BoolType)
+            return new BoolType();
+        if (operand instanceof NoType)
+            return new NoType();
+        return null;
+    }
+
+    //an ExpressionTypeChecker with the checks it made before OperatorTypeTable
+    private static class ChainTypeChecker extends ExpressionTypeChecker {
+        @Override
+        Type binaryType(BinaryOperator operation, Type typeLValue, Type typeRValue) {
+            return ifChain(operation, typeLValue, typeRValue);
+        }
+
+        @Override
+        Type unaryType(UnaryOperator operator, Type typeRValue) {
+            return ifChain(operator, typeRValue);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package main.visitor.type;
+
+import main.ast.nodes.expression.operators.BinaryOperator;
+import main.ast.nodes.expression.operators.UnaryOperator;
+import main.ast.types.NoType;
+import main.ast.types.Type;
+import main.ast.types.TypeKind;
+import main.ast.types.primitives.BoolType;
+import main.ast.types.primitives.IntType;
+
+//result of an operator for every combination of operand kinds, built once
+public final class OperatorTypeTable {
+    public static final byte ERROR = 0;
+    public static final byte INT = 1;
+    public static final byte BOOL = 2;
+    public static final byte NO = 3;
+    public static final byte LEFT = 4;
+    public static final byte RIGHT = 5;
+
+    //operands whose type could not be resolved (null) get the slot after the last TypeKind
+    private static final int UNRESOLVED = TypeKind.values().length;
+    private static final int KINDS = UNRESOLVED + 1;
+
+    private static final byte[][][] binaryResults = new byte[BinaryOperator.values().length][KINDS][KINDS];
+    private static final byte[][] unaryResults = new byte[UnaryOperator.values().length][KINDS];
+
+    static {
+        BinaryOperator[] arithmetic = {BinaryOperator.add, BinaryOperator.sub, BinaryOperator.mult, BinaryOperator.div};
+        for (BinaryOperator operator : arithmetic) {
+            setBinary(operator, TypeKind.INT, TypeKind.INT, INT); // int * int -> int
+            setBinary(operator, TypeKind.NO, TypeKind.NO, NO); // noType * noType -> noType
+            setBinary(operator, TypeKind.NO, TypeKind.INT, INT); // noType * int -> int
+            setBinary(operator, TypeKind.INT, TypeKind.NO, INT); // int * noType -> int
+        }
+
+        setBinary(BinaryOperator.eq, TypeKind.INT, TypeKind.INT, BOOL); //int * int -> bool
+        setBinary(BinaryOperator.eq, TypeKind.BOOL, TypeKind.BOOL, BOOL); //bool * bool -> bool
+        setBinary(BinaryOperator.eq, TypeKind.NO, TypeKind.NO, NO); //noType * noType -> noType
+        setBinary(BinaryOperator.eq, TypeKind.NO, TypeKind.INT, INT); //noType * int -> int
+        setBinary(BinaryOperator.eq, TypeKind.INT, TypeKind.NO, INT); //int * noType -> int
+        setBinary(BinaryOperator.eq, TypeKind.NO, TypeKind.BOOL, BOOL); //noType * bool -> bool
+        setBinary(BinaryOperator.eq, TypeKind.BOOL, TypeKind.NO, BOOL); //bool * noType -> bool
+
+        BinaryOperator[] relational = {BinaryOperator.gt, BinaryOperator.lt};
+        for (BinaryOperator operator : relational) {
+            setBinary(operator, TypeKind.INT, TypeKind.INT, BOOL); // int * int -> bool
+            setBinary(operator, TypeKind.NO, TypeKind.NO, NO); // noType * noType -> noType
+            setBinary(operator, TypeKind.NO, TypeKind.INT, BOOL); // noType * int -> bool
+            setBinary(operator, TypeKind.INT, TypeKind.NO, BOOL); // int * noType -> bool
+        }
+
+        BinaryOperator[] logical = {BinaryOperator.and, BinaryOperator.or};
+        for (BinaryOperator operator : logical) {
+            setBinary(operator, TypeKind.BOOL, TypeKind.BOOL, BOOL); // bool * bool -> bool
+            setBinary(operator, TypeKind.NO, TypeKind.NO, NO); // noType * noType -> noType
+            setBinary(operator, TypeKind.NO, TypeKind.BOOL, BOOL); // noType * bool -> bool
+            setBinary(operator, TypeKind.BOOL, TypeKind.NO, BOOL); // bool * noType -> bool
+        }
+
+        //assign: equal types on both sides are handled by the caller
+        int assign = BinaryOperator.assign.ordinal();
+        for (int kind = 0; kind < KINDS; kind++) {
+            binaryResults[assign][TypeKind.NO.ordinal()][kind] = RIGHT; // noType = x -> x
+            binaryResults[assign][kind][TypeKind.NO.ordinal()] = LEFT; // x = noType -> x
+        }
+        setBinary(BinaryOperator.assign, TypeKind.NO, TypeKind.NO, NO); // noType = noType -> noType
+
+        setUnary(UnaryOperator.minus, TypeKind.INT, INT); // int -> int
+        setUnary(UnaryOperator.minus, TypeKind.NO, NO); // noType -> noType
+        setUnary(UnaryOperator.not, TypeKind.BOOL, BOOL); // bool -> bool
+        setUnary(UnaryOperator.not, TypeKind.NO, NO); // noType -> noType
+    }
+
+    private OperatorTypeTable() {
+    }
+
+    private static void setBinary(BinaryOperator operator, TypeKind left, TypeKind right, byte result) {
+        binaryResults[operator.ordinal()][left.ordinal()][right.ordinal()] = result;
+    }
+
+    private static void setUnary(UnaryOperator operator, TypeKind operand, byte result) {
+        unaryResults[operator.ordinal()][operand.ordinal()] = result;
+    }
+
+    private static int kindOf(Type type) {
+        return type == null ? UNRESOLVED : type.getKind().ordinal();
+    }
+
+    public static byte binaryResult(BinaryOperator operator, Type left, Type right) {
+        return binaryResults[operator.ordinal()][kindOf(left)][kindOf(right)];
+    }
+
+    public static byte unaryResult(UnaryOperator operator, Type operand) {
+        return unaryResults[operator.ordinal()][kindOf(operand)];
+    }
+
+    //ERROR has no type, the caller reports it
+    public static Type toType(byte result, Type left, Type right) {
+        switch (result) {
+            case INT:
+                return new IntType();
+            case BOOL:
+                return new BoolType();
+            case NO:
+                return new NoType();
+            case LEFT:
+                return left;
+            case RIGHT:
+                return right;
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package main.visitor.type;
+
+import main.ast.nodes.Program;
+import main.ast.nodes.declaration.Declaration;
+import main.ast.nodes.declaration.FunctionDeclaration;
+import main.ast.nodes.declaration.MainDeclaration;
+
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+
+//Type checks a Program like TypeChecker, but the function bodies and main are checked concurrently.
+//The globals are checked first on the calling thread; after that SymbolTable.root is only read, and each
+//body gets its own TypeChecker and, through SymbolTable's per-thread scopes, its own scope stack.
+//Errors stay on the nodes, so ErrorReportingPass still prints them in source order.
+public class ParallelTypeChecker {
+    private final ForkJoinPool pool;
+
+    public ParallelTypeChecker() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelTypeChecker(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public void check(Program program) {
+        new TypeChecker().checkGlobals(program.getStructs(), program.getFunctions());
+
+        ArrayList<Declaration> bodies = new ArrayList<>(program.getFunctions());
+        bodies.add(program.getMain());
+        pool.submit(() -> bodies.parallelStream().forEach(ParallelTypeChecker::checkBody)).join();
+    }
+
+    private static void checkBody(Declaration declaration) {
+        TypeChecker typeChecker = new TypeChecker();
+        if (declaration instanceof FunctionDeclaration)
+            typeChecker.checkFunction((FunctionDeclaration) declaration);
+        else
+            typeChecker.checkMain((MainDeclaration) declaration);
+    }
+}
@@ -5,7 +5,6 @@ import main.ast.nodes.declaration.FunctionDeclaration;
 import main.ast.nodes.declaration.MainDeclaration;
 import main.ast.nodes.declaration.VariableDeclaration;
 import main.ast.nodes.declaration.struct.StructDeclaration;
-import main.ast.nodes.expression.BinaryExpression;
 import main.ast.nodes.expression.Identifier;
 import main.ast.nodes.expression.operators.BinaryOperator;
 import main.ast.nodes.statement.*;
@@ -14,8 +13,12 @@ import main.ast.types.StructType;
 import main.ast.types.Type;
 import main.ast.types.primitives.BoolType;
 import main.ast.types.primitives.IntType;
+import main.ast.types.primitives.VoidType;
 import main.compileError.nameError.*;
+import main.compileError.typeError.CannotUseDefineVar;
+import main.compileError.typeError.CannotUseReturn;
 import main.compileError.typeError.ConditionNotBool;
+import main.compileError.typeError.ReturnValueNotMatchFunctionReturnType;
 import main.compileError.typeError.StructNotDeclared;
 import main.compileError.typeError.UnsupportedTypeForDisplay;
 import main.symbolTable.SymbolTable;
@@ -38,6 +41,9 @@ public class TypeChecker extends Visitor<Void> {
     private boolean isInStruct = false;
     private String curStructName;
     private final Graph<String> structHierarchy = new Graph<>();
+    //return type expected by return statements, null where return can't be used
+    private Type curReturnType;
+    private boolean isInSetGet = false;
 
     private void createStructSymbolTable(StructDeclaration structDec) {
         SymbolTable newSymbolTable = new SymbolTable();
@@ -104,12 +110,12 @@ public class TypeChecker extends Visitor<Void> {
         this.expressionTypeChecker = new ExpressionTypeChecker();
     }
 
-    @Override
-    public Void visit(Program program) {
+    //fills a fresh SymbolTable.root and checks the struct bodies
+    public void checkGlobals(ArrayList<StructDeclaration> structs, ArrayList<FunctionDeclaration> functions) {
         SymbolTable root = new SymbolTable();
         SymbolTable.root = root;
         SymbolTable.push(root);
-        for (StructDeclaration structDec : program.getStructs()) {
+        for (StructDeclaration structDec : structs) {
             createStructSymbolTable(structDec);
             try {
                 structHierarchy.addNode(structDec.getStructName().getName());
@@ -118,7 +124,7 @@ public class TypeChecker extends Visitor<Void> {
             }
         }
 
-        for (FunctionDeclaration funcDec : program.getFunctions()) {
+        for (FunctionDeclaration funcDec : functions) {
             if (hasConflict(StructSymbolTableItem.START_KEY + funcDec.getFunctionName().getName())) {
                 FunctionStructConflict exception = new FunctionStructConflict(funcDec.getLine(), funcDec.getFunctionName().getName());
                 funcDec.addError(exception);
@@ -126,7 +132,7 @@ public class TypeChecker extends Visitor<Void> {
             createFunctionSymbolTable(funcDec);
         }
 
-        for (StructDeclaration structDec : program.getStructs()) {
+        for (StructDeclaration structDec : structs) {
             try {
                 String key = StructSymbolTableItem.START_KEY + structDec.getStructName().getName();
                 StructSymbolTableItem structSymbolTableItem = (StructSymbolTableItem) SymbolTable.root.getItem(key);
@@ -140,18 +146,27 @@ public class TypeChecker extends Visitor<Void> {
             }
         }
 
-        checkCycle(program.getStructs());
+        checkCycle(structs);
+    }
 
-        for (FunctionDeclaration funcDec : program.getFunctions()) {
-            SymbolTable.push(new SymbolTable());
-            funcDec.accept(this);
-            SymbolTable.pop();
-        }
+    public void checkFunction(FunctionDeclaration funcDec) {
+        SymbolTable.push(new SymbolTable());
+        funcDec.accept(this);
+        SymbolTable.pop();
+    }
 
+    public void checkMain(MainDeclaration mainDec) {
         SymbolTable.push(new SymbolTable());
-        program.getMain().accept(this);
+        mainDec.accept(this);
         SymbolTable.pop();
+    }
 
+    @Override
+    public Void visit(Program program) {
+        checkGlobals(program.getStructs(), program.getFunctions());
+        for (FunctionDeclaration funcDec : program.getFunctions())
+            checkFunction(funcDec);
+        checkMain(program.getMain());
         return null;
     }
 
@@ -159,17 +174,17 @@ public class TypeChecker extends Visitor<Void> {
     public Void visit(FunctionDeclaration functionDec) {
         try {
             var key = FunctionSymbolTableItem.START_KEY + functionDec.getFunctionName().getName();
-            SymbolTableItem functionSymbolTable = SymbolTable.root.getItem(key);
-            SymbolTable.push(((FunctionSymbolTableItem) functionSymbolTable).getFunctionSymbolTable());
-            functionDec.getBody().accept(this);
+            SymbolTable.root.getItem(key);
+            SymbolTable.push(new SymbolTable(SymbolTable.root));
             for (VariableDeclaration arg : functionDec.getArgs()) {
-                arg.accept(expressionTypeChecker);
+                arg.accept(this);
             }
-            functionDec.getBody();
+            curReturnType = functionDec.getReturnType();
+            functionDec.getBody().accept(this);
             Type functionReturnType = functionDec.getReturnType();
             if(functionReturnType instanceof StructType) {
                 try {
-                    SymbolTable.top.getItem(StructSymbolTableItem.START_KEY + ((StructType) functionReturnType).getStructName());
+                    SymbolTable.top().getItem(StructSymbolTableItem.START_KEY + ((StructType) functionReturnType).getStructName().getName());
                 } catch (ItemNotFoundException e) {
                     functionDec.addError(new StructNotDeclared(functionDec.getLine(), ((StructType) functionReturnType).getStructName().getName()));
                     functionDec.setReturnType(new NoType());
@@ -186,6 +201,7 @@ public class TypeChecker extends Visitor<Void> {
     public Void visit(MainDeclaration mainDec) {
         SymbolTable mainSymbolTable = new SymbolTable(SymbolTable.root);
         SymbolTable.push(mainSymbolTable);
+        curReturnType = new VoidType();
         mainDec.getBody().accept(this);
         SymbolTable.pop();
         return null;
@@ -214,14 +230,20 @@ public class TypeChecker extends Visitor<Void> {
             variableDec.addError(exception);
         }
 
+        if (variableDec.getDefaultValue() != null) {
+            Type valueType = expressionTypeChecker.dispatch(variableDec.getDefaultValue());
+            expressionTypeChecker.checkBinary(variableDec, BinaryOperator.assign, variableDec.getVarType(), valueType);
+        }
+
         VariableSymbolTableItem variableSymbolTableItem = new VariableSymbolTableItem(variableDec.getVarName());
+        variableSymbolTableItem.setType(variableDec.getVarType());
         try {
-            SymbolTable.top.getItem(variableSymbolTableItem.getKey());
+            SymbolTable.top().getItem(variableSymbolTableItem.getKey());
             DuplicateVar exception = new DuplicateVar(variableDec.getLine(), name);
             variableDec.addError(exception);
         } catch (ItemNotFoundException exception2) {
             try {
-                SymbolTable.top.put(variableSymbolTableItem);
+                SymbolTable.top().put(variableSymbolTableItem);
             } catch (ItemAlreadyExistsException exception3) {
             }
         }
@@ -259,7 +281,7 @@ public class TypeChecker extends Visitor<Void> {
             FunctionSymbolTableItem newItem = new FunctionSymbolTableItem(funcDec);
             newItem.setFunctionSymbolTable(newSym);
             try {
-                SymbolTable.top.put(newItem);
+                SymbolTable.top().put(newItem);
             } catch (ItemAlreadyExistsException e) {
                 setGetVarDec.setVarName(new Identifier(name + "@" + newId));
                 funcDec.setFunctionName(new Identifier(name + "@" + newId));
@@ -267,7 +289,7 @@ public class TypeChecker extends Visitor<Void> {
                 FunctionSymbolTableItem fSym = new FunctionSymbolTableItem(funcDec);
                 fSym.setFunctionSymbolTable(newSym);
                 try{
-                    SymbolTable.top.put(fSym);
+                    SymbolTable.top().put(fSym);
                 }catch (ItemAlreadyExistsException e2) {
                 }
             }
@@ -275,13 +297,27 @@ public class TypeChecker extends Visitor<Void> {
         else {
             try {
                 String key = FunctionSymbolTableItem.START_KEY + name;
-                FunctionSymbolTableItem fItem = (FunctionSymbolTableItem) SymbolTable.top.getItem(key);
+                FunctionSymbolTableItem fItem = (FunctionSymbolTableItem) SymbolTable.top().getItem(key);
                 SymbolTable sym = fItem.getFunctionSymbolTable();
-                sym.pre = SymbolTable.top;
+                sym.pre = SymbolTable.top();
                 SymbolTable.push(sym);
+                //the bodies are checked like function bodies: every statement, no struct edges
+                firstVisit = true;
+                isInStruct = false;
+                isInSetGet = true;
                 for (VariableDeclaration arg : setGetVarDec.getArgs())
-                    arg.accept(expressionTypeChecker);
+                    arg.accept(this);
+                curReturnType = null;
+                setGetVarDec.getSetterBody().accept(this);
                 SymbolTable.pop();
+
+                SymbolTable.push(new SymbolTable(sym.pre));
+                curReturnType = setGetVarDec.getVarType();
+                setGetVarDec.getGetterBody().accept(this);
+                SymbolTable.pop();
+                isInSetGet = false;
+                isInStruct = true;
+                firstVisit = false;
             } catch (ItemNotFoundException e) {
             }
         }
@@ -290,8 +326,9 @@ public class TypeChecker extends Visitor<Void> {
 
     @Override
     public Void visit(AssignmentStmt assignmentStmt) {
-        BinaryExpression binaryExpression = new BinaryExpression(assignmentStmt.getLValue(), assignmentStmt.getRValue(), BinaryOperator.assign);
-        binaryExpression.accept(expressionTypeChecker);
+        Type lValueType = expressionTypeChecker.dispatch(assignmentStmt.getLValue());
+        Type rValueType = expressionTypeChecker.dispatch(assignmentStmt.getRValue());
+        expressionTypeChecker.checkBinary(assignmentStmt, BinaryOperator.assign, lValueType, rValueType);
         return null;
     }
 
@@ -309,15 +346,15 @@ public class TypeChecker extends Visitor<Void> {
 
     @Override
     public Void visit(ConditionalStmt conditionalStmt) {
-        SymbolTable.push(new SymbolTable(SymbolTable.top));
-        Type conditionalType = conditionalStmt.getCondition().accept(expressionTypeChecker);
+        SymbolTable.push(new SymbolTable(SymbolTable.top()));
+        Type conditionalType = expressionTypeChecker.dispatch(conditionalStmt.getCondition());
         if (!(conditionalType instanceof BoolType) && !(conditionalType instanceof NoType)) {
             conditionalStmt.addError(new ConditionNotBool(conditionalStmt.getLine()));
         }
         conditionalStmt.getThenBody().accept(this);
         SymbolTable.pop();
         if (conditionalStmt.getElseBody() != null) {
-            SymbolTable.push(new SymbolTable(SymbolTable.top));
+            SymbolTable.push(new SymbolTable(SymbolTable.top()));
             conditionalStmt.getElseBody().accept(this);
             SymbolTable.pop();
         }
@@ -326,13 +363,13 @@ public class TypeChecker extends Visitor<Void> {
 
     @Override
     public Void visit(FunctionCallStmt functionCallStmt) {
-        //Todo
+        expressionTypeChecker.checkCallStatement(functionCallStmt.getFunctionCall());
         return null;
     }
 
     @Override
     public Void visit(DisplayStmt displayStmt) {
-        Type argType = displayStmt.getArg().accept(expressionTypeChecker);
+        Type argType = expressionTypeChecker.dispatch(displayStmt.getArg());
         if(!(argType instanceof IntType) && !(argType instanceof BoolType) && !(argType instanceof NoType)) {
             displayStmt.addError(new UnsupportedTypeForDisplay(displayStmt.getLine()));
         }
@@ -341,43 +378,48 @@ public class TypeChecker extends Visitor<Void> {
 
     @Override
     public Void visit(ReturnStmt returnStmt) {
-        //todo
+        if (curReturnType == null) {
+            returnStmt.addError(new CannotUseReturn(returnStmt.getLine()));
+            return null;
+        }
+        Type returnedType = returnStmt.getReturnedExpr() == null ? new VoidType() : expressionTypeChecker.dispatch(returnStmt.getReturnedExpr());
+        if (!ExpressionTypeChecker.sameType(curReturnType, returnedType))
+            returnStmt.addError(new ReturnValueNotMatchFunctionReturnType(returnStmt.getLine()));
         return null;
     }
 
     @Override
     public Void visit(LoopStmt loopStmt) {
-        Type conditionType = loopStmt.getCondition().accept(expressionTypeChecker);
-        if (conditionType instanceof BoolType) {
-            return null;
-        } else if(conditionType instanceof NoType) {
-            return null;
-        } else {
+        SymbolTable.push(new SymbolTable(SymbolTable.top()));
+        Type conditionType = expressionTypeChecker.dispatch(loopStmt.getCondition());
+        if (!(conditionType instanceof BoolType) && !(conditionType instanceof NoType)) {
             loopStmt.addError(new ConditionNotBool(loopStmt.getLine()));
         }
-
         loopStmt.getBody().accept(this);
+        SymbolTable.pop();
         return null;
     }
 
     @Override
     public Void visit(VarDecStmt varDecStmt) {
+        if (isInSetGet)
+            varDecStmt.addError(new CannotUseDefineVar(varDecStmt.getLine()));
         ArrayList<VariableDeclaration> varDecs = varDecStmt.getVars();
         for (VariableDeclaration varDec : varDecs) {
-            varDec.accept(expressionTypeChecker);
+            varDec.accept(this);
         }
         return null;
     }
 
     @Override
     public Void visit(ListAppendStmt listAppendStmt) {
-        listAppendStmt.getListAppendExpr().accept(expressionTypeChecker);
+        expressionTypeChecker.dispatch(listAppendStmt.getListAppendExpr());
         return null;
     }
 
     @Override
     public Void visit(ListSizeStmt listSizeStmt) {
-        listSizeStmt.getListSizeExpr().accept(expressionTypeChecker);
+        expressionTypeChecker.dispatch(listSizeStmt.getListSizeExpr());
         return null;
     }
 }
@@ -0,0 +1,751 @@
+package main.vm;
+
+import main.ast.nodes.Program;
+import main.ast.nodes.declaration.FunctionDeclaration;
+import main.ast.nodes.declaration.VariableDeclaration;
+import main.ast.nodes.declaration.struct.StructDeclaration;
+import main.ast.nodes.expression.*;
+import main.ast.nodes.expression.operators.BinaryOperator;
+import main.ast.nodes.expression.operators.UnaryOperator;
+import main.ast.nodes.expression.values.primitive.BoolValue;
+import main.ast.nodes.expression.values.primitive.IntValue;
+import main.ast.nodes.statement.*;
+import main.ast.types.ListType;
+import main.ast.types.StructType;
+import main.ast.types.Type;
+import main.ast.types.TypeKind;
+import main.ast.types.primitives.VoidType;
+import main.interpreter.RuntimeFunction;
+import main.interpreter.SideEffects;
+import main.interpreter.SlotResolver;
+import main.interpreter.StructLayout;
+import main.visitor.ExpressionWalker;
+import main.visitor.Visitor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import static main.vm.Opcodes.*;
+
+//Lowers a type checked Program to a BytecodeProgram. The locals of a function are its first registers,
+//numbered by the slots SlotResolver gives them (after register 0, the instance, in accessors and struct
+//inits), and the temporaries of an expression follow them; the arguments of a call are put in the
+//registers at the top, which become the first registers of the callee. Functions are in the table in
+//program order, then the init and accessors of every struct, then main.
+//Operands are evaluated from left to right like Interpreter does: an operand that is a local is read in
+//place unless an operand after it has side effects, then it is copied first.
+//Nested arithmetic, comparisons, unary operators and parentheses are compiled by an ExpressionWalker, so
+//a deep expression doesn't need a deep Java stack.
+public class BytecodeCompiler extends Visitor<Void> {
+    private int[] code = new int[1024];
+    private int size = 0;
+    private final ArrayList<Object> pool = new ArrayList<>();
+    private final HashMap<Object, Integer> poolIndices = new HashMap<>();
+    private final ArrayList<VmFunction> functions = new ArrayList<>();
+    private final HashMap<String, Integer> functionIndices = new HashMap<>();
+    private final HashMap<String, Integer> initIndices = new HashMap<>();
+    private final HashMap<String, Integer> layoutConstants = new HashMap<>();
+    private final HashMap<String, int[]> setterIndices = new HashMap<>();
+    private final HashMap<String, int[]> getterIndices = new HashMap<>();
+    private SlotResolver slotResolver;
+    private SideEffects sideEffects;
+
+    //register of slot 0, the first temporary and the number of registers used so far
+    private int base;
+    private int nextTemp;
+    private int frameSize;
+    //register the visited expression writes its value to, -1 for none
+    private int target = -1;
+
+    private BytecodeProgram result;
+
+    //the value of a walked node is the register holding it; &, |, = and ExprInPars of several inputs are
+    //leaves, compiled by visit
+    private final ExpressionWalker<Integer> operatorWalker = new ExpressionWalker<>() {
+        @Override
+        protected boolean isWalked(Expression expression) {
+            return isWalkedOperator(expression);
+        }
+
+        @Override
+        protected void enter(Expression expression) {
+            //the walk of an ExprInPar at the root writes its input to the root's register
+            if (expression instanceof ExprInPar && expression == roots.get(roots.size() - 1))
+                roots.set(roots.size() - 1, ((ExprInPar) expression).getInputs().get(0));
+            parents.add(expression);
+            marks.add(nextTemp);
+        }
+
+        @Override
+        protected Integer visitLeaf(Expression expression) {
+            if (expression == roots.get(roots.size() - 1)) {
+                compile(expression, rootRegisters.get(rootRegisters.size() - 1));
+                return rootRegisters.get(rootRegisters.size() - 1);
+            }
+            //a leaf in parentheses is copied, the inputs of the ExprInPar after it could change it
+            Expression parent = parents.get(parents.size() - 1);
+            boolean keep = parent instanceof ExprInPar || parent instanceof BinaryExpression
+                    && ((BinaryExpression) parent).getFirstOperand() == expression
+                    && isLocal(expression) && sideEffects.in(((BinaryExpression) parent).getSecondOperand());
+            return operand(expression, keep);
+        }
+
+        @Override
+        protected Integer visitBinary(BinaryExpression binaryExpression, Integer a, Integer b) {
+            int register = finish(binaryExpression);
+            switch (binaryExpression.getBinaryOperator()) {
+                case eq:
+                    emit(isRef(binaryExpression.getFirstOperand().getResolvedType()) ? EQ_REF : EQ_INT, register, a, b);
+                    break;
+                case gt:
+                    emit(GT, register, a, b);
+                    break;
+                case lt:
+                    emit(LT, register, a, b);
+                    break;
+                case add:
+                    emit(ADD, register, a, b);
+                    break;
+                case sub:
+                    emit(SUB, register, a, b);
+                    break;
+                case mult:
+                    emit(MULT, register, a, b);
+                    break;
+                default:
+                    emit(DIV, register, a, b, binaryExpression.getLine());
+                    break;
+            }
+            return register;
+        }
+
+        @Override
+        protected Integer visitUnary(UnaryExpression unaryExpression, Integer operand) {
+            int register = finish(unaryExpression);
+            emit(unaryExpression.getOperator() == UnaryOperator.not ? NOT : NEG, register, operand);
+            return register;
+        }
+
+        //the temporaries of the input hold the value until the parent is finished
+        @Override
+        protected Integer visitExprInPar(ExprInPar exprInPar, ArrayList<Integer> inputs) {
+            parents.remove(parents.size() - 1);
+            marks.remove(marks.size() - 1);
+            return inputs.get(0);
+        }
+    };
+    //per walk, the node that writes to the register compile() was given and that register
+    private final ArrayList<Expression> roots = new ArrayList<>();
+    private final ArrayList<Integer> rootRegisters = new ArrayList<>();
+    //the walked nodes that aren't finished and nextTemp when each was entered
+    private final ArrayList<Expression> parents = new ArrayList<>();
+    private final ArrayList<Integer> marks = new ArrayList<>();
+
+    public static BytecodeProgram compile(Program program) {
+        BytecodeCompiler compiler = new BytecodeCompiler();
+        program.accept(compiler);
+        return compiler.result;
+    }
+
+    private void emit(int... instruction) {
+        if (size + instruction.length > code.length)
+            code = Arrays.copyOf(code, Math.max(code.length * 2, size + instruction.length));
+        System.arraycopy(instruction, 0, code, size, instruction.length);
+        size += instruction.length;
+    }
+
+    //address of the last operand, which is set to the target by patch()
+    private int jump(int opcode, int... operands) {
+        int[] instruction = new int[operands.length + 2];
+        instruction[0] = opcode;
+        System.arraycopy(operands, 0, instruction, 1, operands.length);
+        emit(instruction);
+        return size - 1;
+    }
+
+    private void patch(int operand) {
+        code[operand] = size;
+    }
+
+    private int constant(Object value) {
+        Integer index = poolIndices.get(value);
+        if (index == null) {
+            index = pool.size();
+            pool.add(value);
+            poolIndices.put(value, index);
+        }
+        return index;
+    }
+
+    private int temp() {
+        int register = nextTemp++;
+        frameSize = Math.max(frameSize, nextTemp);
+        return register;
+    }
+
+    //consecutive registers at the top of the frame
+    private int reserve(int count) {
+        int first = nextTemp;
+        nextTemp += count;
+        frameSize = Math.max(frameSize, nextTemp);
+        return first;
+    }
+
+    private static boolean isRef(Type type) {
+        TypeKind kind = type.getKind();
+        return kind == TypeKind.LIST || kind == TypeKind.STRUCT || kind == TypeKind.FPTR;
+    }
+
+    private static boolean hasRefElements(Expression list) {
+        return isRef(((ListType) list.getResolvedType()).getType());
+    }
+
+    private static String structName(Type type) {
+        return ((StructType) type).getStructName().getName();
+    }
+
+    private int local(Identifier name) {
+        return base + name.getSlot();
+    }
+
+    private static boolean isWalkedOperator(Expression expression) {
+        if (expression instanceof BinaryExpression) {
+            BinaryOperator operator = ((BinaryExpression) expression).getBinaryOperator();
+            return operator != BinaryOperator.assign && operator != BinaryOperator.and && operator != BinaryOperator.or;
+        }
+        if (expression instanceof ExprInPar)
+            return ((ExprInPar) expression).getInputs().size() == 1;
+        return expression instanceof UnaryExpression;
+    }
+
+    //compiles a walked operator to target
+    private Void walk(Expression expression) {
+        roots.add(expression);
+        rootRegisters.add(target >= 0 ? target : temp());
+        operatorWalker.walk(expression);
+        roots.remove(roots.size() - 1);
+        rootRegisters.remove(rootRegisters.size() - 1);
+        return null;
+    }
+
+    //frees the temporaries of a walked node's operands; returns the register its value goes to
+    private int finish(Expression expression) {
+        parents.remove(parents.size() - 1);
+        nextTemp = marks.remove(marks.size() - 1);
+        if (expression == roots.get(roots.size() - 1))
+            return rootRegisters.get(rootRegisters.size() - 1);
+        return temp();
+    }
+
+    private static boolean isLocal(Expression expression) {
+        return expression instanceof Identifier && ((Identifier) expression).getStorage() == Identifier.Storage.LOCAL;
+    }
+
+    private void compile(Expression expression, int register) {
+        int outerTarget = target;
+        target = register;
+        expression.accept(this);
+        target = outerTarget;
+    }
+
+    //register holding the value of the expression; a local is copied if keep is set, as the operands
+    //after it could assign it
+    private int operand(Expression expression, boolean keep) {
+        if (!keep && isLocal(expression))
+            return local((Identifier) expression);
+        int register = temp();
+        compile(expression, register);
+        return register;
+    }
+
+    private void move(Type type, int to, int from) {
+        if (to >= 0 && to != from)
+            emit(isRef(type) ? MOVE_REF : MOVE_INT, to, from);
+    }
+
+    private void defaultValue(Type type, int register, int line) {
+        switch (type.getKind()) {
+            case INT:
+            case BOOL:
+                emit(CONST_INT, register, 0);
+                break;
+            case LIST:
+                emit(isRef(((ListType) type).getType()) ? NEW_REF_LIST : NEW_INT_LIST, register);
+                break;
+            case STRUCT:
+                newStruct(structName(type), register, line);
+                break;
+            default:
+                emit(CONST_REF, register, -1);
+                break;
+        }
+    }
+
+    private void newStruct(String name, int register, int line) {
+        int instance = reserve(1);
+        emit(NEW_STRUCT, instance, layoutConstants.get(name));
+        emit(CALL, initIndices.get(name), instance, instance, line);
+        emit(MOVE_REF, register, instance);
+        nextTemp = instance;
+    }
+
+    private int addFunction(String name, int line, boolean returnsValue) {
+        functions.add(new VmFunction(name, line, returnsValue));
+        return functions.size() - 1;
+    }
+
+    private void beginFunction(int firstLocal, int localCount) {
+        base = firstLocal;
+        nextTemp = firstLocal + localCount;
+        frameSize = nextTemp;
+    }
+
+    private void endFunction(int index, String name) {
+        VmFunction function = functions.get(index);
+        if (function.returnsValue())
+            emit(MISSING_RETURN, function.getLine(), constant(name));
+        else
+            emit(RETURN);
+    }
+
+    private void compileFunction(int index, String name, int firstLocal, RuntimeFunction resolved, Statement body) {
+        int entry = size;
+        beginFunction(firstLocal, resolved.getFrameSize());
+        body.accept(this);
+        endFunction(index, name);
+        functions.get(index).setCode(entry, frameSize);
+    }
+
+    private static ArrayList<Statement> statementsOf(Statement body) {
+        if (body instanceof BlockStmt)
+            return ((BlockStmt) body).getStatements();
+        ArrayList<Statement> statements = new ArrayList<>();
+        statements.add(body);
+        return statements;
+    }
+
+    @Override
+    public Void visit(Program program) {
+        slotResolver = SlotResolver.resolve(program);
+        sideEffects = new SideEffects(slotResolver);
+
+        //functions first, so an fptr constant and the function have the same index
+        for (FunctionDeclaration funcDec : program.getFunctions()) {
+            String name = funcDec.getFunctionName().getName();
+            int index = addFunction(name, funcDec.getLine(), !(funcDec.getReturnType() instanceof VoidType));
+            functionIndices.put(name, index);
+            constant(functions.get(index));
+        }
+        for (StructDeclaration structDec : program.getStructs()) {
+            String name = structDec.getStructName().getName();
+            StructLayout layout = slotResolver.getLayout(name);
+            initIndices.put(name, addFunction(name + ".init", structDec.getLine(), false));
+            layoutConstants.put(name, constant(new VmLayout(name, layout.size())));
+            int[] setters = new int[layout.size()];
+            int[] getters = new int[layout.size()];
+            for (int i = 0; i < layout.size(); i++) {
+                String fieldName = layout.getField(i).getVarName().getName();
+                setters[i] = layout.getSetter(i) == null ? -1 : addFunction(name + ".set_" + fieldName, layout.getSetter(i).getLine(), false);
+                getters[i] = layout.getGetter(i) == null ? -1 : addFunction(name + ".get_" + fieldName, layout.getGetter(i).getLine(), true);
+            }
+            setterIndices.put(name, setters);
+            getterIndices.put(name, getters);
+        }
+        int main = addFunction("main", program.getMain().getLine(), false);
+
+        for (int i = 0; i < program.getFunctions().size(); i++) {
+            FunctionDeclaration funcDec = program.getFunctions().get(i);
+            compileFunction(i, funcDec.getFunctionName().getName(), 0, slotResolver.getFunction(i), funcDec.getBody());
+        }
+        for (StructDeclaration structDec : program.getStructs())
+            compileStruct(structDec);
+        compileFunction(main, "main", 0, slotResolver.getMain(), program.getMain().getBody());
+
+        result = new BytecodeProgram(Arrays.copyOf(code, size), pool.toArray(), functions.toArray(new VmFunction[0]), main);
+        return null;
+    }
+
+    private void compileStruct(StructDeclaration structDec) {
+        String name = structDec.getStructName().getName();
+        StructLayout layout = slotResolver.getLayout(name);
+
+        //init: register 0 is the new instance
+        int init = initIndices.get(name);
+        int entry = size;
+        beginFunction(1, 0);
+        for (int i = 0; i < layout.size(); i++) {
+            VariableDeclaration field = layout.getField(i);
+            Type type = field.getVarType();
+            int value = temp();
+            if (field.getDefaultValue() != null)
+                compile(field.getDefaultValue(), value);
+            else
+                defaultValue(type, value, field.getLine());
+            emit(isRef(type) ? FIELD_SET_REF : FIELD_SET_INT, 0, i, value);
+            nextTemp = value;
+        }
+        emit(RETURN);
+        functions.get(init).setCode(entry, frameSize);
+
+        int[] setters = setterIndices.get(name);
+        int[] getters = getterIndices.get(name);
+        for (Statement stmt : statementsOf(structDec.getBody())) {
+            if (!(stmt instanceof SetGetVarDeclaration))
+                continue;
+            SetGetVarDeclaration setGetVarDec = (SetGetVarDeclaration) stmt;
+            int index = setGetVarDec.getVarName().getSlot();
+            String fieldName = setGetVarDec.getVarName().getName();
+            compileFunction(setters[index], fieldName, 1, layout.getSetter(index), setGetVarDec.getSetterBody());
+            compileFunction(getters[index], fieldName, 1, layout.getGetter(index), setGetVarDec.getGetterBody());
+        }
+    }
+
+    //value is also written to register, unless it is -1
+    private void assign(Expression lValue, Expression value, int register, int line) {
+        if (lValue instanceof Identifier && ((Identifier) lValue).getStorage() == Identifier.Storage.LOCAL) {
+            int local = local((Identifier) lValue);
+            if (writesEarly(value)) {
+                int temp = temp();
+                compile(value, temp);
+                move(value.getResolvedType(), local, temp);
+            } else {
+                compile(value, local);
+            }
+            move(value.getResolvedType(), register, local);
+            return;
+        }
+        if (lValue instanceof Identifier) {
+            int valueRegister = operand(value, false);
+            emit(isRef(value.getResolvedType()) ? FIELD_SET_REF : FIELD_SET_INT, 0, ((Identifier) lValue).getSlot(), valueRegister);
+            move(value.getResolvedType(), register, valueRegister);
+            return;
+        }
+        if (lValue instanceof StructAccess) {
+            StructAccess structAccess = (StructAccess) lValue;
+            int instance = operand(structAccess.getInstance(), sideEffects.in(value));
+            int valueRegister = operand(value, false);
+            emit(isRef(value.getResolvedType()) ? FIELD_SET_REF : FIELD_SET_INT, instance, structAccess.getElement().getSlot(), valueRegister);
+            move(value.getResolvedType(), register, valueRegister);
+            return;
+        }
+        if (lValue instanceof ListAccessByIndex) {
+            ListAccessByIndex listAccessByIndex = (ListAccessByIndex) lValue;
+            Expression index = listAccessByIndex.getIndex();
+            int list = operand(listAccessByIndex.getInstance(), sideEffects.in(index) || sideEffects.in(value));
+            int indexRegister = operand(index, sideEffects.in(value));
+            int valueRegister = operand(value, false);
+            emit(hasRefElements(listAccessByIndex.getInstance()) ? REF_LIST_SET : INT_LIST_SET, list, indexRegister, valueRegister, line);
+            move(value.getResolvedType(), register, valueRegister);
+            return;
+        }
+        //checked programs only assign to the expression in parentheses
+        assign(((ExprInPar) lValue).getInputs().get(0), value, register, line);
+    }
+
+    private static boolean isShortCircuit(Expression expression) {
+        if (!(expression instanceof BinaryExpression))
+            return false;
+        BinaryOperator operator = ((BinaryExpression) expression).getBinaryOperator();
+        return operator == BinaryOperator.and || operator == BinaryOperator.or;
+    }
+
+    //& and | write their first operand to the register before they evaluate the second one
+    private static boolean writesEarly(Expression expression) {
+        if (expression instanceof ExprInPar && ((ExprInPar) expression).getInputs().size() == 1)
+            return writesEarly(((ExprInPar) expression).getInputs().get(0));
+        return isShortCircuit(expression);
+    }
+
+    @Override
+    public Void visit(VariableDeclaration variableDec) {
+        int mark = nextTemp;
+        if (variableDec.getDefaultValue() != null)
+            assign(variableDec.getVarName(), variableDec.getDefaultValue(), -1, variableDec.getLine());
+        else
+            defaultValue(variableDec.getVarType(), local(variableDec.getVarName()), variableDec.getLine());
+        nextTemp = mark;
+        return null;
+    }
+
+    @Override
+    public Void visit(AssignmentStmt assignmentStmt) {
+        int mark = nextTemp;
+        assign(assignmentStmt.getLValue(), assignmentStmt.getRValue(), -1, assignmentStmt.getLine());
+        nextTemp = mark;
+        return null;
+    }
+
+    @Override
+    public Void visit(BlockStmt blockStmt) {
+        for (Statement stmt : blockStmt.getStatements())
+            stmt.accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(ConditionalStmt conditionalStmt) {
+        int mark = nextTemp;
+        int condition = operand(conditionalStmt.getCondition(), false);
+        nextTemp = mark;
+        int toElse = jump(JUMP_IF_FALSE, condition);
+        conditionalStmt.getThenBody().accept(this);
+        if (conditionalStmt.getElseBody() == null) {
+            patch(toElse);
+            return null;
+        }
+        int toEnd = jump(JUMP);
+        patch(toElse);
+        conditionalStmt.getElseBody().accept(this);
+        patch(toEnd);
+        return null;
+    }
+
+    @Override
+    public Void visit(FunctionCallStmt functionCallStmt) {
+        int mark = nextTemp;
+        compile(functionCallStmt.getFunctionCall(), temp());
+        nextTemp = mark;
+        return null;
+    }
+
+    @Override
+    public Void visit(DisplayStmt displayStmt) {
+        int mark = nextTemp;
+        Expression arg = displayStmt.getArg();
+        int value = operand(arg, false);
+        emit(arg.getResolvedType().getKind() == TypeKind.BOOL ? DISPLAY_BOOL : DISPLAY_INT, value);
+        nextTemp = mark;
+        return null;
+    }
+
+    @Override
+    public Void visit(ReturnStmt returnStmt) {
+        int mark = nextTemp;
+        Expression returnedExpr = returnStmt.getReturnedExpr();
+        if (returnedExpr == null) {
+            emit(RETURN);
+        } else {
+            int value = operand(returnedExpr, false);
+            emit(isRef(returnedExpr.getResolvedType()) ? RETURN_REF : RETURN_INT, value);
+        }
+        nextTemp = mark;
+        return null;
+    }
+
+    //the condition is after the body, so an iteration takes one jump
+    @Override
+    public Void visit(LoopStmt loopStmt) {
+        int toCondition = loopStmt.isDoWhile() ? -1 : jump(JUMP);
+        int body = size;
+        loopStmt.getBody().accept(this);
+        if (toCondition >= 0)
+            patch(toCondition);
+        int mark = nextTemp;
+        int condition = operand(loopStmt.getCondition(), false);
+        nextTemp = mark;
+        emit(JUMP_IF_TRUE, condition, body);
+        return null;
+    }
+
+    @Override
+    public Void visit(VarDecStmt varDecStmt) {
+        for (VariableDeclaration varDec : varDecStmt.getVars())
+            varDec.accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visit(ListAppendStmt listAppendStmt) {
+        int mark = nextTemp;
+        compile(listAppendStmt.getListAppendExpr(), -1);
+        nextTemp = mark;
+        return null;
+    }
+
+    @Override
+    public Void visit(ListSizeStmt listSizeStmt) {
+        int mark = nextTemp;
+        compile(listSizeStmt.getListSizeExpr(), temp());
+        nextTemp = mark;
+        return null;
+    }
+
+    @Override
+    public Void visit(BinaryExpression binaryExpression) {
+        int register = target;
+        int mark = nextTemp;
+        Expression first = binaryExpression.getFirstOperand();
+        Expression second = binaryExpression.getSecondOperand();
+        switch (binaryExpression.getBinaryOperator()) {
+            case assign:
+                assign(first, second, register, binaryExpression.getLine());
+                nextTemp = mark;
+                return null;
+            case and:
+            case or: {
+                //a & b & c ... nests to the left, so the chain is compiled from its first operand up
+                ArrayList<BinaryExpression> chain = new ArrayList<>();
+                Expression bottom = binaryExpression;
+                while (isShortCircuit(bottom)) {
+                    chain.add((BinaryExpression) bottom);
+                    bottom = ((BinaryExpression) bottom).getFirstOperand();
+                }
+                compile(bottom, register);
+                for (int i = chain.size() - 1; i >= 0; i--) {
+                    BinaryExpression link = chain.get(i);
+                    int toEnd = jump(link.getBinaryOperator() == BinaryOperator.and
+                            ? JUMP_IF_FALSE : JUMP_IF_TRUE, register);
+                    compile(link.getSecondOperand(), register);
+                    patch(toEnd);
+                }
+                nextTemp = mark;
+                return null;
+            }
+            default:
+                return walk(binaryExpression);
+        }
+    }
+
+    @Override
+    public Void visit(UnaryExpression unaryExpression) {
+        return walk(unaryExpression);
+    }
+
+    @Override
+    public Void visit(FunctionCall funcCall) {
+        int register = target;
+        int mark = nextTemp;
+        Expression instance = funcCall.getInstance();
+        ArrayList<Expression> args = funcCall.getArgs();
+        if (instance instanceof Identifier && ((Identifier) instance).getStorage() == Identifier.Storage.FUNCTION) {
+            int argBase = reserve(args.size());
+            for (int i = 0; i < args.size(); i++)
+                compile(args.get(i), argBase + i);
+            emit(CALL, functionIndices.get(((Identifier) instance).getName()), argBase, register, funcCall.getLine());
+            nextTemp = mark;
+            return null;
+        }
+        if (instance instanceof StructAccess) {
+            StructAccess structAccess = (StructAccess) instance;
+            int setter = setterIndices.get(structName(structAccess.getInstance().getResolvedType()))[structAccess.getElement().getSlot()];
+            if (setter >= 0) {
+                int argBase = reserve(1 + args.size());
+                compile(structAccess.getInstance(), argBase);
+                for (int i = 0; i < args.size(); i++)
+                    compile(args.get(i), argBase + 1 + i);
+                emit(CALL, setter, argBase, register, funcCall.getLine());
+                nextTemp = mark;
+                return null;
+            }
+        }
+        int function = temp();
+        compile(instance, function);
+        emit(CHECK_FPTR, function, funcCall.getLine());
+        int argBase = reserve(args.size());
+        for (int i = 0; i < args.size(); i++)
+            compile(args.get(i), argBase + i);
+        emit(CALL_FPTR, function, argBase, register, funcCall.getLine());
+        nextTemp = mark;
+        return null;
+    }
+
+    @Override
+    public Void visit(Identifier identifier) {
+        switch (identifier.getStorage()) {
+            case LOCAL:
+                move(identifier.getResolvedType(), target, local(identifier));
+                break;
+            case MEMBER:
+                emit(isRef(identifier.getResolvedType()) ? FIELD_GET_REF : FIELD_GET_INT, target, 0, identifier.getSlot());
+                break;
+            default:
+                emit(CONST_REF, target, constant(functions.get(functionIndices.get(identifier.getName()))));
+                break;
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(ListAccessByIndex listAccessByIndex) {
+        int register = target;
+        int mark = nextTemp;
+        Expression index = listAccessByIndex.getIndex();
+        int list = operand(listAccessByIndex.getInstance(), sideEffects.in(index));
+        int indexRegister = operand(index, false);
+        emit(hasRefElements(listAccessByIndex.getInstance()) ? REF_LIST_GET : INT_LIST_GET, register, list, indexRegister, listAccessByIndex.getLine());
+        nextTemp = mark;
+        return null;
+    }
+
+    @Override
+    public Void visit(StructAccess structAccess) {
+        int register = target;
+        int mark = nextTemp;
+        int field = structAccess.getElement().getSlot();
+        int getter = getterIndices.get(structName(structAccess.getInstance().getResolvedType()))[field];
+        if (getter >= 0) {
+            int argBase = reserve(1);
+            compile(structAccess.getInstance(), argBase);
+            emit(CALL, getter, argBase, register, structAccess.getLine());
+        } else {
+            int instance = operand(structAccess.getInstance(), false);
+            emit(isRef(structAccess.getResolvedType()) ? FIELD_GET_REF : FIELD_GET_INT, register, instance, field);
+        }
+        nextTemp = mark;
+        return null;
+    }
+
+    @Override
+    public Void visit(ListSize listSize) {
+        int register = target;
+        int mark = nextTemp;
+        int list = operand(listSize.getArg(), false);
+        emit(hasRefElements(listSize.getArg()) ? REF_LIST_SIZE : INT_LIST_SIZE, register, list);
+        nextTemp = mark;
+        return null;
+    }
+
+    @Override
+    public Void visit(ListAppend listAppend) {
+        int mark = nextTemp;
+        Expression element = listAppend.getElementArg();
+        int list = operand(listAppend.getListArg(), sideEffects.in(element));
+        int value = operand(element, false);
+        emit(hasRefElements(listAppend.getListArg()) ? REF_LIST_APPEND : INT_LIST_APPEND, list, value);
+        nextTemp = mark;
+        return null;
+    }
+
+    @Override
+    public Void visit(ExprInPar exprInPar) {
+        int register = target;
+        ArrayList<Expression> inputs = exprInPar.getInputs();
+        if (inputs.size() == 1)
+            return walk(exprInPar);
+        //the first value is kept aside while the other inputs run, they could change the register
+        int mark = nextTemp;
+        int first = temp();
+        compile(inputs.get(0), first);
+        for (int i = 1; i < inputs.size(); i++) {
+            int scratch = temp();
+            compile(inputs.get(i), scratch);
+            nextTemp = scratch;
+        }
+        move(inputs.get(0).getResolvedType(), register, first);
+        nextTemp = mark;
+        return null;
+    }
+
+    @Override
+    public Void visit(IntValue intValue) {
+        emit(CONST_INT, target, intValue.getConstant());
+        return null;
+    }
+
+    @Override
+    public Void visit(BoolValue boolValue) {
+        emit(CONST_INT, target, boolValue.getConstant() ? 1 : 0);
+        return null;
+    }
+}
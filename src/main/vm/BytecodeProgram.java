@@ -0,0 +1,62 @@
+package main.vm;
+
+import java.io.PrintStream;
+
+//Code of a whole program for VirtualMachine: one code array for all functions, the constant pool and the
+//function table that CALL indexes; main is the function the program starts with.
+public class BytecodeProgram {
+    private final int[] code;
+    private final Object[] pool;
+    private final VmFunction[] functions;
+    private final int main;
+
+    BytecodeProgram(int[] code, Object[] pool, VmFunction[] functions, int main) {
+        this.code = code;
+        this.pool = pool;
+        this.functions = functions;
+        this.main = main;
+    }
+
+    int[] getCode() {
+        return code;
+    }
+
+    Object[] getPool() {
+        return pool;
+    }
+
+    VmFunction[] getFunctions() {
+        return functions;
+    }
+
+    VmFunction getMain() {
+        return functions[main];
+    }
+
+    public int size() {
+        return code.length;
+    }
+
+    //one line per instruction, functions in the order of their code
+    public void dump(PrintStream out) {
+        for (int pc = 0; pc < code.length; ) {
+            for (VmFunction function : functions)
+                if (function.getEntry() == pc)
+                    out.println(function.getName() + ": frame " + function.getFrameSize());
+            int opcode = code[pc];
+            StringBuilder instruction = new StringBuilder(String.format("%6d  %-16s", pc, Opcodes.NAMES[opcode]));
+            for (int i = 1; i <= Opcodes.OPERANDS[opcode]; i++)
+                instruction.append(i == 1 ? " " : ", ").append(code[pc + i]);
+            if (opcode == Opcodes.CALL)
+                instruction.append("  ; ").append(functions[code[pc + 1]].getName());
+            else if ((opcode == Opcodes.CONST_REF || opcode == Opcodes.NEW_STRUCT) && code[pc + 2] >= 0)
+                instruction.append("  ; ").append(poolEntry(pool[code[pc + 2]]));
+            out.println(instruction);
+            pc += 1 + Opcodes.OPERANDS[opcode];
+        }
+    }
+
+    private static String poolEntry(Object entry) {
+        return entry instanceof VmFunction ? ((VmFunction) entry).getName() : String.valueOf(entry);
+    }
+}
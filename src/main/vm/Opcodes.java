@@ -0,0 +1,69 @@
+package main.vm;
+
+//Instructions of the register machine. An instruction is its opcode followed by OPERANDS[opcode] ints in
+//the code array. Registers are numbered from the frame of the running function; every register has an int
+//lane (ints and bools, 0 or 1) and a reference lane (lists, struct instances and functions), and the
+//instruction says which one it uses. A pool operand is an index into the constant pool, a function
+//operand an index into the function table and a target is a code address.
+public final class Opcodes {
+    private Opcodes() {
+    }
+
+    public static final int CONST_INT = 0;        //r, value
+    public static final int CONST_REF = 1;        //r, pool (null for -1)
+    public static final int MOVE_INT = 2;         //r, source
+    public static final int MOVE_REF = 3;         //r, source
+    public static final int ADD = 4;              //r, a, b
+    public static final int SUB = 5;              //r, a, b
+    public static final int MULT = 6;             //r, a, b
+    public static final int DIV = 7;              //r, a, b, line
+    public static final int NEG = 8;              //r, a
+    public static final int NOT = 9;              //r, a
+    public static final int LT = 10;              //r, a, b
+    public static final int GT = 11;              //r, a, b
+    public static final int EQ_INT = 12;          //r, a, b
+    public static final int EQ_REF = 13;          //r, a, b
+    public static final int JUMP = 14;            //target
+    public static final int JUMP_IF_FALSE = 15;   //r, target
+    public static final int JUMP_IF_TRUE = 16;    //r, target
+    public static final int CALL = 17;            //function, base, result, line
+    public static final int CALL_FPTR = 18;       //fptr, base, result, line
+    public static final int RETURN = 19;          //
+    public static final int RETURN_INT = 20;      //r
+    public static final int RETURN_REF = 21;      //r
+    public static final int MISSING_RETURN = 22;  //line, pool (function name)
+    public static final int NEW_INT_LIST = 23;    //r
+    public static final int NEW_REF_LIST = 24;    //r
+    public static final int NEW_STRUCT = 25;      //r, pool (layout); the fields are set by calling its init
+    public static final int INT_LIST_GET = 26;    //r, list, index, line
+    public static final int REF_LIST_GET = 27;    //r, list, index, line
+    public static final int INT_LIST_SET = 28;    //list, index, value, line
+    public static final int REF_LIST_SET = 29;    //list, index, value, line
+    public static final int INT_LIST_APPEND = 30; //list, value
+    public static final int REF_LIST_APPEND = 31; //list, value
+    public static final int INT_LIST_SIZE = 32;   //r, list
+    public static final int REF_LIST_SIZE = 33;   //r, list
+    public static final int FIELD_GET_INT = 34;   //r, instance, field
+    public static final int FIELD_GET_REF = 35;   //r, instance, field
+    public static final int FIELD_SET_INT = 36;   //instance, field, value
+    public static final int FIELD_SET_REF = 37;   //instance, field, value
+    public static final int DISPLAY_INT = 38;     //r
+    public static final int DISPLAY_BOOL = 39;    //r
+    public static final int CHECK_FPTR = 40;      //fptr, line; fails before the args of a CALL_FPTR run
+
+    static final int[] OPERANDS = {
+            2, 2, 2, 2, 3, 3, 3, 4, 2, 2,
+            3, 3, 3, 3, 1, 2, 2, 4, 4, 0,
+            1, 1, 2, 1, 1, 2, 4, 4, 4, 4,
+            2, 2, 2, 2, 3, 3, 3, 3, 1, 1,
+            2
+    };
+
+    static final String[] NAMES = {
+            "const_int", "const_ref", "move_int", "move_ref", "add", "sub", "mult", "div", "neg", "not",
+            "lt", "gt", "eq_int", "eq_ref", "jump", "jump_if_false", "jump_if_true", "call", "call_fptr", "return",
+            "return_int", "return_ref", "missing_return", "new_int_list", "new_ref_list", "new_struct", "int_list_get", "ref_list_get", "int_list_set", "ref_list_set",
+            "int_list_append", "ref_list_append", "int_list_size", "ref_list_size", "field_get_int", "field_get_ref", "field_set_int", "field_set_ref", "display_int", "display_bool",
+            "check_fptr"
+    };
+}
@@ -0,0 +1,260 @@
+package main.vm;
+
+import main.interpreter.CmmRuntimeError;
+import main.runtime.IntList;
+import main.runtime.RefList;
+
+import java.io.PrintStream;
+
+import static main.vm.Opcodes.*;
+
+//Runs a BytecodeProgram. All frames share one preallocated register stack, an int lane and a reference
+//lane of STACK_SIZE registers; a call moves the frame pointer to the arguments the caller put at the top
+//of its frame and pushes the return address, the caller's frame pointer and the absolute result register.
+//Lists with int or bool elements are IntLists, as a bool is 0 or 1 in the int lane, the others RefLists.
+//Runtime errors are the Interpreter's.
+public class VirtualMachine {
+    public static final int STACK_SIZE = 1 << 18;
+    public static final int MAX_CALL_DEPTH = 1 << 16;
+
+    private final PrintStream out;
+    private final int[] ints = new int[STACK_SIZE];
+    private final Object[] refs = new Object[STACK_SIZE];
+    private final int[] calls = new int[3 * MAX_CALL_DEPTH];
+
+    public VirtualMachine(PrintStream out) {
+        this.out = out;
+    }
+
+    //runtime errors are thrown as CmmRuntimeError, after the output so far is flushed
+    public void run(BytecodeProgram program) {
+        try {
+            execute(program);
+        } finally {
+            out.flush();
+        }
+    }
+
+    private static CmmRuntimeError indexError(int line, int index, int size) {
+        return new CmmRuntimeError(line, "Index " + index + " is out of range for a list of size " + size);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void execute(BytecodeProgram program) {
+        final int[] code = program.getCode();
+        final Object[] pool = program.getPool();
+        final VmFunction[] functions = program.getFunctions();
+        final int[] ints = this.ints;
+        final Object[] refs = this.refs;
+        final int[] calls = this.calls;
+        VmFunction main = program.getMain();
+        if (main.getFrameSize() > STACK_SIZE)
+            throw new CmmRuntimeError(main.getLine(), "Stack overflow");
+        int pc = main.getEntry();
+        int fp = 0;
+        int sp = 0;
+        while (true) {
+            switch (code[pc]) {
+                case CONST_INT:
+                    ints[fp + code[pc + 1]] = code[pc + 2];
+                    pc += 3;
+                    break;
+                case CONST_REF:
+                    refs[fp + code[pc + 1]] = code[pc + 2] < 0 ? null : pool[code[pc + 2]];
+                    pc += 3;
+                    break;
+                case MOVE_INT:
+                    ints[fp + code[pc + 1]] = ints[fp + code[pc + 2]];
+                    pc += 3;
+                    break;
+                case MOVE_REF:
+                    refs[fp + code[pc + 1]] = refs[fp + code[pc + 2]];
+                    pc += 3;
+                    break;
+                case ADD:
+                    ints[fp + code[pc + 1]] = ints[fp + code[pc + 2]] + ints[fp + code[pc + 3]];
+                    pc += 4;
+                    break;
+                case SUB:
+                    ints[fp + code[pc + 1]] = ints[fp + code[pc + 2]] - ints[fp + code[pc + 3]];
+                    pc += 4;
+                    break;
+                case MULT:
+                    ints[fp + code[pc + 1]] = ints[fp + code[pc + 2]] * ints[fp + code[pc + 3]];
+                    pc += 4;
+                    break;
+                case DIV: {
+                    int divisor = ints[fp + code[pc + 3]];
+                    if (divisor == 0)
+                        throw new CmmRuntimeError(code[pc + 4], "Division by zero");
+                    ints[fp + code[pc + 1]] = ints[fp + code[pc + 2]] / divisor;
+                    pc += 5;
+                    break;
+                }
+                case NEG:
+                    ints[fp + code[pc + 1]] = -ints[fp + code[pc + 2]];
+                    pc += 3;
+                    break;
+                case NOT:
+                    ints[fp + code[pc + 1]] = ints[fp + code[pc + 2]] ^ 1;
+                    pc += 3;
+                    break;
+                case LT:
+                    ints[fp + code[pc + 1]] = ints[fp + code[pc + 2]] < ints[fp + code[pc + 3]] ? 1 : 0;
+                    pc += 4;
+                    break;
+                case GT:
+                    ints[fp + code[pc + 1]] = ints[fp + code[pc + 2]] > ints[fp + code[pc + 3]] ? 1 : 0;
+                    pc += 4;
+                    break;
+                case EQ_INT:
+                    ints[fp + code[pc + 1]] = ints[fp + code[pc + 2]] == ints[fp + code[pc + 3]] ? 1 : 0;
+                    pc += 4;
+                    break;
+                case EQ_REF:
+                    ints[fp + code[pc + 1]] = refs[fp + code[pc + 2]] == refs[fp + code[pc + 3]] ? 1 : 0;
+                    pc += 4;
+                    break;
+                case JUMP:
+                    pc = code[pc + 1];
+                    break;
+                case JUMP_IF_FALSE:
+                    pc = ints[fp + code[pc + 1]] == 0 ? code[pc + 2] : pc + 3;
+                    break;
+                case JUMP_IF_TRUE:
+                    pc = ints[fp + code[pc + 1]] != 0 ? code[pc + 2] : pc + 3;
+                    break;
+                case CALL:
+                case CALL_FPTR: {
+                    VmFunction function = code[pc] == CALL ? functions[code[pc + 1]] : (VmFunction) refs[fp + code[pc + 1]];
+                    int calleeFp = fp + code[pc + 2];
+                    if (calleeFp + function.getFrameSize() > STACK_SIZE || sp == calls.length)
+                        throw new CmmRuntimeError(code[pc + 4], "Stack overflow");
+                    calls[sp] = pc + 5;
+                    calls[sp + 1] = fp;
+                    calls[sp + 2] = fp + code[pc + 3];
+                    sp += 3;
+                    fp = calleeFp;
+                    pc = function.getEntry();
+                    break;
+                }
+                case CHECK_FPTR:
+                    if (refs[fp + code[pc + 1]] == null)
+                        throw new CmmRuntimeError(code[pc + 2], "Calling an fptr that has no function");
+                    pc += 3;
+                    break;
+                case RETURN:
+                    if (sp == 0)
+                        return;
+                    sp -= 3;
+                    pc = calls[sp];
+                    fp = calls[sp + 1];
+                    break;
+                case RETURN_INT:
+                    sp -= 3;
+                    ints[calls[sp + 2]] = ints[fp + code[pc + 1]];
+                    pc = calls[sp];
+                    fp = calls[sp + 1];
+                    break;
+                case RETURN_REF:
+                    sp -= 3;
+                    refs[calls[sp + 2]] = refs[fp + code[pc + 1]];
+                    pc = calls[sp];
+                    fp = calls[sp + 1];
+                    break;
+                case MISSING_RETURN:
+                    throw new CmmRuntimeError(code[pc + 1], "Missing return statement for function " + pool[code[pc + 2]]);
+                case NEW_INT_LIST:
+                    refs[fp + code[pc + 1]] = new IntList();
+                    pc += 2;
+                    break;
+                case NEW_REF_LIST:
+                    refs[fp + code[pc + 1]] = new RefList<>();
+                    pc += 2;
+                    break;
+                case NEW_STRUCT:
+                    refs[fp + code[pc + 1]] = new VmStruct(((VmLayout) pool[code[pc + 2]]).fieldCount);
+                    pc += 3;
+                    break;
+                case INT_LIST_GET: {
+                    IntList list = (IntList) refs[fp + code[pc + 2]];
+                    int index = ints[fp + code[pc + 3]];
+                    if (index < 0 || index >= list.size())
+                        throw indexError(code[pc + 4], index, list.size());
+                    ints[fp + code[pc + 1]] = list.get(index);
+                    pc += 5;
+                    break;
+                }
+                case REF_LIST_GET: {
+                    RefList<Object> list = (RefList<Object>) refs[fp + code[pc + 2]];
+                    int index = ints[fp + code[pc + 3]];
+                    if (index < 0 || index >= list.size())
+                        throw indexError(code[pc + 4], index, list.size());
+                    refs[fp + code[pc + 1]] = list.get(index);
+                    pc += 5;
+                    break;
+                }
+                case INT_LIST_SET: {
+                    IntList list = (IntList) refs[fp + code[pc + 1]];
+                    int index = ints[fp + code[pc + 2]];
+                    if (index < 0 || index >= list.size())
+                        throw indexError(code[pc + 4], index, list.size());
+                    list.set(index, ints[fp + code[pc + 3]]);
+                    pc += 5;
+                    break;
+                }
+                case REF_LIST_SET: {
+                    RefList<Object> list = (RefList<Object>) refs[fp + code[pc + 1]];
+                    int index = ints[fp + code[pc + 2]];
+                    if (index < 0 || index >= list.size())
+                        throw indexError(code[pc + 4], index, list.size());
+                    list.set(index, refs[fp + code[pc + 3]]);
+                    pc += 5;
+                    break;
+                }
+                case INT_LIST_APPEND:
+                    ((IntList) refs[fp + code[pc + 1]]).add(ints[fp + code[pc + 2]]);
+                    pc += 3;
+                    break;
+                case REF_LIST_APPEND:
+                    ((RefList<Object>) refs[fp + code[pc + 1]]).add(refs[fp + code[pc + 2]]);
+                    pc += 3;
+                    break;
+                case INT_LIST_SIZE:
+                    ints[fp + code[pc + 1]] = ((IntList) refs[fp + code[pc + 2]]).size();
+                    pc += 3;
+                    break;
+                case REF_LIST_SIZE:
+                    ints[fp + code[pc + 1]] = ((RefList<Object>) refs[fp + code[pc + 2]]).size();
+                    pc += 3;
+                    break;
+                case FIELD_GET_INT:
+                    ints[fp + code[pc + 1]] = ((VmStruct) refs[fp + code[pc + 2]]).ints[code[pc + 3]];
+                    pc += 4;
+                    break;
+                case FIELD_GET_REF:
+                    refs[fp + code[pc + 1]] = ((VmStruct) refs[fp + code[pc + 2]]).refs[code[pc + 3]];
+                    pc += 4;
+                    break;
+                case FIELD_SET_INT:
+                    ((VmStruct) refs[fp + code[pc + 1]]).ints[code[pc + 2]] = ints[fp + code[pc + 3]];
+                    pc += 4;
+                    break;
+                case FIELD_SET_REF:
+                    ((VmStruct) refs[fp + code[pc + 1]]).refs[code[pc + 2]] = refs[fp + code[pc + 3]];
+                    pc += 4;
+                    break;
+                case DISPLAY_INT:
+                    out.println(ints[fp + code[pc + 1]]);
+                    pc += 2;
+                    break;
+                case DISPLAY_BOOL:
+                    out.println(ints[fp + code[pc + 1]] != 0);
+                    pc += 2;
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown opcode " + code[pc] + " at " + pc);
+            }
+        }
+    }
+}
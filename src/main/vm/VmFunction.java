@@ -0,0 +1,43 @@
+package main.vm;
+
+//a function, main, accessor or struct init in the code array; this is the run time value of an fptr
+public class VmFunction {
+    private final String name;
+    private final int line;
+    private final boolean returnsValue;
+    private int entry;
+    private int frameSize;
+
+    VmFunction(String name, int line, boolean returnsValue) {
+        this.name = name;
+        this.line = line;
+        this.returnsValue = returnsValue;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public boolean returnsValue() {
+        return returnsValue;
+    }
+
+    //code address of the first instruction
+    public int getEntry() {
+        return entry;
+    }
+
+    //registers the function uses, its arguments are the first ones
+    public int getFrameSize() {
+        return frameSize;
+    }
+
+    void setCode(int entry, int frameSize) {
+        this.entry = entry;
+        this.frameSize = frameSize;
+    }
+}
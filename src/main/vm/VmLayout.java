@@ -0,0 +1,17 @@
+package main.vm;
+
+//constant pool entry for NEW_STRUCT
+final class VmLayout {
+    final String name;
+    final int fieldCount;
+
+    VmLayout(String name, int fieldCount) {
+        this.name = name;
+        this.fieldCount = fieldCount;
+    }
+
+    @Override
+    public String toString() {
+        return "struct " + name;
+    }
+}
@@ -0,0 +1,12 @@
+package main.vm;
+
+//instance of a struct; a field uses the lane of its type, like a register
+final class VmStruct {
+    final int[] ints;
+    final Object[] refs;
+
+    VmStruct(int fieldCount) {
+        ints = new int[fieldCount];
+        refs = new Object[fieldCount];
+    }
+}
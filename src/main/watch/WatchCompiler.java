@@ -0,0 +1,201 @@
+package main.watch;
+
+import main.CmmCompiler;
+import main.ast.nodes.Program;
+import main.compileError.CompileError;
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+//Recompiles .cmm files when they change and prints how their diagnostics changed. Every directory under
+//the watched roots is registered with a WatchService, so an idle watch just blocks in take(). Events are
+//coalesced until DEBOUNCE_MILLIS pass without a new one and each changed file is compiled once.
+//The diagnostics of all files stay resident; a C-- file can't import another, so only the changed files
+//themselves have to be compiled again.
+public class WatchCompiler {
+    public static final String EXTENSION = ".cmm";
+    private static final long DEBOUNCE_MILLIS = 150;
+
+    private final List<Path> roots;
+    private final CmmCompiler cmmCompiler = new CmmCompiler();
+    private final Map<Path, List<String>> diagnostics = new HashMap<>();
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+    //the values of directories, so registering a tree doesn't scan the map for every directory in it
+    private final Set<Path> registered = new HashSet<>();
+    private WatchService watchService;
+
+    public WatchCompiler(List<Path> roots) {
+        this.roots = new ArrayList<>();
+        for (Path root : roots)
+            this.roots.add(root.toAbsolutePath().normalize());
+    }
+
+    public void run() throws IOException, InterruptedException {
+        watchService = FileSystems.getDefault().newWatchService();
+        TreeSet<Path> files = new TreeSet<>();
+        for (Path root : roots) {
+            if (Files.isDirectory(root))
+                register(root, files);
+            else
+                files.add(root);
+        }
+        for (Path root : roots)
+            if (!Files.isDirectory(root))
+                registerDirectory(root.getParent());
+        System.out.println("Watching " + files.size() + " files");
+        for (Path file : files)
+            update(file);
+
+        while (true) {
+            TreeSet<Path> changed = new TreeSet<>();
+            WatchKey key = watchService.take();
+            boolean rescan = false;
+            while (key != null) {
+                rescan |= collect(key, changed);
+                key = watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+            }
+            //events were lost, compare the whole tree
+            if (rescan) {
+                for (Path root : roots)
+                    if (Files.isDirectory(root))
+                        register(root, changed);
+                //every file update() has seen, including the ones that failed to compile
+                changed.addAll(diagnostics.keySet());
+            }
+            for (Path file : changed)
+                update(file);
+        }
+    }
+
+    private void registerDirectory(Path directory) throws IOException {
+        WatchKey key = directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+        directories.put(key, directory);
+        registered.add(directory);
+    }
+
+    //registers directory and everything below it, adding the source files found to files
+    private void register(Path directory, Set<Path> files) throws IOException {
+        Files.walkFileTree(directory, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes) throws IOException {
+                if (!registered.contains(dir))
+                    registerDirectory(dir);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                if (isWatched(file))
+                    files.add(file);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private boolean isWatched(Path file) {
+        if (roots.contains(file))
+            return true;
+        if (!file.toString().endsWith(EXTENSION))
+            return false;
+        for (Path root : roots)
+            if (file.startsWith(root) && !file.equals(root) && Files.isDirectory(root))
+                return true;
+        return false;
+    }
+
+    //returns true if events were lost
+    private boolean collect(WatchKey key, Set<Path> changed) throws IOException {
+        Path directory = directories.get(key);
+        boolean overflow = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                overflow = true;
+                continue;
+            }
+            Path path = directory.resolve((Path) event.context());
+            if (event.kind() == ENTRY_CREATE && Files.isDirectory(path) && isUnderDirectoryRoot(path))
+                register(path, changed);
+            else if (isWatched(path))
+                changed.add(path);
+        }
+        if (!key.reset())
+            registered.remove(directories.remove(key));
+        return overflow;
+    }
+
+    private boolean isUnderDirectoryRoot(Path path) {
+        for (Path root : roots)
+            if (path.startsWith(root) && Files.isDirectory(root))
+                return true;
+        return false;
+    }
+
+    private void update(Path file) {
+        List<String> previous = diagnostics.getOrDefault(file, Collections.emptyList());
+        if (!Files.isRegularFile(file)) {
+            if (diagnostics.remove(file) != null)
+                System.out.println(file + ": removed");
+            return;
+        }
+
+        ArrayList<String> current = new ArrayList<>();
+        try {
+            compile(file, current);
+        } catch (IOException e) {
+            current.add("cannot read file: " + e.getMessage());
+        } catch (RuntimeException e) {
+            //keep watching when the checker fails on a half-written file
+            current.add("internal error: " + e);
+        }
+        diagnostics.put(file, current);
+        printDelta(file, previous, current);
+    }
+
+    private void compile(Path file, ArrayList<String> messages) throws IOException {
+        cmmCompiler.setSyntaxErrorListener(new BaseErrorListener() {
+            @Override
+            public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                                    int charPositionInLine, String msg, RecognitionException e) {
+                messages.add("line " + line + ":" + charPositionInLine + " " + msg);
+            }
+        });
+        Program program = cmmCompiler.parse(CharStreams.fromPath(file));
+        for (CompileError compileError : cmmCompiler.check(program))
+            messages.add(compileError.getMessage());
+    }
+
+    //messages of from that are not matched by one in other, counting repeated messages
+    private static ArrayList<String> subtract(List<String> from, List<String> other) {
+        HashMap<String, Integer> unmatched = new HashMap<>();
+        for (String message : other)
+            unmatched.merge(message, 1, Integer::sum);
+        ArrayList<String> difference = new ArrayList<>();
+        for (String message : from) {
+            if (unmatched.getOrDefault(message, 0) > 0)
+                unmatched.merge(message, -1, Integer::sum);
+            else
+                difference.add(message);
+        }
+        return difference;
+    }
+
+    private static void printDelta(Path file, List<String> previous, List<String> current) {
+        ArrayList<String> fixed = subtract(previous, current);
+        ArrayList<String> added = subtract(current, previous);
+        System.out.println(file + ": " + (current.isEmpty() ? "no errors" : current.size() + (current.size() == 1 ? " error" : " errors"))
+                + " (" + added.size() + " new, " + fixed.size() + " fixed)");
+        for (String message : fixed)
+            System.out.println("  - " + message);
+        for (String message : added)
+            System.out.println("  + " + message);
+    }
+}
@@ -2278,6 +2278,7 @@ public class CmmParser extends Parser {
 			((DoWhileLoopStatementContext)_localctx).bd = body();
 			_localctx.stmt.setBody(((DoWhileLoopStatementContext)_localctx).bd.bodyRet);
 			     _localctx.stmt.setLine(((DoWhileLoopStatementContext)_localctx).d.getLine());
+			     _localctx.stmt.setDoWhile(true);
 			setState(440);
 			_errHandler.sync(this);
 			_la = _input.LA(1);